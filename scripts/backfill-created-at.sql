@@ -0,0 +1,18 @@
+-- 學生、成績、考勤、獎懲列表按 (created_at, id) 鍵集分頁，created_at 為空的行會被比較條件排除而無法翻到
+-- ddl-auto: update 不會修改已有列的可空性，升級已有數據的數據庫時執行一次：
+--   docker-compose exec -T mysql mysql -uroot -ppassword student_management < scripts/backfill-created-at.sql
+-- 空值用更新時間回填，兩者都為空時視為最早的記錄，隨後把列改為 NOT NULL
+
+USE student_management;
+
+UPDATE students SET created_at = COALESCE(updated_at, '1970-01-01 00:00:00') WHERE created_at IS NULL;
+ALTER TABLE students MODIFY created_at DATETIME(6) NOT NULL;
+
+UPDATE grades SET created_at = COALESCE(updated_at, '1970-01-01 00:00:00') WHERE created_at IS NULL;
+ALTER TABLE grades MODIFY created_at DATETIME(6) NOT NULL;
+
+UPDATE attendances SET created_at = COALESCE(updated_at, '1970-01-01 00:00:00') WHERE created_at IS NULL;
+ALTER TABLE attendances MODIFY created_at DATETIME(6) NOT NULL;
+
+UPDATE reward_punishments SET created_at = COALESCE(updated_at, '1970-01-01 00:00:00') WHERE created_at IS NULL;
+ALTER TABLE reward_punishments MODIFY created_at DATETIME(6) NOT NULL;
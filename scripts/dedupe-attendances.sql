@@ -0,0 +1,26 @@
+-- 為考勤表添加 (學生, 課程, 日期) 唯一約束 uk_attendances_student_course_date
+-- ddl-auto: update 遇到已有重複記錄時只打印警告並跳過該約束，因此升級已有數據的數據庫時需先執行一次本腳本：
+--   docker-compose exec -T mysql mysql -uroot -ppassword student_management < scripts/dedupe-attendances.sql
+-- 每組重複記錄保留最後更新的一條（更新時間相同時保留 ID 較大者），其餘刪除
+-- 約束已存在時最後一步會報 Duplicate key name，可忽略
+
+USE student_management;
+
+-- 刪除前可先查看將被合併的記錄
+SELECT student_id, course_id, date, COUNT(*) AS records
+FROM attendances
+GROUP BY student_id, course_id, date
+HAVING COUNT(*) > 1;
+
+DELETE older
+FROM attendances older
+JOIN attendances newer
+  ON newer.student_id = older.student_id
+ AND newer.course_id = older.course_id
+ AND newer.date = older.date
+ AND (COALESCE(newer.updated_at, newer.created_at, '1970-01-01') > COALESCE(older.updated_at, older.created_at, '1970-01-01')
+      OR (COALESCE(newer.updated_at, newer.created_at, '1970-01-01') = COALESCE(older.updated_at, older.created_at, '1970-01-01')
+          AND newer.id > older.id));
+
+ALTER TABLE attendances
+  ADD CONSTRAINT uk_attendances_student_course_date UNIQUE (student_id, course_id, date);
@@ -0,0 +1,43 @@
+-- 將現有 MySQL 部署的主鍵從 AUTO_INCREMENT 遷移到 pooled-lo 序列
+-- 升級後首次啟動應用之前執行一次：
+--   docker-compose exec -T mysql mysql -uroot -ppassword student_management < scripts/migrate-ids-to-sequences.sql
+-- MySQL 不支持序列，Hibernate 以單行表 <表名>_seq(next_val) 模擬，next_val 為下一批 ID 的起點
+-- 原有 id 列的 AUTO_INCREMENT 屬性可保留，應用插入時總是顯式提供 ID
+
+USE student_management;
+
+CREATE TABLE IF NOT EXISTS users_seq (next_val BIGINT) ENGINE=InnoDB;
+DELETE FROM users_seq;
+INSERT INTO users_seq SELECT COALESCE(MAX(id), 0) + 1 FROM users;
+
+CREATE TABLE IF NOT EXISTS teachers_seq (next_val BIGINT) ENGINE=InnoDB;
+DELETE FROM teachers_seq;
+INSERT INTO teachers_seq SELECT COALESCE(MAX(id), 0) + 1 FROM teachers;
+
+CREATE TABLE IF NOT EXISTS classes_seq (next_val BIGINT) ENGINE=InnoDB;
+DELETE FROM classes_seq;
+INSERT INTO classes_seq SELECT COALESCE(MAX(id), 0) + 1 FROM classes;
+
+CREATE TABLE IF NOT EXISTS courses_seq (next_val BIGINT) ENGINE=InnoDB;
+DELETE FROM courses_seq;
+INSERT INTO courses_seq SELECT COALESCE(MAX(id), 0) + 1 FROM courses;
+
+CREATE TABLE IF NOT EXISTS course_schedules_seq (next_val BIGINT) ENGINE=InnoDB;
+DELETE FROM course_schedules_seq;
+INSERT INTO course_schedules_seq SELECT COALESCE(MAX(id), 0) + 1 FROM course_schedules;
+
+CREATE TABLE IF NOT EXISTS students_seq (next_val BIGINT) ENGINE=InnoDB;
+DELETE FROM students_seq;
+INSERT INTO students_seq SELECT COALESCE(MAX(id), 0) + 1 FROM students;
+
+CREATE TABLE IF NOT EXISTS grades_seq (next_val BIGINT) ENGINE=InnoDB;
+DELETE FROM grades_seq;
+INSERT INTO grades_seq SELECT COALESCE(MAX(id), 0) + 1 FROM grades;
+
+CREATE TABLE IF NOT EXISTS attendances_seq (next_val BIGINT) ENGINE=InnoDB;
+DELETE FROM attendances_seq;
+INSERT INTO attendances_seq SELECT COALESCE(MAX(id), 0) + 1 FROM attendances;
+
+CREATE TABLE IF NOT EXISTS reward_punishments_seq (next_val BIGINT) ENGINE=InnoDB;
+DELETE FROM reward_punishments_seq;
+INSERT INTO reward_punishments_seq SELECT COALESCE(MAX(id), 0) + 1 FROM reward_punishments;
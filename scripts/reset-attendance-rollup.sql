@@ -0,0 +1,12 @@
+-- 為考勤日匯總表添加 (日期, 課程, 班級) 唯一約束 uk_attendance_daily_rollup_date_course_class
+-- 舊版本多個節點同時重算時可能產生重複的匯總行，ddl-auto: update 遇到重複記錄會跳過該約束，因此升級時需先執行一次本腳本：
+--   docker-compose exec -T mysql mysql -uroot -ppassword student_management < scripts/reset-attendance-rollup.sql
+-- 日匯總可由考勤表重新計算：清空後新版本啟動時的回填會重建全部日期
+-- 約束已存在時最後一步會報 Duplicate key name，可忽略
+
+USE student_management;
+
+DELETE FROM attendance_daily_rollup;
+
+ALTER TABLE attendance_daily_rollup
+  ADD CONSTRAINT uk_attendance_daily_rollup_date_course_class UNIQUE (date, course_id, class_id);
@@ -0,0 +1,14 @@
+-- 為學期匯總表添加 (學生, 學年, 學期) 唯一約束 uk_student_term_summary_term
+-- 舊版本並發寫成績時可能產生重複的學期行，ddl-auto: update 遇到重複記錄會跳過該約束，因此升級時需先執行一次本腳本：
+--   docker-compose exec -T mysql mysql -uroot -ppassword student_management < scripts/reset-term-summaries.sql
+-- 學期匯總可由成績表重新計算：清空學期行並把學業匯總標記為待重算，新版本啟動時的偏差檢查會重算全部學生
+-- 約束已存在時最後一步會報 Duplicate key name，可忽略
+
+USE student_management;
+
+DELETE FROM student_term_summary;
+
+UPDATE student_academic_summary SET updated_at = NULL;
+
+ALTER TABLE student_term_summary
+  ADD CONSTRAINT uk_student_term_summary_term UNIQUE (student_id, academic_year, semester);
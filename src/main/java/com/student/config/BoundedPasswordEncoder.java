@@ -0,0 +1,208 @@
+package com.student.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// BCrypt 在固定大小的專用線程池上計算，請求線程只等待結果；隊列寫滿或等待超時即拒絕，登錄高峰不會佔滿全部 CPU 與請求線程
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder {
+    
+    // $2a$10$...，第二段為成本因子
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+    
+    private final BCryptPasswordEncoder delegate;
+    
+    private final int strength;
+    
+    private final ThreadPoolExecutor executor;
+    
+    // 請求線程等待排隊與哈希的總時長上限
+    private final long maxWaitNanos;
+    
+    private final Timing queueWait = new Timing();
+    
+    private final Timing hashTime = new Timing();
+    
+    private final LongAdder rejected = new LongAdder();
+    
+    private final LongAdder upgrades = new LongAdder();
+    
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, long maxWaitMillis) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    // 在限定等待時間內能處理完的排隊數：線程數 × 可接受等待 / 單次哈希耗時（啟動時實測，第一次含預熱不計）
+    public static int queueCapacityFor(int strength, int threads, long maxWaitMillis) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(strength);
+        probe.encode("calibration");
+        long started = System.nanoTime();
+        probe.encode("calibration");
+        long hashMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return (int) Math.max(1, threads * maxWaitMillis / hashMillis);
+    }
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+    
+    // 成本因子與配置不同（調高或調低）都在下次登錄成功時重新哈希
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+    
+    public void recordUpgrade() {
+        upgrades.increment();
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("strength", strength);
+        statistics.put("threads", executor.getMaximumPoolSize());
+        statistics.put("active", executor.getActiveCount());
+        statistics.put("queued", executor.getQueue().size());
+        statistics.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        statistics.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+        statistics.put("completed", hashTime.count.sum());
+        statistics.put("rejected", rejected.sum());
+        statistics.put("upgraded", upgrades.sum());
+        statistics.put("queueWait", queueWait.toMap());
+        statistics.put("hashTime", hashTime.toMap());
+        return statistics;
+    }
+    
+    // 與 getStatistics 同源的指標，由 Actuator 自動綁定到 MeterRegistry
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("正在計算的密碼哈希數").register(registry);
+        Gauge.builder("password.hash.queued", executor, e -> e.getQueue().size())
+                .description("等待哈希的登錄請求數").register(registry);
+        FunctionCounter.builder("password.hash.rejected", rejected, LongAdder::sum)
+                .description("隊列已滿或等待超時被拒絕的請求數").register(registry);
+        FunctionCounter.builder("password.hash.upgraded", upgrades, LongAdder::sum)
+                .description("登錄時按新成本因子重新哈希的密碼數").register(registry);
+        queueWait.bindTo(registry, "password.hash.queue.wait");
+        hashTime.bindTo(registry, "password.hash.time");
+    }
+    
+    public void shutdown() {
+        executor.shutdown();
+    }
+    
+    private <T> T submit(Callable<T> task) {
+        long enqueued = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                queueWait.record(started - enqueued);
+                try {
+                    return task.call();
+                } finally {
+                    hashTime.record(System.nanoTime() - started);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("登錄人數過多，請稍後重試");
+        }
+        try {
+            return future.get(maxWaitNanos - (System.nanoTime() - enqueued), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // 還在排隊的任務取消後不再計算；已在計算的無法中斷，結果丟棄
+            future.cancel(false);
+            executor.purge();
+            rejected.increment();
+            throw new PasswordHashingBusyException("登錄人數過多，請稍後重試");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("密碼校驗被中斷");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+    
+    // 繼承 InternalAuthenticationServiceException：ProviderManager 直接拋出，不再交給父級認證管理器重試
+    public static class PasswordHashingBusyException extends InternalAuthenticationServiceException {
+        
+        public PasswordHashingBusyException(String message) {
+            super(message);
+        }
+    }
+    
+    // 次數、總耗時與最大值，單位納秒，輸出時換算為毫秒
+    private static final class Timing {
+        
+        private final LongAdder count = new LongAdder();
+        
+        private final LongAdder totalNanos = new LongAdder();
+        
+        private final AtomicLong maxNanos = new AtomicLong();
+        
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+        
+        private void bindTo(MeterRegistry registry, String name) {
+            FunctionTimer.builder(name, this, timing -> timing.count.sum(), timing -> timing.totalNanos.sum(),
+                    TimeUnit.NANOSECONDS).register(registry);
+        }
+        
+        private Map<String, Object> toMap() {
+            long samples = count.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", samples);
+            map.put("meanMillis", samples > 0 ? Math.round(totalNanos.sum() / (double) samples / 10_000) / 100.0 : 0.0);
+            map.put("maxMillis", Math.round(maxNanos.get() / 10_000.0) / 100.0);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.student.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.OptionalLong;
+
+// Hibernate 二級緩存與查詢緩存，由 Caffeine 實現的 JCache 提供存儲
+@Configuration
+public class CacheConfig {
+    
+    // 實體區域
+    public static final String COURSE_REGION = "course";
+    public static final String CLASS_REGION = "class";
+    public static final String TEACHER_REGION = "teacher";
+    public static final String COURSE_SCHEDULE_REGION = "course-schedule";
+    
+    // 集合區域，僅保存元素 ID
+    public static final String COURSE_SCHEDULES_REGION = "course.schedules";
+    
+    // 查詢緩存區域，名稱由 Hibernate 固定
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+    
+    // 受容量與過期時間約束的區域
+    public static final String[] BOUNDED_REGIONS = {
+            COURSE_REGION, CLASS_REGION, TEACHER_REGION, COURSE_SCHEDULE_REGION,
+            COURSE_SCHEDULES_REGION, QUERY_RESULTS_REGION
+    };
+    
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(CacheProperties properties) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        for (String region : BOUNDED_REGIONS) {
+            createCache(cacheManager, region, properties.resolve(region));
+        }
+        // 時間戳區域記錄各表最後修改時間，淘汰或過期會令查詢緩存返回舊結果，因此不設上限
+        createCache(cacheManager, UPDATE_TIMESTAMPS_REGION, new CacheProperties.Region());
+        return cacheManager;
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager,
+                                                                    CacheProperties properties) {
+        return hibernateProperties -> {
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, properties.isStatisticsEnabled());
+        };
+    }
+    
+    private void createCache(CacheManager cacheManager, String name, CacheProperties.Region region) {
+        // 開發工具熱重啟時沿用同一個 CacheManager，先移除舊區域
+        if (cacheManager.getCache(name) != null) {
+            cacheManager.destroyCache(name);
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        if (region.getMaxSize() != null) {
+            configuration.setMaximumSize(OptionalLong.of(region.getMaxSize()));
+        }
+        if (region.getTtl() != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(region.getTtl().toNanos()));
+        }
+        cacheManager.createCache(name, configuration);
+    }
+}
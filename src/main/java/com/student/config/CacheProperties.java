@@ -0,0 +1,80 @@
+package com.student.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 二級緩存各區域的容量與過期時間，對應 application.yml 中的 app.cache
+@Component
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheProperties {
+    
+    // 是否收集命中率統計
+    private boolean statisticsEnabled = true;
+    
+    // 未單獨配置的區域使用的默認值
+    private Region defaults = new Region();
+    
+    // 按區域名稱配置，未填的項沿用 defaults
+    private Map<String, Region> regions = new LinkedHashMap<>();
+    
+    public Region resolve(String name) {
+        Region region = regions.get(name);
+        Region resolved = new Region();
+        resolved.setMaxSize(region != null && region.getMaxSize() != null ? region.getMaxSize() : defaults.getMaxSize());
+        resolved.setTtl(region != null && region.getTtl() != null ? region.getTtl() : defaults.getTtl());
+        return resolved;
+    }
+    
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+    
+    public void setStatisticsEnabled(boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+    
+    public Region getDefaults() {
+        return defaults;
+    }
+    
+    public void setDefaults(Region defaults) {
+        this.defaults = defaults;
+    }
+    
+    public Map<String, Region> getRegions() {
+        return regions;
+    }
+    
+    public void setRegions(Map<String, Region> regions) {
+        this.regions = regions;
+    }
+    
+    public static class Region {
+        
+        // 最多緩存的條目數
+        private Long maxSize;
+        
+        // 寫入後的存活時間
+        private Duration ttl;
+        
+        public Long getMaxSize() {
+            return maxSize;
+        }
+        
+        public void setMaxSize(Long maxSize) {
+            this.maxSize = maxSize;
+        }
+        
+        public Duration getTtl() {
+            return ttl;
+        }
+        
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
@@ -10,8 +10,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
@@ -125,6 +128,7 @@ public class DataInitializer implements CommandLineRunner {
     private void createGradeData(List<Student> students, List<Course> courses) {
         System.out.println("📊 創建成績數據...");
         
+        List<Grade> grades = new ArrayList<>();
         for (Student student : students) {
             for (Course course : courses) {
                 if (random.nextBoolean()) { // 隨機為學生創建某些課程的成績
@@ -147,10 +151,12 @@ public class DataInitializer implements CommandLineRunner {
                     grade.setCreatedAt(LocalDateTime.now().minusDays(random.nextInt(30)));
                     grade.setUpdatedAt(LocalDateTime.now());
                     
-                    gradeService.saveGrade(grade);
+                    grades.add(grade);
                 }
             }
         }
+        // 一次事務批量插入
+        gradeService.saveAllGrades(grades);
     }
     
     private void createAttendanceData(List<Student> students, List<Course> courses) {
@@ -159,16 +165,21 @@ public class DataInitializer implements CommandLineRunner {
         LocalDate startDate = LocalDate.now().minusDays(30);
         LocalDate endDate = LocalDate.now();
         
+        List<Attendance> attendances = new ArrayList<>();
         for (Student student : students) {
             for (Course course : courses) {
                 // 為每個學生在每門課程中創建一些考勤記錄
+                Set<LocalDate> usedDates = new HashSet<>();
                 for (int i = 0; i < 5 + random.nextInt(10); i++) {
+                    // 隨機日期，每人每課每天最多一條記錄
+                    long randomDay = random.nextInt((int)(endDate.toEpochDay() - startDate.toEpochDay()));
+                    if (!usedDates.add(startDate.plusDays(randomDay))) {
+                        continue;
+                    }
+                    
                     Attendance attendance = new Attendance();
                     attendance.setStudent(student);
                     attendance.setCourse(course);
-                    
-                    // 隨機日期
-                    long randomDay = random.nextInt((int)(endDate.toEpochDay() - startDate.toEpochDay()));
                     attendance.setDate(startDate.plusDays(randomDay));
                     
                     // 隨機考勤狀態
@@ -193,10 +204,11 @@ public class DataInitializer implements CommandLineRunner {
                     attendance.setCreatedAt(LocalDateTime.now().minusDays(random.nextInt(30)));
                     attendance.setUpdatedAt(LocalDateTime.now());
                     
-                    attendanceService.saveAttendance(attendance);
+                    attendances.add(attendance);
                 }
             }
         }
+        attendanceService.saveAllAttendance(attendances);
     }
     
     private void createRewardPunishmentData(List<Student> students) {
@@ -205,6 +217,7 @@ public class DataInitializer implements CommandLineRunner {
         String[] rewardTypes = {"獎學金", "三好學生", "優秀學生幹部", "學習進步獎", "文體活動獎"};
         String[] punishmentTypes = {"警告", "嚴重警告", "記過", "留校察看"};
         
+        List<RewardPunishment> records = new ArrayList<>();
         for (Student student : students) {
             // 隨機為部分學生創建獎懲記錄
             if (random.nextInt(100) < 60) { // 60%的學生有記錄
@@ -244,9 +257,10 @@ public class DataInitializer implements CommandLineRunner {
                 record.setCreatedAt(LocalDateTime.now().minusDays(random.nextInt(30)));
                 record.setUpdatedAt(LocalDateTime.now());
                 
-                rewardPunishmentService.saveRewardPunishment(record);
+                records.add(record);
             }
         }
+        rewardPunishmentService.saveAllRewardPunishments(records);
     }
     
     private void printDataStatistics() {
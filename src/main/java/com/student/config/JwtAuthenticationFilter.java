@@ -0,0 +1,82 @@
+package com.student.config;
+
+import com.student.entity.User;
+import com.student.service.JwtTokenService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
+
+// API 路徑的 Bearer 令牌認證：只在內存中校驗簽名與吊銷列表，不讀數據庫；沒有令牌的請求仍走會話登錄
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    
+    private static final String BEARER_PREFIX = "Bearer ";
+    
+    // 監控端點同樣接受令牌，Prometheus 等採集器無需維持登錄會話
+    private static final RequestMatcher API_PATH = new OrRequestMatcher(
+            new AntPathRequestMatcher("/**/api/**"), new AntPathRequestMatcher("/actuator/**"));
+    
+    // 採集專用令牌只能訪問 Prometheus 端點
+    private static final RequestMatcher SCRAPE_PATH = new AntPathRequestMatcher("/actuator/prometheus");
+    
+    public static final String METRICS_ROLE = "METRICS";
+    
+    // 帶 Bearer 令牌的 API 請求，由無狀態的過濾鏈處理
+    public static final RequestMatcher BEARER_API_REQUEST = request -> {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return header != null && header.startsWith(BEARER_PREFIX) && API_PATH.matches(request);
+    };
+    
+    private final JwtTokenService jwtTokenService;
+    
+    // 為空表示未啟用採集令牌
+    private final byte[] scrapeToken;
+    
+    public JwtAuthenticationFilter(JwtTokenService jwtTokenService, String scrapeToken) {
+        this.jwtTokenService = jwtTokenService;
+        this.scrapeToken = scrapeToken != null && !scrapeToken.isEmpty()
+                ? scrapeToken.getBytes(StandardCharsets.UTF_8) : null;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = request.getHeader(HttpHeaders.AUTHORIZATION).substring(BEARER_PREFIX.length()).trim();
+        if (scrapeToken != null && SCRAPE_PATH.matches(request)
+                && MessageDigest.isEqual(scrapeToken, token.getBytes(StandardCharsets.UTF_8))) {
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(new UsernamePasswordAuthenticationToken("prometheus", null,
+                    AuthorityUtils.createAuthorityList("ROLE_" + METRICS_ROLE)));
+            SecurityContextHolder.setContext(context);
+            chain.doFilter(request, response);
+            return;
+        }
+        Optional<User> user = jwtTokenService.authenticate(token);
+        if (!user.isPresent()) {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.setContentType("application/json;charset=UTF-8");
+            response.getWriter().write("{\"error\":\"令牌無效、已過期或已吊銷\"}");
+            return;
+        }
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(user.get(), null, user.get().getAuthorities()));
+        SecurityContextHolder.setContext(context);
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,42 @@
+package com.student.config;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// 監控指標：Hikari 連接池、Hibernate 統計與 JVM 指標由 Actuator 自動註冊，這裡只補充應用自身的標籤
+@Configuration
+public class MetricsConfig {
+    
+    // 請求耗時按控制器分組，同一控制器下的 URI 模板可在查詢時再聚合
+    @Bean
+    public WebMvcTagsContributor controllerTagsContributor() {
+        return new WebMvcTagsContributor() {
+            
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                         Throwable exception) {
+                return Tags.of(controllerTag(handler));
+            }
+            
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return Tags.of(controllerTag(handler));
+            }
+        };
+    }
+    
+    private static Tag controllerTag(Object handler) {
+        // 靜態資源、過濾器直接返回等沒有控制器方法的請求
+        if (!(handler instanceof HandlerMethod)) {
+            return Tag.of("controller", "none");
+        }
+        return Tag.of("controller", ((HandlerMethod) handler).getBeanType().getSimpleName());
+    }
+}
@@ -1,18 +1,27 @@
 package com.student.config;
 
+import com.student.service.JwtTokenService;
 import com.student.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.config.annotation.web.configurers.ExpressionUrlAuthorizationConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 @Configuration
@@ -23,44 +32,91 @@ public class SecurityConfig {
     @Autowired
     private UserService userService;
     
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Autowired
+    private JwtTokenService jwtTokenService;
+    
+    @Value("${app.security.scrape-token:}")
+    private String scrapeToken;
+    
+    // 靜態工廠方法：UserServiceImpl 注入編碼器，實例方法會與本配置類形成循環依賴；未配置線程數時保留一半核心給其他請求
+    // 排隊的登錄各佔一個 Tomcat 請求線程，隊列不超過請求線程的四分之一，高峰時其餘請求仍有線程可用
+    @Bean(destroyMethod = "shutdown")
+    public static BoundedPasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength:10}") int strength,
+                                                         @Value("${app.security.bcrypt.threads:0}") int threads,
+                                                         @Value("${app.security.bcrypt.queue-capacity:0}") int queueCapacity,
+                                                         @Value("${app.security.bcrypt.max-wait:2000}") long maxWaitMillis,
+                                                         @Value("${server.tomcat.threads.max:200}") int requestThreads) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int capacity = queueCapacity > 0 ? queueCapacity
+                : BoundedPasswordEncoder.queueCapacityFor(strength, poolSize, maxWaitMillis);
+        capacity = Math.max(1, Math.min(capacity, requestThreads / 4));
+        System.out.println("密碼哈希線程 " + poolSize + "，等待隊列 " + capacity + "，最長等待 " + maxWaitMillis + "ms");
+        return new BoundedPasswordEncoder(strength, poolSize, capacity, maxWaitMillis);
     }
     
+    // 只註冊為全局認證管理器的提供者：同時加到過濾鏈上時，密碼錯誤會交給父級管理器再校驗一次 BCrypt
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(BoundedPasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // 成本因子變更後，登錄成功時用本次提交的明文重新哈希
+        authProvider.setUserDetailsPasswordService((user, newPassword) -> {
+            passwordEncoder.recordUpgrade();
+            return userService.updatePassword(user, newPassword);
+        });
         return authProvider;
     }
     
+    // 哈希線程池已滿時返回 503，其餘失敗仍回到登錄頁
+    @Bean
+    public AuthenticationFailureHandler authenticationFailureHandler() {
+        AuthenticationFailureHandler loginPage = new SimpleUrlAuthenticationFailureHandler("/login?error=true");
+        return (request, response, exception) -> {
+            if (exception instanceof BoundedPasswordEncoder.PasswordHashingBusyException) {
+                // 直接寫出響應：錯誤頁轉發對匿名請求會被重定向回登錄頁
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.setContentType("text/plain;charset=UTF-8");
+                response.getWriter().write(exception.getMessage());
+                return;
+            }
+            loginPage.onAuthenticationFailure(request, response, exception);
+        };
+    }
+    
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
     }
     
+    // 帶 Bearer 令牌的 API 請求：無狀態，不讀寫會話，也不需要 CSRF 令牌（瀏覽器不會自動附帶 Authorization 頭）
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    @Order(1)
+    public SecurityFilterChain apiFilterChain(HttpSecurity http) throws Exception {
         return http
-            .authorizeRequests(authz -> authz
-                .antMatchers("/", "/home", "/css/**", "/js/**", "/images/**", "/uploads/**").permitAll()
-                .antMatchers("/login", "/register").permitAll()
-                .antMatchers("/admin/**").hasRole("ADMIN")
-                .antMatchers("/teachers/**").hasAnyRole("ADMIN", "TEACHER")
-                .antMatchers("/students/**").hasAnyRole("ADMIN", "TEACHER")
-                .antMatchers("/classes/**").hasAnyRole("ADMIN", "TEACHER")
-                .antMatchers("/courses/**").hasAnyRole("ADMIN", "TEACHER")
-                .antMatchers("/grades/**").hasAnyRole("ADMIN", "TEACHER")
-                .antMatchers("/attendance/**").hasAnyRole("ADMIN", "TEACHER")
-                .antMatchers("/reports/**").hasAnyRole("ADMIN", "TEACHER")
-                .anyRequest().authenticated()
+            .requestMatcher(JwtAuthenticationFilter.BEARER_API_REQUEST)
+            .authorizeRequests(this::authorizeUrls)
+            .sessionManagement(session -> session
+                .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            )
+            .exceptionHandling(ex -> ex
+                .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
             )
+            .csrf(csrf -> csrf.disable())
+            .addFilterBefore(new JwtAuthenticationFilter(jwtTokenService, scrapeToken), UsernamePasswordAuthenticationFilter.class)
+            .build();
+    }
+    
+    @Bean
+    @Order(2)
+    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+        return http
+            .authorizeRequests(this::authorizeUrls)
             .formLogin(form -> form
                 .loginPage("/login")
                 .defaultSuccessUrl("/dashboard")
-                .failureUrl("/login?error=true")
+                .failureHandler(authenticationFailureHandler())
                 .permitAll()
             )
             .logout(logout -> logout
@@ -79,7 +135,25 @@ public class SecurityConfig {
             .headers(headers -> headers
                 .frameOptions().sameOrigin()
             )
-            .authenticationProvider(authenticationProvider())
             .build();
     }
+    
+    // 兩條過濾鏈共用的 URL 權限規則
+    private void authorizeUrls(ExpressionUrlAuthorizationConfigurer<HttpSecurity>.ExpressionInterceptUrlRegistry authz) {
+        authz
+            .antMatchers("/", "/home", "/css/**", "/js/**", "/images/**", "/uploads/**").permitAll()
+            .antMatchers("/login", "/register", "/api/auth/token").permitAll()
+            .antMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
+            .antMatchers("/actuator/prometheus").hasAnyRole("ADMIN", JwtAuthenticationFilter.METRICS_ROLE)
+            .antMatchers("/actuator/**").hasRole("ADMIN")
+            .antMatchers("/admin/**").hasRole("ADMIN")
+            .antMatchers("/teachers/**").hasAnyRole("ADMIN", "TEACHER")
+            .antMatchers("/students/**").hasAnyRole("ADMIN", "TEACHER")
+            .antMatchers("/classes/**").hasAnyRole("ADMIN", "TEACHER")
+            .antMatchers("/courses/**").hasAnyRole("ADMIN", "TEACHER")
+            .antMatchers("/grades/**").hasAnyRole("ADMIN", "TEACHER")
+            .antMatchers("/attendance/**").hasAnyRole("ADMIN", "TEACHER")
+            .antMatchers("/reports/**").hasAnyRole("ADMIN", "TEACHER")
+            .anyRequest().authenticated();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.student.config.session;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 單節點本地替身：與 jdbc 相同的序列化與寫入語義，只是保存在本進程內存中，不能跨節點共享
+class InMemorySessionStore implements SessionStore {
+    
+    // primary_id -> 會話
+    private final Map<String, SessionData> sessions = new ConcurrentHashMap<>();
+    
+    // session_id -> primary_id
+    private final Map<String, String> sessionIds = new ConcurrentHashMap<>();
+    
+    @Override
+    public SessionData load(String sessionId) {
+        String primaryId = sessionIds.get(sessionId);
+        SessionData stored = primaryId != null ? sessions.get(primaryId) : null;
+        if (stored == null || stored.getExpiryTime() < System.currentTimeMillis()) {
+            return null;
+        }
+        synchronized (stored) {
+            return stored.copy();
+        }
+    }
+    
+    @Override
+    public void save(SessionData session, boolean isNew, boolean metadataChanged, Map<String, byte[]> changedAttributes) {
+        SessionData stored = sessions.computeIfAbsent(session.getPrimaryId(), k -> session.copy());
+        synchronized (stored) {
+            if (!stored.getSessionId().equals(session.getSessionId())) {
+                sessionIds.remove(stored.getSessionId());
+                stored.setSessionId(session.getSessionId());
+            }
+            if (metadataChanged) {
+                stored.setLastAccessedTime(session.getLastAccessedTime());
+                stored.setMaxInactiveInterval(session.getMaxInactiveInterval());
+            }
+            changedAttributes.forEach((name, bytes) -> {
+                if (bytes == null) {
+                    stored.getAttributes().remove(name);
+                } else {
+                    stored.getAttributes().put(name, bytes);
+                }
+            });
+            sessionIds.put(stored.getSessionId(), stored.getPrimaryId());
+        }
+    }
+    
+    @Override
+    public void delete(SessionData session) {
+        SessionData stored = sessions.remove(session.getPrimaryId());
+        if (stored != null) {
+            sessionIds.remove(stored.getSessionId());
+        }
+    }
+    
+    @Override
+    public int deleteExpired(long now) {
+        int deleted = 0;
+        for (SessionData stored : sessions.values()) {
+            if (stored.getExpiryTime() < now) {
+                delete(stored);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+}
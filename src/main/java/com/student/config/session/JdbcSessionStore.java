@@ -0,0 +1,127 @@
+package com.student.config.session;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// 表結構見 SessionRecord；多個節點共用同一數據源即可共享登錄狀態
+class JdbcSessionStore implements SessionStore {
+    
+    // 會話行與屬性行一次讀出，屬性為空時左連接得到一行空屬性
+    private static final String LOAD_SQL =
+            "SELECT s.primary_id, s.creation_time, s.last_access_time, s.max_inactive_interval, s.expiry_time, " +
+            "a.attribute_name, a.attribute_bytes FROM app_sessions s " +
+            "LEFT JOIN app_session_attributes a ON a.primary_id = s.primary_id WHERE s.session_id = ?";
+    
+    private static final String INSERT_SESSION_SQL =
+            "INSERT INTO app_sessions (primary_id, session_id, creation_time, last_access_time, " +
+            "max_inactive_interval, expiry_time) VALUES (?, ?, ?, ?, ?, ?)";
+    
+    private static final String UPDATE_SESSION_SQL =
+            "UPDATE app_sessions SET session_id = ?, last_access_time = ?, max_inactive_interval = ?, " +
+            "expiry_time = ? WHERE primary_id = ?";
+    
+    private static final String UPDATE_ATTRIBUTE_SQL =
+            "UPDATE app_session_attributes SET attribute_bytes = ? WHERE primary_id = ? AND attribute_name = ?";
+    
+    private static final String INSERT_ATTRIBUTE_SQL =
+            "INSERT INTO app_session_attributes (primary_id, attribute_name, attribute_bytes) VALUES (?, ?, ?)";
+    
+    private static final String DELETE_ATTRIBUTE_SQL =
+            "DELETE FROM app_session_attributes WHERE primary_id = ? AND attribute_name = ?";
+    
+    private static final String DELETE_ATTRIBUTES_SQL = "DELETE FROM app_session_attributes WHERE primary_id = ?";
+    
+    private static final String DELETE_SESSION_SQL = "DELETE FROM app_sessions WHERE primary_id = ?";
+    
+    private static final String DELETE_EXPIRED_ATTRIBUTES_SQL =
+            "DELETE FROM app_session_attributes WHERE primary_id IN " +
+            "(SELECT primary_id FROM app_sessions WHERE expiry_time < ?)";
+    
+    private static final String DELETE_EXPIRED_SESSIONS_SQL = "DELETE FROM app_sessions WHERE expiry_time < ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    JdbcSessionStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+    
+    @Override
+    public SessionData load(String sessionId) {
+        return jdbcTemplate.query(LOAD_SQL, rs -> {
+            SessionData data = null;
+            while (rs.next()) {
+                if (data == null) {
+                    if (rs.getLong(5) < System.currentTimeMillis()) {
+                        return null;
+                    }
+                    data = new SessionData(rs.getString(1), sessionId, rs.getLong(2), rs.getLong(3), rs.getInt(4),
+                            new HashMap<>());
+                }
+                String name = rs.getString(6);
+                if (name != null) {
+                    data.getAttributes().put(name, rs.getBytes(7));
+                }
+            }
+            return data;
+        }, sessionId);
+    }
+    
+    @Override
+    public void save(SessionData session, boolean isNew, boolean metadataChanged, Map<String, byte[]> changedAttributes) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (isNew) {
+                jdbcTemplate.update(INSERT_SESSION_SQL, session.getPrimaryId(), session.getSessionId(),
+                        session.getCreationTime(), session.getLastAccessedTime(), session.getMaxInactiveInterval(),
+                        session.getExpiryTime());
+            } else if (metadataChanged) {
+                jdbcTemplate.update(UPDATE_SESSION_SQL, session.getSessionId(), session.getLastAccessedTime(),
+                        session.getMaxInactiveInterval(), session.getExpiryTime(), session.getPrimaryId());
+            }
+            changedAttributes.forEach((name, bytes) -> {
+                if (bytes == null) {
+                    jdbcTemplate.update(DELETE_ATTRIBUTE_SQL, session.getPrimaryId(), name);
+                } else if (isNew) {
+                    jdbcTemplate.update(INSERT_ATTRIBUTE_SQL, session.getPrimaryId(), name, bytes);
+                } else {
+                    upsertAttribute(session.getPrimaryId(), name, bytes);
+                }
+            });
+        });
+    }
+    
+    // 先更新，沒有行再插入；同一會話的並發請求同時插入時，後到者改為更新
+    private void upsertAttribute(String primaryId, String name, byte[] bytes) {
+        if (jdbcTemplate.update(UPDATE_ATTRIBUTE_SQL, bytes, primaryId, name) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_ATTRIBUTE_SQL, primaryId, name, bytes);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update(UPDATE_ATTRIBUTE_SQL, bytes, primaryId, name);
+        }
+    }
+    
+    @Override
+    public void delete(SessionData session) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(DELETE_ATTRIBUTES_SQL, session.getPrimaryId());
+            jdbcTemplate.update(DELETE_SESSION_SQL, session.getPrimaryId());
+        });
+    }
+    
+    @Override
+    public int deleteExpired(long now) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(DELETE_EXPIRED_ATTRIBUTES_SQL, now);
+            return jdbcTemplate.update(DELETE_EXPIRED_SESSIONS_SQL, now);
+        });
+        return deleted != null ? deleted : 0;
+    }
+}
@@ -0,0 +1,73 @@
+package com.student.config.session;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.servlet.DispatcherType;
+import java.time.Duration;
+
+// 多節點部署時會話寫入共享數據庫，負載均衡無需粘性會話；app.session.store=container 時保留容器內存會話
+@Configuration
+@ConditionalOnExpression("!'${app.session.store:jdbc}'.equals('container')")
+public class SessionConfig {
+    
+    @Value("${app.session.store:jdbc}")
+    private String storeType;
+    
+    // 定時清理通過 provider 取存儲，避免配置類依賴自身定義的 Bean
+    @Autowired
+    private ObjectProvider<SessionStore> sessionStoreProvider;
+    
+    @Bean
+    public SessionStore sessionStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        switch (storeType) {
+            case "jdbc":
+                return new JdbcSessionStore(jdbcTemplate, transactionTemplate);
+            case "memory":
+                return new InMemorySessionStore();
+            default:
+                throw new IllegalStateException("未知的會話存儲類型: " + storeType);
+        }
+    }
+    
+    // 排在 Spring Security 之前，安全上下文與 CSRF 令牌都保存在共享會話中
+    @Bean
+    public FilterRegistrationBean<SharedSessionFilter> sharedSessionFilter(
+            SessionStore sessionStore,
+            @Value("${app.session.cookie-name:SESSION}") String cookieName,
+            @Value("${server.servlet.session.timeout:30m}") Duration timeout,
+            @Value("${app.session.touch-interval:60000}") long touchInterval,
+            @Value("${app.session.write-mode:changed}") String writeMode) {
+        SharedSessionFilter filter = new SharedSessionFilter(sessionStore, cookieName, (int) timeout.getSeconds(),
+                touchInterval, "accessed".equals(writeMode));
+        FilterRegistrationBean<SharedSessionFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Integer.MIN_VALUE + 50);
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC, DispatcherType.ERROR);
+        return registration;
+    }
+    
+    // 過期會話只在讀取時被忽略，由此任務定期刪除
+    @Scheduled(fixedDelayString = "${app.session.cleanup-interval:60000}")
+    public void deleteExpiredSessions() {
+        SessionStore store = sessionStoreProvider.getIfAvailable();
+        if (store == null) {
+            return;
+        }
+        try {
+            int deleted = store.deleteExpired(System.currentTimeMillis());
+            if (deleted > 0) {
+                System.out.println("已清理過期會話: " + deleted);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("清理過期會話失敗: " + e.getMessage());
+        }
+    }
+}
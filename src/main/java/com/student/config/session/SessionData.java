@@ -0,0 +1,76 @@
+package com.student.config.session;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// 會話的存儲形式：屬性保持序列化後的字節，讀取時才反序列化
+public class SessionData {
+    
+    private final String primaryId;
+    
+    private String sessionId;
+    
+    private final long creationTime;
+    
+    private long lastAccessedTime;
+    
+    // 單位秒，負數表示不過期
+    private int maxInactiveInterval;
+    
+    private final Map<String, byte[]> attributes;
+    
+    public SessionData(String primaryId, String sessionId, long creationTime, long lastAccessedTime,
+                       int maxInactiveInterval, Map<String, byte[]> attributes) {
+        this.primaryId = primaryId;
+        this.sessionId = sessionId;
+        this.creationTime = creationTime;
+        this.lastAccessedTime = lastAccessedTime;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.attributes = attributes;
+    }
+    
+    public SessionData copy() {
+        return new SessionData(primaryId, sessionId, creationTime, lastAccessedTime, maxInactiveInterval,
+                new HashMap<>(attributes));
+    }
+    
+    public long getExpiryTime() {
+        return maxInactiveInterval < 0 ? Long.MAX_VALUE : lastAccessedTime + maxInactiveInterval * 1000L;
+    }
+    
+    public String getPrimaryId() {
+        return primaryId;
+    }
+    
+    public String getSessionId() {
+        return sessionId;
+    }
+    
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+    
+    public long getCreationTime() {
+        return creationTime;
+    }
+    
+    public long getLastAccessedTime() {
+        return lastAccessedTime;
+    }
+    
+    public void setLastAccessedTime(long lastAccessedTime) {
+        this.lastAccessedTime = lastAccessedTime;
+    }
+    
+    public int getMaxInactiveInterval() {
+        return maxInactiveInterval;
+    }
+    
+    public void setMaxInactiveInterval(int maxInactiveInterval) {
+        this.maxInactiveInterval = maxInactiveInterval;
+    }
+    
+    public Map<String, byte[]> getAttributes() {
+        return attributes;
+    }
+}
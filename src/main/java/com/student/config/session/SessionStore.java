@@ -0,0 +1,19 @@
+package com.student.config.session;
+
+import java.util.Map;
+
+// 會話存儲：jdbc 寫入共享數據庫供多節點使用，memory 為單節點本地替身；由 app.session.store 選擇
+public interface SessionStore {
+    
+    // 按會話 ID 讀取未過期的會話，不存在或已過期時返回 null
+    SessionData load(String sessionId);
+    
+    // 寫入會話；changedAttributes 只含本次請求變化的屬性，值為 null 表示刪除
+    // metadataChanged 為 false 時不更新會話行（訪問時間在合併間隔內、ID 與超時未變）
+    void save(SessionData session, boolean isNew, boolean metadataChanged, Map<String, byte[]> changedAttributes);
+    
+    void delete(SessionData session);
+    
+    // 刪除過期時間早於 now 的會話，返回刪除的會話數
+    int deleteExpired(long now);
+}
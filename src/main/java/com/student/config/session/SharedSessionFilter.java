@@ -0,0 +1,459 @@
+package com.student.config.session;
+
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionContext;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// 用 SessionStore 中的會話替換容器會話：請求開始時按 Cookie 讀取，請求結束時只寫回本次變化的屬性
+// 同一會話的並發請求各自只寫自己修改的屬性，不會用舊值覆蓋對方的修改
+class SharedSessionFilter extends OncePerRequestFilter {
+    
+    // 錯誤頁與異步分派會重新進入過濾器，會話狀態掛在請求上以便沿用
+    private static final String STATE_ATTRIBUTE = SharedSessionFilter.class.getName() + ".STATE";
+    
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    
+    private final SessionStore store;
+    
+    private final String cookieName;
+    
+    private final int defaultMaxInactiveInterval;
+    
+    // 只有訪問時間時，距上次寫入超過此間隔才更新會話行
+    private final long touchIntervalMillis;
+    
+    // true 時本次請求讀取過的屬性也寫回（值不變則跳過），用於原地修改而不調用 setAttribute 的屬性
+    private final boolean writeAccessed;
+    
+    private final SerializingConverter serializer = new SerializingConverter();
+    
+    private final DeserializingConverter deserializer = new DeserializingConverter(getClass().getClassLoader());
+    
+    SharedSessionFilter(SessionStore store, String cookieName, int defaultMaxInactiveInterval, long touchIntervalMillis,
+                        boolean writeAccessed) {
+        this.store = store;
+        this.cookieName = cookieName;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.touchIntervalMillis = touchIntervalMillis;
+        this.writeAccessed = writeAccessed;
+    }
+    
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+    
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SessionState state = (SessionState) request.getAttribute(STATE_ATTRIBUTE);
+        if (state == null) {
+            state = new SessionState(readCookie(request));
+            request.setAttribute(STATE_ATTRIBUTE, state);
+        }
+        SessionRequest wrapped = new SessionRequest(request, response, state);
+        try {
+            chain.doFilter(wrapped, response);
+        } finally {
+            state.commit();
+        }
+    }
+    
+    private String readCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (cookieName.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+    
+    // 與容器會話一樣在創建或更換 ID 時立即寫 Cookie，響應已提交（如大頁面已開始輸出）時無法再寫
+    private void writeCookie(HttpServletRequest request, HttpServletResponse response, String value, int maxAge) {
+        if (response.isCommitted()) {
+            System.err.println("響應已提交，無法寫入會話 Cookie: " + request.getRequestURI());
+            return;
+        }
+        Cookie cookie = new Cookie(cookieName, value);
+        cookie.setPath(request.getContextPath().isEmpty() ? "/" : request.getContextPath());
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setMaxAge(maxAge);
+        response.addCookie(cookie);
+    }
+    
+    private static String newSessionId() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return ENCODER.encodeToString(bytes);
+    }
+    
+    // 一個請求（含其錯誤頁與異步分派）的會話狀態
+    private final class SessionState {
+        
+        private final String requestedSessionId;
+        
+        private boolean requestedLoaded;
+        
+        private boolean requestedValid;
+        
+        private StoredSession current;
+        
+        private SessionState(String requestedSessionId) {
+            this.requestedSessionId = requestedSessionId;
+        }
+        
+        private synchronized StoredSession getSession(HttpServletRequest request, HttpServletResponse response,
+                                                      boolean create) {
+            if (current != null) {
+                if (!current.invalidated) {
+                    return current;
+                }
+                // 註銷後在同一請求中創建新會話：先刪除舊會話
+                current.commit();
+                current = null;
+            }
+            if (!requestedLoaded) {
+                requestedLoaded = true;
+                SessionData data = requestedSessionId != null ? store.load(requestedSessionId) : null;
+                if (data != null) {
+                    requestedValid = true;
+                    current = new StoredSession(data, false, request, response);
+                    return current;
+                }
+            }
+            if (!create) {
+                return null;
+            }
+            long now = System.currentTimeMillis();
+            SessionData data = new SessionData(UUID.randomUUID().toString(), newSessionId(), now, now,
+                    defaultMaxInactiveInterval, new HashMap<>());
+            current = new StoredSession(data, true, request, response);
+            writeCookie(request, response, data.getSessionId(), -1);
+            return current;
+        }
+        
+        private synchronized void commit() {
+            if (current != null) {
+                current.commit();
+                if (current.invalidated) {
+                    current = null;
+                }
+            }
+        }
+    }
+    
+    private final class SessionRequest extends HttpServletRequestWrapper {
+        
+        private final HttpServletResponse response;
+        
+        private final SessionState state;
+        
+        private SessionRequest(HttpServletRequest request, HttpServletResponse response, SessionState state) {
+            super(request);
+            this.response = response;
+            this.state = state;
+        }
+        
+        @Override
+        public HttpSession getSession(boolean create) {
+            return state.getSession(this, response, create);
+        }
+        
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+        
+        // 登錄成功後 Spring Security 更換會話 ID 以防會話固定攻擊
+        @Override
+        public String changeSessionId() {
+            StoredSession session = state.getSession(this, response, false);
+            if (session == null) {
+                throw new IllegalStateException("當前請求沒有會話，無法更換會話 ID");
+            }
+            String id = newSessionId();
+            session.changeId(id);
+            writeCookie(this, response, id, -1);
+            return id;
+        }
+        
+        @Override
+        public String getRequestedSessionId() {
+            return state.requestedSessionId;
+        }
+        
+        @Override
+        public boolean isRequestedSessionIdValid() {
+            if (state.requestedSessionId == null) {
+                return false;
+            }
+            state.getSession(this, response, false);
+            return state.requestedValid && state.current != null && !state.current.invalidated;
+        }
+        
+        @Override
+        public boolean isRequestedSessionIdFromCookie() {
+            return state.requestedSessionId != null;
+        }
+        
+        @Override
+        public boolean isRequestedSessionIdFromURL() {
+            return false;
+        }
+        
+        @Override
+        @SuppressWarnings("deprecation")
+        public boolean isRequestedSessionIdFromUrl() {
+            return false;
+        }
+    }
+    
+    @SuppressWarnings("deprecation")
+    private final class StoredSession implements HttpSession {
+        
+        private final SessionData data;
+        
+        private final HttpServletRequest request;
+        
+        private final HttpServletResponse response;
+        
+        // 已反序列化或本次請求設置的屬性
+        private final Map<String, Object> values = new HashMap<>();
+        
+        // 本次請求 setAttribute / removeAttribute 過的屬性名
+        private final Set<String> changed = new HashSet<>();
+        
+        private boolean isNew;
+        
+        private boolean invalidated;
+        
+        private boolean metadataChanged;
+        
+        // 存儲中記錄的最後訪問時間，用於合併訪問時間的寫入
+        private long storedAccessTime;
+        
+        private StoredSession(SessionData data, boolean isNew, HttpServletRequest request, HttpServletResponse response) {
+            this.data = data;
+            this.isNew = isNew;
+            this.request = request;
+            this.response = response;
+            this.storedAccessTime = data.getLastAccessedTime();
+            if (!isNew) {
+                data.setLastAccessedTime(System.currentTimeMillis());
+            }
+        }
+        
+        @Override
+        public long getCreationTime() {
+            checkValid();
+            return data.getCreationTime();
+        }
+        
+        @Override
+        public String getId() {
+            return data.getSessionId();
+        }
+        
+        @Override
+        public long getLastAccessedTime() {
+            checkValid();
+            return data.getLastAccessedTime();
+        }
+        
+        @Override
+        public ServletContext getServletContext() {
+            return request.getServletContext();
+        }
+        
+        @Override
+        public synchronized void setMaxInactiveInterval(int interval) {
+            if (interval != data.getMaxInactiveInterval()) {
+                data.setMaxInactiveInterval(interval);
+                metadataChanged = true;
+            }
+        }
+        
+        @Override
+        public int getMaxInactiveInterval() {
+            return data.getMaxInactiveInterval();
+        }
+        
+        @Override
+        public HttpSessionContext getSessionContext() {
+            return null;
+        }
+        
+        @Override
+        public synchronized Object getAttribute(String name) {
+            checkValid();
+            if (values.containsKey(name)) {
+                return values.get(name);
+            }
+            byte[] bytes = data.getAttributes().get(name);
+            if (bytes == null || changed.contains(name)) {
+                return null;
+            }
+            try {
+                Object value = deserializer.convert(bytes);
+                values.put(name, value);
+                return value;
+            } catch (RuntimeException e) {
+                // 類結構在部署間變化等情況：當作屬性不存在，下次寫入時覆蓋
+                System.err.println("會話屬性反序列化失敗: " + name + " - " + e.getMessage());
+                return null;
+            }
+        }
+        
+        @Override
+        public Object getValue(String name) {
+            return getAttribute(name);
+        }
+        
+        @Override
+        public synchronized Enumeration<String> getAttributeNames() {
+            checkValid();
+            Set<String> names = new LinkedHashSet<>(values.keySet());
+            for (String name : data.getAttributes().keySet()) {
+                if (!changed.contains(name)) {
+                    names.add(name);
+                }
+            }
+            return Collections.enumeration(names);
+        }
+        
+        @Override
+        public String[] getValueNames() {
+            return Collections.list(getAttributeNames()).toArray(new String[0]);
+        }
+        
+        @Override
+        public synchronized void setAttribute(String name, Object value) {
+            checkValid();
+            if (value == null) {
+                values.remove(name);
+            } else {
+                values.put(name, value);
+            }
+            changed.add(name);
+        }
+        
+        @Override
+        public void putValue(String name, Object value) {
+            setAttribute(name, value);
+        }
+        
+        @Override
+        public void removeAttribute(String name) {
+            setAttribute(name, null);
+        }
+        
+        @Override
+        public void removeValue(String name) {
+            setAttribute(name, null);
+        }
+        
+        @Override
+        public synchronized void invalidate() {
+            checkValid();
+            invalidated = true;
+            writeCookie(request, response, "", 0);
+        }
+        
+        @Override
+        public boolean isNew() {
+            checkValid();
+            return isNew;
+        }
+        
+        private synchronized void changeId(String sessionId) {
+            data.setSessionId(sessionId);
+            metadataChanged = true;
+        }
+        
+        private void checkValid() {
+            if (invalidated) {
+                throw new IllegalStateException("會話已失效");
+            }
+        }
+        
+        // 序列化後與存儲中的字節相同的屬性不寫；可在一次請求的多次分派中重複調用，每次只寫新的變化
+        private synchronized void commit() {
+            if (invalidated) {
+                if (!isNew) {
+                    store.delete(data);
+                }
+                return;
+            }
+            Set<String> names = new HashSet<>(changed);
+            if (writeAccessed) {
+                names.addAll(values.keySet());
+            }
+            Map<String, byte[]> delta = new HashMap<>();
+            for (String name : names) {
+                Object value = values.get(name);
+                if (value == null) {
+                    if (data.getAttributes().remove(name) != null) {
+                        delta.put(name, null);
+                    }
+                    continue;
+                }
+                byte[] bytes;
+                try {
+                    bytes = serializer.convert(value);
+                } catch (RuntimeException e) {
+                    System.err.println("會話屬性無法序列化，未寫入存儲: " + name + " - " + e.getMessage());
+                    continue;
+                }
+                if (!Arrays.equals(bytes, data.getAttributes().get(name))) {
+                    data.getAttributes().put(name, bytes);
+                    delta.put(name, bytes);
+                }
+            }
+            changed.clear();
+            boolean touch = data.getLastAccessedTime() - storedAccessTime >= touchIntervalMillis;
+            boolean writeMetadata = isNew || metadataChanged || touch;
+            if (!writeMetadata && delta.isEmpty()) {
+                return;
+            }
+            store.save(data, isNew, writeMetadata, delta);
+            isNew = false;
+            metadataChanged = false;
+            if (writeMetadata) {
+                storedAccessTime = data.getLastAccessedTime();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.student.controller;
+
+import com.student.config.BoundedPasswordEncoder;
+import com.student.entity.User;
+import com.student.service.JwtTokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// API 客戶端用賬號密碼換取 Bearer 令牌，之後的 /**/api/** 請求不再依賴會話
+@Controller
+@RequestMapping("/api/auth")
+public class ApiAuthController {
+    
+    @Autowired
+    private AuthenticationManager authenticationManager;
+    
+    @Autowired
+    private JwtTokenService jwtTokenService;
+    
+    @PostMapping("/token")
+    @ResponseBody
+    public ResponseEntity<Object> issueToken(@RequestParam String username, @RequestParam String password) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(username, password));
+            return ResponseEntity.ok(jwtTokenService.issueToken((User) authentication.getPrincipal()));
+        } catch (BoundedPasswordEncoder.PasswordHashingBusyException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(response);
+        } catch (AuthenticationException e) {
+            response.put("error", "用戶名或密碼錯誤");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+    }
+    
+    // 吊銷請求所帶的令牌，各節點在下次同步吊銷列表後拒絕該令牌
+    @PostMapping("/revoke")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> revokeToken(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        Map<String, Object> response = new HashMap<>();
+        String token = authorization.startsWith("Bearer ") ? authorization.substring("Bearer ".length()).trim() : "";
+        if (!jwtTokenService.revoke(token)) {
+            response.put("error", "令牌無效");
+            return ResponseEntity.badRequest().body(response);
+        }
+        response.put("revoked", true);
+        return ResponseEntity.ok(response);
+    }
+}
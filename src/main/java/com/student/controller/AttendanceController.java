@@ -1,16 +1,19 @@
 package com.student.controller;
 
+import com.student.dto.KeysetPage;
+import com.student.dto.RollCallResult;
 import com.student.entity.Attendance;
-import com.student.entity.Student;
-import com.student.entity.Course;
+import com.student.repository.projection.AttendanceListRow;
+import com.student.service.AttendanceIndexService;
 import com.student.service.AttendanceService;
-import com.student.service.StudentService;
-import com.student.service.CourseService;
+import com.student.service.LookupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -20,7 +23,10 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.validation.Valid;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
@@ -28,14 +34,20 @@ import java.util.Optional;
 @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
 public class AttendanceController {
     
+    // 鍵集分頁模式參數值
+    private static final String KEYSET_MODE = "keyset";
+    
+    // 出勤分析未指定起始日期時回溯的天數
+    private static final int DEFAULT_ANALYTICS_DAYS = 180;
+    
     @Autowired
     private AttendanceService attendanceService;
     
     @Autowired
-    private StudentService studentService;
+    private AttendanceIndexService attendanceIndexService;
     
     @Autowired
-    private CourseService courseService;
+    private LookupService lookupService;
     
     // 考勤列表頁面
     @GetMapping
@@ -43,23 +55,31 @@ public class AttendanceController {
                                @RequestParam(defaultValue = "10") int size,
                                @RequestParam(required = false) String studentName,
                                @RequestParam(required = false) String courseName,
-                               @RequestParam(required = false) LocalDate date,
+                               @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date,
+                               @RequestParam(required = false) String mode,
+                               @RequestParam(required = false) String after,
+                               @RequestParam(required = false) String before,
                                Model model) {
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by("date").descending());
-        
-        Page<Attendance> attendances;
-        if (studentName != null || courseName != null || date != null) {
-            attendances = attendanceService.findByAdvancedSearch(studentName, courseName, date, pageable);
+        if (KEYSET_MODE.equals(mode)) {
+            // 鍵集分頁：按游標翻頁，總數取自計數器緩存
+            KeysetPage<AttendanceListRow> attendances = attendanceService.findByKeyset(studentName, courseName, date, after, before, size);
+            model.addAttribute("attendances", attendances);
+            model.addAttribute("keysetMode", true);
+            model.addAttribute("totalItems", attendances.getApproximateTotal() != null ? attendances.getApproximateTotal() : "-");
         } else {
-            attendances = attendanceService.findAllAttendance(pageable);
+            Pageable pageable = PageRequest.of(page, size, Sort.by("date").descending());
+            
+            // 列表行投影：學生、課程名稱隨同一條 SQL 取出，不再逐行懶加載
+            Page<AttendanceListRow> attendances = attendanceService.findListRows(studentName, courseName, date, pageable);
+            
+            model.addAttribute("attendances", attendances);
+            model.addAttribute("keysetMode", false);
+            model.addAttribute("currentPage", page);
+            model.addAttribute("totalPages", attendances.getTotalPages());
+            model.addAttribute("totalItems", attendances.getTotalElements());
         }
         
-        model.addAttribute("attendances", attendances);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", attendances.getTotalPages());
-        model.addAttribute("totalItems", attendances.getTotalElements());
-        
         // 添加搜索條件到模型
         model.addAttribute("searchStudentName", studentName);
         model.addAttribute("searchCourseName", courseName);
@@ -71,7 +91,7 @@ public class AttendanceController {
     // 考勤詳情頁面
     @GetMapping("/{id}")
     public String viewAttendance(@PathVariable Long id, Model model) {
-        Optional<Attendance> attendanceOpt = attendanceService.findById(id);
+        Optional<Attendance> attendanceOpt = attendanceService.findDetailById(id);
         if (attendanceOpt.isPresent()) {
             model.addAttribute("attendance", attendanceOpt.get());
             return "attendance/view";
@@ -82,11 +102,9 @@ public class AttendanceController {
     // 新增考勤頁面
     @GetMapping("/new")
     public String newAttendanceForm(Model model) {
-        model.addAttribute("attendance", new Attendance());
-        List<Student> students = studentService.findAllStudents();
-        List<Course> courses = courseService.findAllCourses();
-        model.addAttribute("students", students);
-        model.addAttribute("courses", courses);
+        Attendance attendance = new Attendance();
+        model.addAttribute("attendance", attendance);
+        addSelectionLabels(model, attendance);
         return "attendance/form";
     }
     
@@ -96,10 +114,7 @@ public class AttendanceController {
         Optional<Attendance> attendanceOpt = attendanceService.findById(id);
         if (attendanceOpt.isPresent()) {
             model.addAttribute("attendance", attendanceOpt.get());
-            List<Student> students = studentService.findAllStudents();
-            List<Course> courses = courseService.findAllCourses();
-            model.addAttribute("students", students);
-            model.addAttribute("courses", courses);
+            addSelectionLabels(model, attendanceOpt.get());
             return "attendance/form";
         }
         return "redirect:/attendance";
@@ -113,10 +128,7 @@ public class AttendanceController {
                                 RedirectAttributes redirectAttributes) {
         
         if (result.hasErrors()) {
-            List<Student> students = studentService.findAllStudents();
-            List<Course> courses = courseService.findAllCourses();
-            model.addAttribute("students", students);
-            model.addAttribute("courses", courses);
+            addSelectionLabels(model, attendance);
             return "attendance/form";
         }
         
@@ -126,10 +138,7 @@ public class AttendanceController {
             return "redirect:/attendance/" + savedAttendance.getId();
         } catch (Exception e) {
             model.addAttribute("error", e.getMessage());
-            List<Student> students = studentService.findAllStudents();
-            List<Course> courses = courseService.findAllCourses();
-            model.addAttribute("students", students);
-            model.addAttribute("courses", courses);
+            addSelectionLabels(model, attendance);
             return "attendance/form";
         }
     }
@@ -149,24 +158,102 @@ public class AttendanceController {
     // API 端點
     @GetMapping("/api")
     @ResponseBody
-    public Page<Attendance> getAttendanceApi(@RequestParam(defaultValue = "0") int page,
-                                            @RequestParam(defaultValue = "10") int size,
-                                            @RequestParam(required = false) String studentName,
-                                            @RequestParam(required = false) String courseName,
-                                            @RequestParam(required = false) LocalDate date) {
+    public Page<AttendanceListRow> getAttendanceApi(@RequestParam(defaultValue = "0") int page,
+                                                    @RequestParam(defaultValue = "10") int size,
+                                                    @RequestParam(required = false) String studentName,
+                                                    @RequestParam(required = false) String courseName,
+                                                    @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date) {
         
         Pageable pageable = PageRequest.of(page, size, Sort.by("date").descending());
         
-        if (studentName != null || courseName != null || date != null) {
-            return attendanceService.findByAdvancedSearch(studentName, courseName, date, pageable);
-        } else {
-            return attendanceService.findAllAttendance(pageable);
+        return attendanceService.findListRows(studentName, courseName, date, pageable);
+    }
+    
+    @GetMapping("/api/keyset")
+    @ResponseBody
+    public KeysetPage<AttendanceListRow> getAttendanceKeysetApi(@RequestParam(defaultValue = "10") int size,
+                                                                @RequestParam(required = false) String studentName,
+                                                                @RequestParam(required = false) String courseName,
+                                                                @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date,
+                                                                @RequestParam(required = false) String after,
+                                                                @RequestParam(required = false) String before) {
+        return attendanceService.findByKeyset(studentName, courseName, date, after, before, size);
+    }
+    
+    // 點名名單與每名學生的當前狀態：P出席 A缺席 L遲到 E早退 V請假 S病假，null 表示無記錄
+    @GetMapping("/api/roll-call")
+    @ResponseBody
+    public RollCallResult getRollCallApi(@RequestParam Long classId,
+                                         @RequestParam Long courseId,
+                                         @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date) {
+        return attendanceService.getRollCall(classId, courseId, date);
+    }
+    
+    // 整班點名：請求體為 {"學生ID": "狀態代碼"}，未提交或 '-' 的學生本次不記錄，含名單外的學生時整次拒絕
+    @PostMapping("/api/roll-call")
+    @ResponseBody
+    public ResponseEntity<?> saveRollCallApi(@RequestParam Long classId,
+                                             @RequestParam Long courseId,
+                                             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date,
+                                             @RequestBody Map<Long, String> statuses) {
+        try {
+            return ResponseEntity.ok(attendanceService.saveRollCall(classId, courseId, date, statuses));
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("error", "點名保存失敗：" + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         }
     }
     
+    // 學生出勤分析：出勤率、連續出勤與區間缺席次數，不指定課程時統計全部課程
+    @GetMapping("/api/analytics/student")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getStudentAnalyticsApi(@RequestParam Long studentId,
+                                                                      @RequestParam(required = false) Long courseId,
+                                                                      @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+                                                                      @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_ANALYTICS_DAYS);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("studentId", studentId);
+        result.put("courseId", courseId);
+        result.put("from", start);
+        result.put("to", end);
+        result.put("attendanceRate", courseId != null
+                ? attendanceService.getAttendanceRateByStudentAndCourse(studentId, courseId)
+                : attendanceService.getAttendanceRateByStudent(studentId));
+        result.put("absences", attendanceService.countAbsences(studentId, courseId, start, end));
+        if (courseId != null) {
+            result.put("streak", attendanceService.getStreak(studentId, courseId));
+        }
+        return ResponseEntity.ok(result);
+    }
+    
+    // 某課程某天缺席的學生
+    @GetMapping("/api/analytics/absent")
+    @ResponseBody
+    public List<Long> getAbsentStudentsApi(@RequestParam Long courseId,
+                                           @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date) {
+        return attendanceService.findAbsentStudentIds(courseId, date);
+    }
+    
+    @GetMapping("/api/analytics/index-statistics")
+    @ResponseBody
+    public Map<String, Object> getIndexStatisticsApi() {
+        return attendanceIndexService.getStatistics();
+    }
+    
     @GetMapping("/api/{id}")
     @ResponseBody
     public Attendance getAttendanceApi(@PathVariable Long id) {
-        return attendanceService.findById(id).orElse(null);
+        return attendanceService.findDetailById(id).orElse(null);
+    }
+    
+    // 表單只回顯當前選中的學生和課程，候選項由 /api/lookup 按需加載
+    private void addSelectionLabels(Model model, Attendance attendance) {
+        model.addAttribute("studentLabel", attendance.getStudent() != null
+                ? lookupService.studentLabel(attendance.getStudent().getId()) : "");
+        model.addAttribute("courseLabel", attendance.getCourse() != null
+                ? lookupService.courseLabel(attendance.getCourse().getId()) : "");
     }
 } 
\ No newline at end of file
@@ -1,8 +1,11 @@
 package com.student.controller;
 
 import com.student.entity.Class;
-
+import com.student.entity.Student;
+import com.student.service.AttendanceService;
 import com.student.service.ClassService;
+import com.student.service.GradeService;
+import com.student.service.StudentService;
 import com.student.service.TeacherService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -19,7 +22,12 @@ import org.springframework.http.ResponseEntity;
 
 import javax.validation.Valid;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/classes")
@@ -32,6 +40,15 @@ public class ClassController {
     @Autowired
     private TeacherService teacherService;
     
+    @Autowired
+    private StudentService studentService;
+    
+    @Autowired
+    private GradeService gradeService;
+    
+    @Autowired
+    private AttendanceService attendanceService;
+    
     // 班級列表頁面
     @GetMapping
     public String listClasses(@RequestParam(defaultValue = "0") int page,
@@ -52,6 +69,9 @@ public class ClassController {
         }
         
         model.addAttribute("classes", classes);
+        // 學生數一次分組查詢取出，避免逐班加載學生集合
+        model.addAttribute("studentCounts", studentService.countByClassIds(
+                classes.getContent().stream().map(Class::getId).collect(Collectors.toList())));
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", classes.getTotalPages());
         model.addAttribute("totalItems", classes.getTotalElements());
@@ -68,7 +88,7 @@ public class ClassController {
     // 班級詳情頁面
     @GetMapping("/{id}")
     public String viewClass(@PathVariable Long id, Model model) {
-        Optional<Class> classOpt = classService.findById(id);
+        Optional<Class> classOpt = classService.findDetailById(id);
         if (classOpt.isPresent()) {
             model.addAttribute("class", classOpt.get());
             return "class/view";
@@ -88,7 +108,7 @@ public class ClassController {
     // 編輯班級頁面
     @GetMapping("/{id}/edit")
     public String editClassForm(@PathVariable Long id, Model model) {
-        Optional<Class> classOpt = classService.findById(id);
+        Optional<Class> classOpt = classService.findDetailById(id);
         if (classOpt.isPresent()) {
             model.addAttribute("class", classOpt.get());
             model.addAttribute("teachers", teacherService.findAllActiveTeachers());
@@ -162,8 +182,33 @@ public class ClassController {
     @GetMapping("/api/{id}")
     @ResponseBody
     public ResponseEntity<Class> getClassApi(@PathVariable Long id) {
-        Optional<Class> classOpt = classService.findById(id);
+        Optional<Class> classOpt = classService.findDetailById(id);
         return classOpt.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
-} 
\ No newline at end of file
+    
+    // API接口 - 獲取班級學生的平均成績與出勤率（每項指標一次分組查詢）
+    @GetMapping("/api/{id}/metrics")
+    @ResponseBody
+    public ResponseEntity<List<Map<String, Object>>> getClassMetricsApi(@PathVariable Long id) {
+        if (!classService.findById(id).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Map<Long, Double> averageGrades = gradeService.getAverageGradesByClass(id);
+        Map<Long, Double> attendanceRates = attendanceService.getAttendanceRatesByClass(id);
+        
+        List<Map<String, Object>> metrics = new ArrayList<>();
+        for (Student student : studentService.findByClassId(id)) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("studentId", student.getId());
+            item.put("studentNumber", student.getStudentNumber());
+            item.put("name", student.getName());
+            item.put("averageGrade", averageGrades.getOrDefault(student.getId(), 0.0));
+            item.put("attendanceRate", attendanceRates.getOrDefault(student.getId(), 0.0));
+            metrics.add(item);
+        }
+        
+        return ResponseEntity.ok(metrics);
+    }
+}
\ No newline at end of file
@@ -67,7 +67,7 @@ public class CourseController {
     // 課程詳情頁面
     @GetMapping("/{id}")
     public String viewCourse(@PathVariable Long id, Model model) {
-        Optional<Course> courseOpt = courseService.findById(id);
+        Optional<Course> courseOpt = courseService.findDetailById(id);
         if (courseOpt.isPresent()) {
             model.addAttribute("course", courseOpt.get());
             return "course/view";
@@ -87,7 +87,7 @@ public class CourseController {
     // 編輯課程頁面
     @GetMapping("/{id}/edit")
     public String editCourseForm(@PathVariable Long id, Model model) {
-        Optional<Course> courseOpt = courseService.findById(id);
+        Optional<Course> courseOpt = courseService.findDetailById(id);
         if (courseOpt.isPresent()) {
             model.addAttribute("course", courseOpt.get());
             model.addAttribute("teachers", teacherService.findAllActiveTeachers());
@@ -160,7 +160,7 @@ public class CourseController {
     @GetMapping("/api/{id}")
     @ResponseBody
     public ResponseEntity<Course> getCourseApi(@PathVariable Long id) {
-        Optional<Course> courseOpt = courseService.findById(id);
+        Optional<Course> courseOpt = courseService.findDetailById(id);
         return courseOpt.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -1,11 +1,10 @@
 package com.student.controller;
 
+import com.student.dto.KeysetPage;
 import com.student.entity.Grade;
-import com.student.entity.Student;
-import com.student.entity.Course;
+import com.student.repository.projection.GradeListRow;
 import com.student.service.GradeService;
-import com.student.service.StudentService;
-import com.student.service.CourseService;
+import com.student.service.LookupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -19,7 +18,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.validation.Valid;
-import java.util.List;
 import java.util.Optional;
 
 @Controller
@@ -27,14 +25,14 @@ import java.util.Optional;
 @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
 public class GradeController {
     
-    @Autowired
-    private GradeService gradeService;
+    // 鍵集分頁模式參數值
+    private static final String KEYSET_MODE = "keyset";
     
     @Autowired
-    private StudentService studentService;
+    private GradeService gradeService;
     
     @Autowired
-    private CourseService courseService;
+    private LookupService lookupService;
     
     // 成績列表頁面
     @GetMapping
@@ -43,22 +41,30 @@ public class GradeController {
                             @RequestParam(required = false) String studentName,
                             @RequestParam(required = false) String courseName,
                             @RequestParam(required = false) String semester,
+                            @RequestParam(required = false) String mode,
+                            @RequestParam(required = false) String after,
+                            @RequestParam(required = false) String before,
                             Model model) {
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        
-        Page<Grade> grades;
-        if (studentName != null || courseName != null || semester != null) {
-            grades = gradeService.findByAdvancedSearch(studentName, courseName, semester, pageable);
+        if (KEYSET_MODE.equals(mode)) {
+            // 鍵集分頁：按游標翻頁，總數取自計數器緩存
+            KeysetPage<GradeListRow> grades = gradeService.findByKeyset(studentName, courseName, semester, after, before, size);
+            model.addAttribute("grades", grades);
+            model.addAttribute("keysetMode", true);
+            model.addAttribute("totalItems", grades.getApproximateTotal() != null ? grades.getApproximateTotal() : "-");
         } else {
-            grades = gradeService.findAllGrades(pageable);
+            Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            
+            // 列表行投影：學生、課程名稱隨同一條 SQL 取出，不再逐行懶加載
+            Page<GradeListRow> grades = gradeService.findListRows(studentName, courseName, semester, pageable);
+            
+            model.addAttribute("grades", grades);
+            model.addAttribute("keysetMode", false);
+            model.addAttribute("currentPage", page);
+            model.addAttribute("totalPages", grades.getTotalPages());
+            model.addAttribute("totalItems", grades.getTotalElements());
         }
         
-        model.addAttribute("grades", grades);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", grades.getTotalPages());
-        model.addAttribute("totalItems", grades.getTotalElements());
-        
         // 添加搜索條件到模型
         model.addAttribute("searchStudentName", studentName);
         model.addAttribute("searchCourseName", courseName);
@@ -70,7 +76,7 @@ public class GradeController {
     // 成績詳情頁面
     @GetMapping("/{id}")
     public String viewGrade(@PathVariable Long id, Model model) {
-        Optional<Grade> gradeOpt = gradeService.findById(id);
+        Optional<Grade> gradeOpt = gradeService.findDetailById(id);
         if (gradeOpt.isPresent()) {
             model.addAttribute("grade", gradeOpt.get());
             return "grade/view";
@@ -81,11 +87,9 @@ public class GradeController {
     // 新增成績頁面
     @GetMapping("/new")
     public String newGradeForm(Model model) {
-        model.addAttribute("grade", new Grade());
-        List<Student> students = studentService.findAllStudents();
-        List<Course> courses = courseService.findAllCourses();
-        model.addAttribute("students", students);
-        model.addAttribute("courses", courses);
+        Grade grade = new Grade();
+        model.addAttribute("grade", grade);
+        addSelectionLabels(model, grade);
         return "grade/form";
     }
     
@@ -95,10 +99,7 @@ public class GradeController {
         Optional<Grade> gradeOpt = gradeService.findById(id);
         if (gradeOpt.isPresent()) {
             model.addAttribute("grade", gradeOpt.get());
-            List<Student> students = studentService.findAllStudents();
-            List<Course> courses = courseService.findAllCourses();
-            model.addAttribute("students", students);
-            model.addAttribute("courses", courses);
+            addSelectionLabels(model, gradeOpt.get());
             return "grade/form";
         }
         return "redirect:/grades";
@@ -112,10 +113,7 @@ public class GradeController {
                            RedirectAttributes redirectAttributes) {
         
         if (result.hasErrors()) {
-            List<Student> students = studentService.findAllStudents();
-            List<Course> courses = courseService.findAllCourses();
-            model.addAttribute("students", students);
-            model.addAttribute("courses", courses);
+            addSelectionLabels(model, grade);
             return "grade/form";
         }
         
@@ -125,10 +123,7 @@ public class GradeController {
             return "redirect:/grades/" + savedGrade.getId();
         } catch (Exception e) {
             model.addAttribute("error", e.getMessage());
-            List<Student> students = studentService.findAllStudents();
-            List<Course> courses = courseService.findAllCourses();
-            model.addAttribute("students", students);
-            model.addAttribute("courses", courses);
+            addSelectionLabels(model, grade);
             return "grade/form";
         }
     }
@@ -148,24 +143,39 @@ public class GradeController {
     // API 端點
     @GetMapping("/api")
     @ResponseBody
-    public Page<Grade> getGradesApi(@RequestParam(defaultValue = "0") int page,
-                                   @RequestParam(defaultValue = "10") int size,
-                                   @RequestParam(required = false) String studentName,
-                                   @RequestParam(required = false) String courseName,
-                                   @RequestParam(required = false) String semester) {
+    public Page<GradeListRow> getGradesApi(@RequestParam(defaultValue = "0") int page,
+                                           @RequestParam(defaultValue = "10") int size,
+                                           @RequestParam(required = false) String studentName,
+                                           @RequestParam(required = false) String courseName,
+                                           @RequestParam(required = false) String semester) {
         
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
         
-        if (studentName != null || courseName != null || semester != null) {
-            return gradeService.findByAdvancedSearch(studentName, courseName, semester, pageable);
-        } else {
-            return gradeService.findAllGrades(pageable);
-        }
+        return gradeService.findListRows(studentName, courseName, semester, pageable);
+    }
+    
+    @GetMapping("/api/keyset")
+    @ResponseBody
+    public KeysetPage<GradeListRow> getGradesKeysetApi(@RequestParam(defaultValue = "10") int size,
+                                                       @RequestParam(required = false) String studentName,
+                                                       @RequestParam(required = false) String courseName,
+                                                       @RequestParam(required = false) String semester,
+                                                       @RequestParam(required = false) String after,
+                                                       @RequestParam(required = false) String before) {
+        return gradeService.findByKeyset(studentName, courseName, semester, after, before, size);
     }
     
     @GetMapping("/api/{id}")
     @ResponseBody
     public Grade getGradeApi(@PathVariable Long id) {
-        return gradeService.findById(id).orElse(null);
+        return gradeService.findDetailById(id).orElse(null);
+    }
+    
+    // 表單只回顯當前選中的學生和課程，候選項由 /api/lookup 按需加載
+    private void addSelectionLabels(Model model, Grade grade) {
+        model.addAttribute("studentLabel", grade.getStudent() != null
+                ? lookupService.studentLabel(grade.getStudent().getId()) : "");
+        model.addAttribute("courseLabel", grade.getCourse() != null
+                ? lookupService.courseLabel(grade.getCourse().getId()) : "");
     }
 } 
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.student.controller;
+
+import com.student.dto.LookupItem;
+import com.student.service.LookupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+
+// 表單自動完成：按學號/課程代碼或名稱前綴返回候選項
+@Controller
+@RequestMapping("/api/lookup")
+@PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
+public class LookupController {
+    
+    // 單次返回的最大候選數
+    private static final int MAX_LIMIT = 50;
+    
+    @Autowired
+    private LookupService lookupService;
+    
+    @GetMapping("/students")
+    @ResponseBody
+    public ResponseEntity<List<LookupItem>> lookupStudents(@RequestParam(defaultValue = "") String q,
+                                                           @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(lookupService.lookupStudents(q, clamp(limit)));
+    }
+    
+    @GetMapping("/courses")
+    @ResponseBody
+    public ResponseEntity<List<LookupItem>> lookupCourses(@RequestParam(defaultValue = "") String q,
+                                                          @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(lookupService.lookupCourses(q, clamp(limit)));
+    }
+    
+    private int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
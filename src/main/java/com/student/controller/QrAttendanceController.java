@@ -0,0 +1,172 @@
+package com.student.controller;
+
+import com.student.dto.QrImage;
+import com.student.dto.QrSession;
+import com.student.service.QrAttendanceService;
+import com.student.service.QrCodeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// 教師端：開啟掃碼簽到會話並展示輪換二維碼
+@Controller
+@RequestMapping("/attendance/qr")
+@PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
+public class QrAttendanceController {
+    
+    // 二維碼邊長上限（像素）
+    private static final int MAX_QR_SIZE = 1000;
+    
+    @Autowired
+    private QrAttendanceService qrAttendanceService;
+    
+    @Autowired
+    private QrCodeService qrCodeService;
+    
+    @Value("${app.qr.session-minutes:15}")
+    private long sessionMinutes;
+    
+    @Value("${app.qr.public-url:}")
+    private String publicUrl;
+    
+    @GetMapping("/sessions")
+    @ResponseBody
+    public ResponseEntity<List<Map<String, Object>>> listSessions() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (QrSession session : qrAttendanceService.getActiveSessions()) {
+            result.add(toResponse(session, false));
+        }
+        return ResponseEntity.ok(result);
+    }
+    
+    @PostMapping("/sessions")
+    @ResponseBody
+    public ResponseEntity<?> openSession(@RequestParam Long courseId,
+                                         @RequestParam(required = false) Long classId,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                         @RequestParam(required = false) Long minutes) {
+        Map<String, Object> response = new HashMap<>();
+        if (minutes != null && minutes <= 0) {
+            response.put("error", "有效時間必須大於0");
+            return ResponseEntity.badRequest().body(response);
+        }
+        try {
+            QrSession session = qrAttendanceService.openSession(courseId, classId, date,
+                    Duration.ofMinutes(minutes != null ? minutes : sessionMinutes));
+            return ResponseEntity.ok(toResponse(session, true));
+        } catch (Exception e) {
+            response.put("error", "開啟簽到失敗: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    @GetMapping("/sessions/{id}")
+    @ResponseBody
+    public ResponseEntity<?> getSession(@PathVariable String id) {
+        Optional<QrSession> session = qrAttendanceService.findSession(id);
+        if (session.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(toResponse(session.get(), true));
+    }
+    
+    // 當前輪換窗口的二維碼，緩存到窗口結束，前端按 rotationSeconds 定時刷新
+    @GetMapping("/sessions/{id}/qr.png")
+    public ResponseEntity<byte[]> getQrCode(@PathVariable String id,
+                                            @RequestParam(defaultValue = "300") int size) {
+        Optional<QrSession> found = qrAttendanceService.findSession(id);
+        if (found.isEmpty() || found.get().isClosed()) {
+            return ResponseEntity.notFound().build();
+        }
+        QrSession session = found.get();
+        Instant now = Instant.now();
+        long window = session.windowAt(now);
+        QrImage image = qrCodeService.getSessionImage(session.getId(), window,
+                Math.max(100, Math.min(size, MAX_QR_SIZE)), checkInUrl(qrAttendanceService.token(session, window)));
+        
+        // 令牌在窗口結束時輪換，緩存時間不超過窗口剩餘秒數；If-None-Match 命中時由 Spring 返回 304
+        long remaining = (window + 1) * session.getRotationSeconds() - now.getEpochSecond();
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .eTag(image.getEtag())
+                .cacheControl(CacheControl.maxAge(remaining, TimeUnit.SECONDS).cachePrivate().mustRevalidate())
+                .body(image.getPng());
+    }
+    
+    @GetMapping("/cache-statistics")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getCacheStatistics() {
+        return ResponseEntity.ok(qrCodeService.getCacheStatistics());
+    }
+    
+    @PostMapping("/sessions/{id}/close")
+    @ResponseBody
+    public ResponseEntity<?> closeSession(@PathVariable String id) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            qrAttendanceService.closeSession(id);
+            response.put("closed", true);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("error", "關閉簽到失敗: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    private Map<String, Object> toResponse(QrSession session, boolean withToken) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", session.getId());
+        item.put("courseId", session.getCourseId());
+        item.put("classId", session.getClassId());
+        item.put("rosterSize", session.getRosterSize());
+        item.put("date", session.getDate());
+        item.put("startsAt", session.getStartsAt());
+        item.put("expiresAt", session.getExpiresAt());
+        item.put("rotationSeconds", session.getRotationSeconds());
+        item.put("closed", session.isClosed());
+        item.put("checkedIn", session.getCheckedInCount());
+        item.put("duplicates", session.getDuplicateCount());
+        item.put("pending", qrAttendanceService.getPendingCount());
+        if (withToken && !session.isClosed()) {
+            String token = qrAttendanceService.currentToken(session);
+            item.put("token", token);
+            item.put("checkInUrl", checkInUrl(token));
+        }
+        return item;
+    }
+    
+    // 配置了公開地址時二維碼與訪問的節點、主機名無關，各節點渲染的圖片相同，可共享磁盤緩存
+    private String checkInUrl(String token) {
+        UriComponentsBuilder base = StringUtils.hasText(publicUrl)
+                ? UriComponentsBuilder.fromHttpUrl(publicUrl.trim())
+                : ServletUriComponentsBuilder.fromCurrentContextPath();
+        return base.path("/api/attendance/check-in")
+                .queryParam("token", token)
+                .toUriString();
+    }
+}
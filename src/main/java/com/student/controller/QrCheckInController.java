@@ -0,0 +1,84 @@
+package com.student.controller;
+
+import com.student.entity.User;
+import com.student.service.QrAttendanceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// 學生端：掃碼簽到，只驗證令牌簽名並入隊，由後台批量寫入
+@Controller
+@RequestMapping("/api/attendance")
+public class QrCheckInController {
+    
+    @Autowired
+    private QrAttendanceService qrAttendanceService;
+    
+    // 二維碼中的地址：手機相機掃碼後以 GET 打開，未登錄時先跳轉登錄再回到此頁，由頁面確認後提交 POST
+    @GetMapping("/check-in")
+    public String checkInPage(@RequestParam String token, Model model) {
+        model.addAttribute("token", token);
+        return "attendance/check-in";
+    }
+    
+    @PostMapping("/check-in")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> checkIn(@RequestParam String token,
+                                                       @RequestParam(required = false) Long studentId,
+                                                       @RequestParam(required = false) String location,
+                                                       @AuthenticationPrincipal User user) {
+        Map<String, Object> response = new HashMap<>();
+        Long targetId = resolveStudentId(user, studentId);
+        if (targetId == null) {
+            response.put("error", "當前賬號未關聯學生");
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        QrAttendanceService.CheckInResult result = qrAttendanceService.checkIn(token, targetId, location);
+        response.put("result", result);
+        switch (result) {
+            case ACCEPTED:
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+            case DUPLICATE:
+                response.put("message", "已簽到");
+                return ResponseEntity.ok(response);
+            case EXPIRED:
+                response.put("error", "二維碼已過期，請重新掃描");
+                return ResponseEntity.status(HttpStatus.GONE).body(response);
+            case NOT_ENROLLED:
+                response.put("error", "不在本課程的簽到名單中");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+            case BUSY:
+                response.put("error", "簽到人數過多，請稍後重試");
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(response);
+            default:
+                response.put("error", "無效的二維碼");
+                return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    // 學生只能為自己簽到，管理員與教師可代為簽到
+    private Long resolveStudentId(User user, Long studentId) {
+        if (user == null) {
+            return null;
+        }
+        if (studentId != null && (user.getRole() == User.Role.ADMIN || user.getRole() == User.Role.TEACHER)) {
+            return studentId;
+        }
+        return user.getStudent() != null ? user.getStudent().getId() : null;
+    }
+}
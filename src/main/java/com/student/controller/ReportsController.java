@@ -1,6 +1,13 @@
 package com.student.controller;
 
+import com.student.dto.GradeReport;
+import com.student.dto.RankPosition;
+import com.student.entity.Grade;
 import com.student.entity.Student;
+import com.student.entity.StudentAcademicSummary;
+import com.student.repository.projection.AttendanceGroupCountsRow;
+import com.student.repository.projection.AttendanceTrendRow;
+import com.student.repository.projection.StudentCrossTabRow;
 import com.student.service.StudentService;
 import com.student.service.ClassService;
 import com.student.service.CourseService;
@@ -8,7 +15,14 @@ import com.student.service.TeacherService;
 import com.student.service.GradeService;
 import com.student.service.AttendanceService;
 import com.student.service.RewardPunishmentService;
+import com.student.service.StatisticsService;
+import com.student.service.AttendanceRollupService;
+import com.student.service.AcademicSummaryService;
+import com.student.service.RankingService;
+import com.student.service.GradeReportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -17,8 +31,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Controller
 @RequestMapping("/reports")
@@ -45,21 +64,42 @@ public class ReportsController {
     @Autowired
     private RewardPunishmentService rewardPunishmentService;
     
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+    
+    @Autowired
+    private AcademicSummaryService academicSummaryService;
+    
+    @Autowired
+    private RankingService rankingService;
+    
+    @Autowired
+    private GradeReportService gradeReportService;
+    
+    // 考勤趨勢未指定起始日期時回溯的天數
+    private static final int DEFAULT_TREND_DAYS = 30;
+    
+    // 年級排名默認返回的人數
+    private static final int DEFAULT_RANKING_LIMIT = 50;
+    
     @GetMapping
     public String index(@RequestParam(required = false) String reportType, Model model) {
         try {
             // 基本統計數據
-            long totalStudents = studentService.findAllStudents().size();
-            long totalTeachers = teacherService.countTeachers();
-            long totalClasses = classService.findAllClasses().size();
-            long totalCourses = courseService.findAllCourses().size();
-            long totalGrades = gradeService.findAllGrades().size();
-            long totalAttendances = attendanceService.findAllAttendance().size();
-            long totalRewards = rewardPunishmentService.findAllRewardPunishments().size();
+            long totalStudents = statisticsService.getTotal(StatisticsService.STUDENT);
+            long totalTeachers = statisticsService.getTotal(StatisticsService.TEACHER);
+            long totalClasses = statisticsService.getTotal(StatisticsService.CLASS);
+            long totalCourses = statisticsService.getTotal(StatisticsService.COURSE);
+            long totalGrades = statisticsService.getTotal(StatisticsService.GRADE);
+            long totalAttendances = statisticsService.getTotal(StatisticsService.ATTENDANCE);
+            long totalRewards = statisticsService.getTotal(StatisticsService.REWARD_PUNISHMENT);
             
             // 性別統計
-            long maleStudents = studentService.countByGender(Student.Gender.MALE);
-            long femaleStudents = studentService.countByGender(Student.Gender.FEMALE);
+            long maleStudents = statisticsService.getCount(StatisticsService.STUDENT, StatisticsService.GENDER, Student.Gender.MALE);
+            long femaleStudents = statisticsService.getCount(StatisticsService.STUDENT, StatisticsService.GENDER, Student.Gender.FEMALE);
             
             model.addAttribute("totalStudents", totalStudents);
             model.addAttribute("totalTeachers", totalTeachers);
@@ -72,10 +112,10 @@ public class ReportsController {
             model.addAttribute("femaleStudents", femaleStudents);
             
             // 學生狀態統計
-            long enrolledStudents = studentService.countByStatus(Student.StudentStatus.ENROLLED);
-            long graduatedStudents = studentService.countByStatus(Student.StudentStatus.GRADUATED);
-            long suspendedStudents = studentService.countByStatus(Student.StudentStatus.SUSPENDED);
-            long withdrawnStudents = studentService.countByStatus(Student.StudentStatus.WITHDRAWN);
+            long enrolledStudents = statisticsService.getCount(StatisticsService.STUDENT, StatisticsService.STATUS, Student.StudentStatus.ENROLLED);
+            long graduatedStudents = statisticsService.getCount(StatisticsService.STUDENT, StatisticsService.STATUS, Student.StudentStatus.GRADUATED);
+            long suspendedStudents = statisticsService.getCount(StatisticsService.STUDENT, StatisticsService.STATUS, Student.StudentStatus.SUSPENDED);
+            long withdrawnStudents = statisticsService.getCount(StatisticsService.STUDENT, StatisticsService.STATUS, Student.StudentStatus.WITHDRAWN);
             
             model.addAttribute("enrolledStudents", enrolledStudents);
             model.addAttribute("graduatedStudents", graduatedStudents);
@@ -123,8 +163,21 @@ public class ReportsController {
     }
     
     @GetMapping("/grade")
-    public String gradeReports(Model model) {
-        // 成績詳細報告
+    public String gradeReports(@RequestParam(defaultValue = "COURSE") GradeReportService.Dimension dimension,
+                               @RequestParam(required = false) Long courseId,
+                               @RequestParam(required = false) Long classId,
+                               @RequestParam(required = false) Integer academicYear,
+                               @RequestParam(required = false) Grade.Semester semester,
+                               Model model) {
+        // 成績詳細報告：分佈、分位數與及格率
+        model.addAttribute("reports", gradeReportService.getReport(dimension, courseId, classId, academicYear, semester));
+        model.addAttribute("dimension", dimension);
+        model.addAttribute("dimensions", GradeReportService.Dimension.values());
+        model.addAttribute("semesters", Grade.Semester.values());
+        model.addAttribute("courseId", courseId);
+        model.addAttribute("classId", classId);
+        model.addAttribute("academicYear", academicYear);
+        model.addAttribute("semester", semester);
         return "reports/grade";
     }
     
@@ -142,24 +195,24 @@ public class ReportsController {
         
         try {
             // 基本統計數據
-            statistics.put("totalStudents", studentService.findAllStudents().size());
-            statistics.put("totalTeachers", teacherService.countTeachers());
-            statistics.put("totalClasses", classService.findAllClasses().size());
-            statistics.put("totalCourses", courseService.findAllCourses().size());
-            statistics.put("totalGrades", gradeService.findAllGrades().size());
-            statistics.put("totalAttendances", attendanceService.findAllAttendance().size());
-            statistics.put("totalRewards", rewardPunishmentService.findAllRewardPunishments().size());
+            statistics.put("totalStudents", statisticsService.getTotal(StatisticsService.STUDENT));
+            statistics.put("totalTeachers", statisticsService.getTotal(StatisticsService.TEACHER));
+            statistics.put("totalClasses", statisticsService.getTotal(StatisticsService.CLASS));
+            statistics.put("totalCourses", statisticsService.getTotal(StatisticsService.COURSE));
+            statistics.put("totalGrades", statisticsService.getTotal(StatisticsService.GRADE));
+            statistics.put("totalAttendances", statisticsService.getTotal(StatisticsService.ATTENDANCE));
+            statistics.put("totalRewards", statisticsService.getTotal(StatisticsService.REWARD_PUNISHMENT));
             
             // 性別統計
-            statistics.put("maleStudents", studentService.countByGender(Student.Gender.MALE));
-            statistics.put("femaleStudents", studentService.countByGender(Student.Gender.FEMALE));
+            statistics.put("maleStudents", statisticsService.getCount(StatisticsService.STUDENT, StatisticsService.GENDER, Student.Gender.MALE));
+            statistics.put("femaleStudents", statisticsService.getCount(StatisticsService.STUDENT, StatisticsService.GENDER, Student.Gender.FEMALE));
             
             // 學生狀態統計
-            statistics.put("enrolledStudents", studentService.countByStatus(Student.StudentStatus.ENROLLED));
-            statistics.put("graduatedStudents", studentService.countByStatus(Student.StudentStatus.GRADUATED));
-            statistics.put("suspendedStudents", studentService.countByStatus(Student.StudentStatus.SUSPENDED));
-            statistics.put("withdrawnStudents", studentService.countByStatus(Student.StudentStatus.WITHDRAWN));
-            
+            statistics.put("enrolledStudents", statisticsService.getCount(StatisticsService.STUDENT, StatisticsService.STATUS, Student.StudentStatus.ENROLLED));
+            statistics.put("graduatedStudents", statisticsService.getCount(StatisticsService.STUDENT, StatisticsService.STATUS, Student.StudentStatus.GRADUATED));
+            statistics.put("suspendedStudents", statisticsService.getCount(StatisticsService.STUDENT, StatisticsService.STATUS, Student.StudentStatus.SUSPENDED));
+            statistics.put("withdrawnStudents", statisticsService.getCount(StatisticsService.STUDENT, StatisticsService.STATUS, Student.StudentStatus.WITHDRAWN));
+        
         } catch (Exception e) {
             statistics.put("error", "獲取統計數據時發生錯誤: " + e.getMessage());
         }
@@ -174,8 +227,9 @@ public class ReportsController {
         Map<String, Object> result = new HashMap<>();
         
         try {
-            long maleCount = studentService.countByGender(Student.Gender.MALE);
-            long femaleCount = studentService.countByGender(Student.Gender.FEMALE);
+            Map<Student.Gender, Long> genderCounts = studentService.countGroupByGender();
+            long maleCount = genderCounts.get(Student.Gender.MALE);
+            long femaleCount = genderCounts.get(Student.Gender.FEMALE);
             
             result.put("male", maleCount);
             result.put("female", femaleCount);
@@ -194,14 +248,158 @@ public class ReportsController {
         Map<String, Object> result = new HashMap<>();
         
         try {
-            result.put("enrolled", studentService.countByStatus(Student.StudentStatus.ENROLLED));
-            result.put("graduated", studentService.countByStatus(Student.StudentStatus.GRADUATED));
-            result.put("suspended", studentService.countByStatus(Student.StudentStatus.SUSPENDED));
-            result.put("withdrawn", studentService.countByStatus(Student.StudentStatus.WITHDRAWN));
+            // 單次 GROUP BY 查詢獲取所有狀態
+            for (Map.Entry<Student.StudentStatus, Long> entry : studentService.countGroupByStatus().entrySet()) {
+                result.put(entry.getKey().name().toLowerCase(), entry.getValue());
+            }
         } catch (Exception e) {
             result.put("error", "獲取學生狀態分佈數據時發生錯誤: " + e.getMessage());
         }
         
         return ResponseEntity.ok(result);
     }
-}
\ No newline at end of file
+    
+    // API端點：獲取班級 × 狀態 × 性別交叉統計
+    @GetMapping("/api/student-cross-tab")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getStudentCrossTab() {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            long total = 0;
+            for (StudentCrossTabRow row : studentService.countCrossTabByClassStatusGender()) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("classId", row.getClassId());
+                item.put("className", row.getClassName() != null ? row.getClassName() : "未分班");
+                item.put("status", row.getStatus());
+                item.put("gender", row.getGender());
+                item.put("count", row.getTotal());
+                rows.add(item);
+                total += row.getTotal();
+            }
+            result.put("rows", rows);
+            result.put("total", total);
+        } catch (Exception e) {
+            result.put("error", "獲取交叉統計數據時發生錯誤: " + e.getMessage());
+        }
+        
+        return ResponseEntity.ok(result);
+    }
+    
+    // API端點：考勤趨勢，每天一行，可按課程或班級過濾
+    @GetMapping("/api/attendance-trend")
+    @ResponseBody
+    public ResponseEntity<List<AttendanceTrendRow>> getAttendanceTrend(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) Long classId) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_TREND_DAYS);
+        return ResponseEntity.ok(attendanceRollupService.getDailyTrend(start, end, courseId, classId));
+    }
+    
+    // API端點：區間內按課程匯總的考勤計數
+    @GetMapping("/api/attendance-by-course")
+    @ResponseBody
+    public ResponseEntity<List<AttendanceGroupCountsRow>> getAttendanceByCourse(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            @RequestParam(required = false) Long classId) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_TREND_DAYS);
+        return ResponseEntity.ok(attendanceRollupService.getTotalsByCourse(start, end, classId));
+    }
+    
+    // API端點：區間內按班級匯總的考勤計數
+    @GetMapping("/api/attendance-by-class")
+    @ResponseBody
+    public ResponseEntity<List<AttendanceGroupCountsRow>> getAttendanceByClass(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            @RequestParam(required = false) Long courseId) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_TREND_DAYS);
+        return ResponseEntity.ok(attendanceRollupService.getTotalsByClass(start, end, courseId));
+    }
+    
+    // API端點：班級排名，讀取異步計算的名次
+    @GetMapping("/api/class-ranking")
+    @ResponseBody
+    public ResponseEntity<List<StudentAcademicSummary>> getClassRanking(@RequestParam Long classId) {
+        return ResponseEntity.ok(academicSummaryService.getClassRanking(classId));
+    }
+    
+    @GetMapping("/api/grade-level-ranking")
+    @ResponseBody
+    public ResponseEntity<List<StudentAcademicSummary>> getGradeLevelRanking(
+            @RequestParam Integer gradeLevel,
+            @RequestParam(defaultValue = "" + DEFAULT_RANKING_LIMIT) int limit) {
+        return ResponseEntity.ok(academicSummaryService.getGradeLevelRanking(gradeLevel, limit));
+    }
+    
+    // API端點：排名索引的實時名次，如「班級第 12 名，共 480 人」
+    @GetMapping("/api/rankings/student")
+    @ResponseBody
+    public ResponseEntity<?> getStudentRankings(@RequestParam Long studentId) {
+        return rankingResponse(rankingService.getStudentRanks(studentId));
+    }
+    
+    @GetMapping("/api/rankings/class")
+    @ResponseBody
+    public ResponseEntity<?> getClassTop(@RequestParam Long classId,
+                                         @RequestParam(defaultValue = "" + DEFAULT_RANKING_LIMIT) int limit) {
+        return rankingResponse(rankingService.getTopInClass(classId, limit));
+    }
+    
+    @GetMapping("/api/rankings/grade-level")
+    @ResponseBody
+    public ResponseEntity<?> getGradeLevelTop(@RequestParam Integer gradeLevel,
+                                              @RequestParam(defaultValue = "" + DEFAULT_RANKING_LIMIT) int limit) {
+        return rankingResponse(rankingService.getTopInGradeLevel(gradeLevel, limit));
+    }
+    
+    @GetMapping("/api/rankings/course")
+    @ResponseBody
+    public ResponseEntity<?> getCourseTop(@RequestParam Long courseId,
+                                          @RequestParam Integer academicYear,
+                                          @RequestParam(required = false) Grade.Semester semester,
+                                          @RequestParam(defaultValue = "" + DEFAULT_RANKING_LIMIT) int limit) {
+        return rankingResponse(rankingService.getTopInCourse(courseId, academicYear, semester, limit));
+    }
+    
+    @GetMapping("/api/rankings/statistics")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getRankingStatistics() {
+        return ResponseEntity.ok(rankingService.getStatistics());
+    }
+    
+    // 索引未就緒時返回 503，班級與年級排名可改用預先計算的排名接口
+    private ResponseEntity<?> rankingResponse(Optional<List<RankPosition>> positions) {
+        if (positions.isPresent()) {
+            return ResponseEntity.ok(positions.get());
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", "排名索引尚未就緒，請稍後再試");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+    
+    // API端點：成績分佈報表，按課程緩存至該課程下次成績寫入
+    @GetMapping("/api/grade-distribution")
+    @ResponseBody
+    public ResponseEntity<List<GradeReport>> getGradeDistribution(
+            @RequestParam(defaultValue = "COURSE") GradeReportService.Dimension dimension,
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) Long classId,
+            @RequestParam(required = false) Integer academicYear,
+            @RequestParam(required = false) Grade.Semester semester) {
+        return ResponseEntity.ok(gradeReportService.getReport(dimension, courseId, classId, academicYear, semester));
+    }
+    
+    @GetMapping("/api/grade-distribution/statistics")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getGradeDistributionStatistics() {
+        return ResponseEntity.ok(gradeReportService.getStatistics());
+    }
+}
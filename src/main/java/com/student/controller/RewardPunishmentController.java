@@ -1,8 +1,10 @@
 package com.student.controller;
 
+import com.student.dto.KeysetPage;
 import com.student.entity.RewardPunishment;
+import com.student.repository.projection.RewardPunishmentListRow;
+import com.student.service.LookupService;
 import com.student.service.RewardPunishmentService;
-import com.student.service.StudentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -24,11 +26,14 @@ import java.util.Optional;
 @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
 public class RewardPunishmentController {
     
+    // 鍵集分頁模式參數值
+    private static final String KEYSET_MODE = "keyset";
+    
     @Autowired
     private RewardPunishmentService rewardPunishmentService;
     
     @Autowired
-    private StudentService studentService;
+    private LookupService lookupService;
     
     // 獎懲列表頁面
     @GetMapping
@@ -39,22 +44,32 @@ public class RewardPunishmentController {
                                       @RequestParam(required = false) RewardPunishment.Type type,
                                       @RequestParam(required = false) RewardPunishment.Category category,
                                       @RequestParam(required = false) RewardPunishment.Status status,
+                                      @RequestParam(required = false) String mode,
+                                      @RequestParam(required = false) String after,
+                                      @RequestParam(required = false) String before,
                                       Model model) {
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by("date").descending());
-        
-        Page<RewardPunishment> rewardPunishments;
-        if (studentName != null || title != null || type != null || category != null || status != null) {
-            rewardPunishments = rewardPunishmentService.findByAdvancedSearch(studentName, title, type, category, status, pageable);
+        if (KEYSET_MODE.equals(mode)) {
+            // 鍵集分頁：按游標翻頁，總數取自計數器緩存
+            KeysetPage<RewardPunishmentListRow> rewardPunishments = rewardPunishmentService.findByKeyset(
+                    studentName, title, type, category, status, after, before, size);
+            model.addAttribute("rewardPunishments", rewardPunishments);
+            model.addAttribute("keysetMode", true);
+            model.addAttribute("totalItems", rewardPunishments.getApproximateTotal() != null ? rewardPunishments.getApproximateTotal() : "-");
         } else {
-            rewardPunishments = rewardPunishmentService.findAllRewardPunishments(pageable);
+            Pageable pageable = PageRequest.of(page, size, Sort.by("date").descending());
+            
+            // 列表行投影：學生名稱隨同一條 SQL 取出，不再逐行懶加載
+            Page<RewardPunishmentListRow> rewardPunishments = rewardPunishmentService.findListRows(
+                    studentName, title, type, category, status, pageable);
+            
+            model.addAttribute("rewardPunishments", rewardPunishments);
+            model.addAttribute("keysetMode", false);
+            model.addAttribute("currentPage", page);
+            model.addAttribute("totalPages", rewardPunishments.getTotalPages());
+            model.addAttribute("totalItems", rewardPunishments.getTotalElements());
         }
         
-        model.addAttribute("rewardPunishments", rewardPunishments);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", rewardPunishments.getTotalPages());
-        model.addAttribute("totalItems", rewardPunishments.getTotalElements());
-        
         // 添加搜索條件到模型
         model.addAttribute("searchStudentName", studentName);
         model.addAttribute("searchTitle", title);
@@ -73,7 +88,7 @@ public class RewardPunishmentController {
     // 獎懲詳情頁面
     @GetMapping("/{id}")
     public String viewRewardPunishment(@PathVariable Long id, Model model) {
-        Optional<RewardPunishment> rewardPunishmentOpt = rewardPunishmentService.findById(id);
+        Optional<RewardPunishment> rewardPunishmentOpt = rewardPunishmentService.findDetailById(id);
         if (rewardPunishmentOpt.isPresent()) {
             model.addAttribute("rewardPunishment", rewardPunishmentOpt.get());
             return "rewards/view";
@@ -84,8 +99,9 @@ public class RewardPunishmentController {
     // 新增獎懲頁面
     @GetMapping("/new")
     public String newRewardPunishmentForm(Model model) {
-        model.addAttribute("rewardPunishment", new RewardPunishment());
-        model.addAttribute("students", studentService.findAllStudents());
+        RewardPunishment rewardPunishment = new RewardPunishment();
+        model.addAttribute("rewardPunishment", rewardPunishment);
+        addSelectionLabels(model, rewardPunishment);
         model.addAttribute("types", RewardPunishment.Type.values());
         model.addAttribute("categories", RewardPunishment.Category.values());
         model.addAttribute("statuses", RewardPunishment.Status.values());
@@ -98,7 +114,7 @@ public class RewardPunishmentController {
         Optional<RewardPunishment> rewardPunishmentOpt = rewardPunishmentService.findById(id);
         if (rewardPunishmentOpt.isPresent()) {
             model.addAttribute("rewardPunishment", rewardPunishmentOpt.get());
-            model.addAttribute("students", studentService.findAllStudents());
+            addSelectionLabels(model, rewardPunishmentOpt.get());
             model.addAttribute("types", RewardPunishment.Type.values());
             model.addAttribute("categories", RewardPunishment.Category.values());
             model.addAttribute("statuses", RewardPunishment.Status.values());
@@ -115,7 +131,7 @@ public class RewardPunishmentController {
                                      RedirectAttributes redirectAttributes) {
         
         if (result.hasErrors()) {
-            model.addAttribute("students", studentService.findAllStudents());
+            addSelectionLabels(model, rewardPunishment);
             model.addAttribute("types", RewardPunishment.Type.values());
             model.addAttribute("categories", RewardPunishment.Category.values());
             model.addAttribute("statuses", RewardPunishment.Status.values());
@@ -128,7 +144,7 @@ public class RewardPunishmentController {
             return "redirect:/rewards/" + savedRewardPunishment.getId();
         } catch (Exception e) {
             model.addAttribute("error", e.getMessage());
-            model.addAttribute("students", studentService.findAllStudents());
+            addSelectionLabels(model, rewardPunishment);
             model.addAttribute("types", RewardPunishment.Type.values());
             model.addAttribute("categories", RewardPunishment.Category.values());
             model.addAttribute("statuses", RewardPunishment.Status.values());
@@ -187,7 +203,7 @@ public class RewardPunishmentController {
     // API接口 - 獲取獎懲列表
     @GetMapping("/api")
     @ResponseBody
-    public ResponseEntity<Page<RewardPunishment>> getRewardPunishmentsApi(
+    public ResponseEntity<Page<RewardPunishmentListRow>> getRewardPunishmentsApi(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String studentName,
@@ -198,22 +214,40 @@ public class RewardPunishmentController {
         
         Pageable pageable = PageRequest.of(page, size, Sort.by("date").descending());
         
-        Page<RewardPunishment> rewardPunishments;
-        if (studentName != null || title != null || type != null || category != null || status != null) {
-            rewardPunishments = rewardPunishmentService.findByAdvancedSearch(studentName, title, type, category, status, pageable);
-        } else {
-            rewardPunishments = rewardPunishmentService.findAllRewardPunishments(pageable);
-        }
+        Page<RewardPunishmentListRow> rewardPunishments = rewardPunishmentService.findListRows(
+                studentName, title, type, category, status, pageable);
         
         return ResponseEntity.ok(rewardPunishments);
     }
     
+    // API接口 - 鍵集分頁獲取獎懲列表
+    @GetMapping("/api/keyset")
+    @ResponseBody
+    public ResponseEntity<KeysetPage<RewardPunishmentListRow>> getRewardPunishmentsKeysetApi(
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String studentName,
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) RewardPunishment.Type type,
+            @RequestParam(required = false) RewardPunishment.Category category,
+            @RequestParam(required = false) RewardPunishment.Status status,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before) {
+        
+        return ResponseEntity.ok(rewardPunishmentService.findByKeyset(studentName, title, type, category, status, after, before, size));
+    }
+    
     // API接口 - 獲取獎懲詳情
     @GetMapping("/api/{id}")
     @ResponseBody
     public ResponseEntity<RewardPunishment> getRewardPunishmentApi(@PathVariable Long id) {
-        Optional<RewardPunishment> rewardPunishmentOpt = rewardPunishmentService.findById(id);
+        Optional<RewardPunishment> rewardPunishmentOpt = rewardPunishmentService.findDetailById(id);
         return rewardPunishmentOpt.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+    
+    // 表單只回顯當前選中的學生，候選項由 /api/lookup 按需加載
+    private void addSelectionLabels(Model model, RewardPunishment rewardPunishment) {
+        model.addAttribute("studentLabel", rewardPunishment.getStudent() != null
+                ? lookupService.studentLabel(rewardPunishment.getStudent().getId()) : "");
+    }
 }
\ No newline at end of file
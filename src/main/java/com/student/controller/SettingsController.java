@@ -1,6 +1,8 @@
 package com.student.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -14,15 +16,22 @@ import com.student.service.CourseService;
 import com.student.service.GradeService;
 import com.student.service.AttendanceService;
 import com.student.service.RewardPunishmentService;
+import com.student.service.StatisticsService;
+import com.student.service.ReferenceCacheService;
+import com.student.service.AttendanceRollupService;
+import com.student.service.AcademicSummaryService;
+import com.student.service.GradeReportService;
+import com.student.config.BoundedPasswordEncoder;
 
 import javax.servlet.http.HttpSession;
+import java.time.LocalDate;
 import java.util.*;
 
 @Controller
 @RequestMapping("/settings")
 @PreAuthorize("hasRole('ADMIN')")
 public class SettingsController {
-
+    
     @Autowired
     private StudentService studentService;
     
@@ -43,20 +52,38 @@ public class SettingsController {
     
     @Autowired
     private RewardPunishmentService rewardPunishmentService;
-
+    
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Autowired
+    private ReferenceCacheService referenceCacheService;
+    
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+    
+    @Autowired
+    private AcademicSummaryService academicSummaryService;
+    
+    @Autowired
+    private GradeReportService gradeReportService;
+    
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+    
     @GetMapping
     public String settings(Model model) {
         // 系統統計信息
         Map<String, Object> systemStats = new HashMap<>();
         
         try {
-            systemStats.put("totalStudents", studentService.findAllStudents().size());
-            systemStats.put("totalTeachers", teacherService.countTeachers());
-            systemStats.put("totalClasses", classService.findAllClasses().size());
-            systemStats.put("totalCourses", courseService.findAllCourses().size());
-            systemStats.put("totalGrades", gradeService.findAllGrades().size());
-            systemStats.put("totalAttendances", attendanceService.findAllAttendance().size());
-            systemStats.put("totalRewards", rewardPunishmentService.findAllRewardPunishments().size());
+            systemStats.put("totalStudents", statisticsService.getTotal(StatisticsService.STUDENT));
+            systemStats.put("totalTeachers", statisticsService.getTotal(StatisticsService.TEACHER));
+            systemStats.put("totalClasses", statisticsService.getTotal(StatisticsService.CLASS));
+            systemStats.put("totalCourses", statisticsService.getTotal(StatisticsService.COURSE));
+            systemStats.put("totalGrades", statisticsService.getTotal(StatisticsService.GRADE));
+            systemStats.put("totalAttendances", statisticsService.getTotal(StatisticsService.ATTENDANCE));
+            systemStats.put("totalRewards", statisticsService.getTotal(StatisticsService.REWARD_PUNISHMENT));
         } catch (Exception e) {
             systemStats.put("totalStudents", 0);
             systemStats.put("totalTeachers", 0);
@@ -108,6 +135,7 @@ public class SettingsController {
         try {
             // 清除緩存
             session.invalidate();
+            referenceCacheService.evictAll();
             System.gc(); // 建議垃圾回收
             redirectAttributes.addFlashAttribute("successMessage", "系統緩存已清除！");
         } catch (Exception e) {
@@ -116,6 +144,59 @@ public class SettingsController {
         return "redirect:/settings";
     }
     
+    // API端點：二級緩存各區域命中率
+    @GetMapping("/api/cache-statistics")
+    @ResponseBody
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStatistics() {
+        return ResponseEntity.ok(referenceCacheService.getStatistics());
+    }
+    
+    // API端點：密碼哈希線程池的排隊、耗時與拒絕次數
+    @GetMapping("/api/password-hashing/statistics")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getPasswordHashingStatistics() {
+        return ResponseEntity.ok(passwordEncoder.getStatistics());
+    }
+    
+    // API端點：從考勤記錄重算日期區間內的考勤日匯總
+    @PostMapping("/api/attendance-rollup/rebuild")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> rebuildAttendanceRollup(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to) {
+        Map<String, Object> response = new HashMap<>();
+        if (from.isAfter(to)) {
+            response.put("error", "開始日期不能晚於結束日期");
+            return ResponseEntity.badRequest().body(response);
+        }
+        long start = System.currentTimeMillis();
+        response.put("rows", attendanceRollupService.rebuild(from, to));
+        response.put("elapsedMillis", System.currentTimeMillis() - start);
+        return ResponseEntity.ok(response);
+    }
+    
+    // API端點：從成績表全量重建學生學業匯總與排名
+    @PostMapping("/api/academic-summary/rebuild")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> rebuildAcademicSummary() {
+        Map<String, Object> response = new HashMap<>();
+        long start = System.currentTimeMillis();
+        response.put("students", academicSummaryService.rebuildAll());
+        response.put("elapsedMillis", System.currentTimeMillis() - start);
+        return ResponseEntity.ok(response);
+    }
+    
+    // API端點：清空成績報表緩存並並行重讀全部課程
+    @PostMapping("/api/grade-report/recompute")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> recomputeGradeReports() {
+        Map<String, Object> response = new HashMap<>();
+        long start = System.currentTimeMillis();
+        response.put("grades", gradeReportService.recomputeAll());
+        response.put("elapsedMillis", System.currentTimeMillis() - start);
+        return ResponseEntity.ok(response);
+    }
+    
     @PostMapping("/reset-demo-data")
     public String resetDemoData(RedirectAttributes redirectAttributes) {
         try {
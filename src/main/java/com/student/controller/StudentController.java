@@ -1,6 +1,11 @@
 package com.student.controller;
 
+import com.student.dto.KeysetPage;
+import com.student.dto.StudentImportResult;
 import com.student.entity.Student;
+import com.student.entity.StudentAcademicSummary;
+import com.student.repository.projection.StudentListRow;
+import com.student.service.AcademicSummaryService;
 import com.student.service.StudentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -17,11 +22,14 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.validation.Valid;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
@@ -32,6 +40,15 @@ public class StudentController {
     @Autowired
     private StudentService studentService;
     
+    @Autowired
+    private AcademicSummaryService academicSummaryService;
+    
+    // 鍵集分頁模式參數值
+    private static final String KEYSET_MODE = "keyset";
+    
+    // 導入提示中顯示的錯誤行數
+    private static final int IMPORT_ERROR_PREVIEW = 5;
+    
     // 學生列表頁面
     @GetMapping
     public String listStudents(@RequestParam(defaultValue = "0") int page,
@@ -41,22 +58,30 @@ public class StudentController {
                               @RequestParam(required = false) Long classId,
                               @RequestParam(required = false) Student.StudentStatus status,
                               @RequestParam(required = false) Student.Gender gender,
+                              @RequestParam(required = false) String mode,
+                              @RequestParam(required = false) String after,
+                              @RequestParam(required = false) String before,
                               Model model) {
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        
-        Page<Student> students;
-        if (name != null || studentNumber != null || classId != null || status != null || gender != null) {
-            students = studentService.findByAdvancedSearch(name, studentNumber, classId, status, gender, pageable);
+        if (KEYSET_MODE.equals(mode)) {
+            // 鍵集分頁：按游標翻頁，總數取自計數器緩存
+            KeysetPage<StudentListRow> students = studentService.findByKeyset(name, studentNumber, classId, status, gender, after, before, size);
+            model.addAttribute("students", students);
+            model.addAttribute("keysetMode", true);
+            model.addAttribute("totalItems", students.getApproximateTotal() != null ? students.getApproximateTotal() : "-");
         } else {
-            students = studentService.findAllStudents(pageable);
+            Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            
+            // 列表行投影：班級名稱隨同一條 SQL 取出，不再逐行懶加載
+            Page<StudentListRow> students = studentService.findListRows(name, studentNumber, classId, status, gender, pageable);
+            
+            model.addAttribute("students", students);
+            model.addAttribute("keysetMode", false);
+            model.addAttribute("currentPage", page);
+            model.addAttribute("totalPages", students.getTotalPages());
+            model.addAttribute("totalItems", students.getTotalElements());
         }
         
-        model.addAttribute("students", students);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", students.getTotalPages());
-        model.addAttribute("totalItems", students.getTotalElements());
-        
         // 添加搜索條件到模型
         model.addAttribute("searchName", name);
         model.addAttribute("searchStudentNumber", studentNumber);
@@ -70,9 +95,12 @@ public class StudentController {
     // 學生詳情頁面
     @GetMapping("/{id}")
     public String viewStudent(@PathVariable Long id, Model model) {
-        Optional<Student> studentOpt = studentService.findById(id);
+        Optional<Student> studentOpt = studentService.findDetailById(id);
         if (studentOpt.isPresent()) {
             model.addAttribute("student", studentOpt.get());
+            // 學業匯總讀取預先計算的行，不在頁面請求中聚合成績
+            model.addAttribute("academicSummary", academicSummaryService.getSummary(id).orElse(null));
+            model.addAttribute("termSummaries", academicSummaryService.getTermSummaries(id));
             return "student/view";
         }
         return "redirect:/students";
@@ -137,6 +165,37 @@ public class StudentController {
         return "redirect:/students";
     }
     
+    // API接口 - 鍵集分頁獲取學生列表
+    @GetMapping("/api/keyset")
+    @ResponseBody
+    public ResponseEntity<KeysetPage<StudentListRow>> getStudentsKeysetApi(
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String studentNumber,
+            @RequestParam(required = false) Long classId,
+            @RequestParam(required = false) Student.StudentStatus status,
+            @RequestParam(required = false) Student.Gender gender,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before) {
+        
+        return ResponseEntity.ok(studentService.findByKeyset(name, studentNumber, classId, status, gender, after, before, size));
+    }
+    
+    // API接口 - 學生學業匯總與分學期明細
+    @GetMapping("/api/{id}/academic-summary")
+    @ResponseBody
+    public ResponseEntity<?> getAcademicSummaryApi(@PathVariable Long id) {
+        Map<String, Object> response = new HashMap<>();
+        Optional<StudentAcademicSummary> summary = academicSummaryService.getSummary(id);
+        if (!summary.isPresent()) {
+            response.put("error", "該學生暫無成績匯總");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("summary", summary.get());
+        response.put("terms", academicSummaryService.getTermSummaries(id));
+        return ResponseEntity.ok(response);
+    }
+    
     // Excel導入頁面
     @GetMapping("/import")
     public String importPage() {
@@ -153,9 +212,26 @@ public class StudentController {
         }
         
         try {
-            List<Student> importedStudents = studentService.importStudentsFromExcel(file);
-            redirectAttributes.addFlashAttribute("success", 
-                "成功導入 " + importedStudents.size() + " 條學生記錄");
+            if (isXlsx(file)) {
+                // .xlsx 使用流式導入，逐行錯誤摘要附在提示中
+                StudentImportResult result = studentService.importStudentsFromExcelStreaming(file);
+                StringBuilder message = new StringBuilder("成功導入 " + result.getImportedCount() + " 條學生記錄");
+                if (result.getFailedCount() > 0) {
+                    message.append("，失敗 ").append(result.getFailedCount()).append(" 條");
+                    int shown = Math.min(IMPORT_ERROR_PREVIEW, result.getErrors().size());
+                    for (StudentImportResult.RowError error : result.getErrors().subList(0, shown)) {
+                        message.append("；第 ").append(error.getRowNumber()).append(" 行：").append(error.getMessage());
+                    }
+                    if (result.getFailedCount() > shown) {
+                        message.append("……");
+                    }
+                }
+                redirectAttributes.addFlashAttribute(result.getImportedCount() > 0 ? "success" : "error", message.toString());
+            } else {
+                List<Student> importedStudents = studentService.importStudentsFromExcel(file);
+                redirectAttributes.addFlashAttribute("success", 
+                    "成功導入 " + importedStudents.size() + " 條學生記錄");
+            }
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "導入失敗：" + e.getMessage());
         }
@@ -163,40 +239,48 @@ public class StudentController {
         return "redirect:/students";
     }
     
-    // Excel導出
+    // API接口 - 流式導入並返回完整的逐行錯誤報告
+    @PostMapping("/api/import")
+    @ResponseBody
+    public ResponseEntity<?> importStudentsApi(@RequestParam("file") MultipartFile file) {
+        Map<String, Object> response = new HashMap<>();
+        if (file.isEmpty() || !isXlsx(file)) {
+            response.put("error", "請選擇 .xlsx 格式的Excel文件");
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        try {
+            return ResponseEntity.ok(studentService.importStudentsFromExcelStreaming(file));
+        } catch (Exception e) {
+            response.put("error", "導入失敗：" + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    private boolean isXlsx(MultipartFile file) {
+        String filename = file.getOriginalFilename();
+        return filename != null && filename.toLowerCase().endsWith(".xlsx");
+    }
+    
+    // Excel導出：流式寫入響應，內存佔用與導出行數無關
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportStudents(
+    public ResponseEntity<StreamingResponseBody> exportStudents(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String studentNumber,
             @RequestParam(required = false) Long classId,
             @RequestParam(required = false) Student.StudentStatus status,
             @RequestParam(required = false) Student.Gender gender) {
         
-        try {
-            List<Student> students;
-            if (name != null || studentNumber != null || classId != null || status != null || gender != null) {
-                // 如果有搜索條件，導出搜索結果
-                Pageable pageable = PageRequest.of(0, Integer.MAX_VALUE);
-                Page<Student> studentPage = studentService.findByAdvancedSearch(name, studentNumber, classId, status, gender, pageable);
-                students = studentPage.getContent();
-            } else {
-                // 導出所有學生
-                students = studentService.findAllStudents();
-            }
-            
-            byte[] excelData = studentService.exportStudentsToExcel(students);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", "students_" + LocalDate.now() + ".xlsx");
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelData);
-                    
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        StreamingResponseBody body = outputStream ->
+                studentService.exportStudentsToExcel(name, studentNumber, classId, status, gender, outputStream);
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", "students_" + LocalDate.now() + ".xlsx");
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
     }
     
     // 下載Excel模板
@@ -0,0 +1,38 @@
+package com.student.dto;
+
+import java.time.Instant;
+
+// 簽發給 API 客戶端的訪問令牌，請求時放在 Authorization: Bearer 頭中
+public class ApiToken {
+    
+    private final String token;
+    
+    private final String tokenType = "Bearer";
+    
+    private final Instant expiresAt;
+    
+    private final long expiresIn;
+    
+    public ApiToken(String token, Instant expiresAt, long expiresIn) {
+        this.token = token;
+        this.expiresAt = expiresAt;
+        this.expiresIn = expiresIn;
+    }
+    
+    public String getToken() {
+        return token;
+    }
+    
+    public String getTokenType() {
+        return tokenType;
+    }
+    
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+    
+    // 有效期，單位秒
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+}
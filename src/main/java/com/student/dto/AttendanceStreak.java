@@ -0,0 +1,22 @@
+package com.student.dto;
+
+// 連續出勤：按有考勤記錄的日期計，出席或遲到算出勤
+public class AttendanceStreak {
+    
+    private final int current;
+    
+    private final int longest;
+    
+    public AttendanceStreak(int current, int longest) {
+        this.current = current;
+        this.longest = longest;
+    }
+    
+    public int getCurrent() {
+        return current;
+    }
+    
+    public int getLongest() {
+        return longest;
+    }
+}
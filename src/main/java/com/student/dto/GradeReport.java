@@ -0,0 +1,108 @@
+package com.student.dto;
+
+// 一個分組的成績分佈：直方圖按 10 分一段，最後一段包含 100 分
+public class GradeReport {
+    
+    private final String dimension;
+    
+    private final Object key;
+    
+    private final String label;
+    
+    private final long count;
+    
+    private final double mean;
+    
+    private final double median;
+    
+    private final double stdDev;
+    
+    private final double p10;
+    
+    private final double p90;
+    
+    private final double min;
+    
+    private final double max;
+    
+    private final long passCount;
+    
+    private final double passRate;
+    
+    private final long[] histogram;
+    
+    public GradeReport(String dimension, Object key, String label, long count, double mean, double median,
+                       double stdDev, double p10, double p90, double min, double max, long passCount,
+                       double passRate, long[] histogram) {
+        this.dimension = dimension;
+        this.key = key;
+        this.label = label;
+        this.count = count;
+        this.mean = mean;
+        this.median = median;
+        this.stdDev = stdDev;
+        this.p10 = p10;
+        this.p90 = p90;
+        this.min = min;
+        this.max = max;
+        this.passCount = passCount;
+        this.passRate = passRate;
+        this.histogram = histogram;
+    }
+    
+    public String getDimension() {
+        return dimension;
+    }
+    
+    public Object getKey() {
+        return key;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public double getMean() {
+        return mean;
+    }
+    
+    public double getMedian() {
+        return median;
+    }
+    
+    public double getStdDev() {
+        return stdDev;
+    }
+    
+    public double getP10() {
+        return p10;
+    }
+    
+    public double getP90() {
+        return p90;
+    }
+    
+    public double getMin() {
+        return min;
+    }
+    
+    public double getMax() {
+        return max;
+    }
+    
+    public long getPassCount() {
+        return passCount;
+    }
+    
+    public double getPassRate() {
+        return passRate;
+    }
+    
+    public long[] getHistogram() {
+        return histogram;
+    }
+}
@@ -0,0 +1,63 @@
+package com.student.dto;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// 鍵集分頁游標：編碼 (createdAt, id)，列表按兩者倒序排列
+public class KeysetCursor {
+    
+    // 首頁使用的起始位置，早於它的記錄即全部記錄
+    public static final KeysetCursor START = new KeysetCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+    
+    private final LocalDateTime createdAt;
+    
+    private final Long id;
+    
+    public KeysetCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // 無效或缺失的游標返回 null，調用方從首頁開始
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    
+    // 向後翻頁（更早的記錄）：倒序讀取
+    public static Pageable olderPage(int size) {
+        return PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+    }
+    
+    // 向前翻頁（更新的記錄）：正序讀取後再反轉
+    public static Pageable newerPage(int size) {
+        return PageRequest.of(0, size, Sort.by(Sort.Direction.ASC, "createdAt", "id"));
+    }
+}
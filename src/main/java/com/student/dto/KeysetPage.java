@@ -0,0 +1,98 @@
+package com.student.dto;
+
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+// 鍵集分頁結果：不執行 COUNT(*)，總數取自計數器緩存（可能為空）
+public class KeysetPage<T> {
+    
+    private final List<T> content;
+    
+    private final int size;
+    
+    private final boolean hasNext;
+    
+    private final boolean hasPrevious;
+    
+    private final String nextCursor;
+    
+    private final String previousCursor;
+    
+    private final Long approximateTotal;
+    
+    private KeysetPage(List<T> content, int size, boolean hasNext, boolean hasPrevious,
+                       String nextCursor, String previousCursor, Long approximateTotal) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.hasPrevious = hasPrevious;
+        this.nextCursor = nextCursor;
+        this.previousCursor = previousCursor;
+        this.approximateTotal = approximateTotal;
+    }
+    
+    // 由查詢結果構建分頁：newer 表示向前翻頁（結果為正序），fromCursor 表示非首頁
+    public static <T> KeysetPage<T> of(Slice<T> slice, boolean newer, boolean fromCursor,
+                                       Function<T, LocalDateTime> createdAt, Function<T, Long> id,
+                                       Long approximateTotal) {
+        List<T> content = new ArrayList<>(slice.getContent());
+        boolean hasNext;
+        boolean hasPrevious;
+        if (newer) {
+            Collections.reverse(content);
+            hasNext = true;
+            hasPrevious = slice.hasNext();
+        } else {
+            hasNext = slice.hasNext();
+            hasPrevious = fromCursor;
+        }
+        
+        String nextCursor = null;
+        String previousCursor = null;
+        if (!content.isEmpty()) {
+            T first = content.get(0);
+            T last = content.get(content.size() - 1);
+            if (hasNext) {
+                nextCursor = new KeysetCursor(createdAt.apply(last), id.apply(last)).encode();
+            }
+            if (hasPrevious) {
+                previousCursor = new KeysetCursor(createdAt.apply(first), id.apply(first)).encode();
+            }
+        }
+        return new KeysetPage<>(content, slice.getSize(), hasNext && nextCursor != null,
+                hasPrevious && previousCursor != null, nextCursor, previousCursor, approximateTotal);
+    }
+    
+    public List<T> getContent() {
+        return content;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public boolean isHasNext() {
+        return hasNext;
+    }
+    
+    public boolean isHasPrevious() {
+        return hasPrevious;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+    
+    public Long getApproximateTotal() {
+        return approximateTotal;
+    }
+}
@@ -0,0 +1,34 @@
+package com.student.dto;
+
+// 自動完成候選項：編號（學號/課程代碼）、名稱與主鍵
+public class LookupItem {
+    
+    private final Long id;
+    
+    private final String number;
+    
+    private final String name;
+    
+    public LookupItem(Long id, String number, String name) {
+        this.id = id;
+        this.number = number;
+        this.name = name;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getNumber() {
+        return number;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    // 表單中顯示的文本，與原下拉框格式一致
+    public String getLabel() {
+        return name + " (" + number + ")";
+    }
+}
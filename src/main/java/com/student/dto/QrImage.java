@@ -0,0 +1,26 @@
+package com.student.dto;
+
+// 已渲染的二維碼圖片及其強 ETag
+public class QrImage {
+    
+    private final byte[] png;
+    
+    private final String etag;
+    
+    public QrImage(byte[] png, String etag) {
+        this.png = png;
+        this.etag = etag;
+    }
+    
+    public byte[] getPng() {
+        return png;
+    }
+    
+    public String getEtag() {
+        return etag;
+    }
+    
+    public int getSize() {
+        return png.length;
+    }
+}
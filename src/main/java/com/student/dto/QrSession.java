@@ -0,0 +1,129 @@
+package com.student.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 二維碼簽到會話在節點內存中的副本：會話記錄與名單在本節點首次用到時從數據庫加載一次，之後驗證無需查庫
+public class QrSession {
+    
+    private final String id;
+    
+    private final Long courseId;
+    
+    private final Long classId;
+    
+    private final LocalDate date;
+    
+    private final Instant startsAt;
+    
+    private final Instant expiresAt;
+    
+    private final int rotationSeconds;
+    
+    // 可簽到的學生
+    private final Set<Long> roster;
+    
+    // 已受理的學生，重複掃碼直接返回
+    private final Set<Long> checkedIn = ConcurrentHashMap.newKeySet();
+    
+    private final AtomicInteger duplicateCount = new AtomicInteger();
+    
+    private volatile boolean closed;
+    
+    public QrSession(String id, Long courseId, Long classId, LocalDate date, Instant startsAt, Instant expiresAt,
+                     int rotationSeconds, Set<Long> roster) {
+        this.id = id;
+        this.courseId = courseId;
+        this.classId = classId;
+        this.date = date;
+        this.startsAt = startsAt;
+        this.expiresAt = expiresAt;
+        this.rotationSeconds = rotationSeconds;
+        this.roster = roster;
+    }
+    
+    public boolean isEnrolled(Long studentId) {
+        return roster.contains(studentId);
+    }
+    
+    // 首次簽到返回 true
+    public boolean markCheckedIn(Long studentId) {
+        if (checkedIn.add(studentId)) {
+            return true;
+        }
+        duplicateCount.incrementAndGet();
+        return false;
+    }
+    
+    // 入隊失敗時撤銷，允許學生重試
+    public void unmarkCheckedIn(Long studentId) {
+        checkedIn.remove(studentId);
+    }
+    
+    public boolean isActive(Instant now) {
+        return !closed && !now.isBefore(startsAt) && now.isBefore(expiresAt);
+    }
+    
+    // 當前令牌輪換窗口序號
+    public long windowAt(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), rotationSeconds);
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public Long getCourseId() {
+        return courseId;
+    }
+    
+    public Long getClassId() {
+        return classId;
+    }
+    
+    public int getRosterSize() {
+        return roster.size();
+    }
+    
+    public LocalDate getDate() {
+        return date;
+    }
+    
+    public Instant getStartsAt() {
+        return startsAt;
+    }
+    
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public int getRotationSeconds() {
+        return rotationSeconds;
+    }
+    
+    public int getCheckedInCount() {
+        return checkedIn.size();
+    }
+    
+    public int getDuplicateCount() {
+        return duplicateCount.get();
+    }
+    
+    public boolean isClosed() {
+        return closed;
+    }
+    
+    public void close() {
+        this.closed = true;
+    }
+    
+    @JsonIgnore
+    public Set<Long> getCheckedInStudentIds() {
+        return checkedIn;
+    }
+}
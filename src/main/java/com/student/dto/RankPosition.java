@@ -0,0 +1,50 @@
+package com.student.dto;
+
+// 分組內的名次：同分同名次，百分位為組內分數不高於該生的人數佔比
+public class RankPosition {
+    
+    private final String group;
+    
+    private final Long studentId;
+    
+    private final double score;
+    
+    private final int rank;
+    
+    private final int size;
+    
+    private final double percentile;
+    
+    public RankPosition(String group, Long studentId, double score, int rank, int size, double percentile) {
+        this.group = group;
+        this.studentId = studentId;
+        this.score = score;
+        this.rank = rank;
+        this.size = size;
+        this.percentile = percentile;
+    }
+    
+    public String getGroup() {
+        return group;
+    }
+    
+    public Long getStudentId() {
+        return studentId;
+    }
+    
+    public double getScore() {
+        return score;
+    }
+    
+    public int getRank() {
+        return rank;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public double getPercentile() {
+        return percentile;
+    }
+}
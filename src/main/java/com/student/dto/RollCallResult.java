@@ -0,0 +1,123 @@
+package com.student.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// 班級點名：名單、每名學生的狀態與保存計數
+public class RollCallResult {
+    
+    private Long classId;
+    
+    private Long courseId;
+    
+    private LocalDate date;
+    
+    // 在讀學生按 ID 升序
+    private final List<RosterEntry> roster = new ArrayList<>();
+    
+    private int insertedCount;
+    
+    private int updatedCount;
+    
+    private int unchangedCount;
+    
+    private int skippedCount;
+    
+    public RollCallResult(Long classId, Long courseId, LocalDate date) {
+        this.classId = classId;
+        this.courseId = courseId;
+        this.date = date;
+    }
+    
+    public void addStudent(Long studentId, String studentNumber, String name, String status) {
+        roster.add(new RosterEntry(studentId, studentNumber, name, status));
+    }
+    
+    public Long getClassId() {
+        return classId;
+    }
+    
+    public Long getCourseId() {
+        return courseId;
+    }
+    
+    public LocalDate getDate() {
+        return date;
+    }
+    
+    public List<RosterEntry> getRoster() {
+        return roster;
+    }
+    
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+    
+    public void setInsertedCount(int insertedCount) {
+        this.insertedCount = insertedCount;
+    }
+    
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+    
+    public void setUpdatedCount(int updatedCount) {
+        this.updatedCount = updatedCount;
+    }
+    
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+    
+    public void setUnchangedCount(int unchangedCount) {
+        this.unchangedCount = unchangedCount;
+    }
+    
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+    
+    public void setSkippedCount(int skippedCount) {
+        this.skippedCount = skippedCount;
+    }
+    
+    public int getSavedCount() {
+        return insertedCount + updatedCount;
+    }
+    
+    public static class RosterEntry {
+        
+        private final Long studentId;
+        
+        private final String studentNumber;
+        
+        private final String name;
+        
+        // 狀態代碼，null 表示尚無記錄
+        private final String status;
+        
+        public RosterEntry(Long studentId, String studentNumber, String name, String status) {
+            this.studentId = studentId;
+            this.studentNumber = studentNumber;
+            this.name = name;
+            this.status = status;
+        }
+        
+        public Long getStudentId() {
+            return studentId;
+        }
+        
+        public String getStudentNumber() {
+            return studentNumber;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public String getStatus() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.student.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 學生導入結果：成功數量與逐行錯誤報告
+public class StudentImportResult {
+    
+    private int totalRows;
+    
+    private int importedCount;
+    
+    private final List<RowError> errors = new ArrayList<>();
+    
+    public void addError(int rowNumber, String studentNumber, String message) {
+        errors.add(new RowError(rowNumber, studentNumber, message));
+    }
+    
+    public int getTotalRows() {
+        return totalRows;
+    }
+    
+    public void setTotalRows(int totalRows) {
+        this.totalRows = totalRows;
+    }
+    
+    public int getImportedCount() {
+        return importedCount;
+    }
+    
+    public void setImportedCount(int importedCount) {
+        this.importedCount = importedCount;
+    }
+    
+    public int getFailedCount() {
+        return errors.size();
+    }
+    
+    public List<RowError> getErrors() {
+        return errors;
+    }
+    
+    public static class RowError {
+        
+        private final int rowNumber;
+        
+        private final String studentNumber;
+        
+        private final String message;
+        
+        public RowError(int rowNumber, String studentNumber, String message) {
+            this.rowNumber = rowNumber;
+            this.studentNumber = studentNumber;
+            this.message = message;
+        }
+        
+        public int getRowNumber() {
+            return rowNumber;
+        }
+        
+        public String getStudentNumber() {
+            return studentNumber;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+    }
+}
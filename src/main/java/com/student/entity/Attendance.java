@@ -1,6 +1,9 @@
 package com.student.entity;
 
-
+import com.student.listener.AttendanceIndexEntityListener;
+import com.student.listener.AttendanceRollupEntityListener;
+import com.student.listener.StatisticsEntityListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.persistence.*;
@@ -10,11 +13,31 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "attendances")
+@Table(name = "attendances",
+        indexes = {@Index(name = "idx_attendances_created_at_id", columnList = "createdAt, id"),
+                // 考勤位圖索引按更新時間同步其他節點的寫入
+                @Index(name = "idx_attendances_updated_at", columnList = "updatedAt")},
+        // 點名按 (學生, 課程, 日期) 覆蓋寫入，每人每課每天一條記錄
+        uniqueConstraints = @UniqueConstraint(name = "uk_attendances_student_course_date",
+                columnNames = {"student_id", "course_id", "date"}))
+@EntityListeners({StatisticsEntityListener.class, AttendanceIndexEntityListener.class,
+        AttendanceRollupEntityListener.class})
+// 詳情頁與 API：學生（含班級、班主任）和課程（含教師）
+@NamedEntityGraph(name = "Attendance.detail",
+        attributeNodes = {
+                @NamedAttributeNode(value = "student", subgraph = "student"),
+                @NamedAttributeNode(value = "course", subgraph = "course")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "student", attributeNodes = @NamedAttributeNode(value = "classInfo", subgraph = "classInfo")),
+                @NamedSubgraph(name = "classInfo", attributeNodes = @NamedAttributeNode("teacher")),
+                @NamedSubgraph(name = "course", attributeNodes = @NamedAttributeNode("teacher"))
+        })
 public class Attendance {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendances_seq")
+    @SequenceGenerator(name = "attendances_seq", sequenceName = "attendances_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -52,11 +75,24 @@ public class Attendance {
     @Column(length = 1000)
     private String location;
     
-    @Column(updatable = false)
+    @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
     private LocalDateTime updatedAt;
     
+    // 加載或上次寫入時的位置與狀態：位圖索引、日匯總需清理原位置，統計據狀態計算差值
+    @Transient
+    private Long loadedStudentId;
+    
+    @Transient
+    private Long loadedCourseId;
+    
+    @Transient
+    private LocalDate loadedDate;
+    
+    @Transient
+    private AttendanceStatus loadedStatus;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -68,20 +104,48 @@ public class Attendance {
         updatedAt = LocalDateTime.now();
     }
     
+    // 實體監聽器的回調先於本方法執行，寫入時監聽器讀到的仍是上次的值
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    protected void rememberLoadedState() {
+        loadedStudentId = student != null ? student.getId() : null;
+        loadedCourseId = course != null ? course.getId() : null;
+        loadedDate = date;
+        loadedStatus = status;
+    }
+    
     // 枚舉定義
     public enum AttendanceStatus {
-        PRESENT("出席"), ABSENT("缺席"), LATE("遲到"), 
-        EARLY_LEAVE("早退"), LEAVE("請假"), SICK_LEAVE("病假");
+        PRESENT("出席", 'P'), ABSENT("缺席", 'A'), LATE("遲到", 'L'), 
+        EARLY_LEAVE("早退", 'E'), LEAVE("請假", 'V'), SICK_LEAVE("病假", 'S');
         
         private final String displayName;
         
-        AttendanceStatus(String displayName) {
+        // 點名接口使用的單字符代碼
+        private final char code;
+        
+        AttendanceStatus(String displayName, char code) {
             this.displayName = displayName;
+            this.code = code;
         }
         
         public String getDisplayName() {
             return displayName;
         }
+        
+        public char getCode() {
+            return code;
+        }
+        
+        public static AttendanceStatus fromCode(char code) {
+            for (AttendanceStatus status : values()) {
+                if (status.code == Character.toUpperCase(code)) {
+                    return status;
+                }
+            }
+            return null;
+        }
     }
     
     public enum AttendanceMethod {
@@ -202,4 +266,24 @@ public class Attendance {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    @JsonIgnore
+    public Long getLoadedStudentId() {
+        return loadedStudentId;
+    }
+    
+    @JsonIgnore
+    public Long getLoadedCourseId() {
+        return loadedCourseId;
+    }
+    
+    @JsonIgnore
+    public LocalDate getLoadedDate() {
+        return loadedDate;
+    }
+    
+    @JsonIgnore
+    public AttendanceStatus getLoadedStatus() {
+        return loadedStatus;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.student.entity;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 考勤日匯總：每天每課程每班級一行，按狀態計數，報表趨勢查詢只讀此表
+@Entity
+@Table(name = "attendance_daily_rollup",
+        indexes = @Index(name = "idx_attendance_daily_rollup_date_course", columnList = "date, course_id"),
+        // 未分班學生的匯總行 class_id 為空，唯一約束不覆蓋空值，靠重算時的 job_locks 行鎖保證不重複
+        uniqueConstraints = @UniqueConstraint(name = "uk_attendance_daily_rollup_date_course_class",
+                columnNames = {"date", "course_id", "class_id"}))
+public class AttendanceDailyRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendance_daily_rollup_seq")
+    @SequenceGenerator(name = "attendance_daily_rollup_seq", sequenceName = "attendance_daily_rollup_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(nullable = false)
+    private LocalDate date;
+    
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+    
+    // 學生未分班時為空
+    @Column(name = "class_id")
+    private Long classId;
+    
+    private long presentCount;
+    
+    private long absentCount;
+    
+    private long lateCount;
+    
+    private long earlyLeaveCount;
+    
+    private long leaveCount;
+    
+    private long sickLeaveCount;
+    
+    private long totalCount;
+    
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public LocalDate getDate() {
+        return date;
+    }
+    
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+    
+    public Long getCourseId() {
+        return courseId;
+    }
+    
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+    
+    public Long getClassId() {
+        return classId;
+    }
+    
+    public void setClassId(Long classId) {
+        this.classId = classId;
+    }
+    
+    public long getPresentCount() {
+        return presentCount;
+    }
+    
+    public void setPresentCount(long presentCount) {
+        this.presentCount = presentCount;
+    }
+    
+    public long getAbsentCount() {
+        return absentCount;
+    }
+    
+    public void setAbsentCount(long absentCount) {
+        this.absentCount = absentCount;
+    }
+    
+    public long getLateCount() {
+        return lateCount;
+    }
+    
+    public void setLateCount(long lateCount) {
+        this.lateCount = lateCount;
+    }
+    
+    public long getEarlyLeaveCount() {
+        return earlyLeaveCount;
+    }
+    
+    public void setEarlyLeaveCount(long earlyLeaveCount) {
+        this.earlyLeaveCount = earlyLeaveCount;
+    }
+    
+    public long getLeaveCount() {
+        return leaveCount;
+    }
+    
+    public void setLeaveCount(long leaveCount) {
+        this.leaveCount = leaveCount;
+    }
+    
+    public long getSickLeaveCount() {
+        return sickLeaveCount;
+    }
+    
+    public void setSickLeaveCount(long sickLeaveCount) {
+        this.sickLeaveCount = sickLeaveCount;
+    }
+    
+    public long getTotalCount() {
+        return totalCount;
+    }
+    
+    public void setTotalCount(long totalCount) {
+        this.totalCount = totalCount;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
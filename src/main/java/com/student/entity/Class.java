@@ -1,6 +1,12 @@
 package com.student.entity;
 
+import com.student.config.CacheConfig;
+import com.student.listener.SearchIndexEntityListener;
+import com.student.listener.StatisticsEntityListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.persistence.*;
@@ -11,10 +17,18 @@ import java.util.List;
 
 @Entity
 @Table(name = "classes")
+@EntityListeners({StatisticsEntityListener.class, SearchIndexEntityListener.class})
+// 列表、詳情與 API 顯示班主任
+@NamedEntityGraph(name = "Class.withTeacher", attributeNodes = @NamedAttributeNode("teacher"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.CLASS_REGION)
+// 從二級緩存組裝的關聯為代理對象，序列化時忽略代理內部屬性
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Class {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "classes_seq")
+    @SequenceGenerator(name = "classes_seq", sequenceName = "classes_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "班級名稱不能為空")
@@ -45,6 +59,10 @@ public class Class {
     
     private LocalDateTime updatedAt;
     
+    // 加載或上次寫入時的狀態，統計據此計算更新前的分佈
+    @Transient
+    private ClassStatus loadedStatus;
+    
     // 關聯關係
     @OneToMany(mappedBy = "classInfo", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
@@ -65,6 +83,13 @@ public class Class {
         updatedAt = LocalDateTime.now();
     }
     
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    protected void rememberLoadedState() {
+        loadedStatus = status;
+    }
+    
     public enum ClassStatus {
         ACTIVE("活躍"), INACTIVE("停用"), GRADUATED("已畢業");
         
@@ -167,4 +192,9 @@ public class Class {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    @JsonIgnore
+    public ClassStatus getLoadedStatus() {
+        return loadedStatus;
+    }
 } 
\ No newline at end of file
@@ -1,7 +1,13 @@
 package com.student.entity;
 
+import com.student.config.CacheConfig;
+import com.student.listener.LookupEntityListener;
+import com.student.listener.SearchIndexEntityListener;
+import com.student.listener.StatisticsEntityListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
-
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
@@ -10,10 +16,19 @@ import java.util.List;
 
 @Entity
 @Table(name = "courses")
+@EntityListeners({StatisticsEntityListener.class, SearchIndexEntityListener.class, LookupEntityListener.class})
+// 列表、詳情與 API 顯示授課教師
+@NamedEntityGraph(name = "Course.withTeacher", attributeNodes = @NamedAttributeNode("teacher"))
+// 課程很少變更，按 ID 與課程代碼讀取時走二級緩存
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.COURSE_REGION)
+// 從二級緩存組裝的關聯為代理對象，序列化時忽略代理內部屬性
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Course {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "courses_seq")
+    @SequenceGenerator(name = "courses_seq", sequenceName = "courses_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "課程代碼不能為空")
@@ -53,6 +68,7 @@ public class Course {
     
     // 關聯關係
     @OneToMany(mappedBy = "course", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.COURSE_SCHEDULES_REGION)
     @JsonIgnore
     private List<CourseSchedule> schedules;
     
@@ -65,6 +81,13 @@ public class Course {
     
     private LocalDateTime updatedAt;
     
+    // 加載或上次寫入時的類型與狀態，統計據此計算更新前的分佈
+    @Transient
+    private CourseType loadedType;
+    
+    @Transient
+    private CourseStatus loadedStatus;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -76,6 +99,14 @@ public class Course {
         updatedAt = LocalDateTime.now();
     }
     
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    protected void rememberLoadedState() {
+        loadedType = type;
+        loadedStatus = status;
+    }
+    
     // 枚舉定義
     public enum CourseType {
         REQUIRED("必修"), ELECTIVE("選修"), GENERAL("通識");
@@ -217,4 +248,14 @@ public class Course {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    @JsonIgnore
+    public CourseType getLoadedType() {
+        return loadedType;
+    }
+    
+    @JsonIgnore
+    public CourseStatus getLoadedStatus() {
+        return loadedStatus;
+    }
 } 
\ No newline at end of file
@@ -1,6 +1,10 @@
 package com.student.entity;
 
+import com.student.config.CacheConfig;
+import com.student.listener.ReferenceCacheEntityListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.persistence.*;
@@ -11,10 +15,15 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "course_schedules")
+@EntityListeners(ReferenceCacheEntityListener.class)
+// 課程安排集合緩存只保存 ID，元素本身也需可緩存
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.COURSE_SCHEDULE_REGION)
 public class CourseSchedule {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_schedules_seq")
+    @SequenceGenerator(name = "course_schedules_seq", sequenceName = "course_schedules_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -1,5 +1,7 @@
 package com.student.entity;
 
+import com.student.listener.GradeReportEntityListener;
+import com.student.listener.StatisticsEntityListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.format.annotation.DateTimeFormat;
 
@@ -8,11 +10,27 @@ import javax.validation.constraints.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "grades")
+@Table(name = "grades",
+        indexes = {@Index(name = "idx_grades_created_at_id", columnList = "createdAt, id"),
+                // 成績報表按課程取成績數與最近更新時間作為緩存版本，只需掃描索引
+                @Index(name = "idx_grades_course_updated_at", columnList = "course_id, updatedAt")})
+@EntityListeners({StatisticsEntityListener.class, GradeReportEntityListener.class})
+// 詳情頁與 API：學生（含班級、班主任）和課程（含教師）
+@NamedEntityGraph(name = "Grade.detail",
+        attributeNodes = {
+                @NamedAttributeNode(value = "student", subgraph = "student"),
+                @NamedAttributeNode(value = "course", subgraph = "course")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "student", attributeNodes = @NamedAttributeNode(value = "classInfo", subgraph = "classInfo")),
+                @NamedSubgraph(name = "classInfo", attributeNodes = @NamedAttributeNode("teacher")),
+                @NamedSubgraph(name = "course", attributeNodes = @NamedAttributeNode("teacher"))
+        })
 public class Grade {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "grades_seq")
+    @SequenceGenerator(name = "grades_seq", sequenceName = "grades_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -54,11 +72,18 @@ public class Grade {
     @Column(length = 1000)
     private String remarks;
     
-    @Column(updatable = false)
+    @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
     private LocalDateTime updatedAt;
     
+    // 加載或上次寫入時的課程與類型：修改課程時原課程的報表也需失效，統計據類型計算差值
+    @Transient
+    private Long loadedCourseId;
+    
+    @Transient
+    private GradeType loadedType;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -72,6 +97,14 @@ public class Grade {
         calculateTotalScore();
     }
     
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    protected void rememberLoadedState() {
+        loadedCourseId = course != null ? course.getId() : null;
+        loadedType = type;
+    }
+    
     private void calculateTotalScore() {
         if (regularScore != null && examScore != null) {
             // 平時成績佔30%，考試成績佔70%
@@ -204,4 +237,14 @@ public class Grade {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    @JsonIgnore
+    public Long getLoadedCourseId() {
+        return loadedCourseId;
+    }
+    
+    @JsonIgnore
+    public GradeType getLoadedType() {
+        return loadedType;
+    }
 } 
\ No newline at end of file
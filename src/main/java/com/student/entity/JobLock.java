@@ -0,0 +1,47 @@
+package com.student.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// 定時任務的集群鎖：每個任務一行，夜間批處理等只需一個節點執行的任務按租約搶占，
+// 需要跨節點串行的寫入在事務內對該行加行鎖
+@Entity
+@Table(name = "job_locks")
+public class JobLock {
+    
+    @Id
+    @Column(length = 64)
+    private String name;
+    
+    // 租約到期時間，為空或已過期表示空閒
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+    
+    @Column(name = "locked_by")
+    private String lockedBy;
+    
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+    
+    public void setLockedUntil(LocalDateTime lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+    
+    public String getLockedBy() {
+        return lockedBy;
+    }
+    
+    public void setLockedBy(String lockedBy) {
+        this.lockedBy = lockedBy;
+    }
+}
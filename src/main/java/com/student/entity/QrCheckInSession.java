@@ -0,0 +1,103 @@
+package com.student.entity;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 掃碼簽到會話：寫入共享數據庫，任一節點都能校驗令牌對應的會話並受理簽到
+@Entity
+@Table(name = "qr_checkin_sessions",
+        indexes = @Index(name = "idx_qr_checkin_sessions_expires_at", columnList = "expires_at"))
+public class QrCheckInSession {
+    
+    @Id
+    @Column(length = 32)
+    private String id;
+    
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+    
+    // 為空時簽到名單取選修該課程的學生，否則取該班在讀學生
+    @Column(name = "class_id")
+    private Long classId;
+    
+    @Column(name = "attendance_date", nullable = false)
+    private LocalDate date;
+    
+    @Column(name = "starts_at", nullable = false)
+    private LocalDateTime startsAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "rotation_seconds", nullable = false)
+    private Integer rotationSeconds;
+    
+    @Column(nullable = false)
+    private Boolean closed = false;
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public Long getCourseId() {
+        return courseId;
+    }
+    
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+    
+    public Long getClassId() {
+        return classId;
+    }
+    
+    public void setClassId(Long classId) {
+        this.classId = classId;
+    }
+    
+    public LocalDate getDate() {
+        return date;
+    }
+    
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+    
+    public LocalDateTime getStartsAt() {
+        return startsAt;
+    }
+    
+    public void setStartsAt(LocalDateTime startsAt) {
+        this.startsAt = startsAt;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+    
+    public Integer getRotationSeconds() {
+        return rotationSeconds;
+    }
+    
+    public void setRotationSeconds(Integer rotationSeconds) {
+        this.rotationSeconds = rotationSeconds;
+    }
+    
+    public Boolean getClosed() {
+        return closed;
+    }
+    
+    public void setClosed(Boolean closed) {
+        this.closed = closed;
+    }
+}
@@ -1,5 +1,6 @@
 package com.student.entity;
 
+import com.student.listener.StatisticsEntityListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.format.annotation.DateTimeFormat;
 
@@ -9,11 +10,20 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reward_punishments")
+@Table(name = "reward_punishments", indexes = @Index(name = "idx_reward_punishments_created_at_id", columnList = "createdAt, id"))
+@EntityListeners(StatisticsEntityListener.class)
+// 詳情頁與 API：學生（含班級、班主任）
+@NamedEntityGraph(name = "RewardPunishment.detail",
+        attributeNodes = @NamedAttributeNode(value = "student", subgraph = "student"),
+        subgraphs = {
+                @NamedSubgraph(name = "student", attributeNodes = @NamedAttributeNode(value = "classInfo", subgraph = "classInfo")),
+                @NamedSubgraph(name = "classInfo", attributeNodes = @NamedAttributeNode("teacher"))
+        })
 public class RewardPunishment {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reward_punishments_seq")
+    @SequenceGenerator(name = "reward_punishments_seq", sequenceName = "reward_punishments_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -53,11 +63,21 @@ public class RewardPunishment {
     @Column(nullable = false)
     private Status status = Status.ACTIVE;
     
-    @Column(updatable = false)
+    @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
     private LocalDateTime updatedAt;
     
+    // 加載或上次寫入時的類型、類別與狀態，統計據此計算更新前的分佈
+    @Transient
+    private Type loadedType;
+    
+    @Transient
+    private Category loadedCategory;
+    
+    @Transient
+    private Status loadedStatus;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -69,6 +89,15 @@ public class RewardPunishment {
         updatedAt = LocalDateTime.now();
     }
     
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    protected void rememberLoadedState() {
+        loadedType = type;
+        loadedCategory = category;
+        loadedStatus = status;
+    }
+    
     // 枚舉定義
     public enum Type {
         REWARD("獎勵"), PUNISHMENT("處分");
@@ -224,4 +253,19 @@ public class RewardPunishment {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    @JsonIgnore
+    public Type getLoadedType() {
+        return loadedType;
+    }
+    
+    @JsonIgnore
+    public Category getLoadedCategory() {
+        return loadedCategory;
+    }
+    
+    @JsonIgnore
+    public Status getLoadedStatus() {
+        return loadedStatus;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.student.entity;
+
+import javax.persistence.*;
+import java.util.HashMap;
+import java.util.Map;
+
+// 共享會話：表結構由實體生成，讀寫由 JdbcSessionStore 直接執行 SQL，只更新變化的屬性行
+// primary_id 在會話生命週期內不變，登錄時更換的是 session_id，屬性行因此不需要隨之改鍵
+@Entity
+@Table(name = "app_sessions",
+        indexes = {@Index(name = "uk_app_sessions_session_id", columnList = "session_id", unique = true),
+                @Index(name = "idx_app_sessions_expiry_time", columnList = "expiry_time")})
+public class SessionRecord {
+    
+    @Id
+    @Column(name = "primary_id", length = 36)
+    private String primaryId;
+    
+    @Column(name = "session_id", length = 64, nullable = false)
+    private String sessionId;
+    
+    // 以下時間均為毫秒時間戳
+    @Column(name = "creation_time", nullable = false)
+    private long creationTime;
+    
+    @Column(name = "last_access_time", nullable = false)
+    private long lastAccessTime;
+    
+    // 單位秒，負數表示不過期
+    @Column(name = "max_inactive_interval", nullable = false)
+    private int maxInactiveInterval;
+    
+    @Column(name = "expiry_time", nullable = false)
+    private long expiryTime;
+    
+    // 屬性名 -> Java 序列化後的值
+    @ElementCollection
+    @CollectionTable(name = "app_session_attributes", joinColumns = @JoinColumn(name = "primary_id"))
+    @MapKeyColumn(name = "attribute_name", length = 200)
+    @Lob
+    @Column(name = "attribute_bytes", nullable = false)
+    private Map<String, byte[]> attributes = new HashMap<>();
+    
+    // Getters and Setters
+    public String getPrimaryId() {
+        return primaryId;
+    }
+    
+    public void setPrimaryId(String primaryId) {
+        this.primaryId = primaryId;
+    }
+    
+    public String getSessionId() {
+        return sessionId;
+    }
+    
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+    
+    public long getCreationTime() {
+        return creationTime;
+    }
+    
+    public void setCreationTime(long creationTime) {
+        this.creationTime = creationTime;
+    }
+    
+    public long getLastAccessTime() {
+        return lastAccessTime;
+    }
+    
+    public void setLastAccessTime(long lastAccessTime) {
+        this.lastAccessTime = lastAccessTime;
+    }
+    
+    public int getMaxInactiveInterval() {
+        return maxInactiveInterval;
+    }
+    
+    public void setMaxInactiveInterval(int maxInactiveInterval) {
+        this.maxInactiveInterval = maxInactiveInterval;
+    }
+    
+    public long getExpiryTime() {
+        return expiryTime;
+    }
+    
+    public void setExpiryTime(long expiryTime) {
+        this.expiryTime = expiryTime;
+    }
+    
+    public Map<String, byte[]> getAttributes() {
+        return attributes;
+    }
+    
+    public void setAttributes(Map<String, byte[]> attributes) {
+        this.attributes = attributes;
+    }
+}
@@ -1,20 +1,29 @@
 package com.student.entity;
 
+import com.student.listener.LookupEntityListener;
+import com.student.listener.SearchIndexEntityListener;
+import com.student.listener.StatisticsEntityListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "students")
-public class Student {
+@Table(name = "students", indexes = @Index(name = "idx_students_created_at_id", columnList = "createdAt, id"))
+@EntityListeners({StatisticsEntityListener.class, SearchIndexEntityListener.class, LookupEntityListener.class})
+// 詳情頁取班級名稱
+@NamedEntityGraph(name = "Student.withClass", attributeNodes = @NamedAttributeNode("classInfo"))
+public class Student implements Serializable {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled-lo 序列每次預取 50 個 ID，插入無需回讀自增主鍵，JDBC 批量插入得以生效
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "students_seq")
+    @SequenceGenerator(name = "students_seq", sequenceName = "students_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "學號不能為空")
@@ -95,11 +104,19 @@ public class Student {
     @JsonIgnore
     private List<RewardPunishment> rewardPunishments;
     
-    @Column(updatable = false)
+    // 鍵集分頁按 (createdAt, id) 定位，空值行會被比較條件排除，因此不允許為空
+    @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
     private LocalDateTime updatedAt;
     
+    // 加載或上次寫入時的狀態與性別，統計據此計算更新前的分佈
+    @Transient
+    private StudentStatus loadedStatus;
+    
+    @Transient
+    private Gender loadedGender;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -111,6 +128,14 @@ public class Student {
         updatedAt = LocalDateTime.now();
     }
     
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    protected void rememberLoadedState() {
+        loadedStatus = status;
+        loadedGender = gender;
+    }
+    
     // 枚舉定義
     public enum Gender {
         MALE("男"), FEMALE("女");
@@ -369,4 +394,14 @@ public class Student {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    @JsonIgnore
+    public StudentStatus getLoadedStatus() {
+        return loadedStatus;
+    }
+    
+    @JsonIgnore
+    public Gender getLoadedGender() {
+        return loadedGender;
+    }
 } 
\ No newline at end of file
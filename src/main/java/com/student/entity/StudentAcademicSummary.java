@@ -0,0 +1,176 @@
+package com.student.entity;
+
+import org.hibernate.annotations.DynamicUpdate;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// 學生學業匯總讀模型：成績事務提交後鎖定本行重算，排名由後台任務異步更新
+@Entity
+@Table(name = "student_academic_summary", indexes = {
+        @Index(name = "idx_student_academic_summary_class_rank", columnList = "class_id, class_rank"),
+        @Index(name = "idx_student_academic_summary_level_rank", columnList = "grade_level, grade_level_rank")
+})
+// 只更新變化的列，成績匯總與排名任務分別寫入各自的列而不互相覆蓋
+@DynamicUpdate
+public class StudentAcademicSummary {
+    
+    @Id
+    @Column(name = "student_id")
+    private Long studentId;
+    
+    // 排名時的班級與年級
+    @Column(name = "class_id")
+    private Long classId;
+    
+    @Column(name = "grade_level")
+    private Integer gradeLevel;
+    
+    // 學分加權平均分，每門課程取最高成績
+    private Double weightedAverage;
+    
+    private int creditsAttempted;
+    
+    private int creditsPassed;
+    
+    private int courseCount;
+    
+    private int failedCourseCount;
+    
+    private int gradeCount;
+    
+    @Column(name = "class_rank")
+    private Integer classRank;
+    
+    private Integer classSize;
+    
+    @Column(name = "grade_level_rank")
+    private Integer gradeLevelRank;
+    
+    private Integer gradeLevelSize;
+    
+    private LocalDateTime rankedAt;
+    
+    private LocalDateTime updatedAt;
+    
+    // Getters and Setters
+    public Long getStudentId() {
+        return studentId;
+    }
+    
+    public void setStudentId(Long studentId) {
+        this.studentId = studentId;
+    }
+    
+    public Long getClassId() {
+        return classId;
+    }
+    
+    public void setClassId(Long classId) {
+        this.classId = classId;
+    }
+    
+    public Integer getGradeLevel() {
+        return gradeLevel;
+    }
+    
+    public void setGradeLevel(Integer gradeLevel) {
+        this.gradeLevel = gradeLevel;
+    }
+    
+    public Double getWeightedAverage() {
+        return weightedAverage;
+    }
+    
+    public void setWeightedAverage(Double weightedAverage) {
+        this.weightedAverage = weightedAverage;
+    }
+    
+    public int getCreditsAttempted() {
+        return creditsAttempted;
+    }
+    
+    public void setCreditsAttempted(int creditsAttempted) {
+        this.creditsAttempted = creditsAttempted;
+    }
+    
+    public int getCreditsPassed() {
+        return creditsPassed;
+    }
+    
+    public void setCreditsPassed(int creditsPassed) {
+        this.creditsPassed = creditsPassed;
+    }
+    
+    public int getCourseCount() {
+        return courseCount;
+    }
+    
+    public void setCourseCount(int courseCount) {
+        this.courseCount = courseCount;
+    }
+    
+    public int getFailedCourseCount() {
+        return failedCourseCount;
+    }
+    
+    public void setFailedCourseCount(int failedCourseCount) {
+        this.failedCourseCount = failedCourseCount;
+    }
+    
+    public int getGradeCount() {
+        return gradeCount;
+    }
+    
+    public void setGradeCount(int gradeCount) {
+        this.gradeCount = gradeCount;
+    }
+    
+    public Integer getClassRank() {
+        return classRank;
+    }
+    
+    public void setClassRank(Integer classRank) {
+        this.classRank = classRank;
+    }
+    
+    public Integer getClassSize() {
+        return classSize;
+    }
+    
+    public void setClassSize(Integer classSize) {
+        this.classSize = classSize;
+    }
+    
+    public Integer getGradeLevelRank() {
+        return gradeLevelRank;
+    }
+    
+    public void setGradeLevelRank(Integer gradeLevelRank) {
+        this.gradeLevelRank = gradeLevelRank;
+    }
+    
+    public Integer getGradeLevelSize() {
+        return gradeLevelSize;
+    }
+    
+    public void setGradeLevelSize(Integer gradeLevelSize) {
+        this.gradeLevelSize = gradeLevelSize;
+    }
+    
+    public LocalDateTime getRankedAt() {
+        return rankedAt;
+    }
+    
+    public void setRankedAt(LocalDateTime rankedAt) {
+        this.rankedAt = rankedAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
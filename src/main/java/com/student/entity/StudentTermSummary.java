@@ -0,0 +1,110 @@
+package com.student.entity;
+
+import javax.persistence.*;
+
+// 學生分學期與學年的學業匯總，semester 為空的行是整個學年的合計
+// 唯一約束防止重複的學期行；NULL 不參與唯一比較，學年合計行由重算時的匯總行鎖保證唯一
+@Entity
+@Table(name = "student_term_summary",
+        indexes = @Index(name = "idx_student_term_summary_student", columnList = "student_id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_student_term_summary_term",
+                columnNames = {"student_id", "academic_year", "semester"}))
+public class StudentTermSummary {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "student_term_summary_seq")
+    @SequenceGenerator(name = "student_term_summary_seq", sequenceName = "student_term_summary_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+    
+    @Column(name = "academic_year", nullable = false)
+    private Integer academicYear;
+    
+    @Enumerated(EnumType.STRING)
+    private Grade.Semester semester;
+    
+    private Double weightedAverage;
+    
+    private int creditsAttempted;
+    
+    private int creditsPassed;
+    
+    private int courseCount;
+    
+    private int failedCourseCount;
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getStudentId() {
+        return studentId;
+    }
+    
+    public void setStudentId(Long studentId) {
+        this.studentId = studentId;
+    }
+    
+    public Integer getAcademicYear() {
+        return academicYear;
+    }
+    
+    public void setAcademicYear(Integer academicYear) {
+        this.academicYear = academicYear;
+    }
+    
+    public Grade.Semester getSemester() {
+        return semester;
+    }
+    
+    public void setSemester(Grade.Semester semester) {
+        this.semester = semester;
+    }
+    
+    public Double getWeightedAverage() {
+        return weightedAverage;
+    }
+    
+    public void setWeightedAverage(Double weightedAverage) {
+        this.weightedAverage = weightedAverage;
+    }
+    
+    public int getCreditsAttempted() {
+        return creditsAttempted;
+    }
+    
+    public void setCreditsAttempted(int creditsAttempted) {
+        this.creditsAttempted = creditsAttempted;
+    }
+    
+    public int getCreditsPassed() {
+        return creditsPassed;
+    }
+    
+    public void setCreditsPassed(int creditsPassed) {
+        this.creditsPassed = creditsPassed;
+    }
+    
+    public int getCourseCount() {
+        return courseCount;
+    }
+    
+    public void setCourseCount(int courseCount) {
+        this.courseCount = courseCount;
+    }
+    
+    public int getFailedCourseCount() {
+        return failedCourseCount;
+    }
+    
+    public void setFailedCourseCount(int failedCourseCount) {
+        this.failedCourseCount = failedCourseCount;
+    }
+}
@@ -1,20 +1,33 @@
 package com.student.entity;
 
+import com.student.config.CacheConfig;
+import com.student.listener.SearchIndexEntityListener;
+import com.student.listener.StatisticsEntityListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Table(name = "teachers")
-public class Teacher {
+@EntityListeners({StatisticsEntityListener.class, SearchIndexEntityListener.class})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.TEACHER_REGION)
+// 從二級緩存組裝的關聯為代理對象，序列化時忽略代理內部屬性
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class Teacher implements Serializable {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "teachers_seq")
+    @SequenceGenerator(name = "teachers_seq", sequenceName = "teachers_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "工號不能為空")
@@ -86,6 +99,10 @@ public class Teacher {
     
     private LocalDateTime updatedAt;
     
+    // 加載或上次寫入時的狀態，統計據此計算更新前的分佈
+    @Transient
+    private TeacherStatus loadedStatus;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -97,6 +114,13 @@ public class Teacher {
         updatedAt = LocalDateTime.now();
     }
     
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    protected void rememberLoadedState() {
+        loadedStatus = status;
+    }
+    
     // 枚舉定義
     public enum Gender {
         MALE("男"), FEMALE("女");
@@ -301,4 +325,9 @@ public class Teacher {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    @JsonIgnore
+    public TeacherStatus getLoadedStatus() {
+        return loadedStatus;
+    }
 } 
\ No newline at end of file
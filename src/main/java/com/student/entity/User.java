@@ -17,7 +17,8 @@ import java.util.Collections;
 public class User implements UserDetails {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "用戶名不能為空")
@@ -73,6 +74,30 @@ public class User implements UserDetails {
         updatedAt = LocalDateTime.now();
     }
     
+    // 登錄狀態保存在共享會話中時序列化的副本：不含密碼哈希，關聯的學生與教師只保留 ID
+    private Object writeReplace() {
+        User copy = new User();
+        copy.id = id;
+        copy.username = username;
+        copy.email = email;
+        copy.role = role;
+        copy.status = status;
+        copy.avatar = avatar;
+        copy.phone = phone;
+        copy.lastLoginTime = lastLoginTime;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        if (student != null) {
+            copy.student = new Student();
+            copy.student.setId(student.getId());
+        }
+        if (teacher != null) {
+            copy.teacher = new Teacher();
+            copy.teacher.setId(teacher.getId());
+        }
+        return copy;
+    }
+    
     // 枚舉定義
     public enum Role {
         ADMIN("管理員"), TEACHER("教師"), STUDENT("學生"), PARENT("家長");
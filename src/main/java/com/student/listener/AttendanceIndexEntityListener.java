@@ -0,0 +1,33 @@
+package com.student.listener;
+
+import com.student.service.AttendanceIndexService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// 保持考勤位圖索引與數據庫同步，同樣延遲獲取服務以避免循環依賴
+public class AttendanceIndexEntityListener {
+    
+    @Autowired
+    private ObjectProvider<AttendanceIndexService> attendanceIndexService;
+    
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        AttendanceIndexService service = attendanceIndexService.getIfAvailable();
+        if (service != null) {
+            service.index(entity);
+        }
+    }
+    
+    @PostRemove
+    public void onRemove(Object entity) {
+        AttendanceIndexService service = attendanceIndexService.getIfAvailable();
+        if (service != null) {
+            service.remove(entity);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.student.listener;
+
+import com.student.service.AttendanceRollupService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// 考勤寫入後標記對應的日匯總待重算，同樣延遲獲取服務以避免循環依賴
+public class AttendanceRollupEntityListener {
+    
+    @Autowired
+    private ObjectProvider<AttendanceRollupService> attendanceRollupService;
+    
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        AttendanceRollupService service = attendanceRollupService.getIfAvailable();
+        if (service != null) {
+            service.markChanged(entity);
+        }
+    }
+}
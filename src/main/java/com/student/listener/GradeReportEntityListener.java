@@ -0,0 +1,26 @@
+package com.student.listener;
+
+import com.student.service.GradeReportService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// 成績寫入後失效所屬課程的報表緩存，同樣延遲獲取服務以避免循環依賴
+public class GradeReportEntityListener {
+    
+    @Autowired
+    private ObjectProvider<GradeReportService> gradeReportService;
+    
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        GradeReportService service = gradeReportService.getIfAvailable();
+        if (service != null) {
+            service.markChanged(entity);
+        }
+    }
+}
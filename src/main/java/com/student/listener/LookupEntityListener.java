@@ -0,0 +1,26 @@
+package com.student.listener;
+
+import com.student.service.LookupService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// 學生、課程變更時使自動完成數據失效
+public class LookupEntityListener {
+    
+    @Autowired
+    private ObjectProvider<LookupService> lookupService;
+    
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        LookupService service = lookupService.getIfAvailable();
+        if (service != null) {
+            service.invalidate(entity);
+        }
+    }
+}
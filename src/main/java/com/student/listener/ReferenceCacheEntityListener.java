@@ -0,0 +1,26 @@
+package com.student.listener;
+
+import com.student.service.ReferenceCacheService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// 課程安排變更時使課程的安排集合緩存失效
+public class ReferenceCacheEntityListener {
+    
+    @Autowired
+    private ObjectProvider<ReferenceCacheService> referenceCacheService;
+    
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        ReferenceCacheService service = referenceCacheService.getIfAvailable();
+        if (service != null) {
+            service.collectionMemberChanged(entity);
+        }
+    }
+}
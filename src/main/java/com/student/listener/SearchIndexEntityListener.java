@@ -0,0 +1,33 @@
+package com.student.listener;
+
+import com.student.service.SearchIndexService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// 保持搜索索引與數據庫同步，同樣延遲獲取服務以避免循環依賴
+public class SearchIndexEntityListener {
+    
+    @Autowired
+    private ObjectProvider<SearchIndexService> searchIndexService;
+    
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        SearchIndexService service = searchIndexService.getIfAvailable();
+        if (service != null) {
+            service.index(entity);
+        }
+    }
+    
+    @PostRemove
+    public void onRemove(Object entity) {
+        SearchIndexService service = searchIndexService.getIfAvailable();
+        if (service != null) {
+            service.remove(entity);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.student.listener;
+
+import com.student.service.StatisticsService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// 由 Hibernate 通過 Spring 容器實例化，延遲獲取服務以避免與 EntityManagerFactory 循環依賴
+public class StatisticsEntityListener {
+
+    @Autowired
+    private ObjectProvider<StatisticsService> statisticsService;
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        StatisticsService service = statisticsService.getIfAvailable();
+        if (service != null) {
+            service.recordCreated(entity);
+        }
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        StatisticsService service = statisticsService.getIfAvailable();
+        if (service != null) {
+            service.recordUpdated(entity);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        StatisticsService service = statisticsService.getIfAvailable();
+        if (service != null) {
+            service.recordDeleted(entity);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.student.repository;
+
+import com.student.entity.AttendanceDailyRollup;
+import com.student.repository.projection.AttendanceGroupCountsRow;
+import com.student.repository.projection.AttendanceTrendRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AttendanceDailyRollupRepository extends JpaRepository<AttendanceDailyRollup, Long> {
+    
+    String COUNT_COLUMNS = "SUM(r.presentCount) AS presentCount, SUM(r.absentCount) AS absentCount, " +
+            "SUM(r.lateCount) AS lateCount, SUM(r.earlyLeaveCount) AS earlyLeaveCount, " +
+            "SUM(r.leaveCount) AS leaveCount, SUM(r.sickLeaveCount) AS sickLeaveCount, " +
+            "SUM(r.totalCount) AS totalCount ";
+    
+    String RANGE_FILTER = "WHERE r.date BETWEEN :from AND :to " +
+            "AND (:courseId IS NULL OR r.courseId = :courseId) AND (:classId IS NULL OR r.classId = :classId) ";
+    
+    // 重算前刪除區間內的匯總，courseId 為空時刪除全部課程
+    @Modifying
+    @Query("DELETE FROM AttendanceDailyRollup r WHERE r.date BETWEEN :from AND :to " +
+           "AND (:courseId IS NULL OR r.courseId = :courseId)")
+    int deleteByDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to, @Param("courseId") Long courseId);
+    
+    // 每天一行的趨勢，可按課程或班級過濾
+    @Query("SELECT r.date AS date, " + COUNT_COLUMNS + "FROM AttendanceDailyRollup r " + RANGE_FILTER +
+           "GROUP BY r.date ORDER BY r.date")
+    List<AttendanceTrendRow> findDailyTrend(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                            @Param("courseId") Long courseId, @Param("classId") Long classId);
+    
+    @Query("SELECT r.courseId AS id, " + COUNT_COLUMNS + "FROM AttendanceDailyRollup r " + RANGE_FILTER +
+           "GROUP BY r.courseId ORDER BY r.courseId")
+    List<AttendanceGroupCountsRow> sumByCourse(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                               @Param("courseId") Long courseId, @Param("classId") Long classId);
+    
+    @Query("SELECT r.classId AS id, " + COUNT_COLUMNS + "FROM AttendanceDailyRollup r " + RANGE_FILTER +
+           "GROUP BY r.classId ORDER BY r.classId")
+    List<AttendanceGroupCountsRow> sumByClass(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                              @Param("courseId") Long courseId, @Param("classId") Long classId);
+}
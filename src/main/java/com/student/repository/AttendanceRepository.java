@@ -1,19 +1,44 @@
 package com.student.repository;
 
 import com.student.entity.Attendance;
+import com.student.repository.projection.AttendanceDailyCountsRow;
+import com.student.repository.projection.AttendanceListRow;
+import com.student.repository.projection.AttendanceTallyRow;
+import com.student.repository.projection.GroupCount;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     
+    // 列表頁讀模型：單條 SQL 連接學生與課程，只選取列表顯示的列
+    String LIST_ROW_SELECT = "SELECT a.id AS id, s.id AS studentId, s.name AS studentName, " +
+            "c.id AS courseId, c.name AS courseName, a.date AS date, a.status AS status, a.remarks AS remarks, " +
+            "a.createdAt AS createdAt FROM Attendance a JOIN a.student s JOIN a.course c ";
+    
+    String LIST_ROW_COUNT = "SELECT COUNT(a) FROM Attendance a JOIN a.student s JOIN a.course c ";
+    
+    String LIST_ROW_FILTER = "(:courseName IS NULL OR c.name LIKE %:courseName%) AND " +
+            "(:date IS NULL OR a.date = :date)";
+    
+    String LIST_ROW_STUDENT_FILTER = "(:studentName IS NULL OR s.name LIKE %:studentName%) AND ";
+    
+    // 詳情頁與 API：按 Attendance.detail 取出全部顯示用關聯
+    @EntityGraph("Attendance.detail")
+    Optional<Attendance> findDetailById(Long id);
+    
     List<Attendance> findByStudentId(Long studentId);
     
     List<Attendance> findByCourseId(Long courseId);
@@ -22,9 +47,14 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     
     List<Attendance> findByStudentIdAndDate(Long studentId, LocalDate date);
     
+    // 點名：名單內學生在該課程當天已有的記錄
+    List<Attendance> findByCourseIdAndDateAndStudentIdIn(Long courseId, LocalDate date, Collection<Long> studentIds);
+    
     @Query("SELECT a FROM Attendance a WHERE a.student.name LIKE %:studentName%")
     Page<Attendance> findByStudentNameContaining(@Param("studentName") String studentName, Pageable pageable);
     
+    Page<Attendance> findByStudentIdIn(Collection<Long> studentIds, Pageable pageable);
+    
     @Query("SELECT a FROM Attendance a WHERE a.course.name LIKE %:courseName%")
     Page<Attendance> findByCourseNameContaining(@Param("courseName") String courseName, Pageable pageable);
     
@@ -33,9 +63,105 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     
     long countByStatus(Attendance.AttendanceStatus status);
     
+    // 日匯總：按 (日期, 課程, 班級) 聚合各狀態計數，courseId 為空時聚合全部課程
+    @Query("SELECT a.date AS date, a.course.id AS courseId, a.student.classInfo.id AS classId, " +
+           "SUM(CASE WHEN a.status = 'PRESENT' THEN 1 ELSE 0 END) AS presentCount, " +
+           "SUM(CASE WHEN a.status = 'ABSENT' THEN 1 ELSE 0 END) AS absentCount, " +
+           "SUM(CASE WHEN a.status = 'LATE' THEN 1 ELSE 0 END) AS lateCount, " +
+           "SUM(CASE WHEN a.status = 'EARLY_LEAVE' THEN 1 ELSE 0 END) AS earlyLeaveCount, " +
+           "SUM(CASE WHEN a.status = 'LEAVE' THEN 1 ELSE 0 END) AS leaveCount, " +
+           "SUM(CASE WHEN a.status = 'SICK_LEAVE' THEN 1 ELSE 0 END) AS sickLeaveCount, " +
+           "COUNT(a) AS totalCount " +
+           "FROM Attendance a WHERE a.date BETWEEN :from AND :to AND (:courseId IS NULL OR a.course.id = :courseId) " +
+           "GROUP BY a.date, a.course.id, a.student.classInfo.id")
+    List<AttendanceDailyCountsRow> countDaily(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                              @Param("courseId") Long courseId);
+    
+    @Query("SELECT MIN(a.date) FROM Attendance a")
+    LocalDate findMinDate();
+    
+    @Query("SELECT MAX(a.date) FROM Attendance a")
+    LocalDate findMaxDate();
+    
+    // 位圖索引未就緒時的回退查詢
+    long countByStudentIdAndStatusAndDateBetween(Long studentId, Attendance.AttendanceStatus status,
+                                                 LocalDate from, LocalDate to);
+    
+    long countByStudentIdAndCourseIdAndStatusAndDateBetween(Long studentId, Long courseId,
+                                                            Attendance.AttendanceStatus status,
+                                                            LocalDate from, LocalDate to);
+    
+    @Query("SELECT a.student.id FROM Attendance a WHERE a.course.id = :courseId AND a.date = :date " +
+           "AND a.status = :status ORDER BY a.student.id")
+    List<Long> findStudentIdsByCourseIdAndDateAndStatus(@Param("courseId") Long courseId,
+                                                        @Param("date") LocalDate date,
+                                                        @Param("status") Attendance.AttendanceStatus status);
+    
+    @Query("SELECT a.status FROM Attendance a WHERE a.student.id = :studentId AND a.course.id = :courseId ORDER BY a.date")
+    List<Attendance.AttendanceStatus> findStatusesByStudentIdAndCourseId(@Param("studentId") Long studentId,
+                                                                        @Param("courseId") Long courseId);
+    
+    @Query("SELECT a.status AS label, COUNT(a) AS total FROM Attendance a GROUP BY a.status")
+    List<GroupCount<Attendance.AttendanceStatus>> countGroupByStatus();
+    
     @Query("SELECT COUNT(a) FROM Attendance a WHERE a.student.id = :studentId AND a.status = 'PRESENT'")
     long countPresentByStudentId(@Param("studentId") Long studentId);
     
     @Query("SELECT COUNT(a) FROM Attendance a WHERE a.course.id = :courseId AND a.status = 'PRESENT'")
     long countPresentByCourseId(@Param("courseId") Long courseId);
+    
+    long countByStudentId(Long studentId);
+    
+    long countByStudentIdAndCourseId(Long studentId, Long courseId);
+    
+    long countByStudentIdAndCourseIdAndStatus(Long studentId, Long courseId, Attendance.AttendanceStatus status);
+    
+    long countByCourseId(Long courseId);
+    
+    // 批量聚合：一次分組查詢獲取班級或課程內每位學生的出勤統計
+    @Query("SELECT a.student.id AS id, " +
+           "SUM(CASE WHEN a.status = 'PRESENT' THEN 1 ELSE 0 END) AS presentCount, " +
+           "COUNT(a) AS totalCount " +
+           "FROM Attendance a WHERE a.student.classInfo.id = :classId GROUP BY a.student.id")
+    List<AttendanceTallyRow> countAttendanceByStudentInClass(@Param("classId") Long classId);
+    
+    @Query("SELECT a.student.id AS id, " +
+           "SUM(CASE WHEN a.status = 'PRESENT' THEN 1 ELSE 0 END) AS presentCount, " +
+           "COUNT(a) AS totalCount " +
+           "FROM Attendance a WHERE a.course.id = :courseId GROUP BY a.student.id")
+    List<AttendanceTallyRow> countAttendanceByStudentInCourse(@Param("courseId") Long courseId);
+    
+    @Query(value = LIST_ROW_SELECT + "WHERE " + LIST_ROW_STUDENT_FILTER + LIST_ROW_FILTER,
+           countQuery = LIST_ROW_COUNT + "WHERE " + LIST_ROW_STUDENT_FILTER + LIST_ROW_FILTER)
+    Page<AttendanceListRow> findListRows(@Param("studentName") String studentName,
+                                         @Param("courseName") String courseName,
+                                         @Param("date") LocalDate date,
+                                         Pageable pageable);
+    
+    // 學生姓名條件已由搜索索引解析為學生 id
+    @Query(value = LIST_ROW_SELECT + "WHERE s.id IN :studentIds AND " + LIST_ROW_FILTER,
+           countQuery = LIST_ROW_COUNT + "WHERE s.id IN :studentIds AND " + LIST_ROW_FILTER)
+    Page<AttendanceListRow> findListRowsByStudentIds(@Param("studentIds") Collection<Long> studentIds,
+                                                     @Param("courseName") String courseName,
+                                                     @Param("date") LocalDate date,
+                                                     Pageable pageable);
+    
+    // 鍵集分頁：按 (createdAt, id) 定位，不執行 COUNT
+    @Query(LIST_ROW_SELECT + "WHERE (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id)) AND " +
+           LIST_ROW_STUDENT_FILTER + LIST_ROW_FILTER)
+    Slice<AttendanceListRow> findKeysetOlderThan(@Param("studentName") String studentName,
+                                                 @Param("courseName") String courseName,
+                                                 @Param("date") LocalDate date,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") Long id,
+                                                 Pageable pageable);
+    
+    @Query(LIST_ROW_SELECT + "WHERE (a.createdAt > :createdAt OR (a.createdAt = :createdAt AND a.id > :id)) AND " +
+           LIST_ROW_STUDENT_FILTER + LIST_ROW_FILTER)
+    Slice<AttendanceListRow> findKeysetNewerThan(@Param("studentName") String studentName,
+                                                 @Param("courseName") String courseName,
+                                                 @Param("date") LocalDate date,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") Long id,
+                                                 Pageable pageable);
 } 
\ No newline at end of file
@@ -3,19 +3,34 @@ package com.student.repository;
 import com.student.entity.Class;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ClassRepository extends JpaRepository<Class, Long> {
     
+    // 列表、詳情與 API 均顯示教師姓名，按 Class.withTeacher 一次取出
+    @Override
+    @EntityGraph("Class.withTeacher")
+    Page<Class> findAll(Pageable pageable);
+    
+    // 查詢緩存只保存 ID，實體從二級緩存讀取；classes 表有寫入時自動失效
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<Class> findByCode(String code);
     
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Class> findAll();
+    
     List<Class> findByGrade(Integer grade);
     
     List<Class> findByStatus(Class.ClassStatus status);
@@ -31,21 +46,27 @@ public interface ClassRepository extends JpaRepository<Class, Long> {
     @Query("SELECT c FROM Class c WHERE c.teacher.id = :teacherId AND c.status = :status")
     List<Class> findByTeacherIdAndStatus(@Param("teacherId") Long teacherId, @Param("status") Class.ClassStatus status);
     
+    @EntityGraph("Class.withTeacher")
     @Query("SELECT c FROM Class c WHERE c.name LIKE %:name%")
     Page<Class> findByNameContaining(@Param("name") String name, Pageable pageable);
     
+    @EntityGraph("Class.withTeacher")
     @Query("SELECT c FROM Class c WHERE c.code LIKE %:code%")
     Page<Class> findByCodeContaining(@Param("code") String code, Pageable pageable);
     
+    @EntityGraph("Class.withTeacher")
     @Query("SELECT c FROM Class c WHERE c.grade = :grade")
     Page<Class> findByGrade(@Param("grade") Integer grade, Pageable pageable);
     
+    @EntityGraph("Class.withTeacher")
     @Query("SELECT c FROM Class c WHERE c.status = :status")
     Page<Class> findByStatus(@Param("status") Class.ClassStatus status, Pageable pageable);
     
+    @EntityGraph("Class.withTeacher")
     @Query("SELECT c FROM Class c WHERE c.teacher.id = :teacherId")
     Page<Class> findByTeacherId(@Param("teacherId") Long teacherId, Pageable pageable);
     
+    @EntityGraph("Class.withTeacher")
     @Query("SELECT c FROM Class c WHERE " +
            "(:name IS NULL OR c.name LIKE %:name%) AND " +
            "(:code IS NULL OR c.code LIKE %:code%) AND " +
@@ -59,6 +80,9 @@ public interface ClassRepository extends JpaRepository<Class, Long> {
                                     @Param("teacherId") Long teacherId,
                                     Pageable pageable);
     
+    @EntityGraph("Class.withTeacher")
+    Page<Class> findByIdIn(Collection<Long> ids, Pageable pageable);
+    
     // 統計方法
     Long countByStatus(Class.ClassStatus status);
     
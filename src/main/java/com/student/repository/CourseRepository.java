@@ -3,19 +3,34 @@ package com.student.repository;
 import com.student.entity.Course;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
     
+    // 列表、詳情與 API 均顯示教師姓名，按 Course.withTeacher 一次取出
+    @Override
+    @EntityGraph("Course.withTeacher")
+    Page<Course> findAll(Pageable pageable);
+    
+    // 查詢緩存只保存 ID，實體從二級緩存讀取；courses 表有寫入時自動失效
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<Course> findByCourseCode(String courseCode);
     
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Course> findAll();
+    
     List<Course> findByTeacherId(Long teacherId);
     
     List<Course> findByStatus(Course.CourseStatus status);
@@ -28,21 +43,27 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     @Query("SELECT c FROM Course c WHERE c.teacher.id = :teacherId AND c.status = :status")
     List<Course> findByTeacherIdAndStatus(@Param("teacherId") Long teacherId, @Param("status") Course.CourseStatus status);
     
+    @EntityGraph("Course.withTeacher")
     @Query("SELECT c FROM Course c WHERE c.name LIKE %:name%")
     Page<Course> findByNameContaining(@Param("name") String name, Pageable pageable);
     
+    @EntityGraph("Course.withTeacher")
     @Query("SELECT c FROM Course c WHERE c.courseCode LIKE %:courseCode%")
     Page<Course> findByCourseCodeContaining(@Param("courseCode") String courseCode, Pageable pageable);
     
+    @EntityGraph("Course.withTeacher")
     @Query("SELECT c FROM Course c WHERE c.status = :status")
     Page<Course> findByStatus(@Param("status") Course.CourseStatus status, Pageable pageable);
     
+    @EntityGraph("Course.withTeacher")
     @Query("SELECT c FROM Course c WHERE c.type = :type")
     Page<Course> findByType(@Param("type") Course.CourseType type, Pageable pageable);
     
+    @EntityGraph("Course.withTeacher")
     @Query("SELECT c FROM Course c WHERE c.teacher.id = :teacherId")
     Page<Course> findByTeacherId(@Param("teacherId") Long teacherId, Pageable pageable);
     
+    @EntityGraph("Course.withTeacher")
     @Query("SELECT c FROM Course c WHERE " +
            "(:name IS NULL OR c.name LIKE %:name%) AND " +
            "(:courseCode IS NULL OR c.courseCode LIKE %:courseCode%) AND " +
@@ -56,8 +77,13 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
                                      @Param("teacherId") Long teacherId,
                                      Pageable pageable);
     
+    @EntityGraph("Course.withTeacher")
+    Page<Course> findByIdIn(Collection<Long> ids, Pageable pageable);
+    
     // 統計方法
     Long countByStatus(Course.CourseStatus status);
     
+    Long countByType(Course.CourseType type);
+    
     Long countByTeacherId(Long teacherId);
 } 
\ No newline at end of file
@@ -1,18 +1,50 @@
 package com.student.repository;
 
 import com.student.entity.Grade;
+import com.student.repository.projection.AcademicGradeRow;
+import com.student.repository.projection.AverageScoreRow;
+import com.student.repository.projection.GradeCourseVersionRow;
+import com.student.repository.projection.GradeListRow;
+import com.student.repository.projection.GradeScoreRow;
+import com.student.repository.projection.GroupCount;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface GradeRepository extends JpaRepository<Grade, Long> {
     
+    // 列表頁讀模型：單條 SQL 連接學生與課程，只選取列表顯示的列
+    String LIST_ROW_SELECT = "SELECT g.id AS id, s.id AS studentId, s.name AS studentName, " +
+            "c.id AS courseId, c.name AS courseName, g.regularScore AS regularScore, g.examScore AS examScore, " +
+            "g.totalScore AS totalScore, g.type AS type, g.semester AS semester, g.academicYear AS academicYear, " +
+            "g.createdAt AS createdAt FROM Grade g JOIN g.student s JOIN g.course c ";
+    
+    String LIST_ROW_COUNT = "SELECT COUNT(g) FROM Grade g JOIN g.student s JOIN g.course c ";
+    
+    // 學期按枚舉名稱比較，篩選參數保持字符串
+    String LIST_ROW_FILTER = "(:courseName IS NULL OR c.name LIKE %:courseName%) AND " +
+            "(:semester IS NULL OR str(g.semester) = :semester)";
+    
+    String LIST_ROW_STUDENT_FILTER = "(:studentName IS NULL OR s.name LIKE %:studentName%) AND ";
+    
+    // 詳情頁與 API：按 Grade.detail 取出全部顯示用關聯
+    @EntityGraph("Grade.detail")
+    Optional<Grade> findDetailById(Long id);
+    
     List<Grade> findByStudentId(Long studentId);
     
     List<Grade> findByCourseId(Long courseId);
@@ -22,6 +54,8 @@ public interface GradeRepository extends JpaRepository<Grade, Long> {
     @Query("SELECT g FROM Grade g WHERE g.student.name LIKE %:studentName%")
     Page<Grade> findByStudentNameContaining(@Param("studentName") String studentName, Pageable pageable);
     
+    Page<Grade> findByStudentIdIn(Collection<Long> studentIds, Pageable pageable);
+    
     @Query("SELECT g FROM Grade g WHERE g.course.name LIKE %:courseName%")
     Page<Grade> findByCourseNameContaining(@Param("courseName") String courseName, Pageable pageable);
     
@@ -30,9 +64,90 @@ public interface GradeRepository extends JpaRepository<Grade, Long> {
     
     boolean existsByStudentIdAndCourseId(Long studentId, Long courseId);
     
+    @Query("SELECT g.type AS label, COUNT(g) AS total FROM Grade g GROUP BY g.type")
+    List<GroupCount<Grade.GradeType>> countGroupByType();
+    
+    @Query("SELECT g.semester AS label, COUNT(g) AS total FROM Grade g GROUP BY g.semester")
+    List<GroupCount<Grade.Semester>> countGroupBySemester();
+    
     @Query("SELECT AVG(g.totalScore) FROM Grade g WHERE g.student.id = :studentId")
     Double getAverageScoreByStudentId(@Param("studentId") Long studentId);
     
     @Query("SELECT AVG(g.totalScore) FROM Grade g WHERE g.course.id = :courseId")
     Double getAverageScoreByCourseId(@Param("courseId") Long courseId);
-} 
\ No newline at end of file
+    
+    // 批量聚合：一次分組查詢獲取班級或課程內每位學生的平均成績
+    @Query("SELECT g.student.id AS id, AVG(g.totalScore) AS average FROM Grade g " +
+           "WHERE g.student.classInfo.id = :classId GROUP BY g.student.id")
+    List<AverageScoreRow> getAverageScoreByStudentInClass(@Param("classId") Long classId);
+    
+    @Query("SELECT g.student.id AS id, AVG(g.totalScore) AS average FROM Grade g " +
+           "WHERE g.course.id = :courseId GROUP BY g.student.id")
+    List<AverageScoreRow> getAverageScoreByStudentInCourse(@Param("courseId") Long courseId);
+    
+    @Query(value = LIST_ROW_SELECT + "WHERE " + LIST_ROW_STUDENT_FILTER + LIST_ROW_FILTER,
+           countQuery = LIST_ROW_COUNT + "WHERE " + LIST_ROW_STUDENT_FILTER + LIST_ROW_FILTER)
+    Page<GradeListRow> findListRows(@Param("studentName") String studentName,
+                                    @Param("courseName") String courseName,
+                                    @Param("semester") String semester,
+                                    Pageable pageable);
+    
+    // 學生姓名條件已由搜索索引解析為學生 id
+    @Query(value = LIST_ROW_SELECT + "WHERE s.id IN :studentIds AND " + LIST_ROW_FILTER,
+           countQuery = LIST_ROW_COUNT + "WHERE s.id IN :studentIds AND " + LIST_ROW_FILTER)
+    Page<GradeListRow> findListRowsByStudentIds(@Param("studentIds") Collection<Long> studentIds,
+                                                @Param("courseName") String courseName,
+                                                @Param("semester") String semester,
+                                                Pageable pageable);
+    
+    // 鍵集分頁：按 (createdAt, id) 定位，不執行 COUNT
+    @Query(LIST_ROW_SELECT + "WHERE (g.createdAt < :createdAt OR (g.createdAt = :createdAt AND g.id < :id)) AND " +
+           LIST_ROW_STUDENT_FILTER + LIST_ROW_FILTER)
+    Slice<GradeListRow> findKeysetOlderThan(@Param("studentName") String studentName,
+                                            @Param("courseName") String courseName,
+                                            @Param("semester") String semester,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+    
+    @Query(LIST_ROW_SELECT + "WHERE (g.createdAt > :createdAt OR (g.createdAt = :createdAt AND g.id > :id)) AND " +
+           LIST_ROW_STUDENT_FILTER + LIST_ROW_FILTER)
+    Slice<GradeListRow> findKeysetNewerThan(@Param("studentName") String studentName,
+                                            @Param("courseName") String courseName,
+                                            @Param("semester") String semester,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+    
+    // 學業匯總：只取計算所需的列，學分取自課程
+    String ACADEMIC_ROW_SELECT = "SELECT g.student.id AS studentId, c.id AS courseId, c.credits AS credits, " +
+            "g.totalScore AS totalScore, g.academicYear AS academicYear, g.semester AS semester " +
+            "FROM Grade g JOIN g.course c ";
+    
+    @Query(ACADEMIC_ROW_SELECT + "WHERE g.student.id IN :studentIds")
+    List<AcademicGradeRow> findAcademicRows(@Param("studentIds") Collection<Long> studentIds);
+    
+    @Query("SELECT DISTINCT g.student.id FROM Grade g ORDER BY g.student.id")
+    List<Long> findGradedStudentIds();
+    
+    // 修改或刪除前讀取成績所屬學生（已提交的值）
+    @Query("SELECT g.student.id FROM Grade g WHERE g.id = :id")
+    Optional<Long> findStudentIdById(@Param("id") Long id);
+    
+    // 成績報表：按課程流式讀取（滾動游標），每次從驅動取一批行，不把整門課程的實體載入持久化上下文
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+                 @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("SELECT g.academicYear AS academicYear, g.semester AS semester, c.id AS classId, g.totalScore AS totalScore " +
+           "FROM Grade g JOIN g.student s LEFT JOIN s.classInfo c WHERE g.course.id = :courseId AND g.totalScore IS NOT NULL")
+    Stream<GradeScoreRow> streamScoresByCourseId(@Param("courseId") Long courseId);
+    
+    // 成績報表緩存的版本：任何節點增刪改成績都會改變所在課程的成績數或最近更新時間
+    String COURSE_VERSION_SELECT = "SELECT g.course.id AS courseId, COUNT(g) AS gradeCount, " +
+            "MAX(g.updatedAt) AS lastUpdatedAt FROM Grade g ";
+    
+    @Query(COURSE_VERSION_SELECT + "GROUP BY g.course.id")
+    List<GradeCourseVersionRow> findCourseVersions();
+    
+    @Query(COURSE_VERSION_SELECT + "WHERE g.course.id = :courseId GROUP BY g.course.id")
+    Optional<GradeCourseVersionRow> findCourseVersion(@Param("courseId") Long courseId);
+}
@@ -0,0 +1,33 @@
+package com.student.repository;
+
+import com.student.entity.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+    
+    // 租約空閒或已過期時搶占，返回 1 表示搶到；條件更新在數據庫內原子執行，多個節點同時搶占只有一個成功
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockedUntil = :until, l.lockedBy = :owner " +
+           "WHERE l.name = :name AND (l.lockedUntil IS NULL OR l.lockedUntil <= :now)")
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner,
+                   @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+    
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockedUntil = NULL WHERE l.name = :name AND l.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner);
+    
+    // 對鎖行加寫鎖直到事務結束，用於跨節點串行同一類寫入
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM JobLock l WHERE l.name = :name")
+    Optional<JobLock> lockByName(@Param("name") String name);
+}
@@ -0,0 +1,27 @@
+package com.student.repository;
+
+import com.student.entity.QrCheckInSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface QrCheckInSessionRepository extends JpaRepository<QrCheckInSession, String> {
+    
+    @Query("SELECT q FROM QrCheckInSession q WHERE q.closed = false AND q.expiresAt > :now ORDER BY q.startsAt")
+    List<QrCheckInSession> findActive(@Param("now") LocalDateTime now);
+    
+    // 其他節點關閉的會話，定期同步到本節點內存
+    @Query("SELECT q.id FROM QrCheckInSession q WHERE q.closed = true AND q.id IN :ids")
+    List<String> findClosedIds(@Param("ids") Collection<String> ids);
+    
+    @Modifying
+    @Query("UPDATE QrCheckInSession q SET q.closed = true WHERE q.id = :id")
+    int close(@Param("id") String id);
+}
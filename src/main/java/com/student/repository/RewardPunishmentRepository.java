@@ -1,19 +1,40 @@
 package com.student.repository;
 
 import com.student.entity.RewardPunishment;
+import com.student.repository.projection.GroupCount;
+import com.student.repository.projection.RewardPunishmentListRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RewardPunishmentRepository extends JpaRepository<RewardPunishment, Long> {
     
+    // 列表頁讀模型：單條 SQL 連接學生，只選取列表顯示的列
+    String LIST_ROW_SELECT = "SELECT rp.id AS id, s.id AS studentId, s.name AS studentName, rp.type AS type, " +
+            "rp.category AS category, rp.title AS title, rp.date AS date, rp.issuer AS issuer, rp.status AS status, " +
+            "rp.createdAt AS createdAt FROM RewardPunishment rp JOIN rp.student s ";
+    
+    String LIST_ROW_FILTER = "(:studentName IS NULL OR s.name LIKE %:studentName%) AND " +
+            "(:title IS NULL OR rp.title LIKE %:title%) AND " +
+            "(:type IS NULL OR rp.type = :type) AND " +
+            "(:category IS NULL OR rp.category = :category) AND " +
+            "(:status IS NULL OR rp.status = :status)";
+    
+    // 詳情頁與 API：按 RewardPunishment.detail 取出全部顯示用關聯
+    @EntityGraph("RewardPunishment.detail")
+    Optional<RewardPunishment> findDetailById(Long id);
+    
     List<RewardPunishment> findByStudentId(Long studentId);
     
     List<RewardPunishment> findByType(RewardPunishment.Type type);
@@ -57,10 +78,51 @@ public interface RewardPunishmentRepository extends JpaRepository<RewardPunishme
                                               @Param("status") RewardPunishment.Status status,
                                               Pageable pageable);
     
+    @Query(value = LIST_ROW_SELECT + "WHERE " + LIST_ROW_FILTER,
+           countQuery = "SELECT COUNT(rp) FROM RewardPunishment rp JOIN rp.student s WHERE " + LIST_ROW_FILTER)
+    Page<RewardPunishmentListRow> findListRows(@Param("studentName") String studentName,
+                                               @Param("title") String title,
+                                               @Param("type") RewardPunishment.Type type,
+                                               @Param("category") RewardPunishment.Category category,
+                                               @Param("status") RewardPunishment.Status status,
+                                               Pageable pageable);
+    
     long countByType(RewardPunishment.Type type);
     
     long countByStatus(RewardPunishment.Status status);
     
+    @Query("SELECT rp.type AS label, COUNT(rp) AS total FROM RewardPunishment rp GROUP BY rp.type")
+    List<GroupCount<RewardPunishment.Type>> countGroupByType();
+    
+    @Query("SELECT rp.category AS label, COUNT(rp) AS total FROM RewardPunishment rp GROUP BY rp.category")
+    List<GroupCount<RewardPunishment.Category>> countGroupByCategory();
+    
+    @Query("SELECT rp.status AS label, COUNT(rp) AS total FROM RewardPunishment rp GROUP BY rp.status")
+    List<GroupCount<RewardPunishment.Status>> countGroupByStatus();
+    
     @Query("SELECT COUNT(rp) FROM RewardPunishment rp WHERE rp.student.id = :studentId AND rp.type = :type")
     long countByStudentIdAndType(@Param("studentId") Long studentId, @Param("type") RewardPunishment.Type type);
+    
+    // 鍵集分頁：按 (createdAt, id) 定位，不執行 COUNT
+    @Query(LIST_ROW_SELECT + "WHERE (rp.createdAt < :createdAt OR (rp.createdAt = :createdAt AND rp.id < :id)) AND " +
+           LIST_ROW_FILTER)
+    Slice<RewardPunishmentListRow> findKeysetOlderThan(@Param("studentName") String studentName,
+                                                       @Param("title") String title,
+                                                       @Param("type") RewardPunishment.Type type,
+                                                       @Param("category") RewardPunishment.Category category,
+                                                       @Param("status") RewardPunishment.Status status,
+                                                       @Param("createdAt") LocalDateTime createdAt,
+                                                       @Param("id") Long id,
+                                                       Pageable pageable);
+    
+    @Query(LIST_ROW_SELECT + "WHERE (rp.createdAt > :createdAt OR (rp.createdAt = :createdAt AND rp.id > :id)) AND " +
+           LIST_ROW_FILTER)
+    Slice<RewardPunishmentListRow> findKeysetNewerThan(@Param("studentName") String studentName,
+                                                       @Param("title") String title,
+                                                       @Param("type") RewardPunishment.Type type,
+                                                       @Param("category") RewardPunishment.Category category,
+                                                       @Param("status") RewardPunishment.Status status,
+                                                       @Param("createdAt") LocalDateTime createdAt,
+                                                       @Param("id") Long id,
+                                                       Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.student.repository;
+
+import com.student.entity.StudentAcademicSummary;
+import com.student.repository.projection.AcademicRankRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StudentAcademicSummaryRepository extends JpaRepository<StudentAcademicSummary, Long> {
+    
+    @Query("SELECT m.studentId FROM StudentAcademicSummary m WHERE m.studentId IN :studentIds")
+    List<Long> findExistingIds(@Param("studentIds") Collection<Long> studentIds);
+    
+    // 重算前按學生 ID 順序加行鎖（SELECT ... FOR UPDATE），同一學生的並發重算依次執行
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM StudentAcademicSummary m WHERE m.studentId IN :studentIds ORDER BY m.studentId")
+    List<StudentAcademicSummary> lockByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+    
+    // 有成績但匯總缺失、成績條數不符或成績在匯總之後修改過的學生
+    @Query("SELECT g.student.id FROM Grade g LEFT JOIN StudentAcademicSummary m ON m.studentId = g.student.id " +
+           "GROUP BY g.student.id, m.gradeCount, m.updatedAt " +
+           "HAVING m.updatedAt IS NULL OR m.gradeCount <> COUNT(g) OR MAX(g.updatedAt) > m.updatedAt")
+    List<Long> findDriftedStudentIds();
+    
+    // 已沒有成績卻仍有匯總（含未完成的佔位行）的學生
+    @Query("SELECT m.studentId FROM StudentAcademicSummary m WHERE (m.gradeCount > 0 OR m.updatedAt IS NULL) " +
+           "AND NOT EXISTS (SELECT g.id FROM Grade g WHERE g.student.id = m.studentId)")
+    List<Long> findStaleStudentIds();
+    
+    String RANK_INPUT_SELECT =
+            "SELECT s.id AS studentId, c.id AS classId, c.grade AS gradeLevel, m.weightedAverage AS weightedAverage " +
+            "FROM StudentAcademicSummary m, Student s LEFT JOIN s.classInfo c WHERE s.id = m.studentId";
+    
+    // 排名任務的輸入：班級與年級取學生當前所在班級，轉班後下次排名即生效
+    @Query(RANK_INPUT_SELECT)
+    List<AcademicRankRow> findRankInputs();
+    
+    @Query(RANK_INPUT_SELECT + " AND m.studentId IN :studentIds")
+    List<AcademicRankRow> findRankInputs(@Param("studentIds") Collection<Long> studentIds);
+    
+    // 排名索引輪詢：其他節點重算過的學生
+    @Query("SELECT m.studentId FROM StudentAcademicSummary m WHERE m.updatedAt > :since")
+    List<Long> findUpdatedSince(@Param("since") LocalDateTime since);
+    
+    // 學生被刪除後清理遺留的匯總行
+    @Modifying
+    @Query("DELETE FROM StudentAcademicSummary m WHERE m.studentId NOT IN (SELECT s.id FROM Student s)")
+    int deleteOrphans();
+    
+    // 排名報表：直接讀取預先計算的名次
+    @Query("SELECT m FROM StudentAcademicSummary m WHERE m.classId = :classId AND m.classRank IS NOT NULL " +
+           "ORDER BY m.classRank, m.studentId")
+    List<StudentAcademicSummary> findClassRanking(@Param("classId") Long classId);
+    
+    @Query("SELECT m FROM StudentAcademicSummary m WHERE m.gradeLevel = :gradeLevel AND m.gradeLevelRank IS NOT NULL " +
+           "ORDER BY m.gradeLevelRank, m.studentId")
+    List<StudentAcademicSummary> findGradeLevelRanking(@Param("gradeLevel") Integer gradeLevel, Pageable pageable);
+}
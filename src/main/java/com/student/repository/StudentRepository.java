@@ -1,22 +1,46 @@
 package com.student.repository;
 
 import com.student.entity.Student;
+import com.student.repository.projection.GroupCount;
+import com.student.repository.projection.StudentListRow;
+import com.student.repository.projection.StudentPlacementRow;
+import com.student.repository.projection.StudentCrossTabRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long> {
     
+    // 列表頁讀模型：單條 SQL 左連接班級，只選取列表顯示的列
+    String LIST_ROW_SELECT = "SELECT s.id AS id, s.studentNumber AS studentNumber, s.name AS name, " +
+            "s.gender AS gender, s.status AS status, s.enrollmentDate AS enrollmentDate, s.photoPath AS photoPath, " +
+            "c.id AS classId, c.name AS className, s.createdAt AS createdAt FROM Student s LEFT JOIN s.classInfo c ";
+    
+    String LIST_ROW_FILTER = "(:classId IS NULL OR s.classInfo.id = :classId) AND " +
+            "(:status IS NULL OR s.status = :status) AND " +
+            "(:gender IS NULL OR s.gender = :gender)";
+    
+    String LIST_ROW_TEXT_FILTER = "(:name IS NULL OR s.name LIKE %:name%) AND " +
+            "(:studentNumber IS NULL OR s.studentNumber LIKE %:studentNumber%) AND ";
+    
     Optional<Student> findByStudentNumber(String studentNumber);
     
+    // 詳情頁：連同班級一次取出
+    @EntityGraph("Student.withClass")
+    Optional<Student> findWithClassById(Long id);
+    
     Optional<Student> findByIdNumber(String idNumber);
     
     Optional<Student> findByPhone(String phone);
@@ -39,15 +63,50 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     @Query("SELECT s FROM Student s WHERE s.classInfo.grade = :grade")
     List<Student> findByGrade(@Param("grade") Integer grade);
     
-    @Query("SELECT s FROM Student s WHERE s.classInfo.id = :classId AND s.status = :status")
+    // 按 ID 升序，作為點名名單的固定順序
+    @Query("SELECT s FROM Student s WHERE s.classInfo.id = :classId AND s.status = :status ORDER BY s.id")
     List<Student> findByClassIdAndStatus(@Param("classId") Long classId, @Param("status") Student.StudentStatus status);
     
+    // 掃碼簽到名單：指定班級的在讀學生
+    @Query("SELECT s.id FROM Student s WHERE s.classInfo.id = :classId AND s.status = :status")
+    List<Long> findIdsByClassIdAndStatus(@Param("classId") Long classId, @Param("status") Student.StudentStatus status);
+    
+    // 掃碼簽到名單：所在班級排有該課程，或已有該課程成績的在讀學生
+    @Query("SELECT s.id FROM Student s WHERE s.status = :status AND (" +
+           "EXISTS (SELECT cs.id FROM CourseSchedule cs WHERE cs.course.id = :courseId AND cs.classInfo = s.classInfo) OR " +
+           "EXISTS (SELECT g.id FROM Grade g WHERE g.course.id = :courseId AND g.student = s))")
+    List<Long> findIdsEnrolledInCourse(@Param("courseId") Long courseId, @Param("status") Student.StudentStatus status);
+    
     @Query("SELECT COUNT(s) FROM Student s WHERE s.status = :status")
     Long countByStatus(@Param("status") Student.StudentStatus status);
     
     @Query("SELECT COUNT(s) FROM Student s WHERE s.gender = :gender")
     Long countByGender(@Param("gender") Student.Gender gender);
     
+    // 分組統計
+    @Query("SELECT s.status AS label, COUNT(s) AS total FROM Student s GROUP BY s.status")
+    List<GroupCount<Student.StudentStatus>> countGroupByStatus();
+    
+    @Query("SELECT s.gender AS label, COUNT(s) AS total FROM Student s GROUP BY s.gender")
+    List<GroupCount<Student.Gender>> countGroupByGender();
+    
+    @Query("SELECT s.classInfo.id AS label, COUNT(s) AS total FROM Student s " +
+           "WHERE s.classInfo.id IN :classIds GROUP BY s.classInfo.id")
+    List<GroupCount<Long>> countGroupByClassIdIn(@Param("classIds") Collection<Long> classIds);
+    
+    @Query("SELECT c.id AS classId, c.name AS className, s.status AS status, s.gender AS gender, COUNT(s) AS total " +
+           "FROM Student s LEFT JOIN s.classInfo c " +
+           "GROUP BY c.id, c.name, s.status, s.gender " +
+           "ORDER BY c.name, s.status, s.gender")
+    List<StudentCrossTabRow> countCrossTabByClassStatusGender();
+    
+    // 批量唯一性檢查（導入時按批次查詢）
+    @Query("SELECT s.studentNumber FROM Student s WHERE s.studentNumber IN :studentNumbers")
+    List<String> findExistingStudentNumbers(@Param("studentNumbers") Collection<String> studentNumbers);
+    
+    @Query("SELECT s.idNumber FROM Student s WHERE s.idNumber IN :idNumbers")
+    List<String> findExistingIdNumbers(@Param("idNumbers") Collection<String> idNumbers);
+    
     @Query("SELECT s FROM Student s WHERE s.name LIKE %:name%")
     Page<Student> findByNameContaining(@Param("name") String name, Pageable pageable);
     
@@ -85,4 +144,79 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
                                       @Param("status") Student.StudentStatus status,
                                       @Param("gender") Student.Gender gender,
                                       Pageable pageable);
-} 
\ No newline at end of file
+    
+    // 搜索索引解析出 id 後按主鍵讀取，其餘條件在數據庫過濾
+    @Query("SELECT s FROM Student s WHERE s.id IN :ids AND " +
+           "(:classId IS NULL OR s.classInfo.id = :classId) AND " +
+           "(:status IS NULL OR s.status = :status) AND " +
+           "(:gender IS NULL OR s.gender = :gender)")
+    Page<Student> findByIdsAndFilters(@Param("ids") Collection<Long> ids,
+                                      @Param("classId") Long classId,
+                                      @Param("status") Student.StudentStatus status,
+                                      @Param("gender") Student.Gender gender,
+                                      Pageable pageable);
+    
+    Page<Student> findByIdIn(Collection<Long> ids, Pageable pageable);
+    
+    @Query(value = LIST_ROW_SELECT + "WHERE " + LIST_ROW_TEXT_FILTER + LIST_ROW_FILTER,
+           countQuery = "SELECT COUNT(s) FROM Student s WHERE " + LIST_ROW_TEXT_FILTER + LIST_ROW_FILTER)
+    Page<StudentListRow> findListRows(@Param("name") String name,
+                                      @Param("studentNumber") String studentNumber,
+                                      @Param("classId") Long classId,
+                                      @Param("status") Student.StudentStatus status,
+                                      @Param("gender") Student.Gender gender,
+                                      Pageable pageable);
+    
+    // 姓名、學號條件已由搜索索引解析為 id
+    @Query(value = LIST_ROW_SELECT + "WHERE s.id IN :ids AND " + LIST_ROW_FILTER,
+           countQuery = "SELECT COUNT(s) FROM Student s WHERE s.id IN :ids AND " + LIST_ROW_FILTER)
+    Page<StudentListRow> findListRowsByIds(@Param("ids") Collection<Long> ids,
+                                           @Param("classId") Long classId,
+                                           @Param("status") Student.StudentStatus status,
+                                           @Param("gender") Student.Gender gender,
+                                           Pageable pageable);
+    
+    // 導出用鍵集分頁：按 id 升序，從 lastId 之後讀取一批，避免 OFFSET 深分頁
+    @Query("SELECT s FROM Student s LEFT JOIN FETCH s.classInfo c WHERE s.id > :lastId AND " +
+           "(:name IS NULL OR s.name LIKE %:name%) AND " +
+           "(:studentNumber IS NULL OR s.studentNumber LIKE %:studentNumber%) AND " +
+           "(:classId IS NULL OR c.id = :classId) AND " +
+           "(:status IS NULL OR s.status = :status) AND " +
+           "(:gender IS NULL OR s.gender = :gender) " +
+           "ORDER BY s.id ASC")
+    List<Student> findExportChunk(@Param("name") String name,
+                                  @Param("studentNumber") String studentNumber,
+                                  @Param("classId") Long classId,
+                                  @Param("status") Student.StudentStatus status,
+                                  @Param("gender") Student.Gender gender,
+                                  @Param("lastId") Long lastId,
+                                  Pageable pageable);
+    
+    // 鍵集分頁：按 (createdAt, id) 定位，不執行 COUNT
+    @Query(LIST_ROW_SELECT + "WHERE (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) AND " +
+           LIST_ROW_TEXT_FILTER + LIST_ROW_FILTER)
+    Slice<StudentListRow> findKeysetOlderThan(@Param("name") String name,
+                                              @Param("studentNumber") String studentNumber,
+                                              @Param("classId") Long classId,
+                                              @Param("status") Student.StudentStatus status,
+                                              @Param("gender") Student.Gender gender,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") Long id,
+                                              Pageable pageable);
+    
+    @Query(LIST_ROW_SELECT + "WHERE (s.createdAt > :createdAt OR (s.createdAt = :createdAt AND s.id > :id)) AND " +
+           LIST_ROW_TEXT_FILTER + LIST_ROW_FILTER)
+    Slice<StudentListRow> findKeysetNewerThan(@Param("name") String name,
+                                              @Param("studentNumber") String studentNumber,
+                                              @Param("classId") Long classId,
+                                              @Param("status") Student.StudentStatus status,
+                                              @Param("gender") Student.Gender gender,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") Long id,
+                                              Pageable pageable);
+    
+    // 學業匯總寫入時記錄學生當前的班級與年級
+    @Query("SELECT s.id AS studentId, c.id AS classId, c.grade AS gradeLevel FROM Student s " +
+           "LEFT JOIN s.classInfo c WHERE s.id IN :ids")
+    List<StudentPlacementRow> findPlacements(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,26 @@
+package com.student.repository;
+
+import com.student.entity.StudentTermSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StudentTermSummaryRepository extends JpaRepository<StudentTermSummary, Long> {
+    
+    List<StudentTermSummary> findByStudentIdOrderByAcademicYearAscIdAsc(Long studentId);
+    
+    // 重算前刪除學生的全部學期行
+    @Modifying
+    @Query("DELETE FROM StudentTermSummary t WHERE t.studentId IN :studentIds")
+    int deleteByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+    
+    @Modifying
+    @Query("DELETE FROM StudentTermSummary t WHERE t.studentId NOT IN (SELECT s.id FROM Student s)")
+    int deleteOrphans();
+}
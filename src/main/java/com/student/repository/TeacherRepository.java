@@ -5,16 +5,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TeacherRepository extends JpaRepository<Teacher, Long> {
     
+    // 查詢緩存只保存 ID，實體從二級緩存讀取；teachers 表有寫入時自動失效
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<Teacher> findByTeacherNumber(String teacherNumber);
     
     Optional<Teacher> findByIdNumber(String idNumber);
@@ -23,6 +28,8 @@ public interface TeacherRepository extends JpaRepository<Teacher, Long> {
     
     Optional<Teacher> findByEmail(String email);
     
+    // 表單下拉框的在職教師列表
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Teacher> findByStatus(Teacher.TeacherStatus status);
     
     List<Teacher> findByGender(Teacher.Gender gender);
@@ -61,4 +68,9 @@ public interface TeacherRepository extends JpaRepository<Teacher, Long> {
                                       @Param("status") Teacher.TeacherStatus status,
                                       @Param("title") Teacher.Title title,
                                       Pageable pageable);
+    
+    Page<Teacher> findByIdIn(Collection<Long> ids, Pageable pageable);
+    
+    // 統計方法
+    Long countByStatus(Teacher.TeacherStatus status);
 } 
\ No newline at end of file
@@ -1,14 +1,17 @@
 package com.student.repository;
 
 import com.student.entity.User;
+import com.student.repository.projection.UserAccessRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -67,4 +70,18 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     
     boolean existsByPhone(String phone);
-} 
\ No newline at end of file
+    
+    // 批量寫入最後登錄時間，同一秒內登錄的用戶合併為一條 UPDATE
+    @Modifying
+    @Query("UPDATE User u SET u.lastLoginTime = :time WHERE u.id IN :ids")
+    int updateLastLoginTime(@Param("ids") Collection<Long> ids, @Param("time") LocalDateTime time);
+    
+    // 登錄成功後按新的成本因子重新哈希
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePasswordByUsername(@Param("username") String username, @Param("password") String password);
+    
+    // 令牌校驗只需角色與狀態，不加載整個用戶實體
+    @Query("SELECT u.role AS role, u.status AS status FROM User u WHERE u.id = :id")
+    Optional<UserAccessRow> findAccessById(@Param("id") Long id);
+}
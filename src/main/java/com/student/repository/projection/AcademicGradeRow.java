@@ -0,0 +1,19 @@
+package com.student.repository.projection;
+
+import com.student.entity.Grade;
+
+// 學業匯總計算所需的成績列：學生、課程學分、總評與學期
+public interface AcademicGradeRow {
+    
+    Long getStudentId();
+    
+    Long getCourseId();
+    
+    Integer getCredits();
+    
+    Double getTotalScore();
+    
+    Integer getAcademicYear();
+    
+    Grade.Semester getSemester();
+}
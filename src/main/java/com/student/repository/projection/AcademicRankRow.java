@@ -0,0 +1,7 @@
+package com.student.repository.projection;
+
+// 排名輸入：學生當前的班級、年級與加權平均分
+public interface AcademicRankRow extends StudentPlacementRow {
+    
+    Double getWeightedAverage();
+}
@@ -0,0 +1,13 @@
+package com.student.repository.projection;
+
+import java.time.LocalDate;
+
+// 從考勤記錄聚合出的日匯總行，用於寫入 attendance_daily_rollup
+public interface AttendanceDailyCountsRow extends AttendanceStatusCounts {
+    
+    LocalDate getDate();
+    
+    Long getCourseId();
+    
+    Long getClassId();
+}
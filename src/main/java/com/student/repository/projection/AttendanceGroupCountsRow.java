@@ -0,0 +1,7 @@
+package com.student.repository.projection;
+
+// 按課程或班級 ID 分組的考勤計數
+public interface AttendanceGroupCountsRow extends AttendanceStatusCounts {
+    
+    Long getId();
+}
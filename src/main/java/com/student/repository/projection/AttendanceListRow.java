@@ -0,0 +1,28 @@
+package com.student.repository.projection;
+
+import com.student.entity.Attendance;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 考勤列表行：學生和課程名稱由連接查詢一併取出
+public interface AttendanceListRow {
+    
+    Long getId();
+    
+    Long getStudentId();
+    
+    String getStudentName();
+    
+    Long getCourseId();
+    
+    String getCourseName();
+    
+    LocalDate getDate();
+    
+    Attendance.AttendanceStatus getStatus();
+    
+    String getRemarks();
+    
+    LocalDateTime getCreatedAt();
+}
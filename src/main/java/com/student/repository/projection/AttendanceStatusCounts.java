@@ -0,0 +1,19 @@
+package com.student.repository.projection;
+
+// 按考勤狀態的計數
+public interface AttendanceStatusCounts {
+    
+    Long getPresentCount();
+    
+    Long getAbsentCount();
+    
+    Long getLateCount();
+    
+    Long getEarlyLeaveCount();
+    
+    Long getLeaveCount();
+    
+    Long getSickLeaveCount();
+    
+    Long getTotalCount();
+}
@@ -0,0 +1,11 @@
+package com.student.repository.projection;
+
+// 按 ID 分組的出勤次數與考勤總數
+public interface AttendanceTallyRow {
+    
+    Long getId();
+    
+    Long getPresentCount();
+    
+    Long getTotalCount();
+}
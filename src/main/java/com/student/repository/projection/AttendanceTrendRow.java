@@ -0,0 +1,9 @@
+package com.student.repository.projection;
+
+import java.time.LocalDate;
+
+// 考勤趨勢：每天一行
+public interface AttendanceTrendRow extends AttendanceStatusCounts {
+    
+    LocalDate getDate();
+}
@@ -0,0 +1,9 @@
+package com.student.repository.projection;
+
+// 按 ID 分組的平均成績
+public interface AverageScoreRow {
+    
+    Long getId();
+    
+    Double getAverage();
+}
@@ -0,0 +1,13 @@
+package com.student.repository.projection;
+
+import java.time.LocalDateTime;
+
+// 成績報表緩存的課程版本：成績數與最近更新時間
+public interface GradeCourseVersionRow {
+    
+    Long getCourseId();
+    
+    Long getGradeCount();
+    
+    LocalDateTime getLastUpdatedAt();
+}
@@ -0,0 +1,33 @@
+package com.student.repository.projection;
+
+import com.student.entity.Grade;
+
+import java.time.LocalDateTime;
+
+// 成績列表行：學生和課程名稱由連接查詢一併取出
+public interface GradeListRow {
+    
+    Long getId();
+    
+    Long getStudentId();
+    
+    String getStudentName();
+    
+    Long getCourseId();
+    
+    String getCourseName();
+    
+    Double getRegularScore();
+    
+    Double getExamScore();
+    
+    Double getTotalScore();
+    
+    Grade.GradeType getType();
+    
+    Grade.Semester getSemester();
+    
+    Integer getAcademicYear();
+    
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,15 @@
+package com.student.repository.projection;
+
+import com.student.entity.Grade;
+
+// 成績報表的流式輸入：一門課程的每條總評及其學期與學生當前班級
+public interface GradeScoreRow {
+    
+    Integer getAcademicYear();
+    
+    Grade.Semester getSemester();
+    
+    Long getClassId();
+    
+    Double getTotalScore();
+}
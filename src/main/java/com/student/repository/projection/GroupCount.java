@@ -0,0 +1,9 @@
+package com.student.repository.projection;
+
+// 分組計數投影：GROUP BY 的分組值與對應記錄數
+public interface GroupCount<T> {
+    
+    T getLabel();
+    
+    Long getTotal();
+}
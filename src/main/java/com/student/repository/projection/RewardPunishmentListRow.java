@@ -0,0 +1,30 @@
+package com.student.repository.projection;
+
+import com.student.entity.RewardPunishment;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 獎懲列表行：學生名稱由連接查詢一併取出
+public interface RewardPunishmentListRow {
+    
+    Long getId();
+    
+    Long getStudentId();
+    
+    String getStudentName();
+    
+    RewardPunishment.Type getType();
+    
+    RewardPunishment.Category getCategory();
+    
+    String getTitle();
+    
+    LocalDate getDate();
+    
+    String getIssuer();
+    
+    RewardPunishment.Status getStatus();
+    
+    LocalDateTime getCreatedAt();
+}
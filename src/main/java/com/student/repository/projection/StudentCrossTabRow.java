@@ -0,0 +1,17 @@
+package com.student.repository.projection;
+
+import com.student.entity.Student;
+
+// 班級 × 狀態 × 性別 交叉統計行
+public interface StudentCrossTabRow {
+    
+    Long getClassId();
+    
+    String getClassName();
+    
+    Student.StudentStatus getStatus();
+    
+    Student.Gender getGender();
+    
+    Long getTotal();
+}
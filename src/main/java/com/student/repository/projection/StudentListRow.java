@@ -0,0 +1,34 @@
+package com.student.repository.projection;
+
+import com.student.entity.Student;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 學生列表行：只包含列表頁顯示的列，班級名稱由連接查詢一併取出
+public interface StudentListRow {
+    
+    Long getId();
+    
+    String getStudentNumber();
+    
+    String getName();
+    
+    Student.Gender getGender();
+    
+    Student.StudentStatus getStatus();
+    
+    LocalDate getEnrollmentDate();
+    
+    String getPhotoPath();
+    
+    Long getClassId();
+    
+    String getClassName();
+    
+    LocalDateTime getCreatedAt();
+    
+    default String getPhotoUrl() {
+        return getPhotoPath() != null ? "/uploads/" + getPhotoPath() : null;
+    }
+}
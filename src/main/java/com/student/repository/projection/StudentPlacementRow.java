@@ -0,0 +1,11 @@
+package com.student.repository.projection;
+
+// 學生當前所在的班級與年級
+public interface StudentPlacementRow {
+    
+    Long getStudentId();
+    
+    Long getClassId();
+    
+    Integer getGradeLevel();
+}
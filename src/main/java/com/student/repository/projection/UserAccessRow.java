@@ -0,0 +1,11 @@
+package com.student.repository.projection;
+
+import com.student.entity.User;
+
+// 令牌校驗時複核的賬號狀態與角色
+public interface UserAccessRow {
+    
+    User.Role getRole();
+    
+    User.Status getStatus();
+}
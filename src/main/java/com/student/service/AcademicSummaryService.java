@@ -0,0 +1,32 @@
+package com.student.service;
+
+import com.student.entity.StudentAcademicSummary;
+import com.student.entity.StudentTermSummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface AcademicSummaryService {
+    
+    // 讀取預先計算的學業匯總
+    Optional<StudentAcademicSummary> getSummary(Long studentId);
+    
+    List<StudentTermSummary> getTermSummaries(Long studentId);
+    
+    List<StudentAcademicSummary> getClassRanking(Long classId);
+    
+    List<StudentAcademicSummary> getGradeLevelRanking(Integer gradeLevel, int limit);
+    
+    // 成績寫入時調用，事務提交後鎖定學生的匯總行並重算；排名由後台任務異步更新
+    void refreshStudents(Collection<Long> studentIds);
+    
+    // 從成績表全量重建匯總與排名，返回匯總的學生數
+    int rebuildAll();
+    
+    // 重算匯總與成績表不一致的學生，返回修復的學生數
+    int repairDrift();
+    
+    // 按加權平均分重算班級與年級排名，返回更新的行數
+    int recomputeRanks();
+}
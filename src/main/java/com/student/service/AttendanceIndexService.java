@@ -0,0 +1,42 @@
+package com.student.service;
+
+import com.student.dto.AttendanceStreak;
+import com.student.entity.Attendance;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// 考勤位圖索引：索引未就緒時返回 empty，調用方應回退到數據庫查詢
+public interface AttendanceIndexService {
+    
+    Optional<Long> countByStatus(Attendance.AttendanceStatus status);
+    
+    Optional<Double> getAttendanceRateByStudent(Long studentId);
+    
+    Optional<Double> getAttendanceRateByCourse(Long courseId);
+    
+    Optional<Double> getAttendanceRateByStudentAndCourse(Long studentId, Long courseId);
+    
+    Optional<Map<Long, Double>> getAttendanceRatesByCourse(Long courseId);
+    
+    Optional<AttendanceStreak> getStreak(Long studentId, Long courseId);
+    
+    // 日期區間內的缺席次數，courseId 為 null 時統計全部課程
+    Optional<Long> countAbsences(Long studentId, Long courseId, LocalDate from, LocalDate to);
+    
+    Optional<List<Long>> findAbsentStudentIds(Long courseId, LocalDate date);
+    
+    // 實體監聽器回調
+    void index(Object entity);
+    
+    void remove(Object entity);
+    
+    // 從數據庫重建並寫入快照
+    void rebuild();
+    
+    void writeSnapshot();
+    
+    Map<String, Object> getStatistics();
+}
@@ -0,0 +1,26 @@
+package com.student.service;
+
+import com.student.repository.projection.AttendanceGroupCountsRow;
+import com.student.repository.projection.AttendanceTrendRow;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AttendanceRollupService {
+    
+    // 報表查詢：只讀日匯總表
+    List<AttendanceTrendRow> getDailyTrend(LocalDate from, LocalDate to, Long courseId, Long classId);
+    
+    List<AttendanceGroupCountsRow> getTotalsByCourse(LocalDate from, LocalDate to, Long classId);
+    
+    List<AttendanceGroupCountsRow> getTotalsByClass(LocalDate from, LocalDate to, Long courseId);
+    
+    // 從考勤記錄重算日期區間內的匯總，返回寫入的行數
+    int rebuild(LocalDate from, LocalDate to);
+    
+    // 實體監聽器回調：記錄受影響的（日期, 課程），由定時任務重算
+    void markChanged(Object entity);
+    
+    // 重算已標記的（日期, 課程）
+    int refreshChanged();
+}
@@ -1,25 +1,49 @@
 package com.student.service;
 
+import com.student.dto.AttendanceStreak;
+import com.student.dto.KeysetPage;
+import com.student.dto.RollCallResult;
 import com.student.entity.Attendance;
+import com.student.repository.projection.AttendanceListRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface AttendanceService {
     
     Attendance saveAttendance(Attendance attendance);
     
+    // 同一事務內批量保存，按 hibernate.jdbc.batch_size 分批發送
+    List<Attendance> saveAllAttendance(List<Attendance> attendances);
+    
+    // 班級點名：讀取名單與每名學生的當前狀態
+    RollCallResult getRollCall(Long classId, Long courseId, LocalDate date);
+    
+    // 班級點名：按學生 ID 對應的狀態一次保存整班記錄，已有記錄則覆蓋，未提交的學生不記錄
+    RollCallResult saveRollCall(Long classId, Long courseId, LocalDate date, Map<Long, String> statuses);
+    
     Optional<Attendance> findById(Long id);
     
+    // 詳情頁與 API：連同學生、課程及其顯示用關聯一次取出，視圖渲染時不再懶加載
+    Optional<Attendance> findDetailById(Long id);
+    
     List<Attendance> findAllAttendance();
     
     Page<Attendance> findAllAttendance(Pageable pageable);
     
     Page<Attendance> findByAdvancedSearch(String studentName, String courseName, LocalDate date, Pageable pageable);
     
+    // 列表頁讀模型，每頁一條 SQL
+    Page<AttendanceListRow> findListRows(String studentName, String courseName, LocalDate date, Pageable pageable);
+    
+    // 鍵集分頁（after/before 為游標，不執行 COUNT）
+    KeysetPage<AttendanceListRow> findByKeyset(String studentName, String courseName, LocalDate date,
+                                               String after, String before, int size);
+    
     List<Attendance> findByStudentId(Long studentId);
     
     List<Attendance> findByCourseId(Long courseId);
@@ -37,4 +61,21 @@ public interface AttendanceService {
     double getAttendanceRateByStudent(Long studentId);
     
     double getAttendanceRateByCourse(Long courseId);
+    
+    // 某學生在某課程的出勤率
+    double getAttendanceRateByStudentAndCourse(Long studentId, Long courseId);
+    
+    // 批量聚合：學生ID -> 出勤率
+    Map<Long, Double> getAttendanceRatesByClass(Long classId);
+    
+    Map<Long, Double> getAttendanceRatesByCourse(Long courseId);
+    
+    // 某學生在某課程的當前與最長連續出勤
+    AttendanceStreak getStreak(Long studentId, Long courseId);
+    
+    // 日期區間內的缺席次數，courseId 為 null 時統計全部課程
+    long countAbsences(Long studentId, Long courseId, LocalDate from, LocalDate to);
+    
+    // 某課程某天缺席的學生ID
+    List<Long> findAbsentStudentIds(Long courseId, LocalDate date);
 } 
\ No newline at end of file
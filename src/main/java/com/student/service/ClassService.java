@@ -14,6 +14,9 @@ public interface ClassService {
     
     Optional<Class> findById(Long id);
     
+    // 詳情頁與 API：連同班主任一次取出，視圖渲染時不再懶加載
+    Optional<Class> findDetailById(Long id);
+    
     Optional<Class> findByCode(String code);
     
     List<Class> findAllClasses();
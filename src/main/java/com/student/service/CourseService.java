@@ -14,6 +14,9 @@ public interface CourseService {
     
     Optional<Course> findById(Long id);
     
+    // 詳情頁與 API：連同授課教師一次取出，視圖渲染時不再懶加載
+    Optional<Course> findDetailById(Long id);
+    
     Optional<Course> findByCode(String code);
     
     List<Course> findAllCourses();
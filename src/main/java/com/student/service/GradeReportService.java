@@ -0,0 +1,27 @@
+package com.student.service;
+
+import com.student.dto.GradeReport;
+import com.student.entity.Grade;
+
+import java.util.List;
+import java.util.Map;
+
+// 成績分佈報表：按課程緩存的成績上單次遍歷聚合，某課程有成績寫入時只失效該課程
+public interface GradeReportService {
+    
+    // 報表分組維度，SEMESTER 按（學年, 學期）分組
+    enum Dimension {
+        COURSE, CLASS, SEMESTER, ACADEMIC_YEAR
+    }
+    
+    // 按維度分組，其餘參數為篩選條件，為空時不篩選
+    List<GradeReport> getReport(Dimension dimension, Long courseId, Long classId, Integer academicYear, Grade.Semester semester);
+    
+    // 清空緩存並並行重新讀取全部課程，返回讀取的成績數
+    long recomputeAll();
+    
+    // 實體監聽器回調：記錄成績所屬課程，提交後失效該課程
+    void markChanged(Object entity);
+    
+    Map<String, Object> getStatistics();
+}
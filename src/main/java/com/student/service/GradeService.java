@@ -1,24 +1,39 @@
 package com.student.service;
 
+import com.student.dto.KeysetPage;
 import com.student.entity.Grade;
+import com.student.repository.projection.GradeListRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface GradeService {
     
     Grade saveGrade(Grade grade);
     
+    List<Grade> saveAllGrades(List<Grade> grades);
+    
     Optional<Grade> findById(Long id);
     
+    // 詳情頁與 API：連同學生、課程及其顯示用關聯一次取出，視圖渲染時不再懶加載
+    Optional<Grade> findDetailById(Long id);
+    
     List<Grade> findAllGrades();
     
     Page<Grade> findAllGrades(Pageable pageable);
     
     Page<Grade> findByAdvancedSearch(String studentName, String courseName, String semester, Pageable pageable);
     
+    // 列表頁讀模型，每頁一條 SQL
+    Page<GradeListRow> findListRows(String studentName, String courseName, String semester, Pageable pageable);
+    
+    // 鍵集分頁（after/before 為游標，不執行 COUNT）
+    KeysetPage<GradeListRow> findByKeyset(String studentName, String courseName, String semester,
+                                          String after, String before, int size);
+    
     List<Grade> findByStudentId(Long studentId);
     
     List<Grade> findByCourseId(Long courseId);
@@ -33,5 +48,10 @@ public interface GradeService {
     
     double getAverageGradeByCourse(Long courseId);
     
+    // 批量聚合：學生ID -> 平均成績
+    Map<Long, Double> getAverageGradesByClass(Long classId);
+    
+    Map<Long, Double> getAverageGradesByCourse(Long courseId);
+    
     boolean existsByStudentAndCourse(Long studentId, Long courseId);
 } 
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.student.service;
+
+import com.student.dto.ApiToken;
+import com.student.entity.User;
+
+import java.util.Optional;
+
+public interface JwtTokenService {
+    
+    // 簽發令牌，聲明中包含用戶 ID、角色與關聯學生，校驗時無需查詢數據庫
+    ApiToken issueToken(User user);
+    
+    // 校驗簽名、過期時間與吊銷列表，並複核賬號仍為活躍且角色未變，返回由聲明還原的用戶（非持久化實體，只填充聲明中的字段）
+    Optional<User> authenticate(String token);
+    
+    // 用戶狀態或角色變化後丟棄本節點緩存的複核結果，其他節點最遲在複核間隔後生效
+    void evictUser(Long userId);
+    
+    // 吊銷簽名有效的令牌，返回是否吊銷
+    boolean revoke(String token);
+    
+    // 從數據庫同步吊銷列表並刪除已過期的記錄
+    void syncRevocations();
+}
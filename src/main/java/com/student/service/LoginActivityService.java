@@ -0,0 +1,12 @@
+package com.student.service;
+
+public interface LoginActivityService {
+    
+    // 記錄登錄成功，只放入內存待寫集合，不在認證請求中訪問數據庫
+    void recordLogin(Long userId);
+    
+    // 將待寫的最後登錄時間批量寫入，返回更新的用戶數
+    int flush();
+    
+    int getPendingCount();
+}
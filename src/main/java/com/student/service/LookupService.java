@@ -0,0 +1,24 @@
+package com.student.service;
+
+import com.student.dto.LookupItem;
+
+import java.util.List;
+
+public interface LookupService {
+    
+    // 按編號或名稱前綴查找候選項
+    List<LookupItem> lookupStudents(String query, int limit);
+    
+    List<LookupItem> lookupCourses(String query, int limit);
+    
+    // 表單回顯當前選中項的顯示文本，未找到時返回空字符串
+    String studentLabel(Long id);
+    
+    String courseLabel(Long id);
+    
+    // 實體變更提交後在後台按主鍵重新讀取該行；其他節點的寫入由後台定時同步
+    void invalidate(Object entity);
+    
+    // 批量導入等繞過實體監聽器的寫入後，在後台全量重新加載學生表
+    void invalidateStudents();
+}
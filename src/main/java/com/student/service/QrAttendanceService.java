@@ -0,0 +1,43 @@
+package com.student.service;
+
+import com.student.dto.QrSession;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface QrAttendanceService {
+    
+    // 掃碼簽到結果
+    enum CheckInResult {
+        ACCEPTED, DUPLICATE, INVALID, EXPIRED, NOT_ENROLLED, BUSY
+    }
+    
+    // 會話管理；classId 為空時簽到名單取選修該課程的學生
+    QrSession openSession(Long courseId, Long classId, LocalDate date, Duration validity);
+    
+    // 本節點沒有的會話從數據庫加載
+    Optional<QrSession> findSession(String sessionId);
+    
+    List<QrSession> getActiveSessions();
+    
+    void closeSession(String sessionId);
+    
+    // 生成當前輪換窗口的簽名令牌
+    String currentToken(QrSession session);
+    
+    // 生成指定輪換窗口的簽名令牌
+    String token(QrSession session, long window);
+    
+    // 驗證令牌與簽到名單並放入寫入緩衝；會話已在本節點加載時不訪問數據庫
+    CheckInResult checkIn(String token, Long studentId, String location);
+    
+    // 將緩衝中的簽到批量寫入數據庫
+    int flush();
+    
+    int getPendingCount();
+    
+    // 同步其他節點關閉的會話
+    void syncClosedSessions();
+}
@@ -0,0 +1,20 @@
+package com.student.service;
+
+import com.student.dto.QrImage;
+
+import java.util.Map;
+
+public interface QrCodeService {
+    
+    // 將內容編碼為指定邊長的二維碼 PNG
+    byte[] renderPng(String content, int size);
+    
+    // 按（會話, 輪換窗口, 邊長, 內容摘要）緩存的會話二維碼，未命中時才渲染；
+    // 鍵只取決於二維碼內容本身，重啟後或其他節點（共享 path 與簽名密鑰）都能命中磁盤緩存
+    QrImage getSessionImage(String sessionId, long window, int size, String content);
+    
+    // 移除會話的全部緩存圖片（含磁盤文件）
+    void evictSession(String sessionId);
+    
+    Map<String, Object> getCacheStatistics();
+}
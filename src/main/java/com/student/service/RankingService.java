@@ -0,0 +1,34 @@
+package com.student.service;
+
+import com.student.dto.RankPosition;
+import com.student.entity.Grade;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// 增量排名引擎：班級與年級按學業匯總的加權平均分排名，課程按學期成績排名；索引未就緒時返回 empty
+// 索引只從已提交的匯總與成績載入，名次規則與匯總表預先計算的名次相同（同分同名次）
+public interface RankingService {
+    
+    // 學生在班級、年級及各課程學期中的名次
+    Optional<List<RankPosition>> getStudentRanks(Long studentId);
+    
+    Optional<List<RankPosition>> getTopInClass(Long classId, int limit);
+    
+    Optional<List<RankPosition>> getTopInGradeLevel(Integer gradeLevel, int limit);
+    
+    Optional<List<RankPosition>> getTopInCourse(Long courseId, Integer academicYear, Grade.Semester semester, int limit);
+    
+    // 學業匯總重算提交後調用：從數據庫重新載入這些學生的平均分、班級年級與課程成績
+    void refreshStudents(Collection<Long> studentIds);
+    
+    // 重新載入全部學生的班級與年級分組（排名任務後，覆蓋轉班）
+    void refreshPlacements();
+    
+    // 從學業匯總與成績表重建
+    void rebuild();
+    
+    Map<String, Object> getStatistics();
+}
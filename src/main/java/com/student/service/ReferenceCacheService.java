@@ -0,0 +1,14 @@
+package com.student.service;
+
+import java.util.Map;
+
+public interface ReferenceCacheService {
+    
+    // 實體監聽器回調，課程安排變更時使所屬集合緩存失效
+    void collectionMemberChanged(Object entity);
+    
+    void evictAll();
+    
+    // 各區域命中、未命中、寫入次數與命中率
+    Map<String, Map<String, Object>> getStatistics();
+}
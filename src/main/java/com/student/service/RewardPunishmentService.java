@@ -1,6 +1,8 @@
 package com.student.service;
 
+import com.student.dto.KeysetPage;
 import com.student.entity.RewardPunishment;
+import com.student.repository.projection.RewardPunishmentListRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -12,8 +14,13 @@ public interface RewardPunishmentService {
     
     RewardPunishment saveRewardPunishment(RewardPunishment rewardPunishment);
     
+    List<RewardPunishment> saveAllRewardPunishments(List<RewardPunishment> rewardPunishments);
+    
     Optional<RewardPunishment> findById(Long id);
     
+    // 詳情頁與 API：連同學生及其班級一次取出，視圖渲染時不再懶加載
+    Optional<RewardPunishment> findDetailById(Long id);
+    
     List<RewardPunishment> findAllRewardPunishments();
     
     Page<RewardPunishment> findAllRewardPunishments(Pageable pageable);
@@ -24,6 +31,20 @@ public interface RewardPunishmentService {
                                               RewardPunishment.Status status, 
                                               Pageable pageable);
     
+    // 列表頁讀模型，每頁一條 SQL
+    Page<RewardPunishmentListRow> findListRows(String studentName, String title,
+                                               RewardPunishment.Type type,
+                                               RewardPunishment.Category category,
+                                               RewardPunishment.Status status,
+                                               Pageable pageable);
+    
+    // 鍵集分頁（after/before 為游標，不執行 COUNT）
+    KeysetPage<RewardPunishmentListRow> findByKeyset(String studentName, String title,
+                                                     RewardPunishment.Type type,
+                                                     RewardPunishment.Category category,
+                                                     RewardPunishment.Status status,
+                                                     String after, String before, int size);
+    
     List<RewardPunishment> findByStudentId(Long studentId);
     
     List<RewardPunishment> findByType(RewardPunishment.Type type);
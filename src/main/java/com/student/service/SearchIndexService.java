@@ -0,0 +1,33 @@
+package com.student.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public interface SearchIndexService {
+    
+    // 索引字段鍵
+    String STUDENT_NAME = "student.name";
+    String STUDENT_NUMBER = "student.studentNumber";
+    String TEACHER_NAME = "teacher.name";
+    String TEACHER_NUMBER = "teacher.teacherNumber";
+    String COURSE_NAME = "course.name";
+    String COURSE_CODE = "course.courseCode";
+    String CLASS_NAME = "class.name";
+    String CLASS_CODE = "class.code";
+    
+    // 關鍵字查詢：任一字段包含關鍵字的 id（並集）
+    // 索引未就緒、長時間未能與數據庫同步或命中數超過上限時返回 empty，調用方應回退到數據庫 LIKE 查詢
+    Optional<Set<Long>> findIds(String keyword, String... fields);
+    
+    // 組合條件查詢：所有非空條件都滿足的 id（交集），沒有非空條件時返回 empty
+    Optional<Set<Long>> findIds(Map<String, String> criteria);
+    
+    // 實體監聽器回調
+    void index(Object entity);
+    
+    void remove(Object entity);
+    
+    // 從數據庫重建索引，不指定字段時重建全部
+    void rebuild(String... fields);
+}
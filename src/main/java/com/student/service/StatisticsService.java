@@ -0,0 +1,38 @@
+package com.student.service;
+
+import java.util.Map;
+
+public interface StatisticsService {
+
+    // 實體鍵
+    String STUDENT = "student";
+    String TEACHER = "teacher";
+    String CLASS = "class";
+    String COURSE = "course";
+    String GRADE = "grade";
+    String ATTENDANCE = "attendance";
+    String REWARD_PUNISHMENT = "rewardPunishment";
+
+    // 維度鍵
+    String STATUS = "status";
+    String GENDER = "gender";
+    String TYPE = "type";
+    String CATEGORY = "category";
+
+    // 計數查詢
+    long getTotal(String entity);
+
+    long getCount(String entity, String dimension, Enum<?> value);
+
+    Map<String, Long> getDistribution(String entity, String dimension);
+
+    // 實體監聽器回調
+    void recordCreated(Object entity);
+
+    void recordUpdated(Object entity);
+
+    void recordDeleted(Object entity);
+
+    // 與數據庫 COUNT(*) 對賬
+    void reconcile();
+}
@@ -1,12 +1,19 @@
 package com.student.service;
 
+import com.student.dto.KeysetPage;
+import com.student.dto.StudentImportResult;
 import com.student.entity.Student;
+import com.student.repository.projection.StudentCrossTabRow;
+import com.student.repository.projection.StudentListRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface StudentService {
@@ -16,6 +23,9 @@ public interface StudentService {
     
     Optional<Student> findById(Long id);
     
+    // 詳情頁與 API：連同班級一次取出，視圖渲染時不再懶加載
+    Optional<Student> findDetailById(Long id);
+    
     Optional<Student> findByStudentNumber(String studentNumber);
     
     List<Student> findAllStudents();
@@ -62,6 +72,15 @@ public interface StudentService {
     Page<Student> findByAdvancedSearch(String name, String studentNumber, Long classId, 
                                       Student.StudentStatus status, Student.Gender gender, Pageable pageable);
     
+    // 列表頁讀模型，每頁一條 SQL
+    Page<StudentListRow> findListRows(String name, String studentNumber, Long classId,
+                                      Student.StudentStatus status, Student.Gender gender, Pageable pageable);
+    
+    // 鍵集分頁（after/before 為游標，不執行 COUNT）
+    KeysetPage<StudentListRow> findByKeyset(String name, String studentNumber, Long classId,
+                                            Student.StudentStatus status, Student.Gender gender,
+                                            String after, String before, int size);
+    
     // 統計操作
     Long countByStatus(Student.StudentStatus status);
     
@@ -69,8 +88,18 @@ public interface StudentService {
     
     Long countByClassId(Long classId);
     
+    // 批量統計：班級ID -> 學生數，未出現的班級計為 0
+    Map<Long, Long> countByClassIds(Collection<Long> classIds);
+    
     Long countByGrade(Integer grade);
     
+    // 分組統計（單次查詢）
+    Map<Student.StudentStatus, Long> countGroupByStatus();
+    
+    Map<Student.Gender, Long> countGroupByGender();
+    
+    List<StudentCrossTabRow> countCrossTabByClassStatusGender();
+    
     // 業務操作
     Student enrollStudent(Student student);
     
@@ -92,8 +121,15 @@ public interface StudentService {
     // 批量操作
     List<Student> importStudentsFromExcel(MultipartFile file);
     
+    // 流式導入（僅支持 .xlsx），分批提交並返回逐行錯誤報告
+    StudentImportResult importStudentsFromExcelStreaming(MultipartFile file);
+    
     byte[] exportStudentsToExcel(List<Student> students);
     
+    // 流式導出：按條件分批讀取並直接寫入輸出流
+    void exportStudentsToExcel(String name, String studentNumber, Long classId,
+                               Student.StudentStatus status, Student.Gender gender, OutputStream outputStream);
+    
     // 驗證操作
     boolean validateStudentNumber(String studentNumber);
     
@@ -0,0 +1,524 @@
+package com.student.service.impl;
+
+import com.student.entity.Grade;
+import com.student.entity.StudentAcademicSummary;
+import com.student.entity.StudentTermSummary;
+import com.student.repository.GradeRepository;
+import com.student.repository.StudentAcademicSummaryRepository;
+import com.student.repository.StudentRepository;
+import com.student.repository.StudentTermSummaryRepository;
+import com.student.repository.projection.AcademicGradeRow;
+import com.student.repository.projection.AcademicRankRow;
+import com.student.repository.projection.StudentPlacementRow;
+import com.student.service.AcademicSummaryService;
+import com.student.service.RankingService;
+import com.student.util.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+public class AcademicSummaryServiceImpl implements AcademicSummaryService {
+    
+    // 排名任務只寫排名相關的列，不覆蓋成績事務寫入的匯總列
+    private static final String RANK_UPDATE_SQL =
+            "UPDATE student_academic_summary SET class_id = ?, grade_level = ?, class_rank = ?, class_size = ?, " +
+            "grade_level_rank = ?, grade_level_size = ?, ranked_at = ? WHERE student_id = ?";
+    
+    private static final String INSERT_EMPTY_SQL =
+            "INSERT INTO student_academic_summary (student_id, credits_attempted, credits_passed, course_count, " +
+            "failed_course_count, grade_count) VALUES (?, 0, 0, 0, 0, 0)";
+    
+    private static final String REPORT_TIMER = "report.compute";
+    
+    // 學期行排序：同一學年內按學期先後，學年合計行（semester 為空）排最後
+    private static final Comparator<TermKey> TERM_ORDER = Comparator
+            .comparing((TermKey key) -> key.academicYear)
+            .thenComparing(key -> key.semester, Comparator.nullsLast(Comparator.naturalOrder()));
+    
+    @Autowired
+    private GradeRepository gradeRepository;
+    
+    @Autowired
+    private StudentAcademicSummaryRepository summaryRepository;
+    
+    @Autowired
+    private StudentTermSummaryRepository termSummaryRepository;
+    
+    @Autowired
+    private StudentRepository studentRepository;
+    
+    @Autowired
+    private RankingService rankingService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.academic.pass-score:60}")
+    private double passScore;
+    
+    @Value("${app.academic.rebuild-batch-size:500}")
+    private int rebuildBatchSize;
+    
+    // 有已提交的匯總變化，下次定時任務重算排名
+    private final AtomicBoolean ranksDirty = new AtomicBoolean();
+    
+    // 成績已提交、等待重算的學生，包括重算失敗待重試的
+    private final Set<Long> pendingStudents = ConcurrentHashMap.newKeySet();
+    
+    private final AtomicBoolean draining = new AtomicBoolean();
+    
+    // 單線程重算：同一節點內不會為同一學生並發加鎖，跨節點由匯總行鎖串行化
+    private ExecutorService refresher;
+    
+    @PostConstruct
+    public void init() {
+        refresher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "academic-summary-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdown();
+        try {
+            refresher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<StudentAcademicSummary> getSummary(Long studentId) {
+        // 重算前插入的佔位行與成績已全部刪除的清零行不返回
+        return summaryRepository.findById(studentId).filter(summary -> summary.getGradeCount() > 0);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<StudentTermSummary> getTermSummaries(Long studentId) {
+        return termSummaryRepository.findByStudentIdOrderByAcademicYearAscIdAsc(studentId);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<StudentAcademicSummary> getClassRanking(Long classId) {
+        return summaryRepository.findClassRanking(classId);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<StudentAcademicSummary> getGradeLevelRanking(Integer gradeLevel, int limit) {
+        return summaryRepository.findGradeLevelRanking(gradeLevel, PageRequest.of(0, Math.max(1, limit)));
+    }
+    
+    @Override
+    public void refreshStudents(Collection<Long> studentIds) {
+        Set<Long> ids = new TreeSet<>();
+        for (Long studentId : studentIds) {
+            if (studentId != null) {
+                ids.add(studentId);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        // 成績事務提交後交給後台線程重算，讀到的是已提交的成績；重算失敗不影響成績保存
+        // 提交回調中原事務仍佔用著連接，不在請求線程上再開事務，避免並發寫入時耗盡連接池
+        TransactionUtils.afterCommit(() -> {
+            pendingStudents.addAll(ids);
+            scheduleDrain();
+        });
+    }
+    
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            refresher.execute(this::drain);
+        }
+    }
+    
+    // 短時間內多次寫入同一學生（如批量錄入）合併為一次重算
+    private void drain() {
+        boolean failed = false;
+        try {
+            while (!failed && !pendingStudents.isEmpty()) {
+                Set<Long> batch = new TreeSet<>();
+                for (Long studentId : pendingStudents) {
+                    batch.add(studentId);
+                    if (batch.size() >= rebuildBatchSize) {
+                        break;
+                    }
+                }
+                pendingStudents.removeAll(batch);
+                failed = !recompute(batch);
+            }
+        } finally {
+            draining.set(false);
+        }
+        // 退出前剛加入的學生；失敗的留待定時任務重試
+        if (!failed && !pendingStudents.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+    
+    // 失敗的學生放回待重算集合，夜間與啟動時的偏差檢查兜底
+    private boolean recompute(Set<Long> ids) {
+        try {
+            insertMissingRows(ids);
+            transactionTemplate.executeWithoutResult(status -> recomputeLocked(ids));
+        } catch (RuntimeException e) {
+            pendingStudents.addAll(ids);
+            System.err.println("學業匯總重算失敗，稍後重試 " + ids + ": " + e.getMessage());
+            return false;
+        }
+        // 提交後由排名索引從數據庫重新讀取，不傳遞事務內計算的值
+        rankingService.refreshStudents(ids);
+        return true;
+    }
+    
+    
+    // 先為沒有匯總行的學生插入空行並提交，之後每次重算都能對學生的行加鎖；並發插入的重複主鍵忽略
+    private void insertMissingRows(Set<Long> ids) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Long> missing = new TreeSet<>(ids);
+            missing.removeAll(summaryRepository.findExistingIds(ids));
+            for (Long studentId : missing) {
+                try {
+                    jdbcTemplate.update(INSERT_EMPTY_SQL, studentId);
+                } catch (DuplicateKeyException e) {
+                    // 其他線程或節點已插入
+                }
+            }
+        });
+    }
+    
+    private void recomputeLocked(Set<Long> ids) {
+        // 先按學生 ID 順序鎖定匯總行，同一學生的重算依次執行，後執行的一方讀到前一方已提交的成績
+        Map<Long, StudentAcademicSummary> existing = new HashMap<>();
+        for (StudentAcademicSummary summary : summaryRepository.lockByStudentIds(ids)) {
+            existing.put(summary.getStudentId(), summary);
+        }
+        
+        Map<Long, List<AcademicGradeRow>> rowsByStudent = new HashMap<>();
+        for (AcademicGradeRow row : gradeRepository.findAcademicRows(ids)) {
+            rowsByStudent.computeIfAbsent(row.getStudentId(), key -> new ArrayList<>()).add(row);
+        }
+        
+        Map<Long, StudentPlacementRow> placements = new HashMap<>();
+        for (StudentPlacementRow placement : studentRepository.findPlacements(ids)) {
+            placements.put(placement.getStudentId(), placement);
+        }
+        
+        termSummaryRepository.deleteByStudentIds(ids);
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<StudentAcademicSummary> summaries = new ArrayList<>();
+        List<StudentTermSummary> terms = new ArrayList<>();
+        for (Long studentId : ids) {
+            // 最後一條成績已刪除時保留清零的匯總行，其他節點的排名索引據更新時間得知該學生已移出
+            List<AcademicGradeRow> rows = rowsByStudent.getOrDefault(studentId, Collections.emptyList());
+            StudentAcademicSummary summary = existing.get(studentId);
+            if (summary == null) {
+                summary = new StudentAcademicSummary();
+                summary.setStudentId(studentId);
+            }
+            StudentPlacementRow placement = placements.get(studentId);
+            summary.setClassId(placement != null ? placement.getClassId() : null);
+            summary.setGradeLevel(placement != null ? placement.getGradeLevel() : null);
+            Tally overall = new Tally();
+            Map<TermKey, Tally> byTerm = new TreeMap<>(TERM_ORDER);
+            for (AcademicGradeRow row : rows) {
+                if (row.getTotalScore() == null) {
+                    continue;
+                }
+                overall.add(row);
+                if (row.getAcademicYear() != null) {
+                    byTerm.computeIfAbsent(new TermKey(row.getAcademicYear(), row.getSemester()), key -> new Tally()).add(row);
+                    byTerm.computeIfAbsent(new TermKey(row.getAcademicYear(), null), key -> new Tally()).add(row);
+                }
+            }
+            overall.applyTo(summary);
+            summary.setGradeCount(rows.size());
+            summary.setUpdatedAt(now);
+            summaries.add(summary);
+            
+            for (Map.Entry<TermKey, Tally> entry : byTerm.entrySet()) {
+                StudentTermSummary term = new StudentTermSummary();
+                term.setStudentId(studentId);
+                term.setAcademicYear(entry.getKey().academicYear);
+                term.setSemester(entry.getKey().semester);
+                entry.getValue().applyTo(term);
+                terms.add(term);
+            }
+        }
+        summaryRepository.saveAll(summaries);
+        termSummaryRepository.saveAll(terms);
+        TransactionUtils.afterCommit(() -> ranksDirty.set(true));
+    }
+    
+    @Override
+    public int rebuildAll() {
+        long start = System.currentTimeMillis();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        transactionTemplate.executeWithoutResult(status -> {
+            termSummaryRepository.deleteAllInBatch();
+            summaryRepository.deleteAllInBatch();
+        });
+        List<Long> studentIds = gradeRepository.findGradedStudentIds();
+        recomputeInChunks(studentIds);
+        int ranked = recomputeRanks();
+        rankingService.rebuild();
+        sample.stop(meterRegistry.timer(REPORT_TIMER, "report", "academic-rebuild"));
+        System.out.println("學業匯總重建完成: " + studentIds.size() + " 名學生，排名 " + ranked + " 行，耗時 "
+                + (System.currentTimeMillis() - start) + "ms");
+        return studentIds.size();
+    }
+    
+    // 按塊重算，每塊一個事務
+    private void recomputeInChunks(List<Long> studentIds) {
+        for (int from = 0; from < studentIds.size(); from += rebuildBatchSize) {
+            recompute(new TreeSet<>(studentIds.subList(from, Math.min(from + rebuildBatchSize, studentIds.size()))));
+        }
+    }
+    
+    // 匯總與成績表不一致的學生重新計算：缺少匯總、成績條數不符、成績在匯總之後修改過或成績已全部刪除
+    @Override
+    public int repairDrift() {
+        Set<Long> drifted = new TreeSet<>(summaryRepository.findDriftedStudentIds());
+        drifted.addAll(summaryRepository.findStaleStudentIds());
+        if (!drifted.isEmpty()) {
+            recomputeInChunks(new ArrayList<>(drifted));
+            System.out.println("學業匯總偏差修復: " + drifted.size() + " 名學生");
+        }
+        return drifted.size();
+    }
+    
+    // 成績寫入只標記，排名合併到定時任務中整體重算；同時重試提交後重算失敗的學生
+    @Scheduled(fixedDelayString = "${app.academic.rank-interval:10000}")
+    public void recomputeRanksIfDirty() {
+        if (!pendingStudents.isEmpty()) {
+            scheduleDrain();
+        }
+        if (ranksDirty.compareAndSet(true, false)) {
+            try {
+                recomputeRanks();
+            } catch (RuntimeException e) {
+                ranksDirty.set(true);
+                System.err.println("學業排名重算失敗: " + e.getMessage());
+            }
+        }
+    }
+    
+    // 夜間修復匯總偏差並整體重算排名，覆蓋轉班等不經過成績寫入的變化
+    @Scheduled(cron = "${app.academic.rank-cron:0 0 3 * * *}")
+    public void nightlyRanks() {
+        repairDrift();
+        ranksDirty.set(true);
+        recomputeRanksIfDirty();
+        // 同時重建排名索引，清除已刪除學生
+        rankingService.rebuild();
+    }
+    
+    @Override
+    public synchronized int recomputeRanks() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Integer updated = transactionTemplate.execute(status -> {
+            summaryRepository.deleteOrphans();
+            termSummaryRepository.deleteOrphans();
+            
+            List<AcademicRankRow> rows = summaryRepository.findRankInputs();
+            Map<Long, Integer> classRanks = new HashMap<>();
+            Map<Long, Integer> classSizes = new HashMap<>();
+            Map<Long, Integer> levelRanks = new HashMap<>();
+            Map<Long, Integer> levelSizes = new HashMap<>();
+            Map<Long, List<AcademicRankRow>> byClass = new HashMap<>();
+            Map<Integer, List<AcademicRankRow>> byLevel = new HashMap<>();
+            for (AcademicRankRow row : rows) {
+                if (row.getWeightedAverage() == null) {
+                    continue;
+                }
+                if (row.getClassId() != null) {
+                    byClass.computeIfAbsent(row.getClassId(), key -> new ArrayList<>()).add(row);
+                }
+                if (row.getGradeLevel() != null) {
+                    byLevel.computeIfAbsent(row.getGradeLevel(), key -> new ArrayList<>()).add(row);
+                }
+            }
+            for (List<AcademicRankRow> group : byClass.values()) {
+                rank(group, classRanks, classSizes);
+            }
+            for (List<AcademicRankRow> group : byLevel.values()) {
+                rank(group, levelRanks, levelSizes);
+            }
+            
+            Timestamp rankedAt = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(RANK_UPDATE_SQL, rows, 500, (ps, row) -> {
+                ps.setObject(1, row.getClassId());
+                ps.setObject(2, row.getGradeLevel());
+                ps.setObject(3, classRanks.get(row.getStudentId()));
+                ps.setObject(4, classSizes.get(row.getStudentId()));
+                ps.setObject(5, levelRanks.get(row.getStudentId()));
+                ps.setObject(6, levelSizes.get(row.getStudentId()));
+                ps.setTimestamp(7, rankedAt);
+                ps.setLong(8, row.getStudentId());
+            });
+            return rows.size();
+        });
+        // 轉班後班級與年級分組隨排名任務同步到排名索引
+        rankingService.refreshPlacements();
+        sample.stop(meterRegistry.timer(REPORT_TIMER, "report", "academic-ranks"));
+        return updated != null ? updated : 0;
+    }
+    
+    // 啟動時修復偏差（首次部署、直接導入成績或上次運行中重算失敗後），排名在下次定時任務中重算
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        repairDrift();
+        ranksDirty.set(true);
+    }
+    
+    // 競賽排名：同分同名次，下一名次跳過並列人數
+    private void rank(List<AcademicRankRow> group, Map<Long, Integer> ranks, Map<Long, Integer> sizes) {
+        group.sort(Comparator.comparing(AcademicRankRow::getWeightedAverage).reversed());
+        int rank = 0;
+        Double previous = null;
+        for (int i = 0; i < group.size(); i++) {
+            AcademicRankRow row = group.get(i);
+            if (!row.getWeightedAverage().equals(previous)) {
+                rank = i + 1;
+                previous = row.getWeightedAverage();
+            }
+            ranks.put(row.getStudentId(), rank);
+            sizes.put(row.getStudentId(), group.size());
+        }
+    }
+    
+    // 一組成績的累計：同一課程多條成績（如補考、重修）取最高分
+    private final class Tally {
+        
+        private final Map<Long, Double> bestScores = new HashMap<>();
+        
+        private final Map<Long, Integer> credits = new HashMap<>();
+        
+        private Double weightedAverage;
+        
+        private int creditsAttempted;
+        
+        private int creditsPassed;
+        
+        private int failedCourseCount;
+        
+        private void add(AcademicGradeRow row) {
+            bestScores.merge(row.getCourseId(), row.getTotalScore(), Math::max);
+            credits.put(row.getCourseId(), row.getCredits() != null ? row.getCredits() : 0);
+        }
+        
+        private void applyTo(StudentAcademicSummary summary) {
+            compute();
+            summary.setWeightedAverage(weightedAverage);
+            summary.setCreditsAttempted(creditsAttempted);
+            summary.setCreditsPassed(creditsPassed);
+            summary.setCourseCount(bestScores.size());
+            summary.setFailedCourseCount(failedCourseCount);
+        }
+        
+        private void applyTo(StudentTermSummary term) {
+            compute();
+            term.setWeightedAverage(weightedAverage);
+            term.setCreditsAttempted(creditsAttempted);
+            term.setCreditsPassed(creditsPassed);
+            term.setCourseCount(bestScores.size());
+            term.setFailedCourseCount(failedCourseCount);
+        }
+        
+        private void compute() {
+            double weightedSum = 0;
+            creditsAttempted = 0;
+            creditsPassed = 0;
+            failedCourseCount = 0;
+            for (Map.Entry<Long, Double> entry : bestScores.entrySet()) {
+                int courseCredits = credits.get(entry.getKey());
+                boolean passed = entry.getValue() >= passScore;
+                weightedSum += entry.getValue() * courseCredits;
+                creditsAttempted += courseCredits;
+                if (passed) {
+                    creditsPassed += courseCredits;
+                } else {
+                    failedCourseCount++;
+                }
+            }
+            // 學分全為零時無法加權
+            weightedAverage = creditsAttempted > 0 ? Math.round(weightedSum / creditsAttempted * 100) / 100.0 : null;
+        }
+    }
+    
+    private static final class TermKey {
+        
+        private final Integer academicYear;
+        
+        private final Grade.Semester semester;
+        
+        private TermKey(Integer academicYear, Grade.Semester semester) {
+            this.academicYear = academicYear;
+            this.semester = semester;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TermKey)) {
+                return false;
+            }
+            TermKey key = (TermKey) o;
+            return academicYear.equals(key.academicYear) && semester == key.semester;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(academicYear, semester);
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package com.student.service.impl;
+
+import com.student.entity.Attendance.AttendanceStatus;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 考勤位圖索引：每個（學生, 課程）每種狀態一個按日期偏移的位圖，每人每課每天最多一個狀態位
+class AttendanceBitmapIndex {
+    
+    private static final AttendanceStatus[] STATUSES = AttendanceStatus.values();
+    
+    // 課程 -> 學生 -> 位圖
+    private final Map<Long, Map<Long, DayBitmaps>> byCourse = new HashMap<>();
+    
+    // 學生 -> 課程 -> 位圖，與 byCourse 共享同一對象
+    private final Map<Long, Map<Long, DayBitmaps>> byStudent = new HashMap<>();
+    
+    private final long[] statusTotals = new long[STATUSES.length];
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    void put(Long studentId, Long courseId, long epochDay, AttendanceStatus status) {
+        lock.writeLock().lock();
+        try {
+            DayBitmaps bitmaps = byCourse.computeIfAbsent(courseId, k -> new HashMap<>())
+                    .computeIfAbsent(studentId, k -> new DayBitmaps(epochDay));
+            byStudent.computeIfAbsent(studentId, k -> new HashMap<>()).putIfAbsent(courseId, bitmaps);
+            AttendanceStatus previous = bitmaps.set(epochDay, status);
+            if (previous != null) {
+                statusTotals[previous.ordinal()]--;
+            }
+            statusTotals[status.ordinal()]++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void remove(Long studentId, Long courseId, long epochDay) {
+        lock.writeLock().lock();
+        try {
+            Map<Long, DayBitmaps> students = byCourse.get(courseId);
+            DayBitmaps bitmaps = students != null ? students.get(studentId) : null;
+            if (bitmaps == null) {
+                return;
+            }
+            AttendanceStatus previous = bitmaps.clear(epochDay);
+            if (previous != null) {
+                statusTotals[previous.ordinal()]--;
+            }
+            if (bitmaps.isEmpty()) {
+                students.remove(studentId);
+                if (students.isEmpty()) {
+                    byCourse.remove(courseId);
+                }
+                Map<Long, DayBitmaps> courses = byStudent.get(studentId);
+                courses.remove(courseId);
+                if (courses.isEmpty()) {
+                    byStudent.remove(studentId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // 用 source 中該課程的位圖整體替換本索引中的同一課程，source 隨後不再使用
+    void replaceCourse(Long courseId, AttendanceBitmapIndex source) {
+        lock.writeLock().lock();
+        try {
+            Map<Long, DayBitmaps> students = byCourse.remove(courseId);
+            if (students != null) {
+                students.forEach((studentId, bitmaps) -> {
+                    addTotals(bitmaps, -1);
+                    Map<Long, DayBitmaps> courses = byStudent.get(studentId);
+                    courses.remove(courseId);
+                    if (courses.isEmpty()) {
+                        byStudent.remove(studentId);
+                    }
+                });
+            }
+            Map<Long, DayBitmaps> replacement = source.byCourse.get(courseId);
+            if (replacement != null) {
+                byCourse.put(courseId, replacement);
+                replacement.forEach((studentId, bitmaps) -> {
+                    addTotals(bitmaps, 1);
+                    byStudent.computeIfAbsent(studentId, k -> new HashMap<>()).put(courseId, bitmaps);
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    long countByStatus(AttendanceStatus status) {
+        lock.readLock().lock();
+        try {
+            return statusTotals[status.ordinal()];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // 返回 {指定狀態天數, 記錄天數}
+    long[] tallyByStudent(Long studentId, AttendanceStatus status) {
+        lock.readLock().lock();
+        try {
+            return tally(byStudent.get(studentId), status);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    long[] tallyByCourse(Long courseId, AttendanceStatus status) {
+        lock.readLock().lock();
+        try {
+            return tally(byCourse.get(courseId), status);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // 單個（學生, 課程）的 {指定狀態天數, 記錄天數}
+    long[] tallyByStudentAndCourse(Long studentId, Long courseId, AttendanceStatus status) {
+        lock.readLock().lock();
+        try {
+            Map<Long, DayBitmaps> courses = byStudent.get(studentId);
+            DayBitmaps bitmaps = courses != null ? courses.get(courseId) : null;
+            return bitmaps != null ? new long[]{bitmaps.count(status), bitmaps.recorded().cardinality()} : new long[]{0, 0};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // 課程內每位學生的 {指定狀態天數, 記錄天數}
+    Map<Long, long[]> tallyStudentsInCourse(Long courseId, AttendanceStatus status) {
+        lock.readLock().lock();
+        try {
+            Map<Long, long[]> result = new HashMap<>();
+            Map<Long, DayBitmaps> students = byCourse.get(courseId);
+            if (students != null) {
+                students.forEach((studentId, bitmaps) ->
+                        result.put(studentId, new long[]{bitmaps.count(status), bitmaps.recorded().cardinality()}));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // 指定日期區間內某狀態的天數，courseId 為 null 時統計學生的全部課程
+    long countInRange(Long studentId, Long courseId, AttendanceStatus status, long fromDay, long toDay) {
+        lock.readLock().lock();
+        try {
+            Map<Long, DayBitmaps> courses = byStudent.get(studentId);
+            if (courses == null) {
+                return 0;
+            }
+            long total = 0;
+            for (Map.Entry<Long, DayBitmaps> entry : courses.entrySet()) {
+                if (courseId == null || courseId.equals(entry.getKey())) {
+                    total += entry.getValue().countInRange(status, fromDay, toDay);
+                }
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // 某天某狀態的學生，按學生 id 升序
+    List<Long> findStudents(Long courseId, long epochDay, AttendanceStatus status) {
+        lock.readLock().lock();
+        try {
+            List<Long> result = new ArrayList<>();
+            Map<Long, DayBitmaps> students = byCourse.get(courseId);
+            if (students != null) {
+                students.forEach((studentId, bitmaps) -> {
+                    if (bitmaps.get(epochDay) == status) {
+                        result.add(studentId);
+                    }
+                });
+            }
+            result.sort(null);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // 返回 {當前連續出勤次數, 最長連續出勤次數}，只計有記錄的日期，出席或遲到都算出勤
+    int[] streaks(Long studentId, Long courseId) {
+        lock.readLock().lock();
+        try {
+            Map<Long, DayBitmaps> courses = byStudent.get(studentId);
+            DayBitmaps bitmaps = courses != null ? courses.get(courseId) : null;
+            if (bitmaps == null) {
+                return new int[]{0, 0};
+            }
+            BitSet recorded = bitmaps.recorded();
+            BitSet attended = bitmaps.copy(AttendanceStatus.PRESENT);
+            attended.or(bitmaps.copy(AttendanceStatus.LATE));
+            
+            int longest = 0;
+            int run = 0;
+            for (int day = recorded.nextSetBit(0); day >= 0; day = recorded.nextSetBit(day + 1)) {
+                run = attended.get(day) ? run + 1 : 0;
+                longest = Math.max(longest, run);
+            }
+            return new int[]{run, longest};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    int bitmapCount() {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (Map<Long, DayBitmaps> students : byCourse.values()) {
+                count += students.size();
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    long recordCount() {
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            for (long count : statusTotals) {
+                total += count;
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // 每門課程的記錄數，每人每課每天只有一個狀態位，各狀態位數之和即記錄數
+    Map<Long, Long> recordCountsByCourse() {
+        lock.readLock().lock();
+        try {
+            Map<Long, Long> counts = new HashMap<>();
+            byCourse.forEach((courseId, students) -> {
+                long total = 0;
+                for (DayBitmaps bitmaps : students.values()) {
+                    for (AttendanceStatus status : STATUSES) {
+                        total += bitmaps.count(status);
+                    }
+                }
+                counts.put(courseId, total);
+            });
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // 快照格式：位圖數，然後每個位圖為 課程id、學生id、基準日、各狀態的 long 數組
+    void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(bitmapCount());
+            for (Map.Entry<Long, Map<Long, DayBitmaps>> course : byCourse.entrySet()) {
+                for (Map.Entry<Long, DayBitmaps> student : course.getValue().entrySet()) {
+                    out.writeLong(course.getKey());
+                    out.writeLong(student.getKey());
+                    student.getValue().writeTo(out);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    static AttendanceBitmapIndex readFrom(DataInputStream in) throws IOException {
+        AttendanceBitmapIndex index = new AttendanceBitmapIndex();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Long courseId = in.readLong();
+            Long studentId = in.readLong();
+            DayBitmaps bitmaps = DayBitmaps.readFrom(in);
+            index.byCourse.computeIfAbsent(courseId, k -> new HashMap<>()).put(studentId, bitmaps);
+            index.byStudent.computeIfAbsent(studentId, k -> new HashMap<>()).put(courseId, bitmaps);
+            for (AttendanceStatus status : STATUSES) {
+                index.statusTotals[status.ordinal()] += bitmaps.count(status);
+            }
+        }
+        return index;
+    }
+    
+    private void addTotals(DayBitmaps bitmaps, int sign) {
+        for (AttendanceStatus status : STATUSES) {
+            statusTotals[status.ordinal()] += sign * bitmaps.count(status);
+        }
+    }
+    
+    private static long[] tally(Map<Long, DayBitmaps> group, AttendanceStatus status) {
+        long matched = 0;
+        long recorded = 0;
+        if (group != null) {
+            for (DayBitmaps bitmaps : group.values()) {
+                matched += bitmaps.count(status);
+                recorded += bitmaps.recorded().cardinality();
+            }
+        }
+        return new long[]{matched, recorded};
+    }
+    
+    // 單個（學生, 課程）的各狀態位圖，第 i 位表示 baseDay + i 這一天
+    private static final class DayBitmaps {
+        
+        private long baseDay;
+        
+        // 未出現過的狀態為 null
+        private final BitSet[] bits = new BitSet[STATUSES.length];
+        
+        private DayBitmaps(long firstDay) {
+            // 基準日按 64 天對齊並預留一學期，補錄較早日期時通常無需重排
+            this.baseDay = Math.floorDiv(firstDay - 128, 64) * 64;
+        }
+        
+        private AttendanceStatus set(long epochDay, AttendanceStatus status) {
+            if (epochDay < baseDay) {
+                rebase(Math.floorDiv(epochDay - 128, 64) * 64);
+            }
+            AttendanceStatus previous = clear(epochDay);
+            BitSet target = bits[status.ordinal()];
+            if (target == null) {
+                target = new BitSet();
+                bits[status.ordinal()] = target;
+            }
+            target.set(offset(epochDay));
+            return previous;
+        }
+        
+        private AttendanceStatus clear(long epochDay) {
+            if (epochDay < baseDay) {
+                return null;
+            }
+            int offset = offset(epochDay);
+            for (AttendanceStatus status : STATUSES) {
+                BitSet bitmap = bits[status.ordinal()];
+                if (bitmap != null && bitmap.get(offset)) {
+                    bitmap.clear(offset);
+                    return status;
+                }
+            }
+            return null;
+        }
+        
+        private AttendanceStatus get(long epochDay) {
+            if (epochDay < baseDay) {
+                return null;
+            }
+            int offset = offset(epochDay);
+            for (AttendanceStatus status : STATUSES) {
+                BitSet bitmap = bits[status.ordinal()];
+                if (bitmap != null && bitmap.get(offset)) {
+                    return status;
+                }
+            }
+            return null;
+        }
+        
+        private int count(AttendanceStatus status) {
+            BitSet bitmap = bits[status.ordinal()];
+            return bitmap != null ? bitmap.cardinality() : 0;
+        }
+        
+        private long countInRange(AttendanceStatus status, long fromDay, long toDay) {
+            BitSet bitmap = bits[status.ordinal()];
+            long from = Math.max(fromDay, baseDay);
+            if (bitmap == null || toDay < from) {
+                return 0;
+            }
+            return bitmap.get(offset(from), offset(toDay) + 1).cardinality();
+        }
+        
+        private BitSet copy(AttendanceStatus status) {
+            BitSet bitmap = bits[status.ordinal()];
+            return bitmap != null ? (BitSet) bitmap.clone() : new BitSet();
+        }
+        
+        // 所有狀態的並集即有考勤記錄的日期
+        private BitSet recorded() {
+            BitSet recorded = new BitSet();
+            for (BitSet bitmap : bits) {
+                if (bitmap != null) {
+                    recorded.or(bitmap);
+                }
+            }
+            return recorded;
+        }
+        
+        private boolean isEmpty() {
+            for (BitSet bitmap : bits) {
+                if (bitmap != null && !bitmap.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private int offset(long epochDay) {
+            return Math.toIntExact(epochDay - baseDay);
+        }
+        
+        private void rebase(long newBaseDay) {
+            int shift = Math.toIntExact(baseDay - newBaseDay);
+            for (int i = 0; i < bits.length; i++) {
+                if (bits[i] == null) {
+                    continue;
+                }
+                BitSet shifted = new BitSet();
+                for (int bit = bits[i].nextSetBit(0); bit >= 0; bit = bits[i].nextSetBit(bit + 1)) {
+                    shifted.set(bit + shift);
+                }
+                bits[i] = shifted;
+            }
+            baseDay = newBaseDay;
+        }
+        
+        private void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(baseDay);
+            for (BitSet bitmap : bits) {
+                long[] words = bitmap != null ? bitmap.toLongArray() : new long[0];
+                out.writeInt(words.length);
+                for (long word : words) {
+                    out.writeLong(word);
+                }
+            }
+        }
+        
+        private static DayBitmaps readFrom(DataInputStream in) throws IOException {
+            DayBitmaps bitmaps = new DayBitmaps(0);
+            bitmaps.baseDay = in.readLong();
+            for (int i = 0; i < bitmaps.bits.length; i++) {
+                long[] words = new long[in.readInt()];
+                for (int j = 0; j < words.length; j++) {
+                    words[j] = in.readLong();
+                }
+                bitmaps.bits[i] = words.length > 0 ? BitSet.valueOf(words) : null;
+            }
+            return bitmaps;
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package com.student.service.impl;
+
+import com.student.dto.AttendanceStreak;
+import com.student.entity.Attendance;
+import com.student.service.AttendanceIndexService;
+import com.student.util.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+public class AttendanceIndexServiceImpl implements AttendanceIndexService {
+    
+    // 快照文件頭："ABM" + 格式版本
+    private static final int SNAPSHOT_MAGIC = 0x41424D01;
+    
+    private static final String LOAD_QUERY = "SELECT student_id, course_id, date, status FROM attendances";
+    
+    // 快照水位：行數、最大 id 與最近更新時間都一致才認為快照與數據庫同步
+    private static final String WATERMARK_QUERY = "SELECT COUNT(*), MAX(id), MAX(updated_at) FROM attendances";
+    
+    private static final String CHANGED_QUERY = LOAD_QUERY + " WHERE updated_at > ?";
+    
+    private static final String COURSE_COUNT_QUERY = "SELECT course_id, COUNT(*) FROM attendances GROUP BY course_id";
+    
+    private static final String COURSE_LOAD_QUERY = LOAD_QUERY + " WHERE course_id = ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${app.attendance-index.snapshot-path:}")
+    private String snapshotPath;
+    
+    @Value("${app.attendance-index.reconcile-interval:60000}")
+    private long reconcileIntervalMillis;
+    
+    private volatile AttendanceBitmapIndex index;
+    
+    // 重建期間提交的變更，新索引替換前重放
+    private List<Consumer<AttendanceBitmapIndex>> pendingChanges;
+    
+    private volatile boolean dirty = false;
+    
+    private volatile String source = "none";
+    
+    private volatile long loadMillis = 0;
+    
+    // 上次與數據庫對賬的開始時間和當時的水位，只在持有本對象鎖時讀寫
+    private LocalDateTime syncedAt;
+    
+    private long[] syncedWatermark;
+    
+    // 快照寫入互斥，不阻塞索引更新
+    private final Object snapshotLock = new Object();
+    
+    @Override
+    public Optional<Long> countByStatus(Attendance.AttendanceStatus status) {
+        AttendanceBitmapIndex current = index;
+        return current != null ? Optional.of(current.countByStatus(status)) : Optional.empty();
+    }
+    
+    @Override
+    public Optional<Double> getAttendanceRateByStudent(Long studentId) {
+        AttendanceBitmapIndex current = index;
+        return current != null
+                ? Optional.of(rate(current.tallyByStudent(studentId, Attendance.AttendanceStatus.PRESENT)))
+                : Optional.empty();
+    }
+    
+    @Override
+    public Optional<Double> getAttendanceRateByCourse(Long courseId) {
+        AttendanceBitmapIndex current = index;
+        return current != null
+                ? Optional.of(rate(current.tallyByCourse(courseId, Attendance.AttendanceStatus.PRESENT)))
+                : Optional.empty();
+    }
+    
+    @Override
+    public Optional<Double> getAttendanceRateByStudentAndCourse(Long studentId, Long courseId) {
+        AttendanceBitmapIndex current = index;
+        return current != null
+                ? Optional.of(rate(current.tallyByStudentAndCourse(studentId, courseId, Attendance.AttendanceStatus.PRESENT)))
+                : Optional.empty();
+    }
+    
+    @Override
+    public Optional<Map<Long, Double>> getAttendanceRatesByCourse(Long courseId) {
+        AttendanceBitmapIndex current = index;
+        if (current == null) {
+            return Optional.empty();
+        }
+        Map<Long, Double> rates = new HashMap<>();
+        current.tallyStudentsInCourse(courseId, Attendance.AttendanceStatus.PRESENT)
+                .forEach((studentId, tally) -> rates.put(studentId, rate(tally)));
+        return Optional.of(rates);
+    }
+    
+    @Override
+    public Optional<AttendanceStreak> getStreak(Long studentId, Long courseId) {
+        AttendanceBitmapIndex current = index;
+        if (current == null) {
+            return Optional.empty();
+        }
+        int[] streaks = current.streaks(studentId, courseId);
+        return Optional.of(new AttendanceStreak(streaks[0], streaks[1]));
+    }
+    
+    @Override
+    public Optional<Long> countAbsences(Long studentId, Long courseId, LocalDate from, LocalDate to) {
+        AttendanceBitmapIndex current = index;
+        if (current == null) {
+            return Optional.empty();
+        }
+        return Optional.of(current.countInRange(studentId, courseId, Attendance.AttendanceStatus.ABSENT,
+                from.toEpochDay(), to.toEpochDay()));
+    }
+    
+    @Override
+    public Optional<List<Long>> findAbsentStudentIds(Long courseId, LocalDate date) {
+        AttendanceBitmapIndex current = index;
+        return current != null
+                ? Optional.of(current.findStudents(courseId, date.toEpochDay(), Attendance.AttendanceStatus.ABSENT))
+                : Optional.empty();
+    }
+    
+    @Override
+    public void index(Object entity) {
+        Slot slot = slotOf(entity);
+        if (slot == null) {
+            return;
+        }
+        Slot previous = loadedSlotOf((Attendance) entity);
+        Attendance.AttendanceStatus status = ((Attendance) entity).getStatus();
+        TransactionUtils.afterCommit(() -> apply(target -> {
+            // 學生、課程或日期被修改時先清除原位置
+            if (previous != null && !previous.equals(slot)) {
+                target.remove(previous.studentId, previous.courseId, previous.epochDay);
+            }
+            target.put(slot.studentId, slot.courseId, slot.epochDay, status);
+        }));
+    }
+    
+    @Override
+    public void remove(Object entity) {
+        Slot slot = slotOf(entity);
+        if (slot == null) {
+            return;
+        }
+        Slot previous = loadedSlotOf((Attendance) entity);
+        Slot removed = previous != null ? previous : slot;
+        TransactionUtils.afterCommit(() -> apply(target -> target.remove(removed.studentId, removed.courseId, removed.epochDay)));
+    }
+    
+    // 啟動完成後優先加載與數據庫水位一致的快照，否則從數據庫重建，就緒前的查詢回退到數據庫
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!loadSnapshot()) {
+            rebuild();
+        }
+    }
+    
+    @Override
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDateTime loadStart = LocalDateTime.now();
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+        try {
+            AttendanceBitmapIndex loaded = new AttendanceBitmapIndex();
+            jdbcTemplate.query(LOAD_QUERY, rs -> {
+                loaded.put(rs.getLong(1), rs.getLong(2), rs.getDate(3).toLocalDate().toEpochDay(),
+                        Attendance.AttendanceStatus.valueOf(rs.getString(4)));
+            });
+            swap(loaded, "database", start);
+            synced(loadStart, null);
+            dirty = true;
+        } catch (RuntimeException e) {
+            System.err.println("考勤位圖索引重建失敗: " + e.getMessage());
+            synchronized (this) {
+                pendingChanges = null;
+            }
+            return;
+        }
+        System.out.println("考勤位圖索引重建完成: " + index.bitmapCount() + " 個位圖，"
+                + index.recordCount() + " 條記錄，耗時 " + loadMillis + "ms");
+        writeSnapshot();
+    }
+    
+    // 本節點的寫入由監聽器在提交後更新，其他節點的寫入靠定時比對數據庫水位發現
+    // 水位變化時按更新時間補上新增和修改的記錄，從上次對賬開始時間再往前一個間隔查起，覆蓋提交晚於寫入時間的事務與時鐘偏差
+    // 其他節點的刪除或改動學生、課程、日期會使記錄數不一致，此時逐課程比對記錄數，只重建不一致的課程
+    // 讀庫與寫入索引都在本對象鎖內進行，與提交後的本地更新串行，後讀到數據的一方後寫入
+    @Scheduled(fixedDelayString = "${app.attendance-index.reconcile-interval:60000}")
+    public synchronized void reconcile() {
+        AttendanceBitmapIndex current = index;
+        if (current == null || pendingChanges != null || syncedAt == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            long[] watermark = watermark();
+            if (!Arrays.equals(watermark, syncedWatermark)) {
+                Timestamp from = Timestamp.valueOf(syncedAt.minus(reconcileIntervalMillis, ChronoUnit.MILLIS));
+                jdbcTemplate.query(CHANGED_QUERY, rs -> {
+                    current.put(rs.getLong(1), rs.getLong(2), rs.getDate(3).toLocalDate().toEpochDay(),
+                            Attendance.AttendanceStatus.valueOf(rs.getString(4)));
+                }, from);
+                if (current.recordCount() != watermark[0]) {
+                    rebuildMismatchedCourses(current);
+                }
+                dirty = true;
+            }
+            synced(now, watermark);
+        } catch (RuntimeException e) {
+            System.err.println("考勤位圖索引對賬失敗: " + e.getMessage());
+        }
+    }
+    
+    private void rebuildMismatchedCourses(AttendanceBitmapIndex current) {
+        Map<Long, Long> stored = new HashMap<>();
+        jdbcTemplate.query(COURSE_COUNT_QUERY, rs -> {
+            stored.put(rs.getLong(1), rs.getLong(2));
+        });
+        Map<Long, Long> indexed = current.recordCountsByCourse();
+        Set<Long> courseIds = new HashSet<>(stored.keySet());
+        courseIds.addAll(indexed.keySet());
+        int rebuilt = 0;
+        for (Long courseId : courseIds) {
+            if (Objects.equals(stored.get(courseId), indexed.get(courseId))) {
+                continue;
+            }
+            AttendanceBitmapIndex loaded = new AttendanceBitmapIndex();
+            jdbcTemplate.query(COURSE_LOAD_QUERY, rs -> {
+                loaded.put(rs.getLong(1), rs.getLong(2), rs.getDate(3).toLocalDate().toEpochDay(),
+                        Attendance.AttendanceStatus.valueOf(rs.getString(4)));
+            }, courseId);
+            current.replaceCourse(courseId, loaded);
+            rebuilt++;
+        }
+        System.out.println("考勤位圖索引與數據庫記錄數不一致，已重建 " + rebuilt + " 門課程");
+    }
+    
+    private synchronized void synced(LocalDateTime at, long[] watermark) {
+        syncedAt = at;
+        syncedWatermark = watermark;
+    }
+    
+    // 定期寫入快照，僅在索引有變化時執行
+    @Scheduled(fixedDelayString = "${app.attendance-index.snapshot-interval:600000}")
+    public void writeSnapshotIfDirty() {
+        if (dirty) {
+            writeSnapshot();
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        writeSnapshotIfDirty();
+    }
+    
+    @Override
+    public void writeSnapshot() {
+        AttendanceBitmapIndex current = index;
+        if (current == null || !StringUtils.hasText(snapshotPath)) {
+            return;
+        }
+        synchronized (snapshotLock) {
+            writeSnapshot(current);
+        }
+    }
+    
+    private void writeSnapshot(AttendanceBitmapIndex current) {
+        dirty = false;
+        Path file = Paths.get(snapshotPath);
+        try {
+            // 先取水位再序列化：期間新提交的變更會使水位不一致，下次啟動時重建而不是加載過期快照
+            long[] watermark = watermark();
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp))))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(Attendance.AttendanceStatus.values().length);
+                for (long value : watermark) {
+                    out.writeLong(value);
+                }
+                current.writeTo(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            dirty = true;
+            System.err.println("寫入考勤位圖快照失敗: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        AttendanceBitmapIndex current = index;
+        statistics.put("ready", current != null);
+        statistics.put("source", source);
+        statistics.put("loadMillis", loadMillis);
+        statistics.put("bitmaps", current != null ? current.bitmapCount() : 0);
+        statistics.put("records", current != null ? current.recordCount() : 0);
+        return statistics;
+    }
+    
+    private boolean loadSnapshot() {
+        if (!StringUtils.hasText(snapshotPath)) {
+            return false;
+        }
+        Path file = Paths.get(snapshotPath);
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != Attendance.AttendanceStatus.values().length) {
+                throw new IOException("快照格式不兼容");
+            }
+            long[] saved = {in.readLong(), in.readLong(), in.readLong()};
+            long[] current = watermark();
+            if (!Arrays.equals(saved, current)) {
+                System.out.println("考勤位圖快照已過期，從數據庫重建");
+                synchronized (this) {
+                    pendingChanges = null;
+                }
+                return false;
+            }
+            LocalDateTime loadStart = LocalDateTime.now();
+            swap(AttendanceBitmapIndex.readFrom(in), "snapshot", start);
+            synced(loadStart, current);
+            System.out.println("考勤位圖索引從快照加載: " + index.recordCount() + " 條記錄，耗時 " + loadMillis + "ms");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("讀取考勤位圖快照失敗，從數據庫重建: " + e.getMessage());
+            synchronized (this) {
+                pendingChanges = null;
+            }
+            return false;
+        }
+    }
+    
+    private long[] watermark() {
+        return jdbcTemplate.queryForObject(WATERMARK_QUERY, (rs, rowNum) -> {
+            Timestamp updatedAt = rs.getTimestamp(3);
+            return new long[]{rs.getLong(1), rs.getLong(2), updatedAt != null ? updatedAt.getTime() : 0L};
+        });
+    }
+    
+    private synchronized void swap(AttendanceBitmapIndex loaded, String loadedFrom, long start) {
+        if (pendingChanges != null) {
+            pendingChanges.forEach(change -> change.accept(loaded));
+            pendingChanges = null;
+        }
+        index = loaded;
+        source = loadedFrom;
+        loadMillis = System.currentTimeMillis() - start;
+    }
+    
+    private synchronized void apply(Consumer<AttendanceBitmapIndex> change) {
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+        AttendanceBitmapIndex current = index;
+        if (current != null) {
+            change.accept(current);
+        }
+        dirty = true;
+    }
+    
+    private double rate(long[] tally) {
+        return tally[1] == 0 ? 0.0 : (double) tally[0] / tally[1] * 100;
+    }
+    
+    private Slot slotOf(Object entity) {
+        if (!(entity instanceof Attendance)) {
+            return null;
+        }
+        Attendance attendance = (Attendance) entity;
+        if (attendance.getStudent() == null || attendance.getCourse() == null || attendance.getDate() == null) {
+            return null;
+        }
+        return new Slot(attendance.getStudent().getId(), attendance.getCourse().getId(),
+                attendance.getDate().toEpochDay());
+    }
+    
+    // 加載或上次寫入時的位置，新建的實體為 null
+    private Slot loadedSlotOf(Attendance attendance) {
+        if (attendance.getLoadedStudentId() == null || attendance.getLoadedCourseId() == null
+                || attendance.getLoadedDate() == null) {
+            return null;
+        }
+        return new Slot(attendance.getLoadedStudentId(), attendance.getLoadedCourseId(),
+                attendance.getLoadedDate().toEpochDay());
+    }
+    
+    // 考勤記錄在位圖中的位置
+    private static final class Slot {
+        
+        private final Long studentId;
+        
+        private final Long courseId;
+        
+        private final long epochDay;
+        
+        private Slot(Long studentId, Long courseId, long epochDay) {
+            this.studentId = studentId;
+            this.courseId = courseId;
+            this.epochDay = epochDay;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Slot)) {
+                return false;
+            }
+            Slot slot = (Slot) o;
+            return epochDay == slot.epochDay && studentId.equals(slot.studentId) && courseId.equals(slot.courseId);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(studentId, courseId, epochDay);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.student.service.impl;
+
+import com.student.entity.Attendance;
+import com.student.entity.AttendanceDailyRollup;
+import com.student.repository.AttendanceDailyRollupRepository;
+import com.student.repository.AttendanceRepository;
+import com.student.repository.JobLockRepository;
+import com.student.repository.projection.AttendanceDailyCountsRow;
+import com.student.repository.projection.AttendanceGroupCountsRow;
+import com.student.repository.projection.AttendanceTrendRow;
+import com.student.service.AttendanceRollupService;
+import com.student.util.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class AttendanceRollupServiceImpl implements AttendanceRollupService {
+    
+    private static final String REPORT_TIMER = "report.compute";
+    
+    // 所有節點的匯總重算都先鎖住此行，夜間重算與回填另按租約只由一個節點執行
+    private static final String ROLLUP_LOCK = "attendance-rollup";
+    
+    private static final String INSERT_LOCK_SQL = "INSERT INTO job_locks (name) VALUES (?)";
+    
+    // 租約持有者：進程號@主機名
+    private static final String NODE = ManagementFactory.getRuntimeMXBean().getName();
+    
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+    
+    @Autowired
+    private AttendanceDailyRollupRepository rollupRepository;
+    
+    @Autowired
+    private JobLockRepository jobLockRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.attendance-rollup.recompute-days:7}")
+    private int recomputeDays;
+    
+    @Value("${app.attendance-rollup.backfill-chunk-days:31}")
+    private int backfillChunkDays;
+    
+    @Value("${app.attendance-rollup.lock-lease:3600000}")
+    private long lockLeaseMillis;
+    
+    // 已提交但尚未重算的（日期, 課程）
+    private final Set<RollupKey> changed = ConcurrentHashMap.newKeySet();
+    
+    @PostConstruct
+    public void init() {
+        try {
+            jdbcTemplate.update(INSERT_LOCK_SQL, ROLLUP_LOCK);
+        } catch (DuplicateKeyException e) {
+            // 其他節點或之前的啟動已插入
+        }
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<AttendanceTrendRow> getDailyTrend(LocalDate from, LocalDate to, Long courseId, Long classId) {
+        return rollupRepository.findDailyTrend(from, to, courseId, classId);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<AttendanceGroupCountsRow> getTotalsByCourse(LocalDate from, LocalDate to, Long classId) {
+        return rollupRepository.sumByCourse(from, to, null, classId);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<AttendanceGroupCountsRow> getTotalsByClass(LocalDate from, LocalDate to, Long courseId) {
+        return rollupRepository.sumByClass(from, to, courseId, null);
+    }
+    
+    @Override
+    public int rebuild(LocalDate from, LocalDate to) {
+        // 按塊重算，每塊一個事務，避免一次加載整個學期的聚合結果
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int written = 0;
+        for (LocalDate start = from; !start.isAfter(to); start = start.plusDays(backfillChunkDays)) {
+            LocalDate chunkStart = start;
+            LocalDate chunkEnd = start.plusDays(backfillChunkDays - 1L).isAfter(to) ? to : start.plusDays(backfillChunkDays - 1L);
+            Integer count = transactionTemplate.execute(status -> recompute(chunkStart, chunkEnd, null));
+            written += count != null ? count : 0;
+        }
+        sample.stop(meterRegistry.timer(REPORT_TIMER, "report", "attendance-rollup"));
+        return written;
+    }
+    
+    @Override
+    public void markChanged(Object entity) {
+        RollupKey key = keyOf(entity);
+        if (key == null) {
+            return;
+        }
+        // 修改日期或課程時原位置也需重算
+        Attendance attendance = (Attendance) entity;
+        RollupKey previous = attendance.getLoadedDate() != null && attendance.getLoadedCourseId() != null
+                ? new RollupKey(attendance.getLoadedDate(), attendance.getLoadedCourseId()) : null;
+        TransactionUtils.afterCommit(() -> {
+            changed.add(key);
+            if (previous != null && !previous.equals(key)) {
+                changed.add(previous);
+            }
+        });
+    }
+    
+    // 增量刷新：同一（日期, 課程）的多次寫入（如整班點名）合併為一次重算
+    @Override
+    @Scheduled(fixedDelayString = "${app.attendance-rollup.refresh-interval:5000}")
+    public synchronized int refreshChanged() {
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        List<RollupKey> keys = new ArrayList<>(changed);
+        changed.removeAll(keys);
+        int written = 0;
+        for (RollupKey key : keys) {
+            try {
+                Integer count = transactionTemplate.execute(status -> recompute(key.date, key.date, key.courseId));
+                written += count != null ? count : 0;
+            } catch (RuntimeException e) {
+                // 下次再試
+                changed.add(key);
+                System.err.println("考勤日匯總刷新失敗 " + key.date + " 課程 " + key.courseId + ": " + e.getMessage());
+            }
+        }
+        return written;
+    }
+    
+    // 夜間批處理：重算最近幾天，覆蓋監聽器無法感知的寫入（如直接執行的 SQL）
+    // 各節點同時觸發，只有搶到租約的節點執行；租約不提前釋放，避免時鐘稍慢的節點隨後重複執行
+    @Scheduled(cron = "${app.attendance-rollup.cron:0 30 2 * * *}")
+    public void nightlyRollup() {
+        if (!tryAcquireLease()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        long start = System.currentTimeMillis();
+        int written = rebuild(today.minusDays(recomputeDays), today);
+        System.out.println("考勤日匯總夜間重算完成: " + written + " 行，耗時 " + (System.currentTimeMillis() - start) + "ms");
+    }
+    
+    // 匯總表為空而已有考勤記錄時（首次部署或數據導入後）全量回填，多個節點同時啟動時只有一個執行
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (rollupRepository.count() > 0) {
+            return;
+        }
+        LocalDate from = attendanceRepository.findMinDate();
+        LocalDate to = attendanceRepository.findMaxDate();
+        if (from == null || to == null || !tryAcquireLease()) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            int written = rebuild(from, to);
+            System.out.println("考勤日匯總回填完成: " + from + " 至 " + to + "，" + written + " 行，耗時 "
+                    + (System.currentTimeMillis() - start) + "ms");
+        } finally {
+            // 回填完成後表已非空，其他節點啟動時不會重複回填，可立即釋放
+            transactionTemplate.executeWithoutResult(status -> jobLockRepository.release(ROLLUP_LOCK, NODE));
+        }
+    }
+    
+    private boolean tryAcquireLease() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer acquired = transactionTemplate.execute(status -> jobLockRepository.tryAcquire(ROLLUP_LOCK, NODE,
+                now, now.plus(lockLeaseMillis, ChronoUnit.MILLIS)));
+        return acquired != null && acquired > 0;
+    }
+    
+    // 先鎖住 job_locks 行再刪除並重寫區間，不同節點對同一區間的重算串行執行
+    private int recompute(LocalDate from, LocalDate to, Long courseId) {
+        jobLockRepository.lockByName(ROLLUP_LOCK);
+        rollupRepository.deleteByDateRange(from, to, courseId);
+        List<AttendanceDailyRollup> rollups = new ArrayList<>();
+        for (AttendanceDailyCountsRow row : attendanceRepository.countDaily(from, to, courseId)) {
+            AttendanceDailyRollup rollup = new AttendanceDailyRollup();
+            rollup.setDate(row.getDate());
+            rollup.setCourseId(row.getCourseId());
+            rollup.setClassId(row.getClassId());
+            rollup.setPresentCount(valueOf(row.getPresentCount()));
+            rollup.setAbsentCount(valueOf(row.getAbsentCount()));
+            rollup.setLateCount(valueOf(row.getLateCount()));
+            rollup.setEarlyLeaveCount(valueOf(row.getEarlyLeaveCount()));
+            rollup.setLeaveCount(valueOf(row.getLeaveCount()));
+            rollup.setSickLeaveCount(valueOf(row.getSickLeaveCount()));
+            rollup.setTotalCount(valueOf(row.getTotalCount()));
+            rollups.add(rollup);
+        }
+        rollupRepository.saveAll(rollups);
+        return rollups.size();
+    }
+    
+    private long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+    
+    private RollupKey keyOf(Object entity) {
+        if (!(entity instanceof Attendance)) {
+            return null;
+        }
+        Attendance attendance = (Attendance) entity;
+        if (attendance.getDate() == null || attendance.getCourse() == null) {
+            return null;
+        }
+        return new RollupKey(attendance.getDate(), attendance.getCourse().getId());
+    }
+    
+    private static final class RollupKey {
+        
+        private final LocalDate date;
+        
+        private final Long courseId;
+        
+        private RollupKey(LocalDate date, Long courseId) {
+            this.date = date;
+            this.courseId = courseId;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RollupKey)) {
+                return false;
+            }
+            RollupKey key = (RollupKey) o;
+            return date.equals(key.date) && Objects.equals(courseId, key.courseId);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(date, courseId);
+        }
+    }
+}
@@ -1,24 +1,63 @@
 package com.student.service.impl;
 
+import com.student.dto.AttendanceStreak;
+import com.student.dto.KeysetCursor;
+import com.student.dto.KeysetPage;
+import com.student.dto.RollCallResult;
 import com.student.entity.Attendance;
+import com.student.entity.Course;
+import com.student.entity.Student;
 import com.student.repository.AttendanceRepository;
+import com.student.repository.CourseRepository;
+import com.student.repository.StudentRepository;
+import com.student.repository.projection.AttendanceListRow;
+import com.student.repository.projection.AttendanceTallyRow;
+import com.student.service.AttendanceIndexService;
 import com.student.service.AttendanceService;
+import com.student.service.SearchIndexService;
+import com.student.service.StatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
+@Transactional
 public class AttendanceServiceImpl implements AttendanceService {
     
     @Autowired
     private AttendanceRepository attendanceRepository;
     
+    @Autowired
+    private StudentRepository studentRepository;
+    
+    @Autowired
+    private CourseRepository courseRepository;
+    
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
+    @Autowired
+    private AttendanceIndexService attendanceIndexService;
+    
+    // 點名提交中表示本次不記錄的代碼
+    private static final String ROLL_CALL_SKIP = "-";
+    
     @Override
     public Attendance saveAttendance(Attendance attendance) {
         if (attendance.getId() == null) {
@@ -28,11 +67,121 @@ public class AttendanceServiceImpl implements AttendanceService {
         return attendanceRepository.save(attendance);
     }
     
+    @Override
+    public List<Attendance> saveAllAttendance(List<Attendance> attendances) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Attendance attendance : attendances) {
+            if (attendance.getId() == null) {
+                attendance.setCreatedAt(now);
+            }
+            attendance.setUpdatedAt(now);
+        }
+        return attendanceRepository.saveAll(attendances);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public RollCallResult getRollCall(Long classId, Long courseId, LocalDate date) {
+        RollCallResult result = new RollCallResult(classId, courseId, date);
+        List<Student> roster = studentRepository.findByClassIdAndStatus(classId, Student.StudentStatus.ENROLLED);
+        Map<Long, Attendance> existing = findRollCallRecords(roster, courseId, date);
+        for (Student student : roster) {
+            Attendance attendance = existing.get(student.getId());
+            result.addStudent(student.getId(), student.getStudentNumber(), student.getName(),
+                    attendance != null ? String.valueOf(attendance.getStatus().getCode()) : null);
+        }
+        return result;
+    }
+    
+    @Override
+    public RollCallResult saveRollCall(Long classId, Long courseId, LocalDate date, Map<Long, String> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            throw new RuntimeException("未提交任何學生的考勤狀態");
+        }
+        List<Student> roster = studentRepository.findByClassIdAndStatus(classId, Student.StudentStatus.ENROLLED);
+        Map<Long, Student> rosterById = new HashMap<>();
+        for (Student student : roster) {
+            rosterById.put(student.getId(), student);
+        }
+        // 按學生 ID 對應狀態，先整體校驗，名單已變動（學生轉班、退學）時拒絕整次提交，避免寫入一半
+        Map<Long, Attendance.AttendanceStatus> parsed = new HashMap<>();
+        for (Map.Entry<Long, String> entry : statuses.entrySet()) {
+            if (!rosterById.containsKey(entry.getKey())) {
+                throw new RuntimeException("學生 " + entry.getKey() + " 不在該班級的在讀名單中，請刷新名單後重新點名");
+            }
+            String code = entry.getValue();
+            if (code == null || code.isEmpty() || ROLL_CALL_SKIP.equals(code)) {
+                continue;
+            }
+            Attendance.AttendanceStatus status = code.length() == 1 ? Attendance.AttendanceStatus.fromCode(code.charAt(0)) : null;
+            if (status == null) {
+                throw new RuntimeException("學生 " + entry.getKey() + " 的考勤狀態代碼無效: " + code);
+            }
+            parsed.put(entry.getKey(), status);
+        }
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new RuntimeException("課程不存在"));
+        
+        RollCallResult result = new RollCallResult(classId, courseId, date);
+        Map<Long, Attendance> existing = findRollCallRecords(roster, courseId, date);
+        LocalDateTime now = LocalDateTime.now();
+        List<Attendance> inserts = new ArrayList<>();
+        for (Student student : roster) {
+            Attendance attendance = existing.get(student.getId());
+            Attendance.AttendanceStatus status = parsed.get(student.getId());
+            if (status == null) {
+                result.setSkippedCount(result.getSkippedCount() + 1);
+            } else if (attendance == null) {
+                attendance = new Attendance();
+                attendance.setStudent(student);
+                attendance.setCourse(course);
+                attendance.setDate(date);
+                attendance.setStatus(status);
+                attendance.setMethod(Attendance.AttendanceMethod.MANUAL);
+                attendance.setCreatedAt(now);
+                attendance.setUpdatedAt(now);
+                inserts.add(attendance);
+            } else if (attendance.getStatus() != status) {
+                // 託管實體，提交時按 order_updates 批量更新
+                attendance.setStatus(status);
+                attendance.setUpdatedAt(now);
+                result.setUpdatedCount(result.getUpdatedCount() + 1);
+            } else {
+                result.setUnchangedCount(result.getUnchangedCount() + 1);
+            }
+            result.addStudent(student.getId(), student.getStudentNumber(), student.getName(),
+                    attendance != null ? String.valueOf(attendance.getStatus().getCode()) : null);
+        }
+        attendanceRepository.saveAll(inserts);
+        result.setInsertedCount(inserts.size());
+        return result;
+    }
+    
+    private Map<Long, Attendance> findRollCallRecords(List<Student> roster, Long courseId, LocalDate date) {
+        Map<Long, Attendance> records = new HashMap<>();
+        if (roster.isEmpty()) {
+            return records;
+        }
+        List<Long> studentIds = new ArrayList<>(roster.size());
+        for (Student student : roster) {
+            studentIds.add(student.getId());
+        }
+        for (Attendance attendance : attendanceRepository.findByCourseIdAndDateAndStudentIdIn(courseId, date, studentIds)) {
+            records.put(attendance.getStudent().getId(), attendance);
+        }
+        return records;
+    }
+    
     @Override
     public Optional<Attendance> findById(Long id) {
         return attendanceRepository.findById(id);
     }
     
+    @Override
+    public Optional<Attendance> findDetailById(Long id) {
+        return attendanceRepository.findDetailById(id);
+    }
+    
     @Override
     public List<Attendance> findAllAttendance() {
         return attendanceRepository.findAll();
@@ -46,6 +195,12 @@ public class AttendanceServiceImpl implements AttendanceService {
     @Override
     public Page<Attendance> findByAdvancedSearch(String studentName, String courseName, LocalDate date, Pageable pageable) {
         if (studentName != null && !studentName.trim().isEmpty()) {
+            // 先由搜索索引解析學生 id，避免關聯表上的前綴通配 LIKE
+            Optional<Set<Long>> studentIds = searchIndexService.findIds(studentName, SearchIndexService.STUDENT_NAME);
+            if (studentIds.isPresent()) {
+                return studentIds.get().isEmpty() ? Page.empty(pageable)
+                        : attendanceRepository.findByStudentIdIn(studentIds.get(), pageable);
+            }
             return attendanceRepository.findByStudentNameContaining(studentName, pageable);
         } else if (courseName != null && !courseName.trim().isEmpty()) {
             return attendanceRepository.findByCourseNameContaining(courseName, pageable);
@@ -56,6 +211,43 @@ public class AttendanceServiceImpl implements AttendanceService {
         }
     }
     
+    @Override
+    public Page<AttendanceListRow> findListRows(String studentName, String courseName, LocalDate date, Pageable pageable) {
+        courseName = StringUtils.hasText(courseName) ? courseName : null;
+        if (StringUtils.hasText(studentName)) {
+            // 先由搜索索引解析學生 id，避免關聯表上的前綴通配 LIKE
+            Optional<Set<Long>> studentIds = searchIndexService.findIds(studentName, SearchIndexService.STUDENT_NAME);
+            if (studentIds.isPresent()) {
+                return studentIds.get().isEmpty() ? Page.empty(pageable)
+                        : attendanceRepository.findListRowsByStudentIds(studentIds.get(), courseName, date, pageable);
+            }
+        } else {
+            studentName = null;
+        }
+        return attendanceRepository.findListRows(studentName, courseName, date, pageable);
+    }
+    
+    @Override
+    public KeysetPage<AttendanceListRow> findByKeyset(String studentName, String courseName, LocalDate date,
+                                                      String after, String before, int size) {
+        studentName = StringUtils.hasText(studentName) ? studentName : null;
+        courseName = StringUtils.hasText(courseName) ? courseName : null;
+        KeysetCursor cursor = KeysetCursor.decode(StringUtils.hasText(before) ? before : after);
+        boolean newer = cursor != null && StringUtils.hasText(before);
+        KeysetCursor position = cursor != null ? cursor : KeysetCursor.START;
+        
+        Slice<AttendanceListRow> slice = newer
+                ? attendanceRepository.findKeysetNewerThan(studentName, courseName, date,
+                        position.getCreatedAt(), position.getId(), KeysetCursor.newerPage(size))
+                : attendanceRepository.findKeysetOlderThan(studentName, courseName, date,
+                        position.getCreatedAt(), position.getId(), KeysetCursor.olderPage(size));
+        
+        // 無篩選條件時使用計數器緩存的總數，有篩選時總數未知
+        boolean filtered = studentName != null || courseName != null || date != null;
+        Long approximateTotal = filtered ? null : statisticsService.getTotal(StatisticsService.ATTENDANCE);
+        return KeysetPage.of(slice, newer, cursor != null, AttendanceListRow::getCreatedAt, AttendanceListRow::getId, approximateTotal);
+    }
+    
     @Override
     public List<Attendance> findByStudentId(Long studentId) {
         return attendanceRepository.findByStudentId(studentId);
@@ -88,34 +280,110 @@ public class AttendanceServiceImpl implements AttendanceService {
     
     @Override
     public long countByStatus(Attendance.AttendanceStatus status) {
-        return attendanceRepository.countByStatus(status);
+        return attendanceIndexService.countByStatus(status)
+                .orElseGet(() -> attendanceRepository.countByStatus(status));
     }
     
     @Override
     public double getAttendanceRateByStudent(Long studentId) {
-        List<Attendance> attendances = attendanceRepository.findByStudentId(studentId);
-        if (attendances.isEmpty()) {
-            return 0.0;
+        Optional<Double> indexed = attendanceIndexService.getAttendanceRateByStudent(studentId);
+        if (indexed.isPresent()) {
+            return indexed.get();
         }
         
-        long presentCount = attendances.stream()
-                .filter(a -> a.getStatus() == Attendance.AttendanceStatus.PRESENT)
-                .count();
+        long totalCount = attendanceRepository.countByStudentId(studentId);
+        if (totalCount == 0) {
+            return 0.0;
+        }
         
-        return (double) presentCount / attendances.size() * 100;
+        long presentCount = attendanceRepository.countPresentByStudentId(studentId);
+        return (double) presentCount / totalCount * 100;
     }
     
     @Override
     public double getAttendanceRateByCourse(Long courseId) {
-        List<Attendance> attendances = attendanceRepository.findByCourseId(courseId);
-        if (attendances.isEmpty()) {
+        Optional<Double> indexed = attendanceIndexService.getAttendanceRateByCourse(courseId);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        
+        long totalCount = attendanceRepository.countByCourseId(courseId);
+        if (totalCount == 0) {
             return 0.0;
         }
         
-        long presentCount = attendances.stream()
-                .filter(a -> a.getStatus() == Attendance.AttendanceStatus.PRESENT)
-                .count();
+        long presentCount = attendanceRepository.countPresentByCourseId(courseId);
+        return (double) presentCount / totalCount * 100;
+    }
+    
+    @Override
+    public double getAttendanceRateByStudentAndCourse(Long studentId, Long courseId) {
+        Optional<Double> indexed = attendanceIndexService.getAttendanceRateByStudentAndCourse(studentId, courseId);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        
+        long totalCount = attendanceRepository.countByStudentIdAndCourseId(studentId, courseId);
+        if (totalCount == 0) {
+            return 0.0;
+        }
         
-        return (double) presentCount / attendances.size() * 100;
+        long presentCount = attendanceRepository.countByStudentIdAndCourseIdAndStatus(
+                studentId, courseId, Attendance.AttendanceStatus.PRESENT);
+        return (double) presentCount / totalCount * 100;
+    }
+    
+    @Override
+    public Map<Long, Double> getAttendanceRatesByClass(Long classId) {
+        return toRateMap(attendanceRepository.countAttendanceByStudentInClass(classId));
+    }
+    
+    @Override
+    public Map<Long, Double> getAttendanceRatesByCourse(Long courseId) {
+        return attendanceIndexService.getAttendanceRatesByCourse(courseId)
+                .orElseGet(() -> toRateMap(attendanceRepository.countAttendanceByStudentInCourse(courseId)));
+    }
+    
+    @Override
+    public AttendanceStreak getStreak(Long studentId, Long courseId) {
+        Optional<AttendanceStreak> indexed = attendanceIndexService.getStreak(studentId, courseId);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        
+        int current = 0;
+        int longest = 0;
+        for (Attendance.AttendanceStatus status : attendanceRepository.findStatusesByStudentIdAndCourseId(studentId, courseId)) {
+            boolean attended = status == Attendance.AttendanceStatus.PRESENT || status == Attendance.AttendanceStatus.LATE;
+            current = attended ? current + 1 : 0;
+            longest = Math.max(longest, current);
+        }
+        return new AttendanceStreak(current, longest);
+    }
+    
+    @Override
+    public long countAbsences(Long studentId, Long courseId, LocalDate from, LocalDate to) {
+        return attendanceIndexService.countAbsences(studentId, courseId, from, to).orElseGet(() -> courseId != null
+                ? attendanceRepository.countByStudentIdAndCourseIdAndStatusAndDateBetween(
+                        studentId, courseId, Attendance.AttendanceStatus.ABSENT, from, to)
+                : attendanceRepository.countByStudentIdAndStatusAndDateBetween(
+                        studentId, Attendance.AttendanceStatus.ABSENT, from, to));
+    }
+    
+    @Override
+    public List<Long> findAbsentStudentIds(Long courseId, LocalDate date) {
+        return attendanceIndexService.findAbsentStudentIds(courseId, date)
+                .orElseGet(() -> attendanceRepository.findStudentIdsByCourseIdAndDateAndStatus(
+                        courseId, date, Attendance.AttendanceStatus.ABSENT));
+    }
+    
+    private Map<Long, Double> toRateMap(List<AttendanceTallyRow> rows) {
+        Map<Long, Double> rates = new HashMap<>();
+        for (AttendanceTallyRow row : rows) {
+            long totalCount = row.getTotalCount() != null ? row.getTotalCount() : 0L;
+            long presentCount = row.getPresentCount() != null ? row.getPresentCount() : 0L;
+            rates.put(row.getId(), totalCount == 0 ? 0.0 : (double) presentCount / totalCount * 100);
+        }
+        return rates;
     }
 } 
\ No newline at end of file
@@ -3,6 +3,8 @@ package com.student.service.impl;
 import com.student.entity.Class;
 import com.student.repository.ClassRepository;
 import com.student.service.ClassService;
+import com.student.service.SearchIndexService;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -19,6 +22,9 @@ public class ClassServiceImpl implements ClassService {
     @Autowired
     private ClassRepository classRepository;
     
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
     @Override
     public Class saveClass(Class classEntity) {
         return classRepository.save(classEntity);
@@ -29,6 +35,14 @@ public class ClassServiceImpl implements ClassService {
         return classRepository.findById(id);
     }
     
+    @Override
+    public Optional<Class> findDetailById(Long id) {
+        // 班級與教師均在二級緩存中，熱數據不再執行 SQL
+        Optional<Class> result = classRepository.findById(id);
+        result.ifPresent(item -> Hibernate.initialize(item.getTeacher()));
+        return result;
+    }
+    
     @Override
     public Optional<Class> findByCode(String code) {
         return classRepository.findByCode(code);
@@ -71,16 +85,29 @@ public class ClassServiceImpl implements ClassService {
     
     @Override
     public List<Class> findByKeyword(String keyword) {
+        Optional<Set<Long>> ids = searchIndexService.findIds(keyword,
+                SearchIndexService.CLASS_NAME, SearchIndexService.CLASS_CODE);
+        if (ids.isPresent()) {
+            return classRepository.findAllById(ids.get());
+        }
         return classRepository.findByKeyword(keyword);
     }
     
     @Override
     public Page<Class> findByNameContaining(String name, Pageable pageable) {
+        Optional<Set<Long>> ids = searchIndexService.findIds(name, SearchIndexService.CLASS_NAME);
+        if (ids.isPresent()) {
+            return findByIdIn(ids.get(), pageable);
+        }
         return classRepository.findByNameContaining(name, pageable);
     }
     
     @Override
     public Page<Class> findByCodeContaining(String code, Pageable pageable) {
+        Optional<Set<Long>> ids = searchIndexService.findIds(code, SearchIndexService.CLASS_CODE);
+        if (ids.isPresent()) {
+            return findByIdIn(ids.get(), pageable);
+        }
         return classRepository.findByCodeContaining(code, pageable);
     }
     
@@ -103,9 +130,9 @@ public class ClassServiceImpl implements ClassService {
     public Page<Class> findByAdvancedSearch(String name, String code, Integer grade, 
                                            Class.ClassStatus status, Pageable pageable) {
         if (name != null && !name.trim().isEmpty()) {
-            return classRepository.findByNameContaining(name, pageable);
+            return findByNameContaining(name, pageable);
         } else if (code != null && !code.trim().isEmpty()) {
-            return classRepository.findByCodeContaining(code, pageable);
+            return findByCodeContaining(code, pageable);
         } else if (grade != null) {
             return classRepository.findByGrade(grade, pageable);
         } else if (status != null) {
@@ -115,6 +142,10 @@ public class ClassServiceImpl implements ClassService {
         }
     }
     
+    private Page<Class> findByIdIn(Set<Long> ids, Pageable pageable) {
+        return ids.isEmpty() ? Page.empty(pageable) : classRepository.findByIdIn(ids, pageable);
+    }
+    
     @Override
     public Long countByStatus(Class.ClassStatus status) {
         return classRepository.countByStatus(status);
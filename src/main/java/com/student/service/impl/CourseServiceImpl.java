@@ -3,6 +3,8 @@ package com.student.service.impl;
 import com.student.entity.Course;
 import com.student.repository.CourseRepository;
 import com.student.service.CourseService;
+import com.student.service.SearchIndexService;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -19,6 +22,9 @@ public class CourseServiceImpl implements CourseService {
     @Autowired
     private CourseRepository courseRepository;
     
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
     @Override
     public Course saveCourse(Course course) {
         return courseRepository.save(course);
@@ -29,6 +35,14 @@ public class CourseServiceImpl implements CourseService {
         return courseRepository.findById(id);
     }
     
+    @Override
+    public Optional<Course> findDetailById(Long id) {
+        // 課程與教師均在二級緩存中，熱數據不再執行 SQL
+        Optional<Course> result = courseRepository.findById(id);
+        result.ifPresent(item -> Hibernate.initialize(item.getTeacher()));
+        return result;
+    }
+    
     @Override
     public Optional<Course> findByCode(String code) {
         return courseRepository.findByCourseCode(code);
@@ -66,16 +80,29 @@ public class CourseServiceImpl implements CourseService {
     
     @Override
     public List<Course> findByKeyword(String keyword) {
+        Optional<Set<Long>> ids = searchIndexService.findIds(keyword,
+                SearchIndexService.COURSE_NAME, SearchIndexService.COURSE_CODE);
+        if (ids.isPresent()) {
+            return courseRepository.findAllById(ids.get());
+        }
         return courseRepository.findByKeyword(keyword);
     }
     
     @Override
     public Page<Course> findByNameContaining(String name, Pageable pageable) {
+        Optional<Set<Long>> ids = searchIndexService.findIds(name, SearchIndexService.COURSE_NAME);
+        if (ids.isPresent()) {
+            return findByIdIn(ids.get(), pageable);
+        }
         return courseRepository.findByNameContaining(name, pageable);
     }
     
     @Override
     public Page<Course> findByCodeContaining(String code, Pageable pageable) {
+        Optional<Set<Long>> ids = searchIndexService.findIds(code, SearchIndexService.COURSE_CODE);
+        if (ids.isPresent()) {
+            return findByIdIn(ids.get(), pageable);
+        }
         return courseRepository.findByCourseCodeContaining(code, pageable);
     }
     
@@ -93,9 +120,9 @@ public class CourseServiceImpl implements CourseService {
     public Page<Course> findByAdvancedSearch(String name, String code, 
                                             Course.CourseStatus status, Pageable pageable) {
         if (name != null && !name.trim().isEmpty()) {
-            return courseRepository.findByNameContaining(name, pageable);
+            return findByNameContaining(name, pageable);
         } else if (code != null && !code.trim().isEmpty()) {
-            return courseRepository.findByCourseCodeContaining(code, pageable);
+            return findByCodeContaining(code, pageable);
         } else if (status != null) {
             return courseRepository.findByStatus(status, pageable);
         } else {
@@ -103,6 +130,10 @@ public class CourseServiceImpl implements CourseService {
         }
     }
     
+    private Page<Course> findByIdIn(Set<Long> ids, Pageable pageable) {
+        return ids.isEmpty() ? Page.empty(pageable) : courseRepository.findByIdIn(ids, pageable);
+    }
+    
     @Override
     public Long countByStatus(Course.CourseStatus status) {
         return courseRepository.countByStatus(status);
@@ -0,0 +1,59 @@
+package com.student.service.impl;
+
+import com.student.dto.GradeReport;
+
+import java.util.Arrays;
+
+// 一個分組的成績累計：單次遍歷累加計數、和與平方和，分位數在排序後的分數數組上按線性插值計算
+class GradeDistribution {
+    
+    private static final int HISTOGRAM_BUCKETS = 10;
+    
+    private double[] scores = new double[16];
+    
+    private int count;
+    
+    private double sum;
+    
+    private double sumOfSquares;
+    
+    private long passCount;
+    
+    private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+    
+    void add(double score, double passScore) {
+        if (count == scores.length) {
+            scores = Arrays.copyOf(scores, count * 2);
+        }
+        scores[count++] = score;
+        sum += score;
+        sumOfSquares += score * score;
+        if (score >= passScore) {
+            passCount++;
+        }
+        // 100 分計入 90-100 段
+        histogram[Math.max(0, Math.min(HISTOGRAM_BUCKETS - 1, (int) (score / 10)))]++;
+    }
+    
+    GradeReport toReport(String dimension, Object key, String label) {
+        double[] sorted = Arrays.copyOf(scores, count);
+        Arrays.sort(sorted);
+        double mean = sum / count;
+        // 總體標準差，平方和相減的舍入誤差可能略小於零
+        double variance = Math.max(0, sumOfSquares / count - mean * mean);
+        return new GradeReport(dimension, key, label, count, round(mean), round(percentile(sorted, 0.5)),
+                round(Math.sqrt(variance)), round(percentile(sorted, 0.1)), round(percentile(sorted, 0.9)),
+                round(sorted[0]), round(sorted[count - 1]), passCount, round(passCount * 100.0 / count), histogram.clone());
+    }
+    
+    private double percentile(double[] sorted, double p) {
+        double position = p * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = Math.min(sorted.length - 1, lower + 1);
+        return sorted[lower] + (sorted[upper] - sorted[lower]) * (position - lower);
+    }
+    
+    private double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,454 @@
+package com.student.service.impl;
+
+import com.student.dto.GradeReport;
+import com.student.entity.Grade;
+import com.student.repository.ClassRepository;
+import com.student.repository.GradeRepository;
+import com.student.repository.projection.GradeCourseVersionRow;
+import com.student.repository.projection.GradeScoreRow;
+import com.student.service.GradeReportService;
+import com.student.service.LookupService;
+import com.student.util.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+@Service
+public class GradeReportServiceImpl implements GradeReportService {
+    
+    // 分組按鍵升序，學期按（學年, 學期）
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Comparator<Object> GROUP_ORDER = (a, b) -> ((Comparable) a).compareTo(b);
+    
+    // 報表計算耗時，命中緩存的請求不計入
+    private static final String REPORT_TIMER = "report.compute";
+    
+    @Autowired
+    private GradeRepository gradeRepository;
+    
+    @Autowired
+    private ClassRepository classRepository;
+    
+    @Autowired
+    private LookupService lookupService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.academic.pass-score:60}")
+    private double passScore;
+    
+    @Value("${app.grade-report.parallelism:4}")
+    private int parallelism;
+    
+    private TransactionTemplate readOnlyTransaction;
+    
+    // 多門課程同時缺失緩存時（如整學期重算）按課程拆分並行讀取
+    private ForkJoinPool pool;
+    
+    // 課程 -> 該課程全部成績及讀取前的課程版本
+    private final Map<Long, CourseScores> courseScores = new ConcurrentHashMap<>();
+    
+    // 課程失效次數，讀取期間課程有寫入時結果不放入緩存
+    private final Map<Long, Long> courseVersions = new ConcurrentHashMap<>();
+    
+    // 報表結果緩存，連同其依賴的課程及計算時的課程版本
+    private final Map<String, CachedReport> reports = new ConcurrentHashMap<>();
+    
+    // 任意課程失效時遞增，計算期間有寫入的報表不放入緩存
+    private final AtomicLong generation = new AtomicLong();
+    
+    private final AtomicLong hits = new AtomicLong();
+    
+    private final AtomicLong misses = new AtomicLong();
+    
+    private final AtomicLong courseLoads = new AtomicLong();
+    
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+    
+    @Override
+    public List<GradeReport> getReport(Dimension dimension, Long courseId, Long classId, Integer academicYear,
+                                       Grade.Semester semester) {
+        String key = dimension + "|" + courseId + "|" + classId + "|" + academicYear + "|" + semester;
+        // 本節點的寫入在提交後立即失效，其他節點的寫入靠每次請求比對數據庫中的課程版本發現
+        Map<Long, CourseVersion> versions = currentVersions(courseId);
+        CachedReport cached = reports.get(key);
+        if (cached != null && cached.versions.equals(versions)) {
+            hits.incrementAndGet();
+            return cached.reports;
+        }
+        misses.incrementAndGet();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        
+        long startGeneration = generation.get();
+        Map<Long, CourseScores> scores = ensureLoaded(versions);
+        
+        // 單次遍歷：按篩選條件過濾後累加到對應分組
+        Map<Object, GradeDistribution> groups = new HashMap<>();
+        for (Map.Entry<Long, CourseScores> entry : scores.entrySet()) {
+            CourseScores course = entry.getValue();
+            for (int i = 0; i < course.size; i++) {
+                if ((classId != null && !classId.equals(course.classIds[i]))
+                        || (academicYear != null && academicYear != course.academicYears[i])
+                        || (semester != null && semester != course.semesters[i])) {
+                    continue;
+                }
+                Object groupKey = groupKey(dimension, entry.getKey(), course, i);
+                if (groupKey != null) {
+                    groups.computeIfAbsent(groupKey, k -> new GradeDistribution()).add(course.scores[i], passScore);
+                }
+            }
+        }
+        
+        Map<Object, GradeDistribution> ordered = new TreeMap<>(GROUP_ORDER);
+        ordered.putAll(groups);
+        List<GradeReport> result = new ArrayList<>();
+        ordered.forEach((groupKey, distribution) ->
+                result.add(distribution.toReport(dimension.name(),
+                        groupKey instanceof TermKey ? groupKey.toString() : groupKey, label(dimension, groupKey))));
+        List<GradeReport> unmodifiable = Collections.unmodifiableList(result);
+        
+        if (generation.get() == startGeneration) {
+            // 不限課程的報表依賴全部課程（包括之後新增成績的課程）
+            reports.put(key, new CachedReport(unmodifiable, courseId != null ? Collections.singleton(courseId) : null,
+                    versions));
+        }
+        sample.stop(meterRegistry.timer(REPORT_TIMER, "report", "grade-distribution"));
+        return unmodifiable;
+    }
+    
+    @Override
+    public long recomputeAll() {
+        long start = System.currentTimeMillis();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        generation.incrementAndGet();
+        courseScores.clear();
+        reports.clear();
+        Map<Long, CourseScores> loaded = ensureLoaded(currentVersions(null));
+        long total = 0;
+        for (CourseScores course : loaded.values()) {
+            total += course.size;
+        }
+        sample.stop(meterRegistry.timer(REPORT_TIMER, "report", "grade-recompute"));
+        System.out.println("成績報表重算完成: " + loaded.size() + " 門課程，" + total + " 條成績，耗時 "
+                + (System.currentTimeMillis() - start) + "ms");
+        return total;
+    }
+    
+    @Override
+    public void markChanged(Object entity) {
+        Long courseId = courseIdOf(entity);
+        if (courseId == null) {
+            return;
+        }
+        // 修改課程時原課程也需失效
+        Long previous = ((Grade) entity).getLoadedCourseId();
+        TransactionUtils.afterCommit(() -> {
+            invalidate(courseId);
+            if (previous != null && !previous.equals(courseId)) {
+                invalidate(previous);
+            }
+        });
+    }
+    
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        long total = 0;
+        for (CourseScores course : courseScores.values()) {
+            total += course.size;
+        }
+        statistics.put("cachedCourses", courseScores.size());
+        statistics.put("cachedScores", total);
+        statistics.put("cachedReports", reports.size());
+        statistics.put("hits", hits.get());
+        statistics.put("misses", misses.get());
+        statistics.put("courseLoads", courseLoads.get());
+        return statistics;
+    }
+    
+    private void invalidate(Long courseId) {
+        courseVersions.merge(courseId, 1L, Long::sum);
+        generation.incrementAndGet();
+        courseScores.remove(courseId);
+        reports.values().removeIf(cached -> cached.courseIds == null || cached.courseIds.contains(courseId));
+    }
+    
+    // 有成績的課程及其當前版本；沒有成績的課程不再緩存
+    private Map<Long, CourseVersion> currentVersions(Long courseId) {
+        Map<Long, CourseVersion> versions = new HashMap<>();
+        List<GradeCourseVersionRow> rows = courseId != null
+                ? gradeRepository.findCourseVersion(courseId).map(Collections::singletonList).orElse(Collections.emptyList())
+                : gradeRepository.findCourseVersions();
+        for (GradeCourseVersionRow row : rows) {
+            versions.put(row.getCourseId(), new CourseVersion(row.getGradeCount(), row.getLastUpdatedAt()));
+        }
+        if (courseId != null) {
+            if (versions.isEmpty()) {
+                courseScores.remove(courseId);
+            }
+        } else {
+            courseScores.keySet().retainAll(versions.keySet());
+        }
+        return versions;
+    }
+    
+    private Map<Long, CourseScores> ensureLoaded(Map<Long, CourseVersion> versions) {
+        Map<Long, CourseScores> result = new HashMap<>();
+        Map<Long, CourseVersion> missing = new HashMap<>();
+        versions.forEach((courseId, version) -> {
+            CourseScores cached = courseScores.get(courseId);
+            if (cached != null && cached.version.equals(version)) {
+                result.put(courseId, cached);
+            } else {
+                missing.put(courseId, version);
+            }
+        });
+        if (missing.size() == 1) {
+            Map.Entry<Long, CourseVersion> only = missing.entrySet().iterator().next();
+            result.put(only.getKey(), loadCourse(only.getKey(), only.getValue()));
+        } else if (!missing.isEmpty()) {
+            result.putAll(pool.invoke(new LoadTask(new ArrayList<>(missing.entrySet()))));
+        }
+        return result;
+    }
+    
+    // 流式讀取一門課程的成績，逐行追加到緊湊數組
+    // 版本在讀取前取得，期間提交的寫入使緩存的版本偏舊，下次請求時重新讀取
+    private CourseScores loadCourse(Long courseId, CourseVersion courseVersion) {
+        Long version = courseVersions.get(courseId);
+        CourseScores loaded = readOnlyTransaction.execute(status -> {
+            CourseScores course = new CourseScores(courseVersion);
+            try (Stream<GradeScoreRow> rows = gradeRepository.streamScoresByCourseId(courseId)) {
+                rows.forEach(course::add);
+            }
+            return course;
+        });
+        courseLoads.incrementAndGet();
+        if (Objects.equals(version, courseVersions.get(courseId))) {
+            courseScores.put(courseId, loaded);
+        }
+        return loaded;
+    }
+    
+    private Object groupKey(Dimension dimension, Long courseId, CourseScores course, int i) {
+        switch (dimension) {
+            case COURSE:
+                return courseId;
+            case CLASS:
+                return course.classIds[i];
+            case SEMESTER:
+                return new TermKey(course.academicYears[i], course.semesters[i]);
+            default:
+                return course.academicYears[i];
+        }
+    }
+    
+    private String label(Dimension dimension, Object groupKey) {
+        switch (dimension) {
+            case COURSE:
+                return lookupService.courseLabel((Long) groupKey);
+            case CLASS:
+                return classRepository.findById((Long) groupKey).map(c -> c.getName()).orElse(String.valueOf(groupKey));
+            case SEMESTER:
+                TermKey term = (TermKey) groupKey;
+                return term.academicYear + " " + term.semester.getDisplayName();
+            default:
+                return String.valueOf(groupKey);
+        }
+    }
+    
+    private Long courseIdOf(Object entity) {
+        if (!(entity instanceof Grade)) {
+            return null;
+        }
+        Grade grade = (Grade) entity;
+        return grade.getCourse() != null ? grade.getCourse().getId() : null;
+    }
+    
+    // 按課程二分拆分，葉子任務讀取單門課程
+    private final class LoadTask extends RecursiveTask<Map<Long, CourseScores>> {
+        
+        private final List<Map.Entry<Long, CourseVersion>> courses;
+        
+        private LoadTask(List<Map.Entry<Long, CourseVersion>> courses) {
+            this.courses = courses;
+        }
+        
+        @Override
+        protected Map<Long, CourseScores> compute() {
+            if (courses.size() == 1) {
+                Map.Entry<Long, CourseVersion> course = courses.get(0);
+                Map<Long, CourseScores> result = new HashMap<>();
+                result.put(course.getKey(), loadCourse(course.getKey(), course.getValue()));
+                return result;
+            }
+            int middle = courses.size() / 2;
+            LoadTask left = new LoadTask(courses.subList(0, middle));
+            LoadTask right = new LoadTask(courses.subList(middle, courses.size()));
+            left.fork();
+            Map<Long, CourseScores> result = right.compute();
+            result.putAll(left.join());
+            return result;
+        }
+    }
+    
+    // 一門課程的成績，按列存放
+    private static final class CourseScores {
+        
+        private final CourseVersion version;
+        
+        private int size;
+        
+        private double[] scores = new double[16];
+        
+        private int[] academicYears = new int[16];
+        
+        private Grade.Semester[] semesters = new Grade.Semester[16];
+        
+        private Long[] classIds = new Long[16];
+        
+        private CourseScores(CourseVersion version) {
+            this.version = version;
+        }
+        
+        private void add(GradeScoreRow row) {
+            if (size == scores.length) {
+                int capacity = size * 2;
+                scores = Arrays.copyOf(scores, capacity);
+                academicYears = Arrays.copyOf(academicYears, capacity);
+                semesters = Arrays.copyOf(semesters, capacity);
+                classIds = Arrays.copyOf(classIds, capacity);
+            }
+            scores[size] = row.getTotalScore();
+            academicYears[size] = row.getAcademicYear();
+            semesters[size] = row.getSemester();
+            classIds[size] = row.getClassId();
+            size++;
+        }
+    }
+    
+    private static final class CachedReport {
+        
+        private final List<GradeReport> reports;
+        
+        // 為空表示依賴全部課程
+        private final Set<Long> courseIds;
+        
+        private final Map<Long, CourseVersion> versions;
+        
+        private CachedReport(List<GradeReport> reports, Set<Long> courseIds, Map<Long, CourseVersion> versions) {
+            this.reports = reports;
+            this.courseIds = courseIds != null ? new HashSet<>(courseIds) : null;
+            this.versions = versions;
+        }
+    }
+    
+    // 課程的成績數與最近更新時間，任一變化即說明該課程的成績有增刪改
+    private static final class CourseVersion {
+        
+        private final long gradeCount;
+        
+        private final LocalDateTime lastUpdatedAt;
+        
+        private CourseVersion(long gradeCount, LocalDateTime lastUpdatedAt) {
+            this.gradeCount = gradeCount;
+            this.lastUpdatedAt = lastUpdatedAt;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CourseVersion)) {
+                return false;
+            }
+            CourseVersion version = (CourseVersion) o;
+            return gradeCount == version.gradeCount && Objects.equals(lastUpdatedAt, version.lastUpdatedAt);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(gradeCount, lastUpdatedAt);
+        }
+    }
+    
+    private static final class TermKey implements Comparable<TermKey> {
+        
+        private final int academicYear;
+        
+        private final Grade.Semester semester;
+        
+        private TermKey(int academicYear, Grade.Semester semester) {
+            this.academicYear = academicYear;
+            this.semester = semester;
+        }
+        
+        @Override
+        public int compareTo(TermKey other) {
+            int byYear = Integer.compare(academicYear, other.academicYear);
+            return byYear != 0 ? byYear : semester.compareTo(other.semester);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TermKey)) {
+                return false;
+            }
+            TermKey key = (TermKey) o;
+            return academicYear == key.academicYear && semester == key.semester;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(academicYear, semester);
+        }
+        
+        @Override
+        public String toString() {
+            return academicYear + "-" + semester.name();
+        }
+    }
+}
@@ -1,30 +1,79 @@
 package com.student.service.impl;
 
+import com.student.dto.KeysetCursor;
+import com.student.dto.KeysetPage;
 import com.student.entity.Grade;
 import com.student.repository.GradeRepository;
+import com.student.repository.projection.AverageScoreRow;
+import com.student.repository.projection.GradeListRow;
+import com.student.service.AcademicSummaryService;
 import com.student.service.GradeService;
+import com.student.service.SearchIndexService;
+import com.student.service.StatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
+@Transactional
 public class GradeServiceImpl implements GradeService {
     
     @Autowired
     private GradeRepository gradeRepository;
     
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
+    @Autowired
+    private AcademicSummaryService academicSummaryService;
+    
     @Override
     public Grade saveGrade(Grade grade) {
         if (grade.getId() == null) {
             grade.setCreatedAt(LocalDateTime.now());
         }
         grade.setUpdatedAt(LocalDateTime.now());
-        return gradeRepository.save(grade);
+        // 修改成績時可能改了所屬學生，原學生的匯總也需重算
+        Long previousStudentId = grade.getId() != null
+                ? gradeRepository.findStudentIdById(grade.getId()).orElse(null) : null;
+        Grade saved = gradeRepository.save(grade);
+        academicSummaryService.refreshStudents(Arrays.asList(studentIdOf(saved), previousStudentId));
+        return saved;
+    }
+    
+    @Override
+    public List<Grade> saveAllGrades(List<Grade> grades) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Grade grade : grades) {
+            if (grade.getId() == null) {
+                grade.setCreatedAt(now);
+            }
+            grade.setUpdatedAt(now);
+        }
+        List<Grade> saved = gradeRepository.saveAll(grades);
+        academicSummaryService.refreshStudents(saved.stream().map(this::studentIdOf).collect(Collectors.toSet()));
+        return saved;
+    }
+    
+    private Long studentIdOf(Grade grade) {
+        return grade.getStudent() != null ? grade.getStudent().getId() : null;
     }
     
     @Override
@@ -32,6 +81,11 @@ public class GradeServiceImpl implements GradeService {
         return gradeRepository.findById(id);
     }
     
+    @Override
+    public Optional<Grade> findDetailById(Long id) {
+        return gradeRepository.findDetailById(id);
+    }
+    
     @Override
     public List<Grade> findAllGrades() {
         return gradeRepository.findAll();
@@ -45,6 +99,12 @@ public class GradeServiceImpl implements GradeService {
     @Override
     public Page<Grade> findByAdvancedSearch(String studentName, String courseName, String semester, Pageable pageable) {
         if (studentName != null && !studentName.trim().isEmpty()) {
+            // 先由搜索索引解析學生 id，避免關聯表上的前綴通配 LIKE
+            Optional<Set<Long>> studentIds = searchIndexService.findIds(studentName, SearchIndexService.STUDENT_NAME);
+            if (studentIds.isPresent()) {
+                return studentIds.get().isEmpty() ? Page.empty(pageable)
+                        : gradeRepository.findByStudentIdIn(studentIds.get(), pageable);
+            }
             return gradeRepository.findByStudentNameContaining(studentName, pageable);
         } else if (courseName != null && !courseName.trim().isEmpty()) {
             return gradeRepository.findByCourseNameContaining(courseName, pageable);
@@ -55,6 +115,59 @@ public class GradeServiceImpl implements GradeService {
         }
     }
     
+    @Override
+    public Page<GradeListRow> findListRows(String studentName, String courseName, String semester, Pageable pageable) {
+        courseName = StringUtils.hasText(courseName) ? courseName : null;
+        semester = semesterName(semester);
+        if (StringUtils.hasText(studentName)) {
+            // 先由搜索索引解析學生 id，避免關聯表上的前綴通配 LIKE
+            Optional<Set<Long>> studentIds = searchIndexService.findIds(studentName, SearchIndexService.STUDENT_NAME);
+            if (studentIds.isPresent()) {
+                return studentIds.get().isEmpty() ? Page.empty(pageable)
+                        : gradeRepository.findListRowsByStudentIds(studentIds.get(), courseName, semester, pageable);
+            }
+        } else {
+            studentName = null;
+        }
+        return gradeRepository.findListRows(studentName, courseName, semester, pageable);
+    }
+    
+    @Override
+    public KeysetPage<GradeListRow> findByKeyset(String studentName, String courseName, String semester,
+                                                 String after, String before, int size) {
+        studentName = StringUtils.hasText(studentName) ? studentName : null;
+        courseName = StringUtils.hasText(courseName) ? courseName : null;
+        semester = semesterName(semester);
+        KeysetCursor cursor = KeysetCursor.decode(StringUtils.hasText(before) ? before : after);
+        boolean newer = cursor != null && StringUtils.hasText(before);
+        KeysetCursor position = cursor != null ? cursor : KeysetCursor.START;
+        
+        Slice<GradeListRow> slice = newer
+                ? gradeRepository.findKeysetNewerThan(studentName, courseName, semester,
+                        position.getCreatedAt(), position.getId(), KeysetCursor.newerPage(size))
+                : gradeRepository.findKeysetOlderThan(studentName, courseName, semester,
+                        position.getCreatedAt(), position.getId(), KeysetCursor.olderPage(size));
+        
+        // 無篩選條件時使用計數器緩存的總數，有篩選時總數未知
+        boolean filtered = studentName != null || courseName != null || semester != null;
+        Long approximateTotal = filtered ? null : statisticsService.getTotal(StatisticsService.GRADE);
+        return KeysetPage.of(slice, newer, cursor != null, GradeListRow::getCreatedAt, GradeListRow::getId, approximateTotal);
+    }
+    
+    // 篩選框可輸入枚舉名稱或顯示名稱，統一為枚舉名稱
+    private String semesterName(String semester) {
+        if (!StringUtils.hasText(semester)) {
+            return null;
+        }
+        String value = semester.trim();
+        for (Grade.Semester candidate : Grade.Semester.values()) {
+            if (candidate.name().equalsIgnoreCase(value) || candidate.getDisplayName().equals(value)) {
+                return candidate.name();
+            }
+        }
+        return value;
+    }
+    
     @Override
     public List<Grade> findByStudentId(Long studentId) {
         return gradeRepository.findByStudentId(studentId);
@@ -72,7 +185,9 @@ public class GradeServiceImpl implements GradeService {
     
     @Override
     public void deleteGrade(Long id) {
+        Optional<Long> studentId = gradeRepository.findStudentIdById(id);
         gradeRepository.deleteById(id);
+        studentId.ifPresent(value -> academicSummaryService.refreshStudents(Collections.singleton(value)));
     }
     
     @Override
@@ -82,26 +197,32 @@ public class GradeServiceImpl implements GradeService {
     
     @Override
     public double getAverageGradeByStudent(Long studentId) {
-        List<Grade> grades = gradeRepository.findByStudentId(studentId);
-        if (grades.isEmpty()) {
-            return 0.0;
-        }
-        return grades.stream()
-                .mapToDouble(Grade::getTotalScore)
-                .average()
-                .orElse(0.0);
+        Double average = gradeRepository.getAverageScoreByStudentId(studentId);
+        return average != null ? average : 0.0;
     }
     
     @Override
     public double getAverageGradeByCourse(Long courseId) {
-        List<Grade> grades = gradeRepository.findByCourseId(courseId);
-        if (grades.isEmpty()) {
-            return 0.0;
+        Double average = gradeRepository.getAverageScoreByCourseId(courseId);
+        return average != null ? average : 0.0;
+    }
+    
+    @Override
+    public Map<Long, Double> getAverageGradesByClass(Long classId) {
+        return toAverageMap(gradeRepository.getAverageScoreByStudentInClass(classId));
+    }
+    
+    @Override
+    public Map<Long, Double> getAverageGradesByCourse(Long courseId) {
+        return toAverageMap(gradeRepository.getAverageScoreByStudentInCourse(courseId));
+    }
+    
+    private Map<Long, Double> toAverageMap(List<AverageScoreRow> rows) {
+        Map<Long, Double> averages = new HashMap<>();
+        for (AverageScoreRow row : rows) {
+            averages.put(row.getId(), row.getAverage() != null ? row.getAverage() : 0.0);
         }
-        return grades.stream()
-                .mapToDouble(Grade::getTotalScore)
-                .average()
-                .orElse(0.0);
+        return averages;
     }
     
     @Override
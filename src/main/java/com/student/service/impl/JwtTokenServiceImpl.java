@@ -0,0 +1,261 @@
+package com.student.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.student.dto.ApiToken;
+import com.student.entity.RevokedToken;
+import com.student.entity.Student;
+import com.student.entity.User;
+import com.student.repository.RevokedTokenRepository;
+import com.student.repository.UserRepository;
+import com.student.repository.projection.UserAccessRow;
+import com.student.service.JwtTokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class JwtTokenServiceImpl implements JwtTokenService {
+    
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    
+    // 只簽發並接受 HS256，頭部固定，校驗時直接比較，不解析客戶端提供的 alg
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+    
+    private static final TypeReference<Map<String, Object>> CLAIMS_TYPE = new TypeReference<Map<String, Object>>() {};
+    
+    // HS256 密鑰不短於摘要長度
+    private static final int MIN_SECRET_BYTES = 32;
+    
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${app.security.jwt.secret:}")
+    private String secret;
+    
+    @Value("${app.security.jwt.expiration:86400000}")
+    private long expirationMillis;
+    
+    @Value("${app.security.jwt.user-check-interval:30000}")
+    private long userCheckIntervalMillis;
+    
+    private SecretKeySpec signingKey;
+    
+    // jti -> 令牌過期時間，過期後令牌本身已無效，記錄隨之清除
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    
+    // 用戶 ID -> 最近一次從數據庫讀取的角色與狀態，超過複核間隔後重新讀取
+    private final Map<Long, AccessCheck> accessChecks = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes;
+        if (secret == null || secret.trim().isEmpty()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            System.out.println("未配置 JWT_SECRET，已生成臨時簽名密鑰（重啟後或其他節點簽發的令牌失效）");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (keyBytes.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("app.security.jwt.secret 至少需要 " + MIN_SECRET_BYTES + " 字節");
+            }
+        }
+        signingKey = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+    
+    @Override
+    public ApiToken issueToken(User user) {
+        Instant issuedAt = Instant.now();
+        Instant expiresAt = issuedAt.plusMillis(expirationMillis);
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", user.getUsername());
+        claims.put("uid", user.getId());
+        claims.put("role", user.getRole().name());
+        if (user.getStudent() != null) {
+            claims.put("sid", user.getStudent().getId());
+        }
+        claims.put("iat", issuedAt.getEpochSecond());
+        claims.put("exp", expiresAt.getEpochSecond());
+        claims.put("jti", UUID.randomUUID().toString());
+        try {
+            String unsigned = HEADER + "." + ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            String token = unsigned + "." + ENCODER.encodeToString(sign(unsigned));
+            return new ApiToken(token, expiresAt, expirationMillis / 1000);
+        } catch (IOException e) {
+            throw new RuntimeException("令牌簽發失敗: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public Optional<User> authenticate(String token) {
+        Map<String, Object> claims = verify(token);
+        if (claims == null || revoked.containsKey(String.valueOf(claims.get("jti")))) {
+            return Optional.empty();
+        }
+        Long userId = asLong(claims.get("uid"));
+        User.Role role = User.Role.valueOf(String.valueOf(claims.get("role")));
+        // 停用、鎖定、刪除或角色變更後，之前簽發的令牌不再接受
+        AccessCheck access = currentAccess(userId);
+        if (access == null || access.status != User.Status.ACTIVE || access.role != role) {
+            return Optional.empty();
+        }
+        User user = new User();
+        user.setId(userId);
+        user.setUsername(String.valueOf(claims.get("sub")));
+        user.setRole(role);
+        user.setStatus(User.Status.ACTIVE);
+        Long studentId = asLong(claims.get("sid"));
+        if (studentId != null) {
+            Student student = new Student();
+            student.setId(studentId);
+            user.setStudent(student);
+        }
+        return Optional.of(user);
+    }
+    
+    @Override
+    public void evictUser(Long userId) {
+        if (userId != null) {
+            accessChecks.remove(userId);
+        }
+    }
+    
+    @Override
+    @Transactional
+    public boolean revoke(String token) {
+        Map<String, Object> claims = verify(token);
+        if (claims == null) {
+            return false;
+        }
+        String jti = String.valueOf(claims.get("jti"));
+        Instant expiresAt = Instant.ofEpochSecond(asLong(claims.get("exp")));
+        if (!revokedTokenRepository.existsById(jti)) {
+            RevokedToken record = new RevokedToken();
+            record.setJti(jti);
+            record.setUserId(asLong(claims.get("uid")));
+            record.setExpiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()));
+            revokedTokenRepository.save(record);
+        }
+        revoked.put(jti, expiresAt);
+        return true;
+    }
+    
+    // 只合併不替換：本節點剛吊銷、事務尚未提交的記錄不會在同步時丟失
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${app.security.jwt.revocation-sync-interval:30000}")
+    public void syncRevocations() {
+        LocalDateTime now = LocalDateTime.now();
+        revokedTokenRepository.deleteExpired(now);
+        for (RevokedToken record : revokedTokenRepository.findActive(now)) {
+            revoked.put(record.getJti(), record.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant());
+        }
+        Instant cutoff = Instant.now();
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(cutoff));
+    }
+    
+    // 複核結果在間隔內直接使用，令牌請求不必每次查詢數據庫
+    private AccessCheck currentAccess(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        AccessCheck cached = accessChecks.get(userId);
+        if (cached != null && now - cached.checkedAt < userCheckIntervalMillis) {
+            return cached;
+        }
+        Optional<UserAccessRow> row = userRepository.findAccessById(userId);
+        if (!row.isPresent()) {
+            accessChecks.remove(userId);
+            return null;
+        }
+        AccessCheck check = new AccessCheck(row.get().getRole(), row.get().getStatus(), now);
+        accessChecks.put(userId, check);
+        return check;
+    }
+    
+    // 簽名與過期時間都有效時返回聲明，否則返回 null
+    private Map<String, Object> verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        String[] parts = token.split("\\.");
+        if (parts.length != 3 || !HEADER.equals(parts[0])) {
+            return null;
+        }
+        try {
+            byte[] expected = sign(parts[0] + "." + parts[1]);
+            if (!MessageDigest.isEqual(expected, DECODER.decode(parts[2]))) {
+                return null;
+            }
+            Map<String, Object> claims = objectMapper.readValue(DECODER.decode(parts[1]), CLAIMS_TYPE);
+            Long exp = asLong(claims.get("exp"));
+            if (exp == null || Instant.now().getEpochSecond() >= exp) {
+                return null;
+            }
+            return claims;
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+    
+    private byte[] sign(String unsigned) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(unsigned.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("簽名失敗: " + e.getMessage(), e);
+        }
+    }
+    
+    private Long asLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+    
+    private static final class AccessCheck {
+        
+        private final User.Role role;
+        
+        private final User.Status status;
+        
+        private final long checkedAt;
+        
+        private AccessCheck(User.Role role, User.Status status, long checkedAt) {
+            this.role = role;
+            this.status = status;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
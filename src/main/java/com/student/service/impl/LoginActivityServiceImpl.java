@@ -0,0 +1,103 @@
+package com.student.service.impl;
+
+import com.student.entity.User;
+import com.student.repository.UserRepository;
+import com.student.service.LoginActivityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class LoginActivityServiceImpl implements LoginActivityService {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${app.login.flush-batch-size:500}")
+    private int flushBatchSize;
+    
+    // 用戶 -> 最近一次登錄時間，同一用戶在一個刷新週期內的多次登錄合併為一次寫入
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    
+    // 認證成功事件：密碼校驗通過後才記錄，失敗的嘗試不更新最後登錄時間
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        Object principal = event.getAuthentication().getPrincipal();
+        if (principal instanceof User) {
+            recordLogin(((User) principal).getId());
+        }
+    }
+    
+    @Override
+    public void recordLogin(Long userId) {
+        if (userId != null) {
+            pending.merge(userId, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
+                    (previous, current) -> current.isAfter(previous) ? current : previous);
+        }
+    }
+    
+    @Override
+    @Scheduled(fixedDelayString = "${app.login.flush-interval:5000}")
+    public synchronized int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        // 按登錄時間（精確到秒）分組，每組一條 UPDATE ... WHERE id IN (...)
+        Map<LocalDateTime, List<Long>> byTime = new TreeMap<>();
+        Map<Long, LocalDateTime> taken = new HashMap<>();
+        for (Map.Entry<Long, LocalDateTime> entry : pending.entrySet()) {
+            // 只移除取出時的值，期間的新登錄留待下次寫入
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                taken.put(entry.getKey(), entry.getValue());
+                byTime.computeIfAbsent(entry.getValue(), k -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+        try {
+            Integer updated = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Map.Entry<LocalDateTime, List<Long>> group : byTime.entrySet()) {
+                    List<Long> ids = group.getValue();
+                    for (int from = 0; from < ids.size(); from += flushBatchSize) {
+                        count += userRepository.updateLastLoginTime(
+                                ids.subList(from, Math.min(from + flushBatchSize, ids.size())), group.getKey());
+                    }
+                }
+                return count;
+            });
+            return updated != null ? updated : 0;
+        } catch (RuntimeException e) {
+            // 放回待寫集合，保留其中較新的時間
+            taken.forEach((userId, time) -> pending.merge(userId, time,
+                    (previous, current) -> current.isAfter(previous) ? current : previous));
+            System.err.println("最後登錄時間寫入失敗，" + taken.size() + " 條待重試: " + e.getMessage());
+            return 0;
+        }
+    }
+    
+    @Override
+    public int getPendingCount() {
+        return pending.size();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,252 @@
+package com.student.service.impl;
+
+import com.student.dto.LookupItem;
+import com.student.entity.Course;
+import com.student.entity.Student;
+import com.student.service.LookupService;
+import com.student.util.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+public class LookupServiceImpl implements LookupService {
+    
+    private static final int KEY_BATCH_SIZE = 500;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${app.lookup.refresh-interval:10000}")
+    private long refreshIntervalMillis;
+    
+    private final Source students = new Source("學生", "SELECT id, student_number, name FROM students", "students");
+    
+    private final Source courses = new Source("課程", "SELECT id, course_code, name FROM courses", "courses");
+    
+    // 所有加載與更新都在這一個後台線程上串行執行，請求線程只讀取當前表
+    private ScheduledExecutorService refresher;
+    
+    @PostConstruct
+    public void init() {
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lookup-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            poll(students);
+            poll(courses);
+        }, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        CompletableFuture.runAsync(() -> {
+            reload(students);
+            reload(courses);
+        }, refresher).join();
+    }
+    
+    @Override
+    public List<LookupItem> lookupStudents(String query, int limit) {
+        if (!StringUtils.hasText(query)) {
+            return Collections.emptyList();
+        }
+        return students.table.search(query, limit);
+    }
+    
+    @Override
+    public List<LookupItem> lookupCourses(String query, int limit) {
+        if (!StringUtils.hasText(query)) {
+            return Collections.emptyList();
+        }
+        return courses.table.search(query, limit);
+    }
+    
+    @Override
+    public String studentLabel(Long id) {
+        return label(students.table, id);
+    }
+    
+    @Override
+    public String courseLabel(Long id) {
+        return label(courses.table, id);
+    }
+    
+    // 提交後只重新讀取變更的那一行，刪除時該行查不到即從表中移除
+    @Override
+    public void invalidate(Object entity) {
+        if (entity instanceof Student && ((Student) entity).getId() != null) {
+            Long id = ((Student) entity).getId();
+            TransactionUtils.afterCommit(() -> invalidateKey(students, id));
+        } else if (entity instanceof Course && ((Course) entity).getId() != null) {
+            Long id = ((Course) entity).getId();
+            TransactionUtils.afterCommit(() -> invalidateKey(courses, id));
+        }
+    }
+    
+    @Override
+    public void invalidateStudents() {
+        students.reloadRequested.set(true);
+        schedule(students);
+    }
+    
+    private void invalidateKey(Source source, Long id) {
+        source.pendingIds.add(id);
+        schedule(source);
+    }
+    
+    // 短時間內的多次變更合併為一次表重建
+    private void schedule(Source source) {
+        if (source.queued.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                source.queued.set(false);
+                refresh(source);
+            });
+        }
+    }
+    
+    private void refresh(Source source) {
+        if (source.reloadRequested.compareAndSet(true, false)) {
+            reload(source);
+        } else {
+            applyPending(source);
+        }
+    }
+    
+    // 其他節點的寫入按更新時間輪詢同步，從上次同步開始時間再往前一個間隔查起，覆蓋提交晚於寫入時間的事務與時鐘偏差
+    // 其他節點的刪除不會出現在更新時間查詢中，行數與表大小不一致時在後台全量重新加載
+    private void poll(Source source) {
+        LocalDateTime since = source.watermark;
+        if (since == null || source.reloadRequested.compareAndSet(true, false)) {
+            reload(source);
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp from = Timestamp.valueOf(since.minus(refreshIntervalMillis, ChronoUnit.MILLIS));
+        try {
+            Map<Long, LookupItem> rows = new HashMap<>();
+            jdbcTemplate.query(source.selectSql + " WHERE updated_at > ?", rs -> {
+                long id = rs.getLong(1);
+                rows.put(id, new LookupItem(id, rs.getString(2), rs.getString(3)));
+            }, from);
+            if (!rows.isEmpty()) {
+                source.table = source.table.withChanges(rows.keySet(), rows);
+            }
+            applyPending(source);
+            Long count = jdbcTemplate.queryForObject(source.countSql, Long.class);
+            if (count != null && count != source.table.size()) {
+                reload(source);
+                return;
+            }
+            source.watermark = now;
+        } catch (RuntimeException e) {
+            System.err.println("同步" + source.name + "自動完成數據失敗: " + e.getMessage());
+        }
+    }
+    
+    private void applyPending(Source source) {
+        if (source.pendingIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>(source.pendingIds);
+        source.pendingIds.removeAll(ids);
+        try {
+            Map<Long, LookupItem> rows = new HashMap<>();
+            List<Long> batch = new ArrayList<>(ids);
+            for (int from = 0; from < batch.size(); from += KEY_BATCH_SIZE) {
+                List<Long> chunk = batch.subList(from, Math.min(batch.size(), from + KEY_BATCH_SIZE));
+                String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+                jdbcTemplate.query(source.selectSql + " WHERE id IN (" + placeholders + ")", rs -> {
+                    long id = rs.getLong(1);
+                    rows.put(id, new LookupItem(id, rs.getString(2), rs.getString(3)));
+                }, chunk.toArray());
+            }
+            source.table = source.table.withChanges(ids, rows);
+        } catch (RuntimeException e) {
+            // 讀取失敗時放回待更新集合，下次輪詢重試
+            source.pendingIds.addAll(ids);
+            System.err.println("更新" + source.name + "自動完成數據失敗: " + e.getMessage());
+        }
+    }
+    
+    // 加載期間提交的變更已登記在待更新集合中，加載完成後再補上
+    private void reload(Source source) {
+        LocalDateTime loadStart = LocalDateTime.now();
+        source.pendingIds.clear();
+        try {
+            List<LookupItem> items = new ArrayList<>();
+            jdbcTemplate.query(source.selectSql + " ORDER BY id",
+                    rs -> { items.add(new LookupItem(rs.getLong(1), rs.getString(2), rs.getString(3))); });
+            source.table = LookupTable.of(items);
+            source.watermark = loadStart;
+        } catch (RuntimeException e) {
+            // 加載失敗時保留舊表，下次輪詢重試
+            source.reloadRequested.set(true);
+            System.err.println("加載" + source.name + "自動完成數據失敗: " + e.getMessage());
+        }
+    }
+    
+    private String label(LookupTable table, Long id) {
+        if (id == null) {
+            return "";
+        }
+        LookupItem item = table.get(id);
+        return item != null ? item.getLabel() : "";
+    }
+    
+    // 一張自動完成表及其同步狀態，table 與 watermark 只在後台線程上寫入
+    private static class Source {
+        
+        private final String name;
+        
+        private final String selectSql;
+        
+        private final String countSql;
+        
+        private volatile LookupTable table = LookupTable.EMPTY;
+        
+        private volatile LocalDateTime watermark;
+        
+        private final Set<Long> pendingIds = ConcurrentHashMap.newKeySet();
+        
+        private final AtomicBoolean reloadRequested = new AtomicBoolean();
+        
+        private final AtomicBoolean queued = new AtomicBoolean();
+        
+        Source(String name, String selectSql, String tableName) {
+            this.name = name;
+            this.selectSql = selectSql;
+            this.countSql = "SELECT COUNT(*) FROM " + tableName;
+        }
+    }
+}
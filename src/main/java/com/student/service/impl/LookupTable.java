@@ -0,0 +1,141 @@
+package com.student.service.impl;
+
+import com.student.dto.LookupItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+// 不可變的 (編號, 名稱, id) 元組表：按 id 順序存放，另保存按編號、按名稱排序的下標數組，用二分查找做前綴匹配
+class LookupTable {
+    
+    static final LookupTable EMPTY = new LookupTable(new long[0], new String[0], new String[0]);
+    
+    private final long[] ids;
+    
+    private final String[] numbers;
+    
+    private final String[] names;
+    
+    // 小寫排序鍵及其對應的元組下標
+    private final String[] numberKeys;
+    
+    private final int[] numberOrder;
+    
+    private final String[] nameKeys;
+    
+    private final int[] nameOrder;
+    
+    // ids 須為升序
+    LookupTable(long[] ids, String[] numbers, String[] names) {
+        this.ids = ids;
+        this.numbers = numbers;
+        this.names = names;
+        this.numberOrder = sortedOrder(numbers);
+        this.numberKeys = keys(numbers, numberOrder);
+        this.nameOrder = sortedOrder(names);
+        this.nameKeys = keys(names, nameOrder);
+    }
+    
+    // items 須按 id 升序
+    static LookupTable of(List<LookupItem> items) {
+        long[] ids = new long[items.size()];
+        String[] numbers = new String[items.size()];
+        String[] names = new String[items.size()];
+        for (int i = 0; i < ids.length; i++) {
+            LookupItem item = items.get(i);
+            ids[i] = item.getId();
+            numbers[i] = item.getNumber();
+            names[i] = item.getName();
+        }
+        return new LookupTable(ids, numbers, names);
+    }
+    
+    // 替換 keys 對應的元組：rows 中存在的更新或插入，不存在的刪除
+    LookupTable withChanges(Set<Long> keys, Map<Long, LookupItem> rows) {
+        List<LookupItem> items = new ArrayList<>(ids.length + rows.size());
+        for (int i = 0; i < ids.length; i++) {
+            if (!keys.contains(ids[i])) {
+                items.add(item(i));
+            }
+        }
+        items.addAll(rows.values());
+        items.sort(Comparator.comparing(LookupItem::getId));
+        return of(items);
+    }
+    
+    int size() {
+        return ids.length;
+    }
+    
+    LookupItem get(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? item(index) : null;
+    }
+    
+    // 編號前綴匹配優先，其次名稱前綴匹配，按 id 去重
+    List<LookupItem> search(String query, int limit) {
+        String prefix = normalize(query);
+        Map<Long, LookupItem> result = new LinkedHashMap<>();
+        collect(numberKeys, numberOrder, prefix, limit, result);
+        collect(nameKeys, nameOrder, prefix, limit, result);
+        return new ArrayList<>(result.values());
+    }
+    
+    private void collect(String[] keys, int[] order, String prefix, int limit, Map<Long, LookupItem> result) {
+        for (int i = lowerBound(keys, prefix); i < keys.length && result.size() < limit; i++) {
+            if (!keys[i].startsWith(prefix)) {
+                break;
+            }
+            int index = order[i];
+            result.putIfAbsent(ids[index], item(index));
+        }
+    }
+    
+    private LookupItem item(int index) {
+        return new LookupItem(ids[index], numbers[index], names[index]);
+    }
+    
+    private static int lowerBound(String[] keys, String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private static int[] sortedOrder(String[] values) {
+        String[] normalized = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            normalized[i] = normalize(values[i]);
+        }
+        return IntStream.range(0, values.length).boxed()
+                .sorted(Comparator.comparing((Integer i) -> normalized[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+    
+    private static String[] keys(String[] values, int[] order) {
+        String[] keys = new String[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = normalize(values[order[i]]);
+        }
+        return keys;
+    }
+    
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
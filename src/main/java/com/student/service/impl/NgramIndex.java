@@ -0,0 +1,226 @@
+package com.student.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 單個字段的 n-gram 倒排索引：漢字建一元組，所有字符建二元組和三元組，倒排表為有序 id 數組
+class NgramIndex {
+    
+    private final Map<Long, String> documents = new HashMap<>();
+    
+    private final Map<String, Posting> postings = new HashMap<>();
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    void put(Long id, String value) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            String normalized = normalize(value);
+            if (normalized.isEmpty()) {
+                return;
+            }
+            documents.put(id, normalized);
+            for (String gram : grams(normalized)) {
+                postings.computeIfAbsent(gram, k -> new Posting()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 查找包含關鍵字的文檔 id，結果超過 limit 時返回 null（條件不夠選擇性，交由數據庫處理）
+     */
+    Set<Long> search(String keyword, int limit) {
+        String query = normalize(keyword);
+        if (query.isEmpty()) {
+            return null;
+        }
+        
+        lock.readLock().lock();
+        try {
+            int length = query.codePointCount(0, query.length());
+            if (length == 1 && !Character.isIdeographic(query.codePointAt(0))) {
+                return scan(query, limit);
+            }
+            if (length <= 3) {
+                // 一元（漢字）、二元、三元查詢直接命中倒排表，無需校驗
+                Posting posting = postings.get(query);
+                if (posting == null) {
+                    return Collections.emptySet();
+                }
+                return posting.size > limit ? null : posting.toSet();
+            }
+            
+            // 較長的關鍵字：按倒排表長度從短到長求交集，再校驗子串
+            List<Posting> lists = new ArrayList<>();
+            for (String gram : trigrams(query)) {
+                Posting posting = postings.get(gram);
+                if (posting == null) {
+                    return Collections.emptySet();
+                }
+                lists.add(posting);
+            }
+            lists.sort(Comparator.comparingInt(p -> p.size));
+            
+            Set<Long> result = new TreeSet<>();
+            Posting shortest = lists.get(0);
+            for (int i = 0; i < shortest.size; i++) {
+                long id = shortest.ids[i];
+                boolean inAll = true;
+                for (int j = 1; j < lists.size() && inAll; j++) {
+                    inAll = lists.get(j).contains(id);
+                }
+                if (inAll && documents.get(id).contains(query)) {
+                    result.add(id);
+                    if (result.size() > limit) {
+                        return null;
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private Set<Long> scan(String query, int limit) {
+        Set<Long> result = new TreeSet<>();
+        for (Map.Entry<Long, String> entry : documents.entrySet()) {
+            if (entry.getValue().contains(query)) {
+                result.add(entry.getKey());
+                if (result.size() > limit) {
+                    return null;
+                }
+            }
+        }
+        return result;
+    }
+    
+    private void removeInternal(Long id) {
+        String previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : grams(previous)) {
+            Posting posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+    
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    static Set<String> grams(String value) {
+        int[] codePoints = value.codePoints().toArray();
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i < codePoints.length; i++) {
+            if (Character.isIdeographic(codePoints[i])) {
+                grams.add(new String(codePoints, i, 1));
+            }
+            if (i + 2 <= codePoints.length) {
+                grams.add(new String(codePoints, i, 2));
+            }
+            if (i + 3 <= codePoints.length) {
+                grams.add(new String(codePoints, i, 3));
+            }
+        }
+        return grams;
+    }
+    
+    private static Set<String> trigrams(String value) {
+        int[] codePoints = value.codePoints().toArray();
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= codePoints.length; i++) {
+            grams.add(new String(codePoints, i, 3));
+        }
+        return grams;
+    }
+    
+    // 有序 id 數組；按 id 遞增寫入時為追加，重建時幾乎不產生移動
+    private static class Posting {
+        
+        private long[] ids = new long[4];
+        
+        private int size;
+        
+        private void add(long id) {
+            if (size > 0 && ids[size - 1] < id) {
+                ensureCapacity();
+                ids[size++] = id;
+                return;
+            }
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            ensureCapacity();
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+        
+        private void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+        }
+        
+        private boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+        
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+        }
+        
+        private Set<Long> toSet() {
+            Set<Long> result = new TreeSet<>();
+            for (int i = 0; i < size; i++) {
+                result.add(ids[i]);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package com.student.service.impl;
+
+import com.student.dto.QrSession;
+import com.student.entity.Attendance;
+import com.student.entity.QrCheckInSession;
+import com.student.entity.Student;
+import com.student.repository.AttendanceRepository;
+import com.student.repository.CourseRepository;
+import com.student.repository.QrCheckInSessionRepository;
+import com.student.repository.StudentRepository;
+import com.student.service.QrAttendanceService;
+import com.student.service.QrCodeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class QrAttendanceServiceImpl implements QrAttendanceService {
+    
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    
+    // 令牌格式：base64url(sessionId:courseId:epochDay:window).base64url(HMAC)
+    private static final char TOKEN_SEPARATOR = '.';
+    
+    private static final String PAYLOAD_SEPARATOR = ":";
+    
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+    
+    @Autowired
+    private StudentRepository studentRepository;
+    
+    @Autowired
+    private CourseRepository courseRepository;
+    
+    @Autowired
+    private QrCheckInSessionRepository sessionRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private QrCodeService qrCodeService;
+    
+    @Value("${app.qr.secret:}")
+    private String secret;
+    
+    @Value("${app.qr.rotation-seconds:30}")
+    private int rotationSeconds;
+    
+    @Value("${app.qr.late-after-minutes:10}")
+    private long lateAfterMinutes;
+    
+    @Value("${app.qr.buffer-capacity:20000}")
+    private int bufferCapacity;
+    
+    @Value("${app.qr.flush-batch-size:500}")
+    private int flushBatchSize;
+    
+    @Value("${app.qr.flush-interval:200}")
+    private long flushIntervalMillis;
+    
+    private final SecureRandom random = new SecureRandom();
+    
+    // 本節點已加載的會話
+    private final Map<String, QrSession> sessions = new ConcurrentHashMap<>();
+    
+    private SecretKeySpec signingKey;
+    
+    // 有界環形緩衝，寫滿時拒絕新簽到而不是阻塞請求線程
+    private BlockingQueue<PendingCheckIn> buffer;
+    
+    // 落庫使用專用線程，不與其他定時任務共用調度線程，夜間重算等長任務不會拖住簽到高峰的寫入
+    private ScheduledExecutorService flushExecutor;
+    
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes;
+        if (secret == null || secret.trim().isEmpty()) {
+            keyBytes = new byte[32];
+            random.nextBytes(keyBytes);
+            System.out.println("未配置 QR_SECRET，已生成臨時簽名密鑰（多節點部署時其他節點無法校驗本節點的二維碼）");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        signingKey = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "qr-checkin-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // 異常不能拋出執行器，否則後續落庫任務不再執行
+                System.err.println("掃碼簽到落庫失敗: " + e.getMessage());
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public QrSession openSession(Long courseId, Long classId, LocalDate date, Duration validity) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new RuntimeException("課程不存在");
+        }
+        Set<Long> roster = loadRoster(courseId, classId);
+        if (roster.isEmpty()) {
+            throw new RuntimeException(classId != null ? "該班級沒有在讀學生" : "該課程沒有選修的在讀學生，請指定班級");
+        }
+        byte[] idBytes = new byte[12];
+        random.nextBytes(idBytes);
+        Instant now = Instant.now();
+        QrCheckInSession record = new QrCheckInSession();
+        record.setId(ENCODER.encodeToString(idBytes));
+        record.setCourseId(courseId);
+        record.setClassId(classId);
+        record.setDate(date != null ? date : LocalDate.now());
+        record.setStartsAt(LocalDateTime.ofInstant(now, ZoneId.systemDefault()));
+        record.setExpiresAt(LocalDateTime.ofInstant(now.plus(validity), ZoneId.systemDefault()));
+        record.setRotationSeconds(rotationSeconds);
+        sessionRepository.save(record);
+        QrSession session = toSession(record, roster);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+    
+    @Override
+    public Optional<QrSession> findSession(String sessionId) {
+        QrSession session = sessions.get(sessionId);
+        if (session != null) {
+            return Optional.of(session);
+        }
+        Optional<QrCheckInSession> record = sessionRepository.findById(sessionId);
+        if (!record.isPresent() || isPurgeable(record.get())) {
+            return Optional.empty();
+        }
+        QrSession loaded = toSession(record.get(), loadRoster(record.get().getCourseId(), record.get().getClassId()));
+        QrSession existing = sessions.putIfAbsent(sessionId, loaded);
+        return Optional.of(existing != null ? existing : loaded);
+    }
+    
+    // 所有節點開啟的未過期會話；簽到計數為本節點受理的數量
+    @Override
+    public List<QrSession> getActiveSessions() {
+        List<QrSession> result = new ArrayList<>();
+        for (QrCheckInSession record : sessionRepository.findActive(LocalDateTime.now())) {
+            findSession(record.getId()).ifPresent(result::add);
+        }
+        return result;
+    }
+    
+    @Override
+    public void closeSession(String sessionId) {
+        QrSession session = findSession(sessionId)
+                .orElseThrow(() -> new RuntimeException("簽到會話不存在"));
+        transactionTemplate.executeWithoutResult(status -> sessionRepository.close(sessionId));
+        session.close();
+        qrCodeService.evictSession(sessionId);
+        // 關閉時立即落庫，教師隨後查看考勤即可看到完整結果
+        flush();
+    }
+    
+    @Override
+    public String currentToken(QrSession session) {
+        return token(session, session.windowAt(Instant.now()));
+    }
+    
+    @Override
+    public String token(QrSession session, long window) {
+        String payload = String.join(PAYLOAD_SEPARATOR, session.getId(), String.valueOf(session.getCourseId()),
+                String.valueOf(session.getDate().toEpochDay()), String.valueOf(window));
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + TOKEN_SEPARATOR + ENCODER.encodeToString(sign(payloadBytes));
+    }
+    
+    @Override
+    public CheckInResult checkIn(String token, Long studentId, String location) {
+        if (token == null || studentId == null) {
+            return CheckInResult.INVALID;
+        }
+        int separator = token.indexOf(TOKEN_SEPARATOR);
+        if (separator <= 0) {
+            return CheckInResult.INVALID;
+        }
+        
+        byte[] payloadBytes;
+        byte[] signature;
+        try {
+            payloadBytes = DECODER.decode(token.substring(0, separator));
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return CheckInResult.INVALID;
+        }
+        // 先驗簽再解析，常量時間比較避免時序側信道
+        if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+            return CheckInResult.INVALID;
+        }
+        
+        String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split(PAYLOAD_SEPARATOR);
+        if (parts.length != 4) {
+            return CheckInResult.INVALID;
+        }
+        Optional<QrSession> found = findSession(parts[0]);
+        if (!found.isPresent()) {
+            return CheckInResult.EXPIRED;
+        }
+        QrSession session = found.get();
+        
+        Instant now = Instant.now();
+        long window;
+        try {
+            window = Long.parseLong(parts[3]);
+        } catch (NumberFormatException e) {
+            return CheckInResult.INVALID;
+        }
+        // 允許上一個窗口的令牌，覆蓋掃碼與提交之間的延遲
+        long currentWindow = session.windowAt(now);
+        if (!session.isActive(now) || window > currentWindow || window < currentWindow - 1) {
+            return CheckInResult.EXPIRED;
+        }
+        
+        if (!session.isEnrolled(studentId)) {
+            return CheckInResult.NOT_ENROLLED;
+        }
+        if (!session.markCheckedIn(studentId)) {
+            return CheckInResult.DUPLICATE;
+        }
+        LocalDateTime scannedAt = LocalDateTime.ofInstant(now, ZoneId.systemDefault());
+        Attendance.AttendanceStatus status = now.isAfter(session.getStartsAt().plus(Duration.ofMinutes(lateAfterMinutes)))
+                ? Attendance.AttendanceStatus.LATE : Attendance.AttendanceStatus.PRESENT;
+        PendingCheckIn pending = new PendingCheckIn(session.getId(), session.getCourseId(), session.getDate(),
+                studentId, status, scannedAt.toLocalTime(), location);
+        if (!buffer.offer(pending)) {
+            // 緩衝已滿，撤銷去重標記讓客戶端稍後重試
+            session.unmarkCheckedIn(studentId);
+            return CheckInResult.BUSY;
+        }
+        return CheckInResult.ACCEPTED;
+    }
+    
+    // 寫後落庫：專用線程定期把緩衝中的簽到分批寫入，每批一個事務
+    @Override
+    public synchronized int flush() {
+        int written = 0;
+        List<PendingCheckIn> batch = new ArrayList<>(flushBatchSize);
+        while (buffer.drainTo(batch, flushBatchSize) > 0) {
+            written += writeBatch(batch);
+            batch.clear();
+        }
+        purgeExpiredSessions();
+        return written;
+    }
+    
+    @Override
+    public int getPendingCount() {
+        return buffer.size();
+    }
+    
+    @Override
+    @Scheduled(fixedDelayString = "${app.qr.session-sync-interval:5000}")
+    public void syncClosedSessions() {
+        Instant now = Instant.now();
+        List<String> open = new ArrayList<>();
+        sessions.values().forEach(session -> {
+            if (session.isActive(now)) {
+                open.add(session.getId());
+            }
+        });
+        if (open.isEmpty()) {
+            return;
+        }
+        for (String id : sessionRepository.findClosedIds(open)) {
+            QrSession session = sessions.get(id);
+            if (session != null) {
+                session.close();
+                qrCodeService.evictSession(id);
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int written = flush();
+        if (written > 0) {
+            System.out.println("關閉前寫入掃碼簽到 " + written + " 條");
+        }
+    }
+    
+    private int writeBatch(List<PendingCheckIn> batch) {
+        try {
+            Integer written = transactionTemplate.execute(status -> insertCheckIns(batch));
+            return written != null ? written : 0;
+        } catch (RuntimeException e) {
+            // 整批失敗時逐條重試，隔離無法寫入的記錄（如學生已被刪除）
+            System.err.println("掃碼簽到批量寫入失敗，改為逐條寫入: " + e.getMessage());
+            int written = 0;
+            for (PendingCheckIn pending : batch) {
+                try {
+                    Integer count = transactionTemplate.execute(status -> insertCheckIns(List.of(pending)));
+                    written += count != null ? count : 0;
+                } catch (RuntimeException ex) {
+                    System.err.println("丟棄掃碼簽到 session=" + pending.sessionId
+                            + " student=" + pending.studentId + ": " + ex.getMessage());
+                }
+            }
+            return written;
+        }
+    }
+    
+    private int insertCheckIns(List<PendingCheckIn> batch) {
+        // 按課程與日期分組，每組一次查詢跳過已有考勤記錄的學生
+        Map<String, Map<Long, PendingCheckIn>> groups = new LinkedHashMap<>();
+        for (PendingCheckIn pending : batch) {
+            groups.computeIfAbsent(pending.courseId + PAYLOAD_SEPARATOR + pending.date, k -> new LinkedHashMap<>())
+                    .putIfAbsent(pending.studentId, pending);
+        }
+        
+        List<Attendance> inserts = new ArrayList<>();
+        for (Map<Long, PendingCheckIn> group : groups.values()) {
+            PendingCheckIn first = group.values().iterator().next();
+            for (Attendance existing : attendanceRepository.findByCourseIdAndDateAndStudentIdIn(
+                    first.courseId, first.date, group.keySet())) {
+                group.remove(existing.getStudent().getId());
+            }
+            for (PendingCheckIn pending : group.values()) {
+                Attendance attendance = new Attendance();
+                attendance.setStudent(studentRepository.getReferenceById(pending.studentId));
+                attendance.setCourse(courseRepository.getReferenceById(pending.courseId));
+                attendance.setDate(pending.date);
+                attendance.setStatus(pending.status);
+                attendance.setCheckInTime(pending.checkInTime);
+                attendance.setMethod(Attendance.AttendanceMethod.QR_CODE);
+                attendance.setQrCode(pending.sessionId);
+                attendance.setLocation(pending.location);
+                inserts.add(attendance);
+            }
+        }
+        attendanceRepository.saveAll(inserts);
+        return inserts.size();
+    }
+    
+    private void purgeExpiredSessions() {
+        // 過期會話多保留一個輪換窗口，緩衝中的簽到仍可寫入
+        Instant cutoff = Instant.now().minusSeconds(rotationSeconds);
+        sessions.values().removeIf(session -> {
+            if (session.getExpiresAt().isBefore(cutoff)) {
+                qrCodeService.evictSession(session.getId());
+                return true;
+            }
+            return false;
+        });
+    }
+    
+    // 與 purgeExpiredSessions 的保留時間一致，已清出內存的會話不再加載
+    private boolean isPurgeable(QrCheckInSession record) {
+        Instant expiresAt = record.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant();
+        return expiresAt.isBefore(Instant.now().minusSeconds(rotationSeconds));
+    }
+    
+    private Set<Long> loadRoster(Long courseId, Long classId) {
+        List<Long> ids = classId != null
+                ? studentRepository.findIdsByClassIdAndStatus(classId, Student.StudentStatus.ENROLLED)
+                : studentRepository.findIdsEnrolledInCourse(courseId, Student.StudentStatus.ENROLLED);
+        return new HashSet<>(ids);
+    }
+    
+    private QrSession toSession(QrCheckInSession record, Set<Long> roster) {
+        QrSession session = new QrSession(record.getId(), record.getCourseId(), record.getClassId(), record.getDate(),
+                record.getStartsAt().atZone(ZoneId.systemDefault()).toInstant(),
+                record.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant(),
+                record.getRotationSeconds(), roster);
+        if (Boolean.TRUE.equals(record.getClosed())) {
+            session.close();
+        }
+        return session;
+    }
+    
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("簽名失敗: " + e.getMessage(), e);
+        }
+    }
+    
+    // 緩衝中的待寫入簽到
+    private static final class PendingCheckIn {
+        
+        private final String sessionId;
+        
+        private final Long courseId;
+        
+        private final LocalDate date;
+        
+        private final Long studentId;
+        
+        private final Attendance.AttendanceStatus status;
+        
+        private final LocalTime checkInTime;
+        
+        private final String location;
+        
+        private PendingCheckIn(String sessionId, Long courseId, LocalDate date, Long studentId,
+                               Attendance.AttendanceStatus status, LocalTime checkInTime, String location) {
+            this.sessionId = sessionId;
+            this.courseId = courseId;
+            this.date = date;
+            this.studentId = studentId;
+            this.status = status;
+            this.checkInTime = checkInTime;
+            this.location = location;
+        }
+    }
+}
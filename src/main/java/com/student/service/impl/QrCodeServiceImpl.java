@@ -0,0 +1,206 @@
+package com.student.service.impl;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.student.dto.QrImage;
+import com.student.service.QrCodeService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class QrCodeServiceImpl implements QrCodeService {
+    
+    // 磁盤緩存子目錄
+    private static final String SESSION_DIR = "sessions";
+    
+    @Value("${app.qr.path}")
+    private String qrPath;
+    
+    @Value("${app.qr.cache-max-size:16MB}")
+    private DataSize cacheMaxSize;
+    
+    @Value("${app.qr.disk-cache:false}")
+    private boolean diskCache;
+    
+    // 按訪問順序排列的 LRU，容量按 PNG 字節數計算
+    private final LinkedHashMap<String, QrImage> cache = new LinkedHashMap<>(64, 0.75f, true);
+    
+    private long cachedBytes = 0;
+    
+    private final AtomicLong hits = new AtomicLong();
+    
+    private final AtomicLong diskHits = new AtomicLong();
+    
+    private final AtomicLong misses = new AtomicLong();
+    
+    private final AtomicLong evictions = new AtomicLong();
+    
+    @Override
+    public byte[] renderPng(String content, int size) {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+        hints.put(EncodeHintType.MARGIN, 1);
+        try {
+            BitMatrix matrix = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, size, size, hints);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            MatrixToImageWriter.writeToStream(matrix, "PNG", out);
+            return out.toByteArray();
+        } catch (WriterException | IOException e) {
+            throw new RuntimeException("二維碼生成失敗: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public QrImage getSessionImage(String sessionId, long window, int size, String content) {
+        // 內容摘要包含簽到地址與令牌簽名：換了公開地址或簽名密鑰後不會讀到舊圖片
+        String key = sessionId + "-" + window + "-" + size + "-"
+                + digest(content.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        QrImage image = get(key);
+        if (image != null) {
+            hits.incrementAndGet();
+            return image;
+        }
+        
+        // 同一窗口的並發未命中可能各自渲染一次，結果相同，後寫入者覆蓋即可
+        byte[] png = diskCache ? readFromDisk(key) : null;
+        if (png != null) {
+            diskHits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            png = renderPng(content, size);
+            if (diskCache) {
+                writeToDisk(key, png);
+            }
+        }
+        image = new QrImage(png, etagOf(png));
+        put(key, image);
+        return image;
+    }
+    
+    @Override
+    public void evictSession(String sessionId) {
+        String prefix = sessionId + "-";
+        synchronized (cache) {
+            Iterator<Map.Entry<String, QrImage>> iterator = cache.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, QrImage> entry = iterator.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    cachedBytes -= entry.getValue().getSize();
+                    iterator.remove();
+                }
+            }
+        }
+        if (diskCache) {
+            Path dir = Paths.get(qrPath, SESSION_DIR);
+            if (!Files.isDirectory(dir)) {
+                return;
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*.png")) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                System.err.println("清理二維碼緩存文件失敗: " + e.getMessage());
+            }
+        }
+    }
+    
+    @Override
+    public Map<String, Object> getCacheStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        synchronized (cache) {
+            statistics.put("entries", cache.size());
+            statistics.put("bytes", cachedBytes);
+        }
+        statistics.put("maxBytes", cacheMaxSize.toBytes());
+        statistics.put("hits", hits.get());
+        statistics.put("diskHits", diskHits.get());
+        statistics.put("misses", misses.get());
+        statistics.put("evictions", evictions.get());
+        return statistics;
+    }
+    
+    private QrImage get(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+    
+    private void put(String key, QrImage image) {
+        long maxBytes = cacheMaxSize.toBytes();
+        if (image.getSize() > maxBytes) {
+            return;
+        }
+        synchronized (cache) {
+            QrImage previous = cache.put(key, image);
+            if (previous != null) {
+                cachedBytes -= previous.getSize();
+            }
+            cachedBytes += image.getSize();
+            // 從最久未訪問的條目開始淘汰，直到總字節數回到上限內
+            Iterator<QrImage> iterator = cache.values().iterator();
+            while (cachedBytes > maxBytes && iterator.hasNext()) {
+                cachedBytes -= iterator.next().getSize();
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+    
+    private byte[] readFromDisk(String key) {
+        Path file = Paths.get(qrPath, SESSION_DIR, key + ".png");
+        try {
+            return Files.isRegularFile(file) ? Files.readAllBytes(file) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    private void writeToDisk(String key, byte[] png) {
+        try {
+            Path dir = Paths.get(qrPath, SESSION_DIR);
+            Files.createDirectories(dir);
+            // 先寫臨時文件再原子替換，避免其他實例讀到半個文件
+            Path temp = Files.createTempFile(dir, key, ".tmp");
+            Files.write(temp, png);
+            Files.move(temp, dir.resolve(key + ".png"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("寫入二維碼緩存文件失敗: " + e.getMessage());
+        }
+    }
+    
+    // 強 ETag：取 PNG 內容摘要，字節相同則 ETag 相同
+    private String etagOf(byte[] png) {
+        return "\"" + digest(png).substring(0, 22) + "\"";
+    }
+    
+    private String digest(byte[] bytes) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("摘要算法不可用", e);
+        }
+    }
+}
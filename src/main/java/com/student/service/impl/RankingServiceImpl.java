@@ -0,0 +1,268 @@
+package com.student.service.impl;
+
+import com.student.dto.RankPosition;
+import com.student.entity.Grade;
+import com.student.repository.GradeRepository;
+import com.student.repository.StudentAcademicSummaryRepository;
+import com.student.repository.projection.AcademicGradeRow;
+import com.student.repository.projection.AcademicRankRow;
+import com.student.service.RankingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+@Service
+public class RankingServiceImpl implements RankingService {
+    
+    private static final String CLASS_PREFIX = "class:";
+    
+    private static final String GRADE_LEVEL_PREFIX = "grade-level:";
+    
+    private static final String COURSE_PREFIX = "course:";
+    
+    private static final Predicate<String> PLACEMENT_SCOPE =
+            key -> key.startsWith(CLASS_PREFIX) || key.startsWith(GRADE_LEVEL_PREFIX);
+    
+    private static final Predicate<String> COURSE_SCOPE = key -> key.startsWith(COURSE_PREFIX);
+    
+    // 課程分組的成績：只讀計算所需的列
+    private static final String COURSE_SCORE_QUERY =
+            "SELECT student_id, course_id, total_score, academic_year, semester FROM grades WHERE total_score IS NOT NULL";
+    
+    @Autowired
+    private StudentAcademicSummaryRepository summaryRepository;
+    
+    @Autowired
+    private GradeRepository gradeRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${app.ranking.max-score:100}")
+    private double maxScore;
+    
+    @Value("${app.ranking.buckets-per-point:10}")
+    private int bucketsPerPoint;
+    
+    @Value("${app.ranking.refresh-interval:10000}")
+    private long refreshIntervalMillis;
+    
+    private volatile ScoreRankIndex index;
+    
+    // 重建期間提交的變更，新索引替換前重放
+    private List<Consumer<ScoreRankIndex>> pendingChanges;
+    
+    private volatile long loadMillis = 0;
+    
+    private final Object refreshLock = new Object();
+    
+    // 輪詢已處理到的匯總更新時間
+    private volatile LocalDateTime watermark;
+    
+    @Override
+    public Optional<List<RankPosition>> getStudentRanks(Long studentId) {
+        ScoreRankIndex current = index;
+        return current != null ? Optional.of(current.ranksOf(studentId)) : Optional.empty();
+    }
+    
+    @Override
+    public Optional<List<RankPosition>> getTopInClass(Long classId, int limit) {
+        return top(CLASS_PREFIX + classId, limit);
+    }
+    
+    @Override
+    public Optional<List<RankPosition>> getTopInGradeLevel(Integer gradeLevel, int limit) {
+        return top(GRADE_LEVEL_PREFIX + gradeLevel, limit);
+    }
+    
+    @Override
+    public Optional<List<RankPosition>> getTopInCourse(Long courseId, Integer academicYear, Grade.Semester semester, int limit) {
+        return top(courseKey(courseId, academicYear, semester), limit);
+    }
+    
+    private Optional<List<RankPosition>> top(String group, int limit) {
+        ScoreRankIndex current = index;
+        return current != null ? Optional.of(current.top(group, Math.max(1, limit))) : Optional.empty();
+    }
+    
+    // 讀取與應用在同一把鎖內：並發的刷新中後讀到數據的一方後應用，索引不會被較舊的數據覆蓋
+    @Override
+    public void refreshStudents(Collection<Long> studentIds) {
+        if (studentIds.isEmpty() || !loading()) {
+            return;
+        }
+        try {
+            synchronized (refreshLock) {
+                Map<Long, Map<String, Double>> placements = new HashMap<>();
+                for (AcademicRankRow row : summaryRepository.findRankInputs(studentIds)) {
+                    placements.put(row.getStudentId(),
+                            placementScores(row.getClassId(), row.getGradeLevel(), row.getWeightedAverage()));
+                }
+                // 同一學生同一課程學期多條成績取最高分
+                Map<Long, Map<String, Double>> courses = new HashMap<>();
+                for (AcademicGradeRow row : gradeRepository.findAcademicRows(studentIds)) {
+                    if (row.getTotalScore() != null) {
+                        courses.computeIfAbsent(row.getStudentId(), k -> new HashMap<>()).merge(
+                                courseKey(row.getCourseId(), row.getAcademicYear(), row.getSemester()),
+                                row.getTotalScore(), Math::max);
+                    }
+                }
+                // 沒有匯總或成績的學生移出對應分組
+                List<Long> ids = new ArrayList<>(studentIds);
+                apply(target -> ids.forEach(studentId -> {
+                    target.replace(studentId, PLACEMENT_SCOPE, placements.getOrDefault(studentId, Collections.emptyMap()));
+                    target.replace(studentId, COURSE_SCOPE, courses.getOrDefault(studentId, Collections.emptyMap()));
+                }));
+            }
+        } catch (RuntimeException e) {
+            // 下次輪詢或夜間重建時補上
+            System.err.println("排名索引刷新失敗: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public void refreshPlacements() {
+        if (!loading()) {
+            return;
+        }
+        try {
+            synchronized (refreshLock) {
+                Map<Long, Map<String, Double>> placements = new HashMap<>();
+                for (AcademicRankRow row : summaryRepository.findRankInputs()) {
+                    placements.put(row.getStudentId(),
+                            placementScores(row.getClassId(), row.getGradeLevel(), row.getWeightedAverage()));
+                }
+                apply(target -> placements.forEach((studentId, scores) -> target.replace(studentId, PLACEMENT_SCOPE, scores)));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("排名索引分組刷新失敗: " + e.getMessage());
+        }
+    }
+    
+    // 輪詢其他節點重算過的匯總：從上次輪詢開始時間再往前一個間隔查起，覆蓋提交晚於寫入時間的事務與節點間的時鐘偏差
+    @Scheduled(fixedDelayString = "${app.ranking.refresh-interval:10000}")
+    public void refreshChanged() {
+        LocalDateTime since = watermark;
+        if (since == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            refreshStudents(summaryRepository.findUpdatedSince(since.minus(refreshIntervalMillis, ChronoUnit.MILLIS)));
+            watermark = now;
+        } catch (RuntimeException e) {
+            System.err.println("排名索引輪詢失敗: " + e.getMessage());
+        }
+    }
+    
+    // 啟動完成後從數據庫構建，就緒前的排名查詢由調用方回退到預先計算的名次
+    @EventListener(ApplicationReadyEvent.class)
+    @Override
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDateTime loadStart = LocalDateTime.now();
+        // 持有刷新鎖開始記錄：此後的刷新讀到的數據不早於本次載入，替換前重放
+        synchronized (refreshLock) {
+            synchronized (this) {
+                pendingChanges = new ArrayList<>();
+            }
+        }
+        ScoreRankIndex loaded = new ScoreRankIndex(maxScore, bucketsPerPoint);
+        try {
+            for (AcademicRankRow row : summaryRepository.findRankInputs()) {
+                loaded.replace(row.getStudentId(), PLACEMENT_SCOPE,
+                        placementScores(row.getClassId(), row.getGradeLevel(), row.getWeightedAverage()));
+            }
+            // 同一學生同一課程學期多條成績取最高分
+            Map<Long, Map<String, Double>> courseScores = new HashMap<>();
+            jdbcTemplate.query(COURSE_SCORE_QUERY, rs -> {
+                String semester = rs.getString(5);
+                String key = courseKey(rs.getLong(2), (Integer) rs.getObject(4),
+                        semester != null ? Grade.Semester.valueOf(semester) : null);
+                courseScores.computeIfAbsent(rs.getLong(1), k -> new HashMap<>()).merge(key, rs.getDouble(3), Math::max);
+            });
+            courseScores.forEach((studentId, scores) -> loaded.replace(studentId, COURSE_SCOPE, scores));
+        } catch (RuntimeException e) {
+            System.err.println("排名索引重建失敗: " + e.getMessage());
+            synchronized (this) {
+                pendingChanges = null;
+            }
+            return;
+        }
+        swap(loaded, start);
+        if (watermark == null) {
+            watermark = loadStart;
+        }
+        System.out.println("排名索引重建完成: " + loaded.groupCount() + " 個分組，" + loaded.studentCount()
+                + " 名學生，耗時 " + loadMillis + "ms");
+    }
+    
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        ScoreRankIndex current = index;
+        statistics.put("ready", current != null);
+        statistics.put("loadMillis", loadMillis);
+        statistics.put("groups", current != null ? current.groupCount() : 0);
+        statistics.put("students", current != null ? current.studentCount() : 0);
+        return statistics;
+    }
+    
+    private Map<String, Double> placementScores(Long classId, Integer gradeLevel, Double weightedAverage) {
+        Map<String, Double> scores = new HashMap<>();
+        if (weightedAverage != null) {
+            if (classId != null) {
+                scores.put(CLASS_PREFIX + classId, weightedAverage);
+            }
+            if (gradeLevel != null) {
+                scores.put(GRADE_LEVEL_PREFIX + gradeLevel, weightedAverage);
+            }
+        }
+        return scores;
+    }
+    
+    private String courseKey(Long courseId, Integer academicYear, Grade.Semester semester) {
+        return COURSE_PREFIX + courseId + ":" + academicYear + ":" + (semester != null ? semester.name() : "-");
+    }
+    
+    // 正在構建或已就緒時才需要刷新
+    private synchronized boolean loading() {
+        return index != null || pendingChanges != null;
+    }
+    
+    private synchronized void swap(ScoreRankIndex loaded, long start) {
+        if (pendingChanges != null) {
+            pendingChanges.forEach(change -> change.accept(loaded));
+            pendingChanges = null;
+        }
+        index = loaded;
+        loadMillis = System.currentTimeMillis() - start;
+    }
+    
+    private synchronized void apply(Consumer<ScoreRankIndex> change) {
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+        ScoreRankIndex current = index;
+        if (current != null) {
+            change.accept(current);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.student.service.impl;
+
+import com.student.config.CacheConfig;
+import com.student.config.CacheProperties;
+import com.student.entity.CourseSchedule;
+import com.student.service.ReferenceCacheService;
+import com.student.util.TransactionUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+public class ReferenceCacheServiceImpl implements ReferenceCacheService {
+    
+    // 集合角色名稱，用於按角色清除集合緩存
+    private static final String COURSE_SCHEDULES_ROLE = com.student.entity.Course.class.getName() + ".schedules";
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private CacheProperties cacheProperties;
+    
+    @Override
+    public void collectionMemberChanged(Object entity) {
+        // 反向集合不隨子實體更新，且無法得知修改前的所屬課程，因此清除整個角色
+        // 事務提交後再清除，避免併發事務在提交前重新載入舊集合
+        if (entity instanceof CourseSchedule) {
+            TransactionUtils.afterCommit(() -> sessionFactory().getCache().evictCollectionData(COURSE_SCHEDULES_ROLE));
+        }
+    }
+    
+    @Override
+    public void evictAll() {
+        // 包括查詢緩存與時間戳區域
+        sessionFactory().getCache().evictAllRegions();
+    }
+    
+    @Override
+    public Map<String, Map<String, Object>> getStatistics() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        Statistics statistics = sessionFactory().getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return result;
+        }
+        for (String region : CacheConfig.BOUNDED_REGIONS) {
+            CacheRegionStatistics regionStatistics = CacheConfig.QUERY_RESULTS_REGION.equals(region)
+                    ? statistics.getQueryRegionStatistics(region)
+                    : statistics.getDomainDataRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            long hits = regionStatistics.getHitCount();
+            long misses = regionStatistics.getMissCount();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("hits", hits);
+            item.put("misses", misses);
+            item.put("puts", regionStatistics.getPutCount());
+            item.put("hitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+            result.put(region, item);
+        }
+        return result;
+    }
+    
+    // 定期輸出各區域命中率
+    @Scheduled(fixedDelayString = "${app.cache.statistics-log-interval:300000}")
+    public void logStatistics() {
+        if (!cacheProperties.isStatisticsEnabled()) {
+            return;
+        }
+        for (Map.Entry<String, Map<String, Object>> entry : getStatistics().entrySet()) {
+            Map<String, Object> item = entry.getValue();
+            System.out.println(String.format("二級緩存 %s: 命中 %s, 未命中 %s, 寫入 %s, 命中率 %.2f",
+                    entry.getKey(), item.get("hits"), item.get("misses"), item.get("puts"), item.get("hitRatio")));
+        }
+    }
+    
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+}
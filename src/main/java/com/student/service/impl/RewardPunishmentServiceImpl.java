@@ -1,15 +1,21 @@
 package com.student.service.impl;
 
+import com.student.dto.KeysetCursor;
+import com.student.dto.KeysetPage;
 import com.student.entity.RewardPunishment;
 import com.student.repository.RewardPunishmentRepository;
+import com.student.repository.projection.RewardPunishmentListRow;
 import com.student.service.RewardPunishmentService;
+import com.student.service.StatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -23,6 +29,9 @@ public class RewardPunishmentServiceImpl implements RewardPunishmentService {
     @Autowired
     private RewardPunishmentRepository rewardPunishmentRepository;
     
+    @Autowired
+    private StatisticsService statisticsService;
+    
     @Override
     public RewardPunishment saveRewardPunishment(RewardPunishment rewardPunishment) {
         if (rewardPunishment.getId() == null) {
@@ -32,12 +41,30 @@ public class RewardPunishmentServiceImpl implements RewardPunishmentService {
         return rewardPunishmentRepository.save(rewardPunishment);
     }
     
+    @Override
+    public List<RewardPunishment> saveAllRewardPunishments(List<RewardPunishment> rewardPunishments) {
+        LocalDateTime now = LocalDateTime.now();
+        for (RewardPunishment rewardPunishment : rewardPunishments) {
+            if (rewardPunishment.getId() == null) {
+                rewardPunishment.setCreatedAt(now);
+            }
+            rewardPunishment.setUpdatedAt(now);
+        }
+        return rewardPunishmentRepository.saveAll(rewardPunishments);
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public Optional<RewardPunishment> findById(Long id) {
         return rewardPunishmentRepository.findById(id);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<RewardPunishment> findDetailById(Long id) {
+        return rewardPunishmentRepository.findDetailById(id);
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public List<RewardPunishment> findAllRewardPunishments() {
@@ -60,6 +87,43 @@ public class RewardPunishmentServiceImpl implements RewardPunishmentService {
         return rewardPunishmentRepository.findByAdvancedSearch(studentName, title, type, category, status, pageable);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public Page<RewardPunishmentListRow> findListRows(String studentName, String title,
+                                                      RewardPunishment.Type type,
+                                                      RewardPunishment.Category category,
+                                                      RewardPunishment.Status status,
+                                                      Pageable pageable) {
+        studentName = StringUtils.hasText(studentName) ? studentName : null;
+        title = StringUtils.hasText(title) ? title : null;
+        return rewardPunishmentRepository.findListRows(studentName, title, type, category, status, pageable);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<RewardPunishmentListRow> findByKeyset(String studentName, String title,
+                                                            RewardPunishment.Type type,
+                                                            RewardPunishment.Category category,
+                                                            RewardPunishment.Status status,
+                                                            String after, String before, int size) {
+        studentName = StringUtils.hasText(studentName) ? studentName : null;
+        title = StringUtils.hasText(title) ? title : null;
+        KeysetCursor cursor = KeysetCursor.decode(StringUtils.hasText(before) ? before : after);
+        boolean newer = cursor != null && StringUtils.hasText(before);
+        KeysetCursor position = cursor != null ? cursor : KeysetCursor.START;
+        
+        Slice<RewardPunishmentListRow> slice = newer
+                ? rewardPunishmentRepository.findKeysetNewerThan(studentName, title, type, category, status,
+                        position.getCreatedAt(), position.getId(), KeysetCursor.newerPage(size))
+                : rewardPunishmentRepository.findKeysetOlderThan(studentName, title, type, category, status,
+                        position.getCreatedAt(), position.getId(), KeysetCursor.olderPage(size));
+        
+        // 無篩選條件時使用計數器緩存的總數，有篩選時總數未知
+        boolean filtered = studentName != null || title != null || type != null || category != null || status != null;
+        Long approximateTotal = filtered ? null : statisticsService.getTotal(StatisticsService.REWARD_PUNISHMENT);
+        return KeysetPage.of(slice, newer, cursor != null, RewardPunishmentListRow::getCreatedAt, RewardPunishmentListRow::getId, approximateTotal);
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public List<RewardPunishment> findByStudentId(Long studentId) {
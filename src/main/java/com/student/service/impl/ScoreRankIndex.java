@@ -0,0 +1,219 @@
+package com.student.service.impl;
+
+import com.student.dto.RankPosition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+// 分數排名索引：每個分組一個按分數桶計數的樹狀數組（Fenwick tree），名次與百分位查詢 O(log 桶數 + 桶內人數)
+// 桶只用於計數，同一桶內按精確分數比較，名次與學業匯總的競賽排名一致
+class ScoreRankIndex {
+    
+    // 每分的桶數
+    private final int scale;
+    
+    private final int bucketCount;
+    
+    // 分組鍵 -> 分組
+    private final Map<String, Group> groups = new HashMap<>();
+    
+    // 學生 -> 所在分組，更新時據此移出舊分組
+    private final Map<Long, Set<String>> memberships = new HashMap<>();
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    ScoreRankIndex(double maxScore, int scale) {
+        this.scale = scale;
+        this.bucketCount = (int) Math.ceil(maxScore * scale) + 1;
+    }
+    
+    // 替換學生在 scope 範圍內的全部分組分數，不在 scores 中的分組移出
+    void replace(Long studentId, Predicate<String> scope, Map<String, Double> scores) {
+        lock.writeLock().lock();
+        try {
+            Set<String> current = memberships.computeIfAbsent(studentId, k -> new HashSet<>());
+            for (Iterator<String> it = current.iterator(); it.hasNext(); ) {
+                String key = it.next();
+                if (scope.test(key) && !scores.containsKey(key)) {
+                    removeFrom(key, studentId);
+                    it.remove();
+                }
+            }
+            for (Map.Entry<String, Double> entry : scores.entrySet()) {
+                groups.computeIfAbsent(entry.getKey(), k -> new Group()).put(studentId, entry.getValue());
+                current.add(entry.getKey());
+            }
+            if (current.isEmpty()) {
+                memberships.remove(studentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // 學生所在的全部分組的名次，按分組鍵排序
+    List<RankPosition> ranksOf(Long studentId) {
+        lock.readLock().lock();
+        try {
+            Set<String> current = memberships.getOrDefault(studentId, Collections.emptySet());
+            List<RankPosition> positions = new ArrayList<>();
+            for (String key : sorted(current)) {
+                Group target = groups.get(key);
+                positions.add(target.position(key, studentId, target.scores.get(studentId)));
+            }
+            return positions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // 前 N 名：從最高的非空桶向下遍歷，桶內按精確分數排序
+    List<RankPosition> top(String group, int limit) {
+        lock.readLock().lock();
+        try {
+            Group target = groups.get(group);
+            if (target == null) {
+                return Collections.emptyList();
+            }
+            List<RankPosition> positions = new ArrayList<>();
+            for (Map.Entry<Integer, Set<Long>> bucket : target.buckets.descendingMap().entrySet()) {
+                List<Long> students = new ArrayList<>(bucket.getValue());
+                students.sort((a, b) -> {
+                    int byScore = Double.compare(target.scores.get(b), target.scores.get(a));
+                    return byScore != 0 ? byScore : Long.compare(a, b);
+                });
+                for (Long studentId : students) {
+                    if (positions.size() >= limit) {
+                        return positions;
+                    }
+                    positions.add(target.position(group, studentId, target.scores.get(studentId)));
+                }
+            }
+            return positions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    int groupCount() {
+        lock.readLock().lock();
+        try {
+            return groups.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    int studentCount() {
+        lock.readLock().lock();
+        try {
+            return memberships.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private List<String> sorted(Set<String> keys) {
+        List<String> list = new ArrayList<>(keys);
+        Collections.sort(list);
+        return list;
+    }
+    
+    private void removeFrom(String key, Long studentId) {
+        Group group = groups.get(key);
+        if (group != null && group.remove(studentId) && group.scores.isEmpty()) {
+            groups.remove(key);
+        }
+    }
+    
+    private int bucketOf(double score) {
+        int bucket = (int) Math.floor(score * scale + 1e-9);
+        return Math.max(0, Math.min(bucketCount - 1, bucket));
+    }
+    
+    private final class Group {
+        
+        // 樹狀數組，下標從 1 開始，tree[i] 覆蓋以 i 結尾、長度為 lowbit(i) 的桶區間
+        private final int[] tree = new int[bucketCount + 1];
+        
+        private final Map<Long, Double> scores = new HashMap<>();
+        
+        // 非空桶 -> 學生，僅用於前 N 名遍歷
+        private final NavigableMap<Integer, Set<Long>> buckets = new TreeMap<>();
+        
+        private void put(Long studentId, double score) {
+            Double previous = scores.put(studentId, score);
+            if (previous != null) {
+                if (bucketOf(previous) == bucketOf(score)) {
+                    return;
+                }
+                unbucket(studentId, previous);
+            }
+            int bucket = bucketOf(score);
+            add(bucket, 1);
+            buckets.computeIfAbsent(bucket, k -> new HashSet<>()).add(studentId);
+        }
+        
+        private boolean remove(Long studentId) {
+            Double previous = scores.remove(studentId);
+            if (previous == null) {
+                return false;
+            }
+            unbucket(studentId, previous);
+            return true;
+        }
+        
+        private void unbucket(Long studentId, double score) {
+            int bucket = bucketOf(score);
+            add(bucket, -1);
+            Set<Long> students = buckets.get(bucket);
+            students.remove(studentId);
+            if (students.isEmpty()) {
+                buckets.remove(bucket);
+            }
+        }
+        
+        // 名次 = 分數更高的人數 + 1：更高的桶由樹狀數組計數，本桶內逐個比較精確分數
+        private RankPosition position(String key, Long studentId, double score) {
+            int size = scores.size();
+            int bucket = bucketOf(score);
+            int higher = size - prefix(bucket);
+            int atOrBelow = prefix(bucket - 1);
+            for (Long other : buckets.get(bucket)) {
+                if (scores.get(other) > score) {
+                    higher++;
+                } else {
+                    atOrBelow++;
+                }
+            }
+            double percentile = Math.round(atOrBelow * 10000.0 / size) / 100.0;
+            return new RankPosition(key, studentId, score, higher + 1, size, percentile);
+        }
+        
+        private void add(int bucket, int delta) {
+            for (int i = bucket + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+        
+        // 桶 0..bucket 的人數，bucket 為 -1 時為 0
+        private int prefix(int bucket) {
+            int sum = 0;
+            for (int i = bucket + 1; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+    }
+}
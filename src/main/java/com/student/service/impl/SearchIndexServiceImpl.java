@@ -0,0 +1,321 @@
+package com.student.service.impl;
+
+import com.student.entity.Course;
+import com.student.entity.Student;
+import com.student.entity.Teacher;
+import com.student.service.SearchIndexService;
+import com.student.util.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+public class SearchIndexServiceImpl implements SearchIndexService {
+    
+    // 各字段的加載語句，按 id 升序讀取使倒排表以追加方式構建
+    private static final Map<String, String> FIELD_QUERIES = new LinkedHashMap<>();
+    
+    static {
+        FIELD_QUERIES.put(STUDENT_NAME, "SELECT id, name FROM students ORDER BY id");
+        FIELD_QUERIES.put(STUDENT_NUMBER, "SELECT id, student_number FROM students ORDER BY id");
+        FIELD_QUERIES.put(TEACHER_NAME, "SELECT id, name FROM teachers ORDER BY id");
+        FIELD_QUERIES.put(TEACHER_NUMBER, "SELECT id, teacher_number FROM teachers ORDER BY id");
+        FIELD_QUERIES.put(COURSE_NAME, "SELECT id, name FROM courses ORDER BY id");
+        FIELD_QUERIES.put(COURSE_CODE, "SELECT id, course_code FROM courses ORDER BY id");
+        FIELD_QUERIES.put(CLASS_NAME, "SELECT id, name FROM classes ORDER BY id");
+        FIELD_QUERIES.put(CLASS_CODE, "SELECT id, code FROM classes ORDER BY id");
+    }
+    
+    // 按更新時間增量同步的語句，各列依次對應 fields 中的字段
+    private static final List<ChangeQuery> CHANGE_QUERIES = Arrays.asList(
+            new ChangeQuery("SELECT id, name, student_number FROM students WHERE updated_at > ?",
+                    STUDENT_NAME, STUDENT_NUMBER),
+            new ChangeQuery("SELECT id, name, teacher_number FROM teachers WHERE updated_at > ?",
+                    TEACHER_NAME, TEACHER_NUMBER),
+            new ChangeQuery("SELECT id, name, course_code FROM courses WHERE updated_at > ?",
+                    COURSE_NAME, COURSE_CODE),
+            new ChangeQuery("SELECT id, name, code FROM classes WHERE updated_at > ?",
+                    CLASS_NAME, CLASS_CODE));
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${app.search.max-matches:1000}")
+    private int maxMatches;
+    
+    @Value("${app.search.rebuild-threads:4}")
+    private int rebuildThreads;
+    
+    @Value("${app.search.reconcile-interval:10000}")
+    private long reconcileIntervalMillis;
+    
+    // 已就緒的字段索引
+    private final Map<String, NgramIndex> indexes = new ConcurrentHashMap<>();
+    
+    // 正在重建的字段及重建期間提交的變更，新索引替換前重放
+    private final Map<String, List<Change>> pendingChanges = new ConcurrentHashMap<>();
+    
+    // 已同步到的更新時間，全量重建完成前為空
+    private volatile LocalDateTime watermark;
+    
+    // 最近一次與數據庫同步成功的時間
+    private volatile long reconciledAt;
+    
+    @Override
+    public Optional<Set<Long>> findIds(String keyword, String... fields) {
+        if (!StringUtils.hasText(keyword) || stale()) {
+            return Optional.empty();
+        }
+        Set<Long> result = new TreeSet<>();
+        for (String field : fields) {
+            NgramIndex index = indexes.get(field);
+            if (index == null) {
+                return Optional.empty();
+            }
+            Set<Long> ids = index.search(keyword, maxMatches);
+            if (ids == null) {
+                return Optional.empty();
+            }
+            result.addAll(ids);
+            if (result.size() > maxMatches) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(result);
+    }
+    
+    @Override
+    public Optional<Set<Long>> findIds(Map<String, String> criteria) {
+        Set<Long> result = null;
+        for (Map.Entry<String, String> entry : criteria.entrySet()) {
+            if (!StringUtils.hasText(entry.getValue())) {
+                continue;
+            }
+            Optional<Set<Long>> ids = findIds(entry.getValue(), entry.getKey());
+            if (!ids.isPresent()) {
+                return Optional.empty();
+            }
+            if (result == null) {
+                result = new TreeSet<>(ids.get());
+            } else {
+                result.retainAll(ids.get());
+            }
+        }
+        return Optional.ofNullable(result);
+    }
+    
+    @Override
+    public void index(Object entity) {
+        Long id = idOf(entity);
+        if (id == null) {
+            return;
+        }
+        Map<String, String> values = valuesOf(entity);
+        TransactionUtils.afterCommit(() -> values.forEach((field, value) -> apply(new Change(field, id, value))));
+    }
+    
+    @Override
+    public void remove(Object entity) {
+        Long id = idOf(entity);
+        if (id == null) {
+            return;
+        }
+        Set<String> fields = valuesOf(entity).keySet();
+        TransactionUtils.afterCommit(() -> fields.forEach(field -> apply(new Change(field, id, null))));
+    }
+    
+    // 啟動完成後並行重建，就緒前的查詢回退到數據庫
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+    
+    // 本節點的寫入由監聽器在提交後更新，其他節點的寫入靠按更新時間輪詢同步
+    // 從上次同步開始時間再往前一個間隔查起，覆蓋提交晚於寫入時間的事務與節點間的時鐘偏差
+    // 其他節點刪除的行不會被同步，留在索引中的 id 由調用方按 id 查庫時自然過濾
+    @Scheduled(fixedDelayString = "${app.search.reconcile-interval:10000}")
+    public void reconcile() {
+        LocalDateTime since = watermark;
+        if (since == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp from = Timestamp.valueOf(since.minus(reconcileIntervalMillis, ChronoUnit.MILLIS));
+        try {
+            for (ChangeQuery query : CHANGE_QUERIES) {
+                jdbcTemplate.query(query.sql, rs -> {
+                    long id = rs.getLong(1);
+                    for (int i = 0; i < query.fields.length; i++) {
+                        apply(new Change(query.fields[i], id, rs.getString(i + 2)));
+                    }
+                }, from);
+            }
+            watermark = now;
+            reconciledAt = System.currentTimeMillis();
+        } catch (RuntimeException e) {
+            System.err.println("搜索索引同步失敗: " + e.getMessage());
+        }
+    }
+    
+    // 連續多個間隔未能同步時，索引可能缺少其他節點的寫入
+    private boolean stale() {
+        return System.currentTimeMillis() - reconciledAt > 3 * reconcileIntervalMillis;
+    }
+    
+    @Override
+    public void rebuild(String... fields) {
+        List<String> targets = fields.length == 0
+                ? new ArrayList<>(FIELD_QUERIES.keySet()) : Arrays.asList(fields);
+        long start = System.currentTimeMillis();
+        LocalDateTime loadStart = LocalDateTime.now();
+        
+        synchronized (this) {
+            for (String field : targets) {
+                pendingChanges.putIfAbsent(field, new ArrayList<>());
+            }
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(rebuildThreads, targets.size())));
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (String field : targets) {
+                futures.add(CompletableFuture.runAsync(() -> swap(field, load(field)), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            // 全量重建後從載入開始時間繼續同步
+            if (fields.length == 0) {
+                watermark = loadStart;
+                reconciledAt = start;
+            }
+        } catch (RuntimeException e) {
+            System.err.println("搜索索引重建失敗: " + e.getMessage());
+            synchronized (this) {
+                targets.forEach(pendingChanges::remove);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        
+        System.out.println("搜索索引重建完成: " + targets.size() + " 個字段，耗時 "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+    
+    private NgramIndex load(String field) {
+        NgramIndex index = new NgramIndex();
+        jdbcTemplate.query(FIELD_QUERIES.get(field), rs -> {
+            index.put(rs.getLong(1), rs.getString(2));
+        });
+        return index;
+    }
+    
+    private synchronized void swap(String field, NgramIndex index) {
+        List<Change> changes = pendingChanges.remove(field);
+        if (changes != null) {
+            changes.forEach(change -> change.applyTo(index));
+        }
+        indexes.put(field, index);
+    }
+    
+    private synchronized void apply(Change change) {
+        List<Change> changes = pendingChanges.get(change.field);
+        if (changes != null) {
+            changes.add(change);
+        }
+        NgramIndex index = indexes.get(change.field);
+        if (index != null) {
+            change.applyTo(index);
+        }
+    }
+    
+    private Long idOf(Object entity) {
+        if (entity instanceof Student) {
+            return ((Student) entity).getId();
+        } else if (entity instanceof Teacher) {
+            return ((Teacher) entity).getId();
+        } else if (entity instanceof Course) {
+            return ((Course) entity).getId();
+        } else if (entity instanceof com.student.entity.Class) {
+            return ((com.student.entity.Class) entity).getId();
+        }
+        return null;
+    }
+    
+    private Map<String, String> valuesOf(Object entity) {
+        Map<String, String> values = new LinkedHashMap<>();
+        if (entity instanceof Student) {
+            Student student = (Student) entity;
+            values.put(STUDENT_NAME, student.getName());
+            values.put(STUDENT_NUMBER, student.getStudentNumber());
+        } else if (entity instanceof Teacher) {
+            Teacher teacher = (Teacher) entity;
+            values.put(TEACHER_NAME, teacher.getName());
+            values.put(TEACHER_NUMBER, teacher.getTeacherNumber());
+        } else if (entity instanceof Course) {
+            Course course = (Course) entity;
+            values.put(COURSE_NAME, course.getName());
+            values.put(COURSE_CODE, course.getCourseCode());
+        } else if (entity instanceof com.student.entity.Class) {
+            com.student.entity.Class classInfo = (com.student.entity.Class) entity;
+            values.put(CLASS_NAME, classInfo.getName());
+            values.put(CLASS_CODE, classInfo.getCode());
+        }
+        return values;
+    }
+    
+    private static final class ChangeQuery {
+        
+        private final String sql;
+        
+        private final String[] fields;
+        
+        private ChangeQuery(String sql, String... fields) {
+            this.sql = sql;
+            this.fields = fields;
+        }
+    }
+    
+    // 單個字段的增量變更，value 為 null 表示刪除
+    private static class Change {
+        
+        private final String field;
+        
+        private final Long id;
+        
+        private final String value;
+        
+        private Change(String field, Long id, String value) {
+            this.field = field;
+            this.id = id;
+            this.value = value;
+        }
+        
+        private void applyTo(NgramIndex index) {
+            if (value == null) {
+                index.remove(id);
+            } else {
+                index.put(id, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.student.service.impl;
+
+import com.student.entity.Attendance;
+import com.student.entity.Course;
+import com.student.entity.Grade;
+import com.student.entity.RewardPunishment;
+import com.student.entity.Student;
+import com.student.entity.Teacher;
+import com.student.repository.AttendanceRepository;
+import com.student.repository.ClassRepository;
+import com.student.repository.CourseRepository;
+import com.student.repository.GradeRepository;
+import com.student.repository.RewardPunishmentRepository;
+import com.student.repository.StudentRepository;
+import com.student.repository.TeacherRepository;
+import com.student.repository.projection.GroupCount;
+import com.student.service.StatisticsService;
+import com.student.util.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+@Service
+public class StatisticsServiceImpl implements StatisticsService {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private RewardPunishmentRepository rewardPunishmentRepository;
+
+    // 各實體總數
+    private final Map<String, AtomicLong> totals = new ConcurrentHashMap<>();
+
+    // 各維度計數，鍵為 "實體.維度"
+    private final Map<String, Map<String, AtomicLong>> dimensionCounters = new ConcurrentHashMap<>();
+
+    // 各維度的枚舉值，用於按聲明順序輸出分佈
+    private final Map<String, Enum<?>[]> dimensionValues = new ConcurrentHashMap<>();
+
+    private volatile boolean initialized = false;
+
+    private volatile boolean dirty = false;
+
+    @Override
+    public long getTotal(String entity) {
+        ensureInitialized();
+        AtomicLong counter = totals.get(entity);
+        return counter != null ? counter.get() : 0L;
+    }
+
+    @Override
+    public long getCount(String entity, String dimension, Enum<?> value) {
+        ensureInitialized();
+        Map<String, AtomicLong> counters = dimensionCounters.get(key(entity, dimension));
+        if (counters == null || value == null) {
+            return 0L;
+        }
+        AtomicLong counter = counters.get(value.name());
+        return counter != null ? counter.get() : 0L;
+    }
+
+    @Override
+    public Map<String, Long> getDistribution(String entity, String dimension) {
+        ensureInitialized();
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        Map<String, AtomicLong> counters = dimensionCounters.get(key(entity, dimension));
+        Enum<?>[] values = dimensionValues.get(key(entity, dimension));
+        if (counters == null || values == null) {
+            return distribution;
+        }
+        for (Enum<?> value : values) {
+            AtomicLong counter = counters.get(value.name());
+            distribution.put(value.name(), counter != null ? counter.get() : 0L);
+        }
+        return distribution;
+    }
+
+    @Override
+    public void recordCreated(Object entity) {
+        String entityKey = entityKey(entity);
+        if (entityKey == null) {
+            return;
+        }
+        Map<String, Enum<?>> state = dimensionsOf(entity);
+        TransactionUtils.afterCommit(() -> {
+            increment(totals, entityKey, 1);
+            applyDimensions(entityKey, state, 1);
+        });
+    }
+
+    @Override
+    public void recordUpdated(Object entity) {
+        String entityKey = entityKey(entity);
+        if (entityKey == null) {
+            return;
+        }
+        Map<String, Enum<?>> previous = loadedDimensionsOf(entity);
+        Map<String, Enum<?>> current = dimensionsOf(entity);
+        if (previous == null) {
+            // 未知舊值，下次讀取時重新對賬
+            dirty = true;
+            return;
+        }
+        if (!previous.equals(current)) {
+            TransactionUtils.afterCommit(() -> {
+                applyDimensions(entityKey, previous, -1);
+                applyDimensions(entityKey, current, 1);
+            });
+        }
+    }
+
+    @Override
+    public void recordDeleted(Object entity) {
+        String entityKey = entityKey(entity);
+        if (entityKey == null) {
+            return;
+        }
+        Map<String, Enum<?>> state = loadedDimensionsOf(entity);
+        Map<String, Enum<?>> removed = state != null ? state : dimensionsOf(entity);
+        TransactionUtils.afterCommit(() -> {
+            increment(totals, entityKey, -1);
+            applyDimensions(entityKey, removed, -1);
+        });
+    }
+
+    // 定期與 COUNT(*) 對賬，修正回滾、批量語句等監聽器無法感知的變化
+    @Override
+    @Scheduled(fixedDelayString = "${app.statistics.reconcile-interval:300000}")
+    @Transactional(readOnly = true)
+    public synchronized void reconcile() {
+        dirty = false;
+
+        setTotal(STUDENT, studentRepository.count());
+        reconcileDimension(STUDENT, STATUS, Student.StudentStatus.values(), studentRepository.countGroupByStatus());
+        reconcileDimension(STUDENT, GENDER, Student.Gender.values(), studentRepository.countGroupByGender());
+
+        setTotal(TEACHER, teacherRepository.count());
+        reconcileDimension(TEACHER, STATUS, Teacher.TeacherStatus.values(), teacherRepository::countByStatus);
+
+        setTotal(CLASS, classRepository.count());
+        reconcileDimension(CLASS, STATUS, com.student.entity.Class.ClassStatus.values(), classRepository::countByStatus);
+
+        setTotal(COURSE, courseRepository.count());
+        reconcileDimension(COURSE, STATUS, Course.CourseStatus.values(), courseRepository::countByStatus);
+        reconcileDimension(COURSE, TYPE, Course.CourseType.values(), courseRepository::countByType);
+
+        setTotal(GRADE, gradeRepository.count());
+        reconcileDimension(GRADE, TYPE, Grade.GradeType.values(), gradeRepository.countGroupByType());
+
+        setTotal(ATTENDANCE, attendanceRepository.count());
+        reconcileDimension(ATTENDANCE, STATUS, Attendance.AttendanceStatus.values(), attendanceRepository.countGroupByStatus());
+
+        setTotal(REWARD_PUNISHMENT, rewardPunishmentRepository.count());
+        reconcileDimension(REWARD_PUNISHMENT, TYPE, RewardPunishment.Type.values(), rewardPunishmentRepository.countGroupByType());
+        reconcileDimension(REWARD_PUNISHMENT, CATEGORY, RewardPunishment.Category.values(), rewardPunishmentRepository.countGroupByCategory());
+        reconcileDimension(REWARD_PUNISHMENT, STATUS, RewardPunishment.Status.values(), rewardPunishmentRepository.countGroupByStatus());
+
+        initialized = true;
+    }
+
+    private void ensureInitialized() {
+        if (!initialized || dirty) {
+            reconcile();
+        }
+    }
+
+    private void setTotal(String entity, long count) {
+        totals.computeIfAbsent(entity, k -> new AtomicLong()).set(count);
+    }
+
+    private <E extends Enum<E>> void reconcileDimension(String entity, String dimension, E[] values,
+                                                        Function<E, ? extends Number> counter) {
+        String dimensionKey = key(entity, dimension);
+        Map<String, AtomicLong> counters = dimensionCounters.computeIfAbsent(dimensionKey, k -> new ConcurrentHashMap<>());
+        dimensionValues.put(dimensionKey, values);
+        for (E value : values) {
+            Number count = counter.apply(value);
+            counters.computeIfAbsent(value.name(), k -> new AtomicLong()).set(count != null ? count.longValue() : 0L);
+        }
+    }
+
+    // 使用單次 GROUP BY 查詢結果對賬，未出現的枚舉值計為 0
+    private <E extends Enum<E>> void reconcileDimension(String entity, String dimension, E[] values,
+                                                        List<GroupCount<E>> rows) {
+        Map<E, Long> counts = new HashMap<>();
+        for (GroupCount<E> row : rows) {
+            counts.put(row.getLabel(), row.getTotal());
+        }
+        reconcileDimension(entity, dimension, values, counts::get);
+    }
+
+    private void applyDimensions(String entity, Map<String, Enum<?>> state, long delta) {
+        for (Map.Entry<String, Enum<?>> entry : state.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            Map<String, AtomicLong> counters = dimensionCounters.computeIfAbsent(
+                    key(entity, entry.getKey()), k -> new ConcurrentHashMap<>());
+            increment(counters, entry.getValue().name(), delta);
+        }
+    }
+
+    private void increment(Map<String, AtomicLong> counters, String name, long delta) {
+        // 尚未初始化時由首次對賬統計，避免重複計數
+        if (!initialized) {
+            return;
+        }
+        counters.computeIfAbsent(name, k -> new AtomicLong()).addAndGet(delta);
+    }
+
+    private String key(String entity, String dimension) {
+        return entity + "." + dimension;
+    }
+
+    private String entityKey(Object entity) {
+        if (entity instanceof Student) {
+            return STUDENT;
+        } else if (entity instanceof Teacher) {
+            return TEACHER;
+        } else if (entity instanceof com.student.entity.Class) {
+            return CLASS;
+        } else if (entity instanceof Course) {
+            return COURSE;
+        } else if (entity instanceof Grade) {
+            return GRADE;
+        } else if (entity instanceof Attendance) {
+            return ATTENDANCE;
+        } else if (entity instanceof RewardPunishment) {
+            return REWARD_PUNISHMENT;
+        }
+        return null;
+    }
+
+    private Map<String, Enum<?>> dimensionsOf(Object entity) {
+        Map<String, Enum<?>> state = new LinkedHashMap<>();
+        if (entity instanceof Student) {
+            Student student = (Student) entity;
+            state.put(STATUS, student.getStatus());
+            state.put(GENDER, student.getGender());
+        } else if (entity instanceof Teacher) {
+            state.put(STATUS, ((Teacher) entity).getStatus());
+        } else if (entity instanceof com.student.entity.Class) {
+            state.put(STATUS, ((com.student.entity.Class) entity).getStatus());
+        } else if (entity instanceof Course) {
+            Course course = (Course) entity;
+            state.put(STATUS, course.getStatus());
+            state.put(TYPE, course.getType());
+        } else if (entity instanceof Grade) {
+            state.put(TYPE, ((Grade) entity).getType());
+        } else if (entity instanceof Attendance) {
+            state.put(STATUS, ((Attendance) entity).getStatus());
+        } else if (entity instanceof RewardPunishment) {
+            RewardPunishment rewardPunishment = (RewardPunishment) entity;
+            state.put(TYPE, rewardPunishment.getType());
+            state.put(CATEGORY, rewardPunishment.getCategory());
+            state.put(STATUS, rewardPunishment.getStatus());
+        }
+        return state;
+    }
+    
+    // 實體加載或上次寫入時記錄的維度，新建後尚未寫入的實體返回 null
+    private Map<String, Enum<?>> loadedDimensionsOf(Object entity) {
+        Map<String, Enum<?>> state = new LinkedHashMap<>();
+        if (entity instanceof Student) {
+            Student student = (Student) entity;
+            state.put(STATUS, student.getLoadedStatus());
+            state.put(GENDER, student.getLoadedGender());
+        } else if (entity instanceof Teacher) {
+            state.put(STATUS, ((Teacher) entity).getLoadedStatus());
+        } else if (entity instanceof com.student.entity.Class) {
+            state.put(STATUS, ((com.student.entity.Class) entity).getLoadedStatus());
+        } else if (entity instanceof Course) {
+            Course course = (Course) entity;
+            state.put(STATUS, course.getLoadedStatus());
+            state.put(TYPE, course.getLoadedType());
+        } else if (entity instanceof Grade) {
+            state.put(TYPE, ((Grade) entity).getLoadedType());
+        } else if (entity instanceof Attendance) {
+            state.put(STATUS, ((Attendance) entity).getLoadedStatus());
+        } else if (entity instanceof RewardPunishment) {
+            RewardPunishment rewardPunishment = (RewardPunishment) entity;
+            state.put(TYPE, rewardPunishment.getLoadedType());
+            state.put(CATEGORY, rewardPunishment.getLoadedCategory());
+            state.put(STATUS, rewardPunishment.getLoadedStatus());
+        }
+        // 各維度均為非空列，任一為空說明尚未記錄
+        return state.containsValue(null) ? null : state;
+    }
+}
@@ -1,30 +1,72 @@
 package com.student.service.impl;
 
+import com.student.dto.KeysetCursor;
+import com.student.dto.KeysetPage;
+import com.student.dto.StudentImportResult;
 import com.student.entity.Student;
 import com.student.repository.StudentRepository;
+import com.student.repository.projection.GroupCount;
+import com.student.repository.projection.StudentCrossTabRow;
+import com.student.repository.projection.StudentListRow;
+import com.student.service.LookupService;
+import com.student.service.SearchIndexService;
+import com.student.service.StatisticsService;
 import com.student.service.StudentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.ArrayList;
 
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import java.io.ByteArrayOutputStream;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 
 @Service
 @Transactional
@@ -33,9 +75,47 @@ public class StudentServiceImpl implements StudentService {
     @Autowired
     private StudentRepository studentRepository;
     
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
+    @Autowired
+    private LookupService lookupService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
     @Value("${app.upload.path}")
     private String uploadPath;
     
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${app.import.batch-size:500}")
+    private int importBatchSize;
+    
+    @Value("${app.export.batch-size:1000}")
+    private int exportBatchSize;
+    
+    // SXSSF 在內存中保留的行數
+    private static final int EXPORT_ROW_WINDOW = 100;
+    
+    // 導入導出耗時，按 mode 區分整本讀寫（workbook）與流式處理（streaming）
+    private static final String IMPORT_TIMER = "student.import";
+    private static final String EXPORT_TIMER = "student.export";
+    
+    private static final String IMPORT_INSERT_SQL =
+            "INSERT INTO students (id, student_number, name, gender, birth_date, id_number, phone, email, address, " +
+            "status, enrollment_date, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
     @Override
     public Student saveStudent(Student student) {
         // 驗證學號唯一性
@@ -57,6 +137,12 @@ public class StudentServiceImpl implements StudentService {
         return studentRepository.findById(id);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Student> findDetailById(Long id) {
+        return studentRepository.findWithClassById(id);
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public Optional<Student> findByStudentNumber(String studentNumber) {
@@ -119,6 +205,11 @@ public class StudentServiceImpl implements StudentService {
     @Override
     @Transactional(readOnly = true)
     public List<Student> findByKeyword(String keyword) {
+        Optional<Set<Long>> ids = searchIndexService.findIds(keyword,
+                SearchIndexService.STUDENT_NAME, SearchIndexService.STUDENT_NUMBER);
+        if (ids.isPresent()) {
+            return studentRepository.findAllById(ids.get());
+        }
         return studentRepository.findByKeyword(keyword);
     }
     
@@ -137,12 +228,20 @@ public class StudentServiceImpl implements StudentService {
     @Override
     @Transactional(readOnly = true)
     public Page<Student> findByNameContaining(String name, Pageable pageable) {
+        Optional<Set<Long>> ids = searchIndexService.findIds(name, SearchIndexService.STUDENT_NAME);
+        if (ids.isPresent()) {
+            return findByIdIn(ids.get(), pageable);
+        }
         return studentRepository.findByNameContaining(name, pageable);
     }
     
     @Override
     @Transactional(readOnly = true)
     public Page<Student> findByStudentNumberContaining(String studentNumber, Pageable pageable) {
+        Optional<Set<Long>> ids = searchIndexService.findIds(studentNumber, SearchIndexService.STUDENT_NUMBER);
+        if (ids.isPresent()) {
+            return findByIdIn(ids.get(), pageable);
+        }
         return studentRepository.findByStudentNumberContaining(studentNumber, pageable);
     }
     
@@ -180,9 +279,64 @@ public class StudentServiceImpl implements StudentService {
     @Transactional(readOnly = true)
     public Page<Student> findByAdvancedSearch(String name, String studentNumber, Long classId, 
                                              Student.StudentStatus status, Student.Gender gender, Pageable pageable) {
+        // 姓名、學號條件先由搜索索引解析為 id，再按主鍵讀取
+        Map<String, String> criteria = new LinkedHashMap<>();
+        criteria.put(SearchIndexService.STUDENT_NAME, name);
+        criteria.put(SearchIndexService.STUDENT_NUMBER, studentNumber);
+        Optional<Set<Long>> ids = searchIndexService.findIds(criteria);
+        if (ids.isPresent()) {
+            if (ids.get().isEmpty()) {
+                return Page.empty(pageable);
+            }
+            return studentRepository.findByIdsAndFilters(ids.get(), classId, status, gender, pageable);
+        }
         return studentRepository.findByAdvancedSearch(name, studentNumber, classId, status, gender, pageable);
     }
     
+    private Page<Student> findByIdIn(Set<Long> ids, Pageable pageable) {
+        return ids.isEmpty() ? Page.empty(pageable) : studentRepository.findByIdIn(ids, pageable);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Page<StudentListRow> findListRows(String name, String studentNumber, Long classId,
+                                             Student.StudentStatus status, Student.Gender gender, Pageable pageable) {
+        name = StringUtils.hasText(name) ? name : null;
+        studentNumber = StringUtils.hasText(studentNumber) ? studentNumber : null;
+        Map<String, String> criteria = new LinkedHashMap<>();
+        criteria.put(SearchIndexService.STUDENT_NAME, name);
+        criteria.put(SearchIndexService.STUDENT_NUMBER, studentNumber);
+        Optional<Set<Long>> ids = searchIndexService.findIds(criteria);
+        if (ids.isPresent()) {
+            return ids.get().isEmpty() ? Page.empty(pageable)
+                    : studentRepository.findListRowsByIds(ids.get(), classId, status, gender, pageable);
+        }
+        return studentRepository.findListRows(name, studentNumber, classId, status, gender, pageable);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<StudentListRow> findByKeyset(String name, String studentNumber, Long classId,
+                                                   Student.StudentStatus status, Student.Gender gender,
+                                                   String after, String before, int size) {
+        name = StringUtils.hasText(name) ? name : null;
+        studentNumber = StringUtils.hasText(studentNumber) ? studentNumber : null;
+        KeysetCursor cursor = KeysetCursor.decode(StringUtils.hasText(before) ? before : after);
+        boolean newer = cursor != null && StringUtils.hasText(before);
+        KeysetCursor position = cursor != null ? cursor : KeysetCursor.START;
+        
+        Slice<StudentListRow> slice = newer
+                ? studentRepository.findKeysetNewerThan(name, studentNumber, classId, status, gender,
+                        position.getCreatedAt(), position.getId(), KeysetCursor.newerPage(size))
+                : studentRepository.findKeysetOlderThan(name, studentNumber, classId, status, gender,
+                        position.getCreatedAt(), position.getId(), KeysetCursor.olderPage(size));
+        
+        // 無篩選條件時使用計數器緩存的總數，有篩選時總數未知
+        boolean filtered = name != null || studentNumber != null || classId != null || status != null || gender != null;
+        Long approximateTotal = filtered ? null : statisticsService.getTotal(StatisticsService.STUDENT);
+        return KeysetPage.of(slice, newer, cursor != null, StudentListRow::getCreatedAt, StudentListRow::getId, approximateTotal);
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public Long countByStatus(Student.StudentStatus status) {
@@ -201,12 +355,64 @@ public class StudentServiceImpl implements StudentService {
         return Long.valueOf(studentRepository.findByClassInfoId(classId).size());
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Long> countByClassIds(Collection<Long> classIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (classIds.isEmpty()) {
+            return counts;
+        }
+        for (Long classId : classIds) {
+            counts.put(classId, 0L);
+        }
+        for (GroupCount<Long> row : studentRepository.countGroupByClassIdIn(classIds)) {
+            counts.put(row.getLabel(), row.getTotal());
+        }
+        return counts;
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public Long countByGrade(Integer grade) {
         return Long.valueOf(studentRepository.findByGrade(grade).size());
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Student.StudentStatus, Long> countGroupByStatus() {
+        Map<Student.StudentStatus, Long> counts = new EnumMap<>(Student.StudentStatus.class);
+        for (Student.StudentStatus status : Student.StudentStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (GroupCount<Student.StudentStatus> row : studentRepository.countGroupByStatus()) {
+            if (row.getLabel() != null) {
+                counts.put(row.getLabel(), row.getTotal());
+            }
+        }
+        return counts;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Student.Gender, Long> countGroupByGender() {
+        Map<Student.Gender, Long> counts = new EnumMap<>(Student.Gender.class);
+        for (Student.Gender gender : Student.Gender.values()) {
+            counts.put(gender, 0L);
+        }
+        for (GroupCount<Student.Gender> row : studentRepository.countGroupByGender()) {
+            if (row.getLabel() != null) {
+                counts.put(row.getLabel(), row.getTotal());
+            }
+        }
+        return counts;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<StudentCrossTabRow> countCrossTabByClassStatusGender() {
+        return studentRepository.countCrossTabByClassStatusGender();
+    }
+    
     @Override
     public Student enrollStudent(Student student) {
         student.setStatus(Student.StudentStatus.ENROLLED);
@@ -322,6 +528,10 @@ public class StudentServiceImpl implements StudentService {
     
     @Override
     public List<Student> importStudentsFromExcel(MultipartFile file) {
+        return meterRegistry.timer(IMPORT_TIMER, "mode", "workbook").record(() -> readWorkbook(file));
+    }
+    
+    private List<Student> readWorkbook(MultipartFile file) {
         List<Student> students = new ArrayList<>();
         
         try (Workbook workbook = WorkbookFactory.create(file.getInputStream())) {
@@ -404,78 +614,352 @@ public class StudentServiceImpl implements StudentService {
     }
     
     @Override
-    public byte[] exportStudentsToExcel(List<Student> students) {
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("學生信息");
-            
-            // 創建標題行
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"學號", "姓名", "性別", "出生日期", "身份證號", "電話", "郵箱", "地址", "班級", "狀態", "入學日期"};
-            
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                
-                // 設置標題樣式
-                CellStyle headerStyle = workbook.createCellStyle();
-                Font headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerStyle.setFont(headerFont);
-                cell.setCellStyle(headerStyle);
-            }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StudentImportResult importStudentsFromExcelStreaming(MultipartFile file) {
+        return meterRegistry.timer(IMPORT_TIMER, "mode", "streaming").record(() -> importSheet(file));
+    }
+    
+    private StudentImportResult importSheet(MultipartFile file) {
+        StudentImportResult result = new StudentImportResult();
+        Set<String> seenStudentNumbers = new HashSet<>();
+        Set<String> seenIdNumbers = new HashSet<>();
+        List<ImportRow> chunk = new ArrayList<>(importBatchSize);
+        
+        Path tempFile = null;
+        try {
+            // 落盤後以只讀方式打開，避免整個文件讀入內存
+            tempFile = Files.createTempFile("student-import-", ".xlsx");
+            file.transferTo(tempFile);
             
-            // 填充數據
-            for (int i = 0; i < students.size(); i++) {
-                Student student = students.get(i);
-                Row row = sheet.createRow(i + 1);
+            try (OPCPackage pkg = OPCPackage.open(tempFile.toFile(), PackageAccess.READ)) {
+                XSSFReader reader = new XSSFReader(pkg);
+                ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+                StylesTable styles = reader.getStylesTable();
                 
-                row.createCell(0).setCellValue(student.getStudentNumber() != null ? student.getStudentNumber() : "");
-                row.createCell(1).setCellValue(student.getName() != null ? student.getName() : "");
-                row.createCell(2).setCellValue(student.getGender() != null ? 
-                    (student.getGender() == Student.Gender.MALE ? "男" : "女") : "");
+                StudentSheetHandler handler = new StudentSheetHandler((rowNumber, values) -> {
+                    result.setTotalRows(result.getTotalRows() + 1);
+                    Student student = toImportStudent(values);
+                    String error = validateImportRow(student, values);
+                    if (error == null && !seenStudentNumbers.add(student.getStudentNumber())) {
+                        error = "學號在文件中重複";
+                    }
+                    if (error == null && !seenIdNumbers.add(student.getIdNumber())) {
+                        error = "身份證號在文件中重複";
+                    }
+                    if (error != null) {
+                        result.addError(rowNumber, values[0], error);
+                        return;
+                    }
+                    chunk.add(new ImportRow(rowNumber, student));
+                    if (chunk.size() >= importBatchSize) {
+                        flushImportChunk(chunk, result);
+                    }
+                });
                 
-                if (student.getBirthDate() != null) {
-                    CellStyle dateStyle = workbook.createCellStyle();
-                    CreationHelper createHelper = workbook.getCreationHelper();
-                    dateStyle.setDataFormat(createHelper.createDataFormat().getFormat("yyyy-mm-dd"));
-                    Cell dateCell = row.createCell(3);
-                    dateCell.setCellValue(student.getBirthDate());
-                    dateCell.setCellStyle(dateStyle);
-                } else {
-                    row.createCell(3).setCellValue("");
+                Iterator<InputStream> sheets = reader.getSheetsData();
+                if (!sheets.hasNext()) {
+                    throw new RuntimeException("Excel文件中沒有工作表");
                 }
-                
-                row.createCell(4).setCellValue(student.getIdNumber() != null ? student.getIdNumber() : "");
-                row.createCell(5).setCellValue(student.getPhone() != null ? student.getPhone() : "");
-                row.createCell(6).setCellValue(student.getEmail() != null ? student.getEmail() : "");
-                row.createCell(7).setCellValue(student.getAddress() != null ? student.getAddress() : "");
-                row.createCell(8).setCellValue(student.getClassInfo() != null ? student.getClassInfo().getName() : "");
-                row.createCell(9).setCellValue(student.getStatus() != null ? student.getStatus().getDisplayName() : "");
-                
-                if (student.getEnrollmentDate() != null) {
-                    CellStyle dateStyle = workbook.createCellStyle();
-                    CreationHelper createHelper = workbook.getCreationHelper();
-                    dateStyle.setDataFormat(createHelper.createDataFormat().getFormat("yyyy-mm-dd"));
-                    Cell dateCell = row.createCell(10);
-                    dateCell.setCellValue(student.getEnrollmentDate());
-                    dateCell.setCellStyle(dateStyle);
-                } else {
-                    row.createCell(10).setCellValue("");
+                try (InputStream sheet = sheets.next()) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, sharedStrings, handler,
+                            new StudentSheetHandler.ImportDataFormatter(), false));
+                    parser.parse(new InputSource(sheet));
                 }
+                flushImportChunk(chunk, result);
             }
-            
-            // 自動調整列寬
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+        } catch (Exception e) {
+            throw new RuntimeException("Excel導入失敗: " + e.getMessage(), e);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignored) {
+                    // 臨時文件刪除失敗不影響導入結果
+                }
+            }
+            // JDBC 批量插入不經過實體監聽器，導入後重新對賬計數、重建學生搜索索引和自動完成數據
+            if (result.getImportedCount() > 0) {
+                statisticsService.reconcile();
+                searchIndexService.rebuild(SearchIndexService.STUDENT_NAME, SearchIndexService.STUDENT_NUMBER);
+                lookupService.invalidateStudents();
+            }
+        }
+        
+        return result;
+    }
+    
+    // 按批次檢查唯一性並批量插入，每批一個事務
+    private void flushImportChunk(List<ImportRow> chunk, StudentImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        
+        Set<String> studentNumbers = new HashSet<>();
+        Set<String> idNumbers = new HashSet<>();
+        for (ImportRow row : chunk) {
+            studentNumbers.add(row.student.getStudentNumber());
+            idNumbers.add(row.student.getIdNumber());
+        }
+        Set<String> existingStudentNumbers = new HashSet<>(studentRepository.findExistingStudentNumbers(studentNumbers));
+        Set<String> existingIdNumbers = new HashSet<>(studentRepository.findExistingIdNumbers(idNumbers));
+        
+        List<ImportRow> inserts = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (existingStudentNumbers.contains(row.student.getStudentNumber())) {
+                result.addError(row.rowNumber, row.student.getStudentNumber(), "學號已存在");
+            } else if (existingIdNumbers.contains(row.student.getIdNumber())) {
+                result.addError(row.rowNumber, row.student.getStudentNumber(), "身份證號已存在");
+            } else {
+                inserts.add(row);
+            }
+        }
+        chunk.clear();
+        
+        if (inserts.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertStudents(inserts));
+            result.setImportedCount(result.getImportedCount() + inserts.size());
+        } catch (DataAccessException e) {
+            // 整批失敗時逐行重試，定位出錯的行
+            for (ImportRow row : inserts) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertStudents(Collections.singletonList(row)));
+                    result.setImportedCount(result.getImportedCount() + 1);
+                } catch (DataAccessException rowError) {
+                    result.addError(row.rowNumber, row.student.getStudentNumber(),
+                            "保存失敗: " + rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+    
+    private void insertStudents(List<ImportRow> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        // 主鍵不再自增，與實體共用 students_seq 的 pooled-lo 分配器
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator idGenerator = session.getFactory().getMetamodel()
+                .entityPersister(Student.class).getIdentifierGenerator();
+        for (ImportRow row : rows) {
+            row.student.setId((Long) idGenerator.generate(session, row.student));
+        }
+        jdbcTemplate.batchUpdate(IMPORT_INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            Student student = row.student;
+            ps.setLong(1, student.getId());
+            ps.setString(2, student.getStudentNumber());
+            ps.setString(3, student.getName());
+            ps.setString(4, student.getGender().name());
+            ps.setObject(5, student.getBirthDate());
+            ps.setString(6, student.getIdNumber());
+            ps.setString(7, student.getPhone());
+            ps.setString(8, student.getEmail());
+            ps.setString(9, student.getAddress());
+            ps.setString(10, student.getStatus().name());
+            ps.setObject(11, student.getEnrollmentDate());
+            ps.setObject(12, now);
+            ps.setObject(13, now);
+        });
+    }
+    
+    private Student toImportStudent(String[] values) {
+        Student student = new Student();
+        student.setStudentNumber(emptyToNull(values[0]));
+        student.setName(emptyToNull(values[1]));
+        if ("男".equals(values[2])) {
+            student.setGender(Student.Gender.MALE);
+        } else if ("女".equals(values[2])) {
+            student.setGender(Student.Gender.FEMALE);
+        }
+        if (values[3] != null && !values[3].isEmpty()) {
+            try {
+                student.setBirthDate(LocalDate.parse(values[3]));
+            } catch (DateTimeParseException e) {
+                // 由 validateImportRow 報告格式錯誤
+            }
+        }
+        student.setIdNumber(emptyToNull(values[4]));
+        student.setPhone(emptyToNull(values[5]));
+        student.setEmail(emptyToNull(values[6]));
+        student.setAddress(emptyToNull(values[7]));
+        
+        // 設置默認值
+        student.setStatus(Student.StudentStatus.ENROLLED);
+        student.setEnrollmentDate(LocalDate.now());
+        return student;
+    }
+    
+    // 輔助方法：驗證導入行，返回錯誤信息，通過時返回 null
+    private String validateImportRow(Student student, String[] values) {
+        if (student.getStudentNumber() == null) {
+            return "學號不能為空";
+        }
+        if (!validateStudentNumber(student.getStudentNumber())) {
+            return "學號格式不正確";
+        }
+        if (student.getName() == null) {
+            return "姓名不能為空";
+        }
+        if (student.getGender() == null) {
+            return "性別必須為「男」或「女」";
+        }
+        if (student.getBirthDate() == null) {
+            return values[3] == null || values[3].isEmpty() ? "出生日期不能為空" : "出生日期格式不正確";
+        }
+        if (!validateIdNumber(student.getIdNumber())) {
+            return "身份證號格式不正確";
+        }
+        if (!validatePhone(student.getPhone())) {
+            return "電話格式不正確";
+        }
+        if (student.getEmail() != null && !validateEmail(student.getEmail())) {
+            return "郵箱格式不正確";
+        }
+        return null;
+    }
+    
+    private String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+    
+    private static class ImportRow {
+        
+        private final int rowNumber;
+        
+        private final Student student;
+        
+        private ImportRow(int rowNumber, Student student) {
+            this.rowNumber = rowNumber;
+            this.student = student;
+        }
+    }
+    
+    @Override
+    public byte[] exportStudentsToExcel(List<Student> students) {
+        return meterRegistry.timer(EXPORT_TIMER, "mode", "workbook").record(() -> writeWorkbook(students));
+    }
+    
+    private byte[] writeWorkbook(List<Student> students) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXPORT_ROW_WINDOW);
+        try {
+            StudentSheetWriter writer = new StudentSheetWriter(workbook);
+            for (Student student : students) {
+                writer.writeRow(student);
             }
             
             // 轉換為字節數組
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             workbook.write(outputStream);
             return outputStream.toByteArray();
+        
+        } catch (Exception e) {
+            throw new RuntimeException("Excel導出失敗: " + e.getMessage(), e);
+        } finally {
+            workbook.dispose();
+        }
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public void exportStudentsToExcel(String name, String studentNumber, Long classId,
+                                      Student.StudentStatus status, Student.Gender gender, OutputStream outputStream) {
+        meterRegistry.timer(EXPORT_TIMER, "mode", "streaming").record(() ->
+                writeChunks(name, studentNumber, classId, status, gender, outputStream));
+    }
+    
+    private void writeChunks(String name, String studentNumber, Long classId,
+                             Student.StudentStatus status, Student.Gender gender, OutputStream outputStream) {
+        // 只在內存中保留固定行數，其餘行寫入臨時文件
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXPORT_ROW_WINDOW);
+        try {
+            StudentSheetWriter writer = new StudentSheetWriter(workbook);
             
+            // 按 id 鍵集分批讀取，每批寫完後清空持久化上下文
+            Long lastId = 0L;
+            List<Student> chunk;
+            do {
+                chunk = studentRepository.findExportChunk(name, studentNumber, classId, status, gender,
+                        lastId, PageRequest.of(0, exportBatchSize));
+                for (Student student : chunk) {
+                    writer.writeRow(student);
+                }
+                if (!chunk.isEmpty()) {
+                    lastId = chunk.get(chunk.size() - 1).getId();
+                }
+                entityManager.clear();
+            } while (chunk.size() == exportBatchSize);
+            
+            workbook.write(outputStream);
+            outputStream.flush();
+        
         } catch (Exception e) {
             throw new RuntimeException("Excel導出失敗: " + e.getMessage(), e);
+        } finally {
+            workbook.dispose();
+        }
+    }
+    
+    // 學生工作表寫入器：樣式只創建一次，列寬固定，不使用 autoSizeColumn
+    private static class StudentSheetWriter {
+        
+        private static final String[] HEADERS = {"學號", "姓名", "性別", "出生日期", "身份證號", "電話", "郵箱", "地址", "班級", "狀態", "入學日期"};
+        
+        private static final int[] COLUMN_WIDTHS = {12, 12, 6, 12, 22, 14, 26, 30, 16, 8, 12};
+        
+        private final Sheet sheet;
+        
+        private final CellStyle dateStyle;
+        
+        private int rowIndex = 0;
+        
+        private StudentSheetWriter(Workbook workbook) {
+            sheet = workbook.createSheet("學生信息");
+            
+            // 設置標題樣式
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+            
+            dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+            
+            // 創建標題行
+            Row headerRow = sheet.createRow(rowIndex++);
+            for (int i = 0; i < HEADERS.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(HEADERS[i]);
+                cell.setCellStyle(headerStyle);
+                sheet.setColumnWidth(i, COLUMN_WIDTHS[i] * 256);
+            }
+        }
+        
+        private void writeRow(Student student) {
+            Row row = sheet.createRow(rowIndex++);
+            
+            row.createCell(0).setCellValue(student.getStudentNumber() != null ? student.getStudentNumber() : "");
+            row.createCell(1).setCellValue(student.getName() != null ? student.getName() : "");
+            row.createCell(2).setCellValue(student.getGender() != null ? 
+                (student.getGender() == Student.Gender.MALE ? "男" : "女") : "");
+            writeDate(row, 3, student.getBirthDate());
+            row.createCell(4).setCellValue(student.getIdNumber() != null ? student.getIdNumber() : "");
+            row.createCell(5).setCellValue(student.getPhone() != null ? student.getPhone() : "");
+            row.createCell(6).setCellValue(student.getEmail() != null ? student.getEmail() : "");
+            row.createCell(7).setCellValue(student.getAddress() != null ? student.getAddress() : "");
+            row.createCell(8).setCellValue(student.getClassInfo() != null ? student.getClassInfo().getName() : "");
+            row.createCell(9).setCellValue(student.getStatus() != null ? student.getStatus().getDisplayName() : "");
+            writeDate(row, 10, student.getEnrollmentDate());
+        }
+        
+        private void writeDate(Row row, int column, LocalDate date) {
+            Cell cell = row.createCell(column);
+            if (date != null) {
+                cell.setCellValue(date);
+                cell.setCellStyle(dateStyle);
+            } else {
+                cell.setCellValue("");
+            }
         }
     }
     
@@ -0,0 +1,76 @@
+package com.student.service.impl;
+
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+
+import java.util.function.BiConsumer;
+
+// 學生導入的 SAX 行處理器：逐行回調，不在內存中保留整個工作簿
+class StudentSheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+    
+    static final int COLUMN_COUNT = 8;
+    
+    private final BiConsumer<Integer, String[]> rowConsumer;
+    
+    private String[] values;
+    
+    private int rowNumber;
+    
+    StudentSheetHandler(BiConsumer<Integer, String[]> rowConsumer) {
+        this.rowConsumer = rowConsumer;
+    }
+    
+    @Override
+    public void startRow(int rowNum) {
+        rowNumber = rowNum;
+        values = new String[COLUMN_COUNT];
+    }
+    
+    @Override
+    public void endRow(int rowNum) {
+        // 跳過標題行和空行
+        if (rowNum == 0 || isBlank(values)) {
+            return;
+        }
+        // 回調行號與 Excel 中顯示的行號一致
+        rowConsumer.accept(rowNumber + 1, values);
+    }
+    
+    @Override
+    public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+        if (cellReference == null || formattedValue == null) {
+            return;
+        }
+        int column = new CellReference(cellReference).getCol();
+        if (column < COLUMN_COUNT) {
+            values[column] = formattedValue.trim();
+        }
+    }
+    
+    private boolean isBlank(String[] row) {
+        for (String value : row) {
+            if (value != null && !value.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // 日期輸出為 yyyy-MM-dd，整數不使用科學計數法，與 getCellStringValue 的結果一致
+    static class ImportDataFormatter extends DataFormatter {
+        
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing).toLocalDate().toString();
+            }
+            if (value == Math.rint(value) && !Double.isInfinite(value)) {
+                return String.valueOf((long) value);
+            }
+            return super.formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.student.service.impl;
 
 import com.student.entity.Teacher;
 import com.student.repository.TeacherRepository;
+import com.student.service.SearchIndexService;
 import com.student.service.TeacherService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -16,6 +17,7 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -24,6 +26,9 @@ public class TeacherServiceImpl implements TeacherService {
     @Autowired
     private TeacherRepository teacherRepository;
     
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
     @Override
     public Teacher saveTeacher(Teacher teacher) {
         if (teacher.getId() == null) {
@@ -51,14 +56,26 @@ public class TeacherServiceImpl implements TeacherService {
     @Override
     public Page<Teacher> findByAdvancedSearch(String name, String teacherNumber, String department, Pageable pageable) {
         if (name != null && !name.trim().isEmpty()) {
+            Optional<Set<Long>> ids = searchIndexService.findIds(name, SearchIndexService.TEACHER_NAME);
+            if (ids.isPresent()) {
+                return findByIdIn(ids.get(), pageable);
+            }
             return teacherRepository.findByNameContaining(name, pageable);
         } else if (teacherNumber != null && !teacherNumber.trim().isEmpty()) {
+            Optional<Set<Long>> ids = searchIndexService.findIds(teacherNumber, SearchIndexService.TEACHER_NUMBER);
+            if (ids.isPresent()) {
+                return findByIdIn(ids.get(), pageable);
+            }
             return teacherRepository.findByTeacherNumberContaining(teacherNumber, pageable);
         } else {
             return teacherRepository.findAll(pageable);
         }
     }
     
+    private Page<Teacher> findByIdIn(Set<Long> ids, Pageable pageable) {
+        return ids.isEmpty() ? Page.empty(pageable) : teacherRepository.findByIdIn(ids, pageable);
+    }
+    
     @Override
     public void deleteTeacher(Long id) {
         teacherRepository.deleteById(id);
@@ -2,6 +2,7 @@ package com.student.service.impl;
 
 import com.student.entity.User;
 import com.student.repository.UserRepository;
+import com.student.service.JwtTokenService;
 import com.student.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -26,14 +27,16 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private JwtTokenService jwtTokenService;
+    
+    // 認證路徑只讀：最後登錄時間由 LoginActivityService 在認證成功後異步批量寫入
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         Optional<User> userOpt = userRepository.findByUsername(username);
         if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            // 更新最後登錄時間
-            updateLastLoginTime(user.getId());
-            return user;
+            return userOpt.get();
         }
         throw new UsernameNotFoundException("用戶不存在: " + username);
     }
@@ -50,6 +53,8 @@ public class UserServiceImpl implements UserService {
             throw new RuntimeException("郵箱已存在");
         }
         
+        // 狀態或角色可能已變化，本節點下一個令牌請求重新複核
+        jwtTokenService.evictUser(user.getId());
         return userRepository.save(user);
     }
     
@@ -86,6 +91,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        jwtTokenService.evictUser(id);
     }
     
     @Override
@@ -172,6 +178,16 @@ public class UserServiceImpl implements UserService {
         throw new RuntimeException("用戶不存在");
     }
     
+    // 登錄時的重新哈希：只寫密碼列，不經過 saveUser 的唯一性校驗
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordByUsername(user.getUsername(), newPassword);
+        if (user instanceof User) {
+            ((User) user).setPassword(newPassword);
+        }
+        return user;
+    }
+    
     @Override
     public User updateStatus(Long userId, User.Status status) {
         Optional<User> userOpt = findById(userId);
@@ -0,0 +1,26 @@
+package com.student.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// 事務相關的輔助方法
+public final class TransactionUtils {
+    
+    private TransactionUtils() {
+    }
+    
+    // 有事務時在提交後執行，回滾則不執行；無事務時立即執行
+    // 實體監聽器用它維護內存索引、計數與緩存，避免未提交或已回滾的寫入被看到
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
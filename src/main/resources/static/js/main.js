@@ -7,6 +7,7 @@ document.addEventListener('DOMContentLoaded', function() {
     initializeFormValidation();
     initializeTableFeatures();
     initializeNotifications();
+    initializeLookups();
 });
 
 // 初始化Bootstrap工具提示
@@ -142,6 +143,69 @@ function initializeNotifications() {
     });
 }
 
+// 初始化自動完成輸入框：按輸入內容從 /api/lookup 加載候選項，選中後寫入隱藏的 id 字段
+function initializeLookups() {
+    document.querySelectorAll('input[data-lookup-url]').forEach(input => {
+        const target = document.getElementById(input.dataset.lookupTarget);
+        const menu = document.createElement('div');
+        menu.className = 'dropdown-menu w-100';
+        menu.style.cssText = 'max-height: 300px; overflow-y: auto;';
+        input.parentNode.insertBefore(menu, input.nextSibling);
+        let selectedLabel = input.value;
+        
+        // 只有從候選項中選中的值才算有效
+        const syncValidity = () => {
+            input.setCustomValidity(target.value && input.value === selectedLabel ? '' : '請從候選項中選擇');
+        };
+        
+        const choose = item => {
+            target.value = item.id;
+            input.value = selectedLabel = item.label;
+            syncValidity();
+            menu.classList.remove('show');
+        };
+        
+        const search = debounce(async function() {
+            const query = input.value.trim();
+            if (!query) {
+                menu.classList.remove('show');
+                return;
+            }
+            const items = await makeRequest(`${input.dataset.lookupUrl}?q=${encodeURIComponent(query)}`);
+            // 忽略過期的響應
+            if (query !== input.value.trim()) {
+                return;
+            }
+            menu.innerHTML = '';
+            items.forEach(item => {
+                const option = document.createElement('button');
+                option.type = 'button';
+                option.className = 'dropdown-item';
+                option.textContent = item.label;
+                option.addEventListener('mousedown', e => {
+                    e.preventDefault();
+                    choose(item);
+                });
+                menu.appendChild(option);
+            });
+            if (items.length === 0) {
+                menu.innerHTML = '<span class="dropdown-item-text text-muted">無匹配結果</span>';
+            }
+            menu.classList.add('show');
+        }, 250);
+        
+        input.addEventListener('input', () => {
+            if (input.value !== selectedLabel) {
+                target.value = '';
+            }
+            syncValidity();
+            search();
+        });
+        input.addEventListener('blur', () => menu.classList.remove('show'));
+        syncValidity();
+    });
+}
+
 // 顯示加載動畫
 function showLoading(element) {
     const originalText = element.textContent;
@@ -0,0 +1,183 @@
+package com.student.config.session;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 共享會話過濾器：登錄換 ID、註銷失效走完整的安全過濾鏈；跨節點與過期清理用兩個共用同一存儲的過濾器模擬兩個節點
+@SpringBootTest
+@AutoConfigureMockMvc
+class SharedSessionFilterTest {
+    
+    private static final String COOKIE_NAME = "SESSION";
+    
+    // 與默認配置相同：30 分鐘超時，訪問時間 60 秒內的寫入合併
+    private static final int TIMEOUT_SECONDS = 1800;
+    
+    private static final long TOUCH_INTERVAL_MILLIS = 60000;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private SessionStore store;
+    
+    @Test
+    void loginRotatesSessionId() throws Exception {
+        Cookie anonymous = openLoginPage();
+        
+        MvcResult login = mockMvc.perform(post("/login").cookie(anonymous).with(csrf())
+                        .param("username", "admin").param("password", "admin123"))
+                .andExpect(redirectedUrl("/dashboard"))
+                .andReturn();
+        Cookie authenticated = login.getResponse().getCookie(COOKIE_NAME);
+        
+        // 會話固定防護：換 ID 而不是新建會話，舊 ID 不再可用
+        assertThat(authenticated).isNotNull();
+        assertThat(authenticated.getValue()).isNotEqualTo(anonymous.getValue());
+        assertThat(store.load(anonymous.getValue())).isNull();
+        assertThat(store.load(authenticated.getValue())).isNotNull();
+        
+        mockMvc.perform(get("/dashboard").cookie(authenticated))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/dashboard").cookie(anonymous))
+                .andExpect(redirectedUrlPattern("**/login"));
+    }
+    
+    @Test
+    void logoutInvalidatesSession() throws Exception {
+        Cookie session = login();
+        
+        MvcResult logout = mockMvc.perform(post("/logout").cookie(session).with(csrf()))
+                .andExpect(redirectedUrl("/login?logout=true"))
+                .andReturn();
+        
+        // Cookie 被清除，存儲中的會話被刪除，舊 Cookie 不再帶登錄狀態
+        Cookie cleared = logout.getResponse().getCookie(COOKIE_NAME);
+        assertThat(cleared).isNotNull();
+        assertThat(cleared.getMaxAge()).isZero();
+        assertThat(store.load(session.getValue())).isNull();
+        mockMvc.perform(get("/dashboard").cookie(session))
+                .andExpect(redirectedUrlPattern("**/login"));
+    }
+    
+    @Test
+    void otherNodeReadsAttributesAfterCoalescedWrite() throws Exception {
+        SharedSessionFilter nodeA = newNode();
+        SharedSessionFilter nodeB = newNode();
+        
+        Cookie cookie = perform(nodeA, null, request -> request.getSession().setAttribute("course", "math"))
+                .getCookie(COOKIE_NAME);
+        long storedAccessTime = store.load(cookie.getValue()).getLastAccessedTime();
+        
+        // 合併間隔內只寫變化的屬性，不更新會話行
+        perform(nodeA, cookie, request -> request.getSession().setAttribute("page", 2));
+        assertThat(store.load(cookie.getValue()).getLastAccessedTime()).isEqualTo(storedAccessTime);
+        
+        perform(nodeB, cookie, request -> {
+            HttpSession session = request.getSession(false);
+            assertThat(session).isNotNull();
+            assertThat(session.getAttribute("course")).isEqualTo("math");
+            assertThat(session.getAttribute("page")).isEqualTo(2);
+        });
+        
+        // 兩個節點各改一個屬性，後提交的一方不會用舊值覆蓋另一方的修改
+        HttpSession[] sessions = new HttpSession[2];
+        MockHttpServletRequest requestA = sessionRequest(cookie);
+        MockHttpServletRequest requestB = sessionRequest(cookie);
+        nodeA.doFilter(requestA, new MockHttpServletResponse(), (req, res) -> {
+            sessions[0] = ((HttpServletRequest) req).getSession(false);
+            nodeB.doFilter(requestB, new MockHttpServletResponse(), (reqB, resB) -> {
+                sessions[1] = ((HttpServletRequest) reqB).getSession(false);
+                sessions[1].setAttribute("page", 3);
+            });
+            sessions[0].setAttribute("course", "physics");
+        });
+        perform(nodeB, cookie, request -> {
+            HttpSession session = request.getSession(false);
+            assertThat(session.getAttribute("course")).isEqualTo("physics");
+            assertThat(session.getAttribute("page")).isEqualTo(3);
+        });
+    }
+    
+    @Test
+    void expiredSessionsAreIgnoredAndCleanedUp() throws Exception {
+        SharedSessionFilter node = newNode();
+        Cookie expiring = perform(node, null, request -> {
+            HttpSession session = request.getSession();
+            session.setMaxInactiveInterval(1);
+            session.setAttribute("course", "math");
+        }).getCookie(COOKIE_NAME);
+        Cookie active = perform(node, null, request -> request.getSession().setAttribute("course", "math"))
+                .getCookie(COOKIE_NAME);
+        
+        Thread.sleep(1100);
+        
+        // 過期會話在讀取時即被忽略，定時清理只刪除過期的一個
+        perform(node, expiring, request -> assertThat(request.getSession(false)).isNull());
+        assertThat(store.deleteExpired(System.currentTimeMillis())).isGreaterThanOrEqualTo(1);
+        assertThat(store.load(expiring.getValue())).isNull();
+        assertThat(store.load(active.getValue())).isNotNull();
+        perform(node, active, request -> assertThat(request.getSession(false)).isNotNull());
+    }
+    
+    private Cookie openLoginPage() throws Exception {
+        MvcResult page = mockMvc.perform(get("/login"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Cookie cookie = page.getResponse().getCookie(COOKIE_NAME);
+        assertThat(cookie).isNotNull();
+        return cookie;
+    }
+    
+    private Cookie login() throws Exception {
+        MvcResult login = mockMvc.perform(post("/login").cookie(openLoginPage()).with(csrf())
+                        .param("username", "admin").param("password", "admin123"))
+                .andExpect(redirectedUrl("/dashboard"))
+                .andReturn();
+        return login.getResponse().getCookie(COOKIE_NAME);
+    }
+    
+    private SharedSessionFilter newNode() {
+        return new SharedSessionFilter(store, COOKIE_NAME, TIMEOUT_SECONDS, TOUCH_INTERVAL_MILLIS, false);
+    }
+    
+    private MockHttpServletRequest sessionRequest(Cookie cookie) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/dashboard");
+        if (cookie != null) {
+            request.setCookies(cookie);
+        }
+        return request;
+    }
+    
+    private MockHttpServletResponse perform(SharedSessionFilter node, Cookie cookie, RequestAction action)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (request, res) -> action.run((HttpServletRequest) request);
+        node.doFilter(sessionRequest(cookie), response, chain);
+        return response;
+    }
+    
+    private interface RequestAction {
+        
+        void run(HttpServletRequest request);
+    }
+}